@@ -0,0 +1,339 @@
+package com.example.notifications.benchmark;
+
+import com.example.notifications.admission.SourceAdmission;
+import com.example.notifications.dedup.EventDeduplicator;
+import com.example.notifications.dedup.SeenIdStore;
+import com.example.notifications.entity.FraudRule;
+import com.example.notifications.entity.RuleAction;
+import com.example.notifications.entity.RuleOperator;
+import com.example.notifications.journal.EventJournal;
+import com.example.notifications.lists.NamedListRegistry;
+import com.example.notifications.metrics.PipelineMetrics;
+import com.example.notifications.model.Application;
+import com.example.notifications.routing.ReactionCoalescer;
+import com.example.notifications.routing.ReactionExecutor;
+import com.example.notifications.regex.RegexEngine;
+import com.example.notifications.service.RuleEvaluator;
+import com.example.notifications.velocity.VelocityStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Deterministic rule sets, payloads and Kafka stubs shared by the benchmarks, so that every
+ * scenario runs without a broker or a database.
+ */
+public final class BenchmarkFixtures {
+
+    /**
+     * Which operators the generated rule set uses.
+     */
+    public enum OperatorMix {
+        EQUALITY, NUMERIC, MIXED, REGEX, LISTS,
+        /** Condition trees declared expensive-first, to exercise the adaptive ordering. */
+        COMPOSITE
+    }
+
+    /**
+     * Named list used by IN_NAMED_LIST rules: the fixture country plus filler entries.
+     */
+    public static final String COUNTRY_LIST = "benchmark-countries";
+
+    private static final List<RuleOperator> EQUALITY_OPS = List.of(
+        RuleOperator.EQUALS, RuleOperator.NOT_EQUALS, RuleOperator.IN_LIST);
+    private static final List<RuleOperator> NUMERIC_OPS = List.of(
+        RuleOperator.GREATER_THAN, RuleOperator.LESS_THAN, RuleOperator.GREATER_THAN_OR_EQUALS);
+    private static final List<RuleOperator> MIXED_OPS = List.of(
+        RuleOperator.EQUALS, RuleOperator.NOT_EQUALS, RuleOperator.CONTAINS, RuleOperator.GREATER_THAN,
+        RuleOperator.LESS_THAN, RuleOperator.REGEX, RuleOperator.IN_LIST, RuleOperator.NOT_IN_LIST,
+        RuleOperator.IS_NULL, RuleOperator.IS_NOT_NULL);
+
+    private static final List<RuleOperator> LIST_OPS = List.of(
+        RuleOperator.IN_LIST, RuleOperator.NOT_IN_LIST, RuleOperator.IN_NAMED_LIST, RuleOperator.NOT_IN_NAMED_LIST);
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * Builds an application whose payload has the fields the generated rules look at, plus
+     * {@code fillerFields} unrelated fields and a score nested {@code depth} levels deep.
+     */
+    public static Application application(int fillerFields, int depth) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("id", "APP-1");
+        data.put("type", "credit_card");
+        data.put("source", "partner-a");
+        data.put("amount", 2500);
+        data.put("country", "US");
+
+        Map<String, Object> applicant = new HashMap<>();
+        applicant.put("email", "alice@example.com");
+        applicant.put("deviceId", "dev-42");
+        data.put("applicant", applicant);
+
+        for (int i = 0; i < fillerFields; i++) {
+            data.put("field" + i, "value-" + i);
+        }
+        data.put("n1", nested(depth));
+
+        return new Application("APP-1", "credit_card", "partner-a", data, Instant.now());
+    }
+
+    /**
+     * Field path to the nested score created by {@link #application(int, int)}.
+     */
+    public static String nestedPath(int depth) {
+        StringBuilder path = new StringBuilder("n1");
+        for (int i = 2; i <= depth; i++) {
+            path.append(".n").append(i);
+        }
+        return path.append(".score").toString();
+    }
+
+    private static Map<String, Object> nested(int depth) {
+        Map<String, Object> leaf = new HashMap<>();
+        leaf.put("score", 75);
+        Map<String, Object> current = leaf;
+        for (int level = depth; level > 1; level--) {
+            Map<String, Object> parent = new HashMap<>();
+            parent.put("n" + level, current);
+            current = parent;
+        }
+        return current;
+    }
+
+    /**
+     * Generates {@code count} FLAG rules in priority order, each matching the fixture
+     * application with probability {@code matchRatio}.
+     */
+    public static List<FraudRule> rules(int count, OperatorMix mix, double matchRatio, int depth) {
+        List<RuleOperator> operators = switch (mix) {
+            case EQUALITY -> EQUALITY_OPS;
+            case NUMERIC -> NUMERIC_OPS;
+            case MIXED -> MIXED_OPS;
+            case REGEX -> List.of(RuleOperator.REGEX);
+            case LISTS -> LIST_OPS;
+            case COMPOSITE -> List.of();
+        };
+
+        Random random = new Random(42);
+        List<FraudRule> rules = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            boolean match = random.nextDouble() < matchRatio;
+            rules.add(mix == OperatorMix.COMPOSITE
+                ? compositeRule(i, match)
+                : rule(i, operators.get(i % operators.size()), match, depth));
+        }
+        return rules;
+    }
+
+    private static FraudRule rule(int index, RuleOperator operator, boolean match, int depth) {
+        FraudRule rule = new FraudRule();
+        rule.setId((long) index + 1);
+        rule.setName("rule-" + index);
+        rule.setPriority(index);
+        rule.setOperator(operator);
+        rule.setActionType(RuleAction.FLAG);
+
+        switch (operator) {
+            case EQUALS -> condition(rule, "country", match ? "US" : "FR");
+            case NOT_EQUALS -> condition(rule, "country", match ? "FR" : "US");
+            case CONTAINS -> condition(rule, "applicant.email", match ? "example" : "fraud");
+            case NOT_CONTAINS -> condition(rule, "applicant.email", match ? "fraud" : "example");
+            case GREATER_THAN, GREATER_THAN_OR_EQUALS -> condition(rule, "amount", match ? "1000" : "5000");
+            case LESS_THAN, LESS_THAN_OR_EQUALS -> condition(rule, nestedPath(depth), match ? "100" : "10");
+            case REGEX -> condition(rule, "applicant.email", match ? "^[a-z]+@example\\.com$" : "^[a-z]+@fraud\\.net$");
+            case IN_LIST -> condition(rule, "country", match ? "FR,DE,US,GB" : "FR,DE,NL,GB");
+            case NOT_IN_LIST -> condition(rule, "country", match ? "FR,DE,NL,GB" : "FR,DE,US,GB");
+            case IN_NAMED_LIST -> condition(rule, match ? "country" : "source", COUNTRY_LIST);
+            case NOT_IN_NAMED_LIST -> condition(rule, match ? "source" : "country", COUNTRY_LIST);
+            case IS_NULL -> condition(rule, match ? "applicant.phone" : "applicant.email", "");
+            case IS_NOT_NULL -> condition(rule, match ? "applicant.email" : "applicant.phone", "");
+            case VELOCITY_EXCEEDS -> {
+                condition(rule, "applicant.deviceId", match ? "0" : "1000000");
+                rule.setWindowSeconds(600);
+            }
+        }
+        return rule;
+    }
+
+    private static FraudRule compositeRule(int index, boolean match) {
+        FraudRule rule = new FraudRule();
+        rule.setId((long) index + 1);
+        rule.setName("composite-" + index);
+        rule.setPriority(index);
+        rule.setActionType(RuleAction.FLAG);
+        rule.setConditionTree("""
+            {"all": [
+              {"field": "applicant.email", "op": "REGEX", "value": "^[a-z]+@example\\\\.com$"},
+              {"field": "country", "op": "IN_LIST", "value": "FR,DE,US,GB"},
+              {"field": "country", "op": "EQUALS", "value": "%s"},
+              {"field": "applicant.deviceId", "op": "IS_NOT_NULL"}
+            ]}""".formatted(match ? "US" : "FR"));
+        return rule;
+    }
+
+    private static void condition(FraudRule rule, String fieldPath, String value) {
+        rule.setFieldPath(fieldPath);
+        rule.setValue(value);
+    }
+
+    /**
+     * Builds an event payload for the code-based routing rules with {@code fillerFields}
+     * extra entries.
+     */
+    public static Map<String, Object> eventPayload(String type, int fillerFields) {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("type", type);
+        payload.put("source", "benchmark");
+        payload.put("orderId", "ORD-1");
+        payload.put("amount", 1500);
+        payload.put("paymentId", "PAY-1");
+        payload.put("reason", "Insufficient funds");
+        payload.put("productId", "PROD-1");
+        payload.put("currentStock", 3);
+        for (int i = 0; i < fillerFields; i++) {
+            payload.put("field" + i, "value-" + i);
+        }
+        return payload;
+    }
+
+    /**
+     * Metrics backed by an in-memory registry, as the pipeline records them in production.
+     */
+    public static PipelineMetrics metrics() {
+        return new PipelineMetrics(new SimpleMeterRegistry(), 500);
+    }
+
+    /**
+     * Velocity store with the production bucket layout and an in-memory registry.
+     */
+    public static VelocityStore velocityStore() {
+        return new VelocityStore(120, 31, 64, 3_000_000, new SimpleMeterRegistry());
+    }
+
+    /**
+     * Rule evaluator over {@link #namedLists} with 50k filler entries and the production regex
+     * step budget. Budget events are dropped.
+     */
+    public static RuleEvaluator ruleEvaluator(PipelineMetrics metrics, VelocityStore velocityStore) {
+        return new RuleEvaluator(metrics, velocityStore, namedLists(50_000), new RegexEngine(100_000), event -> { });
+    }
+
+    /**
+     * Named lists in a temporary directory holding {@link #COUNTRY_LIST} with
+     * {@code fillerEntries} extra values.
+     */
+    public static NamedListRegistry namedLists(int fillerEntries) {
+        try {
+            Path directory = Files.createTempDirectory("benchmark-lists");
+            NamedListRegistry registry = new NamedListRegistry(directory);
+            StringBuilder values = new StringBuilder("US\n");
+            for (int i = 0; i < fillerEntries; i++) {
+                values.append("filler-").append(i).append('\n');
+            }
+            registry.upload(COUNTRY_LIST, new ByteArrayInputStream(values.toString().getBytes(StandardCharsets.UTF_8)));
+            return registry;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Seen-id store in a temporary file with the production window and capacity.
+     */
+    public static SeenIdStore seenIdStore() {
+        try {
+            Path file = Files.createTempDirectory("benchmark-dedup").resolve("seen-ids.dat");
+            return new SeenIdStore(file, Duration.ofHours(1), 2_000_000);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Deduplicator over a fresh {@link #seenIdStore()}. Benchmarks that replay one record keep
+     * it disabled so the record is not skipped after the first invocation.
+     */
+    public static EventDeduplicator deduplicator(PipelineMetrics metrics, boolean enabled) {
+        return new EventDeduplicator(seenIdStore(), metrics, enabled);
+    }
+
+    /**
+     * Event journal in a temporary directory with the production segment and block sizes;
+     * disabled, it appends nothing.
+     */
+    public static EventJournal eventJournal(PipelineMetrics metrics, boolean enabled) {
+        try {
+            return new EventJournal(metrics.registry(), enabled, Files.createTempDirectory("benchmark-journal"),
+                DataSize.ofMegabytes(64), DataSize.ofKilobytes(256), Duration.ofDays(7), DataSize.ofGigabytes(10));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reaction executor with Kafka sends stubbed out. Coalescing is off, so a benchmark that
+     * replays one record measures every reaction rather than the hold path.
+     */
+    public static ReactionExecutor reactionExecutor(PipelineMetrics metrics) {
+        return new ReactionExecutor(noopKafkaTemplate(), metrics,
+            new ReactionCoalescer(metrics, false, Duration.ofSeconds(2), 3, 5, "rule,type,userId"));
+    }
+
+    /**
+     * Source admission with spill-over sends stubbed out and the given per-source rate; 0
+     * admits everything.
+     */
+    public static SourceAdmission sourceAdmission(PipelineMetrics metrics, double rate) {
+        return new SourceAdmission(noopKafkaTemplate(), metrics.registry(), rate, 0, 1, List.of(), 100,
+            "applications.deferred", 3, 0, Duration.ofMinutes(5));
+    }
+
+    /**
+     * KafkaTemplate whose sends complete immediately without touching a broker.
+     */
+    public static KafkaTemplate<String, Object> noopKafkaTemplate() {
+        return new NoopKafkaTemplate();
+    }
+
+    private static final class NoopKafkaTemplate extends KafkaTemplate<String, Object> {
+
+        NoopKafkaTemplate() {
+            super(new DefaultKafkaProducerFactory<>(Map.of()));
+        }
+
+        @Override
+        public CompletableFuture<SendResult<String, Object>> send(String topic, Object data) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public CompletableFuture<SendResult<String, Object>> send(String topic, String key, Object data) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public CompletableFuture<SendResult<String, Object>> send(ProducerRecord<String, Object> record) {
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+}
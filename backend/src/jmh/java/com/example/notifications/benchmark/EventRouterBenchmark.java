@@ -0,0 +1,75 @@
+package com.example.notifications.benchmark;
+
+import com.example.notifications.diagnostics.StageLatencyTracker;
+import com.example.notifications.metrics.PipelineMetrics;
+import com.example.notifications.routing.EventRouter;
+import com.example.notifications.routing.ReactionExecutor;
+import com.example.notifications.routing.rules.HighValueOrderRule;
+import com.example.notifications.routing.rules.InventoryLowRule;
+import com.example.notifications.routing.rules.PaymentFailedRule;
+import com.example.notifications.service.FraudDetectionService;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Routes events through the code-based routing rules with Kafka sends stubbed out, with and
+ * without the event journal.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventRouterBenchmark {
+
+    @Param({"order.created", "payment.failed", "inventory.low", "unmatched.type"})
+    public String eventType;
+
+    @Param({"10", "100"})
+    public int payloadFields;
+
+    /** Whether every routed record is also appended to the event journal. */
+    @Param({"false", "true"})
+    public boolean journal;
+
+    private EventRouter router;
+    private ConsumerRecord<String, Map<String, Object>> record;
+
+    @Setup
+    public void setUp() {
+        PipelineMetrics metrics = BenchmarkFixtures.metrics();
+        ReactionExecutor reactionExecutor = BenchmarkFixtures.reactionExecutor(metrics);
+        router = new EventRouter(
+            List.of(new HighValueOrderRule(), new PaymentFailedRule(), new InventoryLowRule()),
+            reactionExecutor,
+            Mockito.mock(FraudDetectionService.class),
+            metrics,
+            new StageLatencyTracker(0),
+            BenchmarkFixtures.deduplicator(metrics, false),
+            BenchmarkFixtures.eventJournal(metrics, journal),
+            BenchmarkFixtures.sourceAdmission(metrics, 0));
+        record = new ConsumerRecord<>("bench.events", 0, 0L, "key",
+            BenchmarkFixtures.eventPayload(eventType, payloadFields));
+    }
+
+    @Benchmark
+    public void routeEvent() {
+        router.routeEvent(record);
+    }
+}
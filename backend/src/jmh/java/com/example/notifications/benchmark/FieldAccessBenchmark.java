@@ -0,0 +1,58 @@
+package com.example.notifications.benchmark;
+
+import com.example.notifications.model.Application;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@link Application#getFieldValue} by payload size and path depth.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FieldAccessBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int payloadFields;
+
+    @Param({"1", "3", "6"})
+    public int nestingDepth;
+
+    private Application application;
+    private String nestedPath;
+
+    @Setup
+    public void setUp() {
+        application = BenchmarkFixtures.application(payloadFields, nestingDepth);
+        nestedPath = BenchmarkFixtures.nestedPath(nestingDepth);
+    }
+
+    @Benchmark
+    public Object topLevelField() {
+        return application.getFieldValue("amount");
+    }
+
+    @Benchmark
+    public Object nestedField() {
+        return application.getFieldValue(nestedPath);
+    }
+
+    @Benchmark
+    public Object missingField() {
+        return application.getFieldValue("applicant.phone");
+    }
+}
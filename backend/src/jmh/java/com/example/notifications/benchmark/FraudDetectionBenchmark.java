@@ -0,0 +1,100 @@
+package com.example.notifications.benchmark;
+
+import com.example.notifications.benchmark.BenchmarkFixtures.OperatorMix;
+import com.example.notifications.entity.FraudRule;
+import com.example.notifications.metrics.PipelineMetrics;
+import com.example.notifications.model.Application;
+import com.example.notifications.repository.AuditLogRepository;
+import com.example.notifications.repository.FraudRuleRepository;
+import com.example.notifications.ruleset.RuleSetCache;
+import com.example.notifications.ruleset.RuleSnapshotFile;
+import com.example.notifications.service.EvaluationStrategy;
+import com.example.notifications.service.FraudDetectionService;
+import com.example.notifications.service.ParallelRuleEvaluator;
+import com.example.notifications.service.RiskScoring;
+import com.example.notifications.service.RuleEvaluator;
+import com.example.notifications.shadow.ShadowEvaluator;
+import com.example.notifications.velocity.VelocityStore;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full {@link FraudDetectionService#processApplication} pass, including action execution
+ * for every matched rule, with the repositories mocked and Kafka sends stubbed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FraudDetectionBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    public int ruleCount;
+
+    @Param({"MIXED"})
+    public OperatorMix operatorMix;
+
+    @Param({"0.0", "0.01", "0.1"})
+    public double matchRatio;
+
+    @Param({"20"})
+    public int payloadFields;
+
+    @Param({"ALL", "FIRST_MATCH"})
+    public EvaluationStrategy strategy;
+
+    /** Minimum rule count for parallel shards; 0 keeps evaluation sequential. */
+    @Param({"0", "1000"})
+    public int parallelMinRules;
+
+    private FraudDetectionService service;
+    private Application application;
+
+    @Setup
+    public void setUp() {
+        List<FraudRule> rules = BenchmarkFixtures.rules(ruleCount, operatorMix, matchRatio, 3);
+        FraudRuleRepository ruleRepository = Mockito.mock(FraudRuleRepository.class);
+        Mockito.when(ruleRepository.findByEnabledTrueOrderByPriorityAsc()).thenReturn(rules);
+
+        PipelineMetrics metrics = BenchmarkFixtures.metrics();
+        VelocityStore velocityStore = BenchmarkFixtures.velocityStore();
+        RuleEvaluator ruleEvaluator = BenchmarkFixtures.ruleEvaluator(metrics, velocityStore);
+        RuleSetCache ruleSetCache = new RuleSetCache(ruleRepository, ruleEvaluator,
+            new RuleSnapshotFile(Path.of("unused"), false), metrics.registry());
+        service = new FraudDetectionService(
+            ruleSetCache,
+            Mockito.mock(AuditLogRepository.class),
+            ruleEvaluator,
+            BenchmarkFixtures.noopKafkaTemplate(),
+            BenchmarkFixtures.reactionExecutor(metrics),
+            metrics,
+            velocityStore,
+            strategy,
+            new RiskScoring(50, 100),
+            new ParallelRuleEvaluator(ruleEvaluator, parallelMinRules, 512, 0, 1.0, metrics.registry()),
+            new ShadowEvaluator(ruleEvaluator, ruleSetCache, BenchmarkFixtures.noopKafkaTemplate(), metrics, 1, 1000,
+                "unused", 0));
+        application = BenchmarkFixtures.application(payloadFields, 3);
+    }
+
+    @Benchmark
+    public void processApplication() {
+        service.processApplication(application);
+    }
+}
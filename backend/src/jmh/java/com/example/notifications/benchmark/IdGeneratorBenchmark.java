@@ -0,0 +1,52 @@
+package com.example.notifications.benchmark;
+
+import com.example.notifications.ids.IdGenerator;
+import com.example.notifications.ids.TimeOrderedIdGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mints ids with the random UUIDs used before ids were pluggable and with the time-ordered
+ * default, on one thread and on eight threads sharing the generator like the consumer threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IdGeneratorBenchmark {
+
+    @Param({"random", "time-ordered"})
+    public String generator;
+
+    private IdGenerator ids;
+
+    @Setup
+    public void setUp() {
+        ids = generator.equals("random") ? IdGenerator.RANDOM : new TimeOrderedIdGenerator(1);
+    }
+
+    @Benchmark
+    public String nextId() {
+        return ids.nextId();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String nextIdContended() {
+        return ids.nextId();
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.notifications.benchmark;
+
+import com.example.notifications.benchmark.BenchmarkFixtures.OperatorMix;
+import com.example.notifications.entity.FraudRule;
+import com.example.notifications.model.Application;
+import com.example.notifications.service.RuleEvaluator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evaluates a whole rule set against one application, the inner loop of
+ * {@code FraudDetectionService.processApplication}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RuleEvaluatorBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    public int ruleCount;
+
+    @Param({"EQUALITY", "NUMERIC", "MIXED", "REGEX", "LISTS", "COMPOSITE"})
+    public OperatorMix operatorMix;
+
+    @Param({"0.0", "0.1", "0.5"})
+    public double matchRatio;
+
+    @Param({"20"})
+    public int payloadFields;
+
+    @Param({"3"})
+    public int nestingDepth;
+
+    private RuleEvaluator evaluator;
+    private List<FraudRule> rules;
+    private Application application;
+
+    @Setup
+    public void setUp() {
+        evaluator = BenchmarkFixtures.ruleEvaluator(BenchmarkFixtures.metrics(), BenchmarkFixtures.velocityStore());
+        rules = BenchmarkFixtures.rules(ruleCount, operatorMix, matchRatio, nestingDepth);
+        application = BenchmarkFixtures.application(payloadFields, nestingDepth);
+    }
+
+    @Benchmark
+    public int evaluateRuleSet() {
+        int matched = 0;
+        for (FraudRule rule : rules) {
+            if (evaluator.evaluate(rule, application)) {
+                matched++;
+            }
+        }
+        return matched;
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.notifications.benchmark;
+
+import com.example.notifications.dedup.SeenIdStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dedup checks against a seen-id store holding one million recent ids: new ids (mostly
+ * answered by the Bloom filter), redelivered ids (confirmed by the exact table) and inserts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SeenIdStoreBenchmark {
+
+    private static final int SEEN = 1_000_000;
+
+    private SeenIdStore store;
+    private long[] seen;
+    private long now;
+    private long next;
+
+    @Setup
+    public void setUp() {
+        store = BenchmarkFixtures.seenIdStore();
+        now = System.currentTimeMillis();
+        seen = new long[SEEN];
+        for (int i = 0; i < SEEN; i++) {
+            seen[i] = SeenIdStore.key("applications.events", "APP-" + i);
+            store.add(seen[i], now);
+        }
+    }
+
+    @Benchmark
+    public boolean containsNew() {
+        return store.contains(SeenIdStore.key("applications.events", "NEW-" + next++), now);
+    }
+
+    @Benchmark
+    public boolean containsRedelivered() {
+        return store.contains(seen[ThreadLocalRandom.current().nextInt(SEEN)], now);
+    }
+
+    @Benchmark
+    public void add() {
+        store.add(SeenIdStore.key("applications.events", "ADD-" + next++), now);
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.notifications.benchmark;
+
+import com.example.notifications.admission.SourceAdmission;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Schedules one poll of 500 applications, 80% of them from a single source, with fraud
+ * detection and the spill-over sends stubbed out. Per-source rate 0 admits everything and only
+ * measures the fair ordering; with a rate, most of the busy source's records are deferred.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SourceAdmissionBenchmark {
+
+    @Param({"0", "1000"})
+    public double rate;
+
+    @Param({"4", "50"})
+    public int sources;
+
+    private SourceAdmission admission;
+    private List<ConsumerRecord<String, Map<String, Object>>> poll;
+
+    @Setup
+    public void setUp() {
+        admission = BenchmarkFixtures.sourceAdmission(BenchmarkFixtures.metrics(), rate);
+        poll = new ArrayList<>(500);
+        for (int i = 0; i < 500; i++) {
+            String source = i % 5 != 0 ? "partner-0" : "partner-" + (1 + i % (sources - 1));
+            poll.add(new ConsumerRecord<>("applications.events", 0, i, "key",
+                Map.of("id", "APP-" + i, "type", "CREDIT_CARD", "source", source)));
+        }
+    }
+
+    @Benchmark
+    public void schedule(Blackhole blackhole) {
+        admission.schedule(poll, blackhole::consume);
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.notifications.benchmark;
+
+import com.example.notifications.velocity.VelocityStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Record and window lookups on a {@link VelocityStore} pre-filled with {@code keyCount}
+ * distinct keys, single-threaded and with four threads contending on the stripes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class VelocityStoreBenchmark {
+
+    @Param({"10000", "1000000", "3000000"})
+    public int keyCount;
+
+    private VelocityStore store;
+    private long[] keys;
+    private long now;
+
+    @Setup
+    public void setUp() {
+        store = BenchmarkFixtures.velocityStore();
+        now = System.currentTimeMillis();
+        keys = new long[keyCount];
+        for (int i = 0; i < keyCount; i++) {
+            keys[i] = VelocityStore.key("applicant.email", "user" + i + "@example.com");
+            store.record(keys[i], now - (i % 1800) * 1000L);
+        }
+    }
+
+    @Benchmark
+    public void record() {
+        store.record(keys[ThreadLocalRandom.current().nextInt(keyCount)], now);
+    }
+
+    @Benchmark
+    public long count() {
+        return store.count(keys[ThreadLocalRandom.current().nextInt(keyCount)], 600_000, now);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long countContended() {
+        return store.count(keys[ThreadLocalRandom.current().nextInt(keyCount)], 600_000, now);
+    }
+}
@@ -1,5 +1,8 @@
 package com.example.notifications;
 
+import com.example.notifications.backtest.BacktestCli;
+import com.example.notifications.journal.JournalCli;
+import com.example.notifications.loadgen.LoadGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.kafka.clients.producer.KafkaProducer;
 import org.apache.kafka.clients.producer.ProducerConfig;
@@ -7,6 +10,7 @@ import org.apache.kafka.clients.producer.ProducerRecord;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.kafka.support.serializer.JsonSerializer;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Properties;
@@ -21,10 +25,27 @@ import java.util.UUID;
  *   java EventProducerCli orders.events order.created '{"orderId":"123","amount":1500}'
  *   java EventProducerCli payments.events payment.failed '{"paymentId":"456","reason":"Insufficient funds"}'
  *   java EventProducerCli inventory.events inventory.low '{"productId":"789","productName":"Widget","currentStock":5}'
+ *
+ * Load mode: java EventProducerCli load [options] - see {@link LoadGenerator}.
+ * Backtest mode: java EventProducerCli backtest [options] - see {@link BacktestCli}.
+ * Journal mode: java EventProducerCli journal read|replay [options] - see {@link JournalCli}.
  */
 public class EventProducerCli {
 
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("load")) {
+            LoadGenerator.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("backtest")) {
+            BacktestCli.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("journal")) {
+            JournalCli.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+
         if (args.length < 2) {
             printUsage();
             System.exit(1);
@@ -82,6 +103,9 @@ public class EventProducerCli {
 
     private static void printUsage() {
         System.out.println("Usage: java EventProducerCli <topic> <event-type> [json-payload]");
+        System.out.println("       java EventProducerCli load [options]   (run with 'load --help' for options)");
+        System.out.println("       java EventProducerCli backtest [options]   (run with 'backtest --help' for options)");
+        System.out.println("       java EventProducerCli journal <read|replay> [options]   (run with 'journal --help' for options)");
         System.out.println();
         System.out.println("Examples:");
         System.out.println("  # High-value order (triggers HighValueOrderRule)");
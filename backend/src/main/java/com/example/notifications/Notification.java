@@ -1,22 +1,36 @@
 package com.example.notifications;
 
+import com.example.notifications.ids.Ids;
+
 import java.time.Instant;
-import java.util.UUID;
+import java.util.List;
 
+/**
+ * @param digest set when this notification stands for several coalesced ones, null otherwise
+ */
 public record Notification(
     String id,
     String userId,
     String type,
     String message,
-    Instant timestamp
+    Instant timestamp,
+    Digest digest
 ) {
     public static Notification create(String userId, String type, String message) {
         return new Notification(
-            UUID.randomUUID().toString(),
+            Ids.next(),
             userId,
             type,
             message,
-            Instant.now()
+            Instant.now(),
+            null
         );
     }
+
+    /**
+     * How many notifications a digest replaces, over which window, and the messages of the
+     * first few.
+     */
+    public record Digest(int count, Instant from, Instant to, List<String> sample) {
+    }
 }
@@ -0,0 +1,350 @@
+package com.example.notifications.admission;
+
+import com.example.notifications.dedup.EventDeduplicator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Per-source admission in front of fraud detection, so a flood from one {@code sourceSystem}
+ * cannot starve the others.
+ *
+ * Each poll of {@code applications.events} is scheduled as a batch. Every record takes a token
+ * from its source's bucket ({@code fraud.admission.sources}, else the default rate and burst).
+ * Records without a token are not processed inline but forwarded to
+ * {@code fraud.admission.spill-topic}, where a separate consumer works through them at no more
+ * than {@code fraud.admission.spill-rate} per second. Admitted records are processed in
+ * weighted fair queuing order: each source's records are spaced 1/weight apart in virtual time,
+ * so a source with many records in the poll cannot delay the others' until their share is used.
+ *
+ * A poll is only acknowledged once every record in it was processed or forwarded. If one fails,
+ * the records before it in the poll are finished first, so the error handler can commit up to
+ * the failed record and redeliver the rest. Records processed out of poll order are then
+ * skipped as duplicates.
+ */
+@Component
+public class SourceAdmission {
+
+    private static final Logger log = LoggerFactory.getLogger(SourceAdmission.class);
+
+    static final String OTHER = "other";
+    private static final int MAX_POLL_RECORDS = 500;
+
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final MeterRegistry registry;
+    private final String spillTopic;
+    private final int spillPartitions;
+    private final double spillRate;
+    private final long spillIntervalNanos;
+    private final Duration spillMaxPollInterval;
+    private final int maxSources;
+    private final Limit defaultLimit;
+    private final Map<String, Limit> limits = new HashMap<>();
+    private final Map<String, Source> sources = new ConcurrentHashMap<>();
+    private long nextSpillNanos;
+
+    /**
+     * Rate in records per second (0 = unlimited), bucket size and fair-queuing weight.
+     */
+    record Limit(double rate, double burst, double weight) {
+    }
+
+    public SourceAdmission(
+            KafkaTemplate<String, Object> kafkaTemplate,
+            MeterRegistry registry,
+            @Value("${fraud.admission.default-rate:0}") double defaultRate,
+            @Value("${fraud.admission.default-burst:0}") double defaultBurst,
+            @Value("${fraud.admission.default-weight:1}") double defaultWeight,
+            @Value("${fraud.admission.sources:}") List<String> sourceLimits,
+            @Value("${fraud.admission.max-sources:100}") int maxSources,
+            @Value("${fraud.admission.spill-topic:applications.deferred}") String spillTopic,
+            @Value("${fraud.admission.spill-partitions:3}") int spillPartitions,
+            @Value("${fraud.admission.spill-rate:100}") double spillRate,
+            @Value("${fraud.admission.spill-max-poll-interval:5m}") Duration spillMaxPollInterval) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.registry = registry;
+        this.spillTopic = spillTopic;
+        this.spillPartitions = spillPartitions;
+        if (spillRate < 0 || (spillRate > 0 && spillRate * spillMaxPollInterval.toMillis() / 1000 < 2)) {
+            throw new IllegalArgumentException("fraud.admission.spill-rate must be 0 or allow at least two records per "
+                + "fraud.admission.spill-max-poll-interval, not " + spillRate + " per second over " + spillMaxPollInterval);
+        }
+        this.spillRate = spillRate;
+        this.spillIntervalNanos = spillRate > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / spillRate) : 0;
+        this.spillMaxPollInterval = spillMaxPollInterval;
+        this.maxSources = maxSources;
+        this.defaultLimit = limit(defaultRate, defaultBurst, defaultWeight);
+        for (String entry : sourceLimits) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 4) {
+                throw new IllegalArgumentException(
+                    "fraud.admission.sources entries are source:rate:burst:weight, not " + entry);
+            }
+            limits.put(parts[0], limit(Double.parseDouble(parts[1]), Double.parseDouble(parts[2]),
+                Double.parseDouble(parts[3])));
+        }
+        log.info("Source admission: default {}, per source {}, spill-over to {}", defaultLimit, limits, spillTopic);
+    }
+
+    private static Limit limit(double rate, double burst, double weight) {
+        if (rate < 0 || burst < 0 || weight <= 0) {
+            throw new IllegalArgumentException("fraud.admission rates and bursts must be >= 0 and weights > 0");
+        }
+        return new Limit(rate, burst > 0 ? burst : Math.max(1, rate), weight);
+    }
+
+    @Bean
+    NewTopic applicationSpillTopic() {
+        return TopicBuilder.name(spillTopic).partitions(spillPartitions).build();
+    }
+
+    public String spillTopic() {
+        return spillTopic;
+    }
+
+    /**
+     * {@code max.poll.records} of the spill-over consumer: as many records as it can take at
+     * {@code fraud.admission.spill-rate} in half of {@link #spillMaxPollIntervalMillis()}, so
+     * pacing one poll never outlasts the poll interval and costs it its partitions.
+     */
+    public int spillMaxPollRecords() {
+        if (spillRate == 0) {
+            return MAX_POLL_RECORDS;
+        }
+        return (int) Math.max(1, Math.min(MAX_POLL_RECORDS, spillRate * spillMaxPollInterval.toMillis() / 2000));
+    }
+
+    /**
+     * {@code max.poll.interval.ms} of the spill-over consumer.
+     */
+    public long spillMaxPollIntervalMillis() {
+        return spillMaxPollInterval.toMillis();
+    }
+
+    /**
+     * Processes or forwards every record of one poll; see the class description.
+     *
+     * @throws BatchListenerFailedException naming the first record that was neither processed
+     *                                      nor forwarded
+     */
+    public void schedule(List<ConsumerRecord<String, Map<String, Object>>> records,
+                         Consumer<ConsumerRecord<String, Map<String, Object>>> processor) {
+        long now = System.nanoTime();
+        int count = records.size();
+        boolean[] done = new boolean[count];
+        FairQueue queue = new FairQueue();
+        List<Integer> deferred = new ArrayList<>();
+        List<CompletableFuture<?>> sends = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ConsumerRecord<String, Map<String, Object>> record = records.get(i);
+            Source source = source(record.value());
+            if (source.tryAcquire(now)) {
+                source.admitted.increment();
+                source.queued.incrementAndGet();
+                queue.add(source, i);
+            } else {
+                source.deferred.increment();
+                deferred.add(i);
+                sends.add(defer(record));
+            }
+        }
+
+        RuntimeException failure = null;
+        int failedIndex = count;
+        for (FairQueue.Entry entry; (entry = queue.poll()) != null; ) {
+            entry.source.queued.decrementAndGet();
+            if (failure != null) {
+                continue;
+            }
+            try {
+                processor.accept(records.get(entry.index));
+                done[entry.index] = true;
+            } catch (RuntimeException e) {
+                failure = e;
+                failedIndex = entry.index;
+            }
+        }
+        for (int i = 0; i < sends.size(); i++) {
+            int index = deferred.get(i);
+            try {
+                sends.get(i).join();
+                done[index] = true;
+            } catch (CompletionException | CancellationException e) {
+                if (index < failedIndex) {
+                    failure = e;
+                    failedIndex = index;
+                }
+            }
+        }
+        if (failure == null) {
+            return;
+        }
+        // The error handler commits everything before the failed record, so finish those first.
+        for (int i = 0; i < failedIndex; i++) {
+            if (!done[i]) {
+                try {
+                    processor.accept(records.get(i));
+                } catch (RuntimeException e) {
+                    failure = e;
+                    failedIndex = i;
+                    break;
+                }
+            }
+        }
+        throw new BatchListenerFailedException("Application record failed: " + failure.getMessage(), failure,
+            failedIndex);
+    }
+
+    /**
+     * Forwards {@code record} to the spill-over topic with its original timestamp, so its queue
+     * wait still counts from when it was first published, and its original position, so it is
+     * deduplicated against redeliveries of the original.
+     */
+    private CompletableFuture<?> defer(ConsumerRecord<String, Map<String, Object>> record) {
+        Long timestamp = record.timestamp() >= 0 ? record.timestamp() : null;
+        try {
+            return kafkaTemplate.send(new ProducerRecord<>(spillTopic, null, timestamp, record.key(), record.value(),
+                EventDeduplicator.originHeaders(record)));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Waits for the spill-over consumer's next slot under {@code fraud.admission.spill-rate}.
+     */
+    public void awaitSpillSlot() {
+        if (spillIntervalNanos == 0) {
+            return;
+        }
+        long wait;
+        synchronized (this) {
+            long now = System.nanoTime();
+            long slot = Math.max(now, nextSpillNanos);
+            nextSpillNanos = slot + spillIntervalNanos;
+            wait = slot - now;
+        }
+        if (wait > 0) {
+            LockSupport.parkNanos(wait);
+        }
+    }
+
+    private Source source(Map<String, Object> payload) {
+        Object value = payload != null ? payload.get("source") : null;
+        String name = value != null ? value.toString() : "unknown";
+        Source source = sources.get(name);
+        if (source != null) {
+            return source;
+        }
+        if (!limits.containsKey(name) && sources.size() >= maxSources) {
+            // Unconfigured sources beyond the cap share one bucket and one set of series.
+            name = OTHER;
+        }
+        return sources.computeIfAbsent(name, n -> new Source(n, limits.getOrDefault(n, defaultLimit), registry));
+    }
+
+    /**
+     * Token bucket and meters of one source.
+     */
+    private static final class Source {
+
+        private final Limit limit;
+        private final Counter admitted;
+        private final Counter deferred;
+        private final AtomicInteger queued = new AtomicInteger();
+        private double tokens;
+        private long refilledAt;
+
+        Source(String name, Limit limit, MeterRegistry registry) {
+            this.limit = limit;
+            this.tokens = limit.burst();
+            this.refilledAt = System.nanoTime();
+            this.admitted = Counter.builder("fraud.admission.admitted")
+                .description("Applications admitted for inline processing")
+                .tag("source", name)
+                .register(registry);
+            this.deferred = Counter.builder("fraud.admission.deferred")
+                .description("Applications over their source's rate, forwarded to the spill-over topic")
+                .tag("source", name)
+                .register(registry);
+            Gauge.builder("fraud.admission.queued", queued, AtomicInteger::get)
+                .description("Admitted applications of the current poll waiting for their fair-queuing turn")
+                .tag("source", name)
+                .register(registry);
+        }
+
+        synchronized boolean tryAcquire(long now) {
+            if (limit.rate() == 0) {
+                return true;
+            }
+            if (now > refilledAt) {
+                tokens = Math.min(limit.burst(), tokens + (now - refilledAt) * limit.rate() / 1e9);
+                refilledAt = now;
+            }
+            if (tokens < 1) {
+                return false;
+            }
+            tokens -= 1;
+            return true;
+        }
+    }
+
+    /**
+     * Weighted fair queue over the admitted records of one poll: a record's finish tag is its
+     * source's previous tag (or the current virtual time, if later) plus 1/weight, and records
+     * leave in tag order, ties in poll order.
+     */
+    private static final class FairQueue {
+
+        record Entry(Source source, int index, double finish) {
+        }
+
+        private final PriorityQueue<Entry> entries = new PriorityQueue<>((a, b) -> a.finish != b.finish
+            ? Double.compare(a.finish, b.finish) : Integer.compare(a.index, b.index));
+        private final Map<Source, Double> lastFinish = new HashMap<>();
+        private double virtualTime;
+
+        void add(Source source, int index) {
+            double finish = Math.max(virtualTime, lastFinish.getOrDefault(source, 0.0)) + 1 / source.limit.weight();
+            lastFinish.put(source, finish);
+            entries.add(new Entry(source, index, finish));
+        }
+
+        Entry poll() {
+            Entry entry = entries.poll();
+            if (entry != null) {
+                virtualTime = entry.finish;
+            }
+            return entry;
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.example.notifications.backtest;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.example.notifications.entity.FraudRule;
+import com.example.notifications.lists.NamedListRegistry;
+import com.example.notifications.regex.RegexEngine;
+import com.example.notifications.ruleset.RuleValidator;
+import com.example.notifications.service.EvaluationStrategy;
+import com.example.notifications.service.RiskScoring;
+import com.example.notifications.service.RuleEvaluator;
+import com.example.notifications.velocity.VelocityStore;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs a backtest outside the service, on all cores of the machine it runs on, and prints the
+ * {@link BacktestReport} as JSON.
+ *
+ * Usage: java EventProducerCli backtest --input apps.ndjson.gz --rules candidate.json [options]
+ */
+public class BacktestCli {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+        .registerModule(new JavaTimeModule())
+        .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+        .enable(SerializationFeature.INDENT_OUTPUT);
+
+    public static void main(String[] args) {
+        if (args.length == 0 || args[0].equals("--help") || args[0].equals("-h")) {
+            printUsage();
+            return;
+        }
+        try {
+            run(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            printUsage();
+            System.exit(1);
+        } catch (Exception e) {
+            System.err.println("Error: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static void run(String[] args) throws Exception {
+        Path input = null;
+        Path rulesFile = null;
+        String currentSource = null;
+        boolean replace = false;
+        EvaluationStrategy strategy = EvaluationStrategy.ALL;
+        String timeField = "receivedAt";
+        int threads = 0;
+        Path listsDir = Path.of("./data/lists");
+        double flagThreshold = 50;
+        double blockThreshold = 100;
+        long velocityMaxKeys = 1_000_000;
+        Path output = null;
+
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("--replace")) {
+                replace = true;
+                continue;
+            }
+            String value = i + 1 < args.length ? args[++i] : null;
+            if (value == null) {
+                throw new IllegalArgumentException("Missing value for option " + arg);
+            }
+            switch (arg) {
+                case "--input" -> input = Path.of(value);
+                case "--rules" -> rulesFile = Path.of(value);
+                case "--current" -> currentSource = value;
+                case "--strategy" -> strategy = EvaluationStrategy.valueOf(value.toUpperCase());
+                case "--time-field" -> timeField = value;
+                case "--threads" -> threads = Integer.parseInt(value);
+                case "--lists-dir" -> listsDir = Path.of(value);
+                case "--flag-threshold" -> flagThreshold = Double.parseDouble(value);
+                case "--block-threshold" -> blockThreshold = Double.parseDouble(value);
+                case "--velocity-max-keys" -> velocityMaxKeys = Long.parseLong(value);
+                case "--output" -> output = Path.of(value);
+                default -> throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+        }
+        if (input == null || rulesFile == null) {
+            throw new IllegalArgumentException("--input and --rules are required");
+        }
+
+        // Rules that error on a record (a missing field, a bad number) log once per record.
+        ((Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.INFO);
+        ((Logger) LoggerFactory.getLogger(RuleEvaluator.class)).setLevel(Level.ERROR);
+
+        NamedListRegistry namedLists = new NamedListRegistry(listsDir);
+        RegexEngine regexEngine = new RegexEngine(100_000);
+        VelocityStore velocityStore = new VelocityStore(120, 31, 64, velocityMaxKeys, new SimpleMeterRegistry());
+        RuleValidator validator = new RuleValidator(namedLists, velocityStore, regexEngine);
+
+        List<FraudRule> proposed = readRules(Files.newInputStream(rulesFile));
+        for (FraudRule rule : proposed) {
+            if (rule.isEnabled()) {
+                try {
+                    validator.validate(rule);
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Rule '" + rule.getName() + "': " + e.getMessage());
+                }
+            }
+        }
+        List<FraudRule> current = currentSource == null ? List.of()
+            : readRules(currentSource).stream().filter(FraudRule::isEnabled).toList();
+        List<FraudRule> candidate = Backtester.candidateRules(current, proposed, replace);
+
+        Backtester backtester = new Backtester(namedLists, regexEngine, velocityStore,
+            new RiskScoring(flagThreshold, blockThreshold), threads, velocityMaxKeys);
+        System.err.printf("Backtest of %s: %d current and %d candidate rules, strategy %s, %d threads%n",
+            input, current.size(), candidate.size(), strategy, backtester.threads());
+
+        Backtester.Progress progress = new Backtester.Progress();
+        long size = Files.size(input);
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "backtest-reporter");
+            t.setDaemon(true);
+            return t;
+        });
+        reporter.scheduleAtFixedRate(() -> System.err.printf("  %,d applications, %.1f%% of input%n",
+            progress.records(), size > 0 ? 100.0 * progress.bytesRead() / size : 0), 10, 10, TimeUnit.SECONDS);
+        BacktestReport report;
+        try {
+            report = backtester.run(current, candidate, input, strategy, timeField, progress);
+        } finally {
+            reporter.shutdownNow();
+        }
+
+        if (output != null) {
+            MAPPER.writeValue(output.toFile(), report);
+            System.err.printf("%,d applications in %d ms (%,d/s), %,d decisions changed; report written to %s%n",
+                report.records(), report.elapsedMillis(), report.recordsPerSecond(), report.changedDecisions(), output);
+        } else {
+            System.out.println(MAPPER.writeValueAsString(report));
+        }
+    }
+
+    /**
+     * Rules from a JSON array file, or from {@code GET /api/rules} of a running service.
+     */
+    private static List<FraudRule> readRules(String source) throws IOException, InterruptedException {
+        if (!source.startsWith("http://") && !source.startsWith("https://")) {
+            return readRules(Files.newInputStream(Path.of(source)));
+        }
+        URI uri = URI.create(source.replaceAll("/+$", "") + "/api/rules");
+        HttpResponse<InputStream> response = HttpClient.newHttpClient()
+            .send(HttpRequest.newBuilder(uri).GET().build(), HttpResponse.BodyHandlers.ofInputStream());
+        if (response.statusCode() != 200) {
+            throw new IOException("GET " + uri + " returned " + response.statusCode());
+        }
+        return readRules(response.body());
+    }
+
+    private static List<FraudRule> readRules(InputStream in) throws IOException {
+        try (in) {
+            return MAPPER.readValue(in, new TypeReference<List<FraudRule>>() { });
+        }
+    }
+
+    public static void printUsage() {
+        System.out.println("Usage: java EventProducerCli backtest --input <file> --rules <file.json> [options]");
+        System.out.println();
+        System.out.println("Options:");
+        System.out.println("  --input <apps.ndjson[.gz]>   Recorded application payloads, one per line (required)");
+        System.out.println("  --rules <candidate.json>     JSON array of proposed rules (required)");
+        System.out.println("  --current <rules.json|url>   Current rules: a JSON array, or a service URL to read");
+        System.out.println("                               /api/rules from (default: none)");
+        System.out.println("  --replace                    Evaluate only the proposed rules, not laid over the current ones");
+        System.out.println("  --strategy <ALL|FIRST_MATCH|STOP_ON_BLOCK>  Evaluation strategy (default ALL)");
+        System.out.println("  --time-field <path>          Payload field with the receive time (default receivedAt)");
+        System.out.println("  --threads <n>                Evaluation threads, 0 = all cores (default 0)");
+        System.out.println("  --lists-dir <dir>            Named list files (default ./data/lists)");
+        System.out.println("  --flag-threshold <score>     Risk score that flags (default 50)");
+        System.out.println("  --block-threshold <score>    Risk score that blocks (default 100)");
+        System.out.println("  --velocity-max-keys <n>      Velocity keys per rule set (default 1000000)");
+        System.out.println("  --output <report.json>       Write the report here instead of stdout");
+        System.out.println();
+        System.out.println("Examples:");
+        System.out.println("  java EventProducerCli backtest --input march.ndjson.gz --rules new-rule.json --current http://localhost:8081");
+        System.out.println("  java EventProducerCli backtest --input march.ndjson.gz --rules all-rules.json --replace --output report.json");
+    }
+}
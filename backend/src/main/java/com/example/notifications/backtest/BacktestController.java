@@ -0,0 +1,114 @@
+package com.example.notifications.backtest;
+
+import com.example.notifications.backtest.BacktestService.BacktestRequest;
+import com.example.notifications.backtest.BacktestService.Job;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/backtests")
+@CrossOrigin(origins = "http://localhost:5173")
+public class BacktestController {
+
+    private final BacktestService backtestService;
+
+    public BacktestController(BacktestService backtestService) {
+        this.backtestService = backtestService;
+    }
+
+    /**
+     * Queues a backtest; poll {@code GET /api/backtests/{id}} for progress and the report.
+     */
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> submit(@RequestBody BacktestRequest request) {
+        try {
+            return ResponseEntity.accepted().body(describe(backtestService.submit(request), false));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    @GetMapping
+    public List<Map<String, Object>> getJobs() {
+        return backtestService.jobs().stream().map(job -> describe(job, false)).toList();
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<Map<String, Object>> getJob(@PathVariable String id) {
+        return backtestService.job(id)
+            .map(job -> ResponseEntity.ok(describe(job, true)))
+            .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Cancels a queued or running backtest; a running one reports the applications counted so far.
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Map<String, Object>> cancel(@PathVariable String id) {
+        return backtestService.job(id)
+            .map(job -> {
+                job.cancel();
+                return ResponseEntity.ok(describe(job, false));
+            })
+            .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/files")
+    public List<Map<String, Object>> getFiles() throws IOException {
+        return backtestService.files().stream().map(this::describe).toList();
+    }
+
+    /**
+     * Stores the request body, NDJSON or gzipped NDJSON, as a backtest input file.
+     */
+    @PutMapping("/files/{name}")
+    public Map<String, Object> uploadFile(@PathVariable String name, HttpServletRequest request) throws IOException {
+        try (InputStream body = request.getInputStream()) {
+            return describe(backtestService.store(name, body));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    private Map<String, Object> describe(Path file) {
+        Map<String, Object> info = new LinkedHashMap<>();
+        info.put("name", file.getFileName().toString());
+        try {
+            info.put("bytes", Files.size(file));
+            info.put("modifiedAt", Files.getLastModifiedTime(file).toInstant().toString());
+        } catch (IOException e) {
+            info.put("error", e.getMessage());
+        }
+        return info;
+    }
+
+    private Map<String, Object> describe(Job job, boolean withReport) {
+        Map<String, Object> info = new LinkedHashMap<>();
+        info.put("id", job.id());
+        info.put("file", job.file());
+        info.put("state", job.state());
+        info.put("submittedAt", job.submittedAt().toString());
+        info.put("startedAt", job.startedAt() != null ? job.startedAt().toString() : null);
+        info.put("finishedAt", job.finishedAt() != null ? job.finishedAt().toString() : null);
+        info.put("records", job.records());
+        info.put("progress", job.fileSize() > 0 ? Math.min(1.0, job.bytesRead() / (double) job.fileSize()) : null);
+        if (job.error() != null) {
+            info.put("error", job.error());
+        }
+        if (withReport && job.report() != null) {
+            info.put("report", job.report());
+        }
+        return info;
+    }
+}
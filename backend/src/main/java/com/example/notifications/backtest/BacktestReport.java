@@ -0,0 +1,72 @@
+package com.example.notifications.backtest;
+
+import com.example.notifications.service.EvaluationStrategy;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * What the current and the candidate rule set decided for the same recorded applications.
+ *
+ * @param input            file name of the replayed applications
+ * @param complete         false if the run was cancelled and the counts cover part of the file
+ * @param records          applications evaluated
+ * @param unreadable       lines that were not an application payload
+ * @param currentOutcomes  applications per final action of the current rules, CLEAN for none
+ * @param candidateOutcomes applications per final action of the candidate rules
+ * @param changedDecisions applications whose final action differs between the two
+ * @param transitions      changed decisions by "current->candidate" final action
+ * @param changedSamples   the first changed decisions found
+ * @param rules            every candidate rule, then every current rule the candidate removes
+ */
+public record BacktestReport(
+    String input,
+    boolean complete,
+    long records,
+    long unreadable,
+    long elapsedMillis,
+    long recordsPerSecond,
+    EvaluationStrategy strategy,
+    int threads,
+    int currentRules,
+    int candidateRules,
+    Map<String, Long> currentOutcomes,
+    Map<String, Long> candidateOutcomes,
+    long changedDecisions,
+    Map<String, Long> transitions,
+    List<ChangedDecision> changedSamples,
+    List<RuleResult> rules
+) {
+
+    public enum RuleChange { NEW, CHANGED, UNCHANGED, REMOVED }
+
+    /**
+     * @param currentHits            applications the rule matched in the current rule set
+     * @param candidateHits          applications the rule matched in the candidate rule set
+     * @param candidateHitRate       candidate hits per evaluated application
+     * @param alreadyMatchedByCurrent candidate hits that some current rule also matched
+     * @param exclusiveHits          candidate hits no other candidate rule matched
+     * @param regexAborts            matches aborted by the regex step budget
+     * @param topOverlaps            for new and changed rules, the current rules most often
+     *                               matching the same applications
+     */
+    public record RuleResult(
+        Long ruleId,
+        String name,
+        RuleChange change,
+        long currentHits,
+        long candidateHits,
+        double candidateHitRate,
+        long alreadyMatchedByCurrent,
+        long exclusiveHits,
+        long regexAborts,
+        List<Overlap> topOverlaps
+    ) {
+    }
+
+    public record Overlap(Long ruleId, String name, long applications) {
+    }
+
+    public record ChangedDecision(String applicationId, String current, String candidate, List<Long> candidateRuleIds) {
+    }
+}
@@ -0,0 +1,248 @@
+package com.example.notifications.backtest;
+
+import com.example.notifications.entity.FraudRule;
+import com.example.notifications.ids.Ids;
+import com.example.notifications.lists.NamedListRegistry;
+import com.example.notifications.regex.RegexEngine;
+import com.example.notifications.ruleset.RuleSetCache;
+import com.example.notifications.ruleset.RuleValidator;
+import com.example.notifications.service.EvaluationStrategy;
+import com.example.notifications.service.RiskScoring;
+import com.example.notifications.velocity.VelocityStore;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Pattern;
+
+/**
+ * Runs backtests of candidate rule sets against NDJSON files in {@code fraud.backtest.dir},
+ * one at a time on a background thread, and keeps the last {@value #MAX_JOBS} jobs.
+ */
+@Service
+public class BacktestService {
+
+    private static final Logger log = LoggerFactory.getLogger(BacktestService.class);
+
+    private static final int MAX_JOBS = 20;
+    private static final Pattern FILE_NAME = Pattern.compile("[A-Za-z0-9][A-Za-z0-9._-]*");
+
+    public enum State { QUEUED, RUNNING, DONE, FAILED, CANCELLED }
+
+    /**
+     * @param file      name of an NDJSON or gzipped NDJSON file in {@code fraud.backtest.dir}
+     * @param rules     proposed rules; see {@link Backtester#candidateRules}
+     * @param replace   evaluate only the proposed rules instead of laying them over the current ones
+     * @param strategy  evaluation strategy for both sides, default ALL so every rule is counted
+     * @param timeField payload field with the original receive time, default receivedAt
+     */
+    public record BacktestRequest(String file, List<FraudRule> rules, boolean replace,
+                                  EvaluationStrategy strategy, String timeField) {
+    }
+
+    private final RuleSetCache ruleSetCache;
+    private final RuleValidator ruleValidator;
+    private final Backtester backtester;
+    private final Path directory;
+    private final ExecutorService runner = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "backtest-runner");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Map<String, Job> jobs = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Job> eldest) {
+            return size() > MAX_JOBS;
+        }
+    };
+
+    public BacktestService(
+            RuleSetCache ruleSetCache,
+            RuleValidator ruleValidator,
+            NamedListRegistry namedLists,
+            RegexEngine regexEngine,
+            VelocityStore velocityStore,
+            RiskScoring riskScoring,
+            @Value("${fraud.backtest.dir:./data/backtests}") Path directory,
+            @Value("${fraud.backtest.threads:0}") int threads,
+            @Value("${fraud.backtest.velocity-max-keys:1000000}") long velocityMaxKeys) throws IOException {
+        this.ruleSetCache = ruleSetCache;
+        this.ruleValidator = ruleValidator;
+        this.backtester = new Backtester(namedLists, regexEngine, velocityStore, riskScoring, threads, velocityMaxKeys);
+        this.directory = directory.toAbsolutePath().normalize();
+        Files.createDirectories(this.directory);
+    }
+
+    /**
+     * Validates the proposed rules against the current rule set and queues the run.
+     *
+     * @throws IllegalArgumentException if a rule or the file is invalid
+     */
+    public Job submit(BacktestRequest request) {
+        if (request.rules() == null || request.rules().isEmpty()) {
+            throw new IllegalArgumentException("A backtest needs at least one proposed rule");
+        }
+        Path input = resolve(request.file());
+        if (!Files.isRegularFile(input)) {
+            throw new IllegalArgumentException("No backtest file '" + request.file() + "'; upload it to /api/backtests/files first");
+        }
+        for (FraudRule rule : request.rules()) {
+            if (rule.isEnabled()) {
+                ruleValidator.validate(rule);
+            }
+        }
+        List<FraudRule> current = ruleSetCache.current().rules();
+        List<FraudRule> candidate = Backtester.candidateRules(current, request.rules(), request.replace());
+        EvaluationStrategy strategy = request.strategy() != null ? request.strategy() : EvaluationStrategy.ALL;
+        String timeField = request.timeField() != null ? request.timeField() : "receivedAt";
+
+        Job job = new Job(Ids.next(), request.file(), input);
+        synchronized (jobs) {
+            jobs.put(job.id, job);
+        }
+        runner.execute(() -> run(job, current, candidate, strategy, timeField));
+        return job;
+    }
+
+    private void run(Job job, List<FraudRule> current, List<FraudRule> candidate,
+                     EvaluationStrategy strategy, String timeField) {
+        if (job.progress.cancelled()) {
+            job.finish(State.CANCELLED, null, null);
+            return;
+        }
+        job.state = State.RUNNING;
+        job.startedAt = Instant.now();
+        log.info("Backtest {} started: {} ({} bytes), {} current and {} candidate rules, {} threads",
+            job.id, job.file, job.fileSize, current.size(), candidate.size(), backtester.threads());
+        try {
+            BacktestReport report = backtester.run(current, candidate, job.input, strategy, timeField, job.progress);
+            job.finish(report.complete() ? State.DONE : State.CANCELLED, report, null);
+            log.info("Backtest {} {}: {} applications in {} ms ({}/s), {} decisions changed",
+                job.id, job.state, report.records(), report.elapsedMillis(), report.recordsPerSecond(),
+                report.changedDecisions());
+        } catch (IOException | RuntimeException e) {
+            job.finish(State.FAILED, null, e.getMessage());
+            log.warn("Backtest {} failed: {}", job.id, e.getMessage());
+        }
+    }
+
+    public Optional<Job> job(String id) {
+        synchronized (jobs) {
+            return Optional.ofNullable(jobs.get(id));
+        }
+    }
+
+    public List<Job> jobs() {
+        synchronized (jobs) {
+            return new ArrayList<>(jobs.values());
+        }
+    }
+
+    /**
+     * Stores an uploaded application file, replacing any file of the same name.
+     */
+    public Path store(String name, InputStream content) throws IOException {
+        Path target = resolve(name);
+        Path tmp = Files.createTempFile(directory, "." + name, ".tmp");
+        try {
+            Files.copy(content, tmp, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        return target;
+    }
+
+    public List<Path> files() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory,
+                p -> Files.isRegularFile(p) && FILE_NAME.matcher(p.getFileName().toString()).matches())) {
+            entries.forEach(files::add);
+        }
+        files.sort(null);
+        return files;
+    }
+
+    private Path resolve(String name) {
+        if (name == null || !FILE_NAME.matcher(name).matches()) {
+            throw new IllegalArgumentException("Backtest file names use letters, digits, '.', '_' and '-'");
+        }
+        return directory.resolve(name);
+    }
+
+    @PreDestroy
+    public void stop() {
+        jobs().forEach(job -> job.progress.cancel());
+        runner.shutdownNow();
+    }
+
+    /**
+     * A queued, running or finished backtest.
+     */
+    public static final class Job {
+
+        private final String id;
+        private final String file;
+        private final Path input;
+        private final long fileSize;
+        private final Instant submittedAt = Instant.now();
+        private final Backtester.Progress progress = new Backtester.Progress();
+        private volatile State state = State.QUEUED;
+        private volatile Instant startedAt;
+        private volatile Instant finishedAt;
+        private volatile BacktestReport report;
+        private volatile String error;
+
+        Job(String id, String file, Path input) {
+            this.id = id;
+            this.file = file;
+            this.input = input;
+            long size;
+            try {
+                size = Files.size(input);
+            } catch (IOException e) {
+                size = -1;
+            }
+            this.fileSize = size;
+        }
+
+        private void finish(State state, BacktestReport report, String error) {
+            this.report = report;
+            this.error = error;
+            this.finishedAt = Instant.now();
+            this.state = state;
+        }
+
+        public void cancel() {
+            progress.cancel();
+        }
+
+        public String id() { return id; }
+        public String file() { return file; }
+        public long fileSize() { return fileSize; }
+        public State state() { return state; }
+        public Instant submittedAt() { return submittedAt; }
+        public Instant startedAt() { return startedAt; }
+        public Instant finishedAt() { return finishedAt; }
+        public long records() { return progress.records(); }
+        public long bytesRead() { return progress.bytesRead(); }
+        public BacktestReport report() { return report; }
+        public String error() { return error; }
+    }
+}
@@ -0,0 +1,517 @@
+package com.example.notifications.backtest;
+
+import com.example.notifications.backtest.BacktestReport.ChangedDecision;
+import com.example.notifications.backtest.BacktestReport.Overlap;
+import com.example.notifications.backtest.BacktestReport.RuleChange;
+import com.example.notifications.backtest.BacktestReport.RuleResult;
+import com.example.notifications.entity.FraudRule;
+import com.example.notifications.entity.RuleAction;
+import com.example.notifications.lists.NamedListRegistry;
+import com.example.notifications.metrics.PipelineMetrics;
+import com.example.notifications.model.Application;
+import com.example.notifications.regex.RegexBudgetExceeded;
+import com.example.notifications.regex.RegexEngine;
+import com.example.notifications.ruleset.RuleSet;
+import com.example.notifications.service.Decision;
+import com.example.notifications.service.DecisionEngine;
+import com.example.notifications.service.EvaluationStrategy;
+import com.example.notifications.service.RiskScoring;
+import com.example.notifications.service.RuleEvaluator;
+import com.example.notifications.velocity.VelocityStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Replays recorded applications through the current and a candidate rule set and counts what
+ * each would have decided.
+ *
+ * Each side is a {@link DecisionEngine}, the engine {@code FraudDetectionService} runs, built on
+ * its own {@link RuleEvaluator}, metrics registry and velocity store. Nothing is routed, audited
+ * or deduplicated, and live metrics and velocity windows are untouched.
+ *
+ * The input is NDJSON with one application payload per line, gzip-compressed or not. One thread
+ * reads it in chunks of {@value #CHUNK} lines and a pool of workers evaluates the chunks, so the
+ * file is streamed and memory does not grow with its size. Workers count into per-chunk tallies
+ * that are merged once per chunk. Velocity windows are shared by the workers, so applications
+ * near each other in the file may be counted in a slightly different order than they arrived.
+ */
+public class Backtester {
+
+    static final int CHUNK = 2048;
+
+    private static final int MAX_SAMPLES = 20;
+    private static final int TOP_OVERLAPS = 5;
+    private static final String TOPIC = "applications.events";
+    private static final String CLEAN = "CLEAN";
+    private static final int OUTCOMES = RuleAction.values().length + 1;
+    private static final ObjectReader PAYLOAD_READER = new ObjectMapper().readerFor(Map.class);
+
+    private final NamedListRegistry namedLists;
+    private final RegexEngine regexEngine;
+    private final VelocityStore velocityStore;
+    private final RiskScoring riskScoring;
+    private final int threads;
+    private final long velocityMaxKeys;
+
+    /**
+     * @param velocityStore   template for the per-side velocity stores; its counts are not read
+     * @param threads         evaluation workers, or 0 for one per core
+     * @param velocityMaxKeys capacity of each side's velocity store
+     */
+    public Backtester(NamedListRegistry namedLists, RegexEngine regexEngine, VelocityStore velocityStore,
+                      RiskScoring riskScoring, int threads, long velocityMaxKeys) {
+        this.namedLists = namedLists;
+        this.regexEngine = regexEngine;
+        this.velocityStore = velocityStore;
+        this.riskScoring = riskScoring;
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.velocityMaxKeys = velocityMaxKeys;
+    }
+
+    public int threads() {
+        return threads;
+    }
+
+    /**
+     * The candidate rule set: the enabled {@code proposed} rules, laid over the enabled
+     * {@code current} rules unless {@code replace} is set. A proposed rule replaces the current
+     * rule with its id, and a disabled one removes it. Proposed rules without an id are new and
+     * get ids -1, -2, ... in request order. Proposed rules are evaluated as live rules even if
+     * they are shadow rules; current shadow rules do not decide on either side.
+     */
+    public static List<FraudRule> candidateRules(List<FraudRule> current, List<FraudRule> proposed, boolean replace) {
+        Map<Long, FraudRule> rules = new LinkedHashMap<>();
+        if (!replace) {
+            for (FraudRule rule : current) {
+                rules.put(rule.getId(), rule);
+            }
+        }
+        long nextNewId = -1;
+        for (FraudRule rule : proposed) {
+            if (rule.getId() == null) {
+                rule.setId(nextNewId--);
+            }
+            rule.setShadow(false);
+            if (rule.isEnabled()) {
+                rules.put(rule.getId(), rule);
+            } else {
+                rules.remove(rule.getId());
+            }
+        }
+        return rules.values().stream().filter(FraudRule::isEnabled).sorted(RuleSet.ORDER).toList();
+    }
+
+    /**
+     * Evaluates every application in {@code input} against both rule sets. Returns a partial
+     * report if {@code progress} is cancelled.
+     *
+     * @param timeField payload field holding the application's original receive time, as epoch
+     *                  millis or ISO-8601; applications without it are timed when read
+     */
+    public BacktestReport run(List<FraudRule> currentRules, List<FraudRule> candidateRules, Path input,
+                              EvaluationStrategy strategy, String timeField, Progress progress) throws IOException {
+        Side current = new Side(currentRules, strategy, null);
+        Map<Long, LongAdder> regexAborts = new ConcurrentHashMap<>();
+        Side candidate = new Side(candidateRules, strategy, regexAborts);
+        boolean[] tracked = new boolean[candidate.rules.size()];
+        for (int i = 0; i < tracked.length; i++) {
+            tracked[i] = change(candidate.rules.get(i), current) != RuleChange.UNCHANGED;
+        }
+
+        long start = System.nanoTime();
+        Tally total = new Tally(current.rules.size(), candidate.rules.size());
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        AtomicInteger workerIds = new AtomicInteger();
+        ThreadPoolExecutor workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(threads * 2), r -> {
+                Thread thread = new Thread(r, "backtest-" + workerIds.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.CallerRunsPolicy());
+        try (BufferedReader reader = open(input, progress)) {
+            List<String> chunk = new ArrayList<>(CHUNK);
+            String line;
+            while ((line = reader.readLine()) != null && !progress.cancelled() && failure.get() == null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                chunk.add(line);
+                if (chunk.size() == CHUNK) {
+                    submit(workers, chunk, current, candidate, tracked, timeField, total, progress, failure);
+                    chunk = new ArrayList<>(CHUNK);
+                }
+            }
+            if (!chunk.isEmpty() && !progress.cancelled()) {
+                submit(workers, chunk, current, candidate, tracked, timeField, total, progress, failure);
+            }
+        } finally {
+            workers.shutdown();
+            try {
+                workers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                workers.shutdownNow();
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Backtest interrupted");
+            }
+        }
+        if (failure.get() != null) {
+            throw new IOException("Backtest failed: " + failure.get().getMessage(), failure.get());
+        }
+        return report(input, strategy, current, candidate, tracked, regexAborts, total,
+            System.nanoTime() - start, !progress.cancelled());
+    }
+
+    private void submit(ThreadPoolExecutor workers, List<String> lines, Side current, Side candidate,
+                        boolean[] tracked, String timeField, Tally total, Progress progress,
+                        AtomicReference<Throwable> failure) {
+        workers.execute(() -> {
+            try {
+                Tally tally = evaluate(lines, current, candidate, tracked, timeField);
+                synchronized (total) {
+                    total.add(tally);
+                }
+                progress.records.addAndGet(tally.records + tally.unreadable);
+            } catch (Throwable e) {
+                failure.compareAndSet(null, e);
+            }
+        });
+    }
+
+    private Tally evaluate(List<String> lines, Side current, Side candidate, boolean[] tracked, String timeField) {
+        Tally tally = new Tally(current.rules.size(), candidate.rules.size());
+        for (String line : lines) {
+            Application application;
+            try {
+                application = application(PAYLOAD_READER.readValue(line), timeField);
+            } catch (IOException | RuntimeException e) {
+                tally.unreadable++;
+                continue;
+            }
+            Decision before = current.decide(application);
+            Decision after = candidate.decide(application);
+            tally.records++;
+
+            int from = outcome(before);
+            int to = outcome(after);
+            tally.currentOutcomes[from]++;
+            tally.candidateOutcomes[to]++;
+            if (from != to) {
+                tally.transitions[from * OUTCOMES + to]++;
+                if (tally.samples.size() < MAX_SAMPLES) {
+                    tally.samples.add(new ChangedDecision(application.id(), before.outcome(), after.outcome(),
+                        after.matchedRules().stream().map(FraudRule::getId).toList()));
+                }
+            }
+
+            List<FraudRule> matchedBefore = before.matchedRules();
+            for (FraudRule rule : matchedBefore) {
+                tally.currentHits[current.index(rule)]++;
+            }
+            List<FraudRule> matchedAfter = after.matchedRules();
+            for (FraudRule rule : matchedAfter) {
+                int i = candidate.index(rule);
+                tally.candidateHits[i]++;
+                if (matchedAfter.size() == 1) {
+                    tally.exclusiveHits[i]++;
+                }
+                if (!matchedBefore.isEmpty()) {
+                    tally.alreadyMatched[i]++;
+                    if (tracked[i]) {
+                        for (FraudRule other : matchedBefore) {
+                            tally.overlaps.merge(((long) i << 32) | current.index(other), 1L, Long::sum);
+                        }
+                    }
+                }
+            }
+        }
+        return tally;
+    }
+
+    private BacktestReport report(Path input, EvaluationStrategy strategy, Side current, Side candidate,
+                                  boolean[] tracked, Map<Long, LongAdder> regexAborts, Tally total,
+                                  long elapsedNanos, boolean complete) {
+        Map<Integer, List<Overlap>> overlaps = new HashMap<>();
+        total.overlaps.entrySet().stream()
+            .sorted(Map.Entry.<Long, Long>comparingByValue().reversed())
+            .forEach(e -> {
+                List<Overlap> top = overlaps.computeIfAbsent((int) (e.getKey() >>> 32), i -> new ArrayList<>());
+                if (top.size() < TOP_OVERLAPS) {
+                    FraudRule other = current.rules.get((int) (long) e.getKey());
+                    top.add(new Overlap(other.getId(), other.getName(), e.getValue()));
+                }
+            });
+
+        List<RuleResult> rules = new ArrayList<>();
+        for (int i = 0; i < candidate.rules.size(); i++) {
+            FraudRule rule = candidate.rules.get(i);
+            Integer before = current.indexes.get(rule.getId());
+            LongAdder aborts = regexAborts.get(rule.getId());
+            rules.add(new RuleResult(rule.getId(), rule.getName(), change(rule, current),
+                before == null ? 0 : total.currentHits[before], total.candidateHits[i],
+                total.records == 0 ? 0 : total.candidateHits[i] / (double) total.records,
+                total.alreadyMatched[i], total.exclusiveHits[i], aborts == null ? 0 : aborts.sum(),
+                tracked[i] ? overlaps.getOrDefault(i, List.of()) : List.of()));
+        }
+        for (int j = 0; j < current.rules.size(); j++) {
+            FraudRule rule = current.rules.get(j);
+            if (!candidate.indexes.containsKey(rule.getId())) {
+                rules.add(new RuleResult(rule.getId(), rule.getName(), RuleChange.REMOVED,
+                    total.currentHits[j], 0, 0, 0, 0, 0, List.of()));
+            }
+        }
+
+        Map<String, Long> transitions = new LinkedHashMap<>();
+        long changed = 0;
+        for (int from = 0; from < OUTCOMES; from++) {
+            for (int to = 0; to < OUTCOMES; to++) {
+                long count = total.transitions[from * OUTCOMES + to];
+                if (count > 0) {
+                    transitions.put(outcomeName(from) + "->" + outcomeName(to), count);
+                    changed += count;
+                }
+            }
+        }
+        long elapsedMillis = elapsedNanos / 1_000_000;
+        return new BacktestReport(input.getFileName().toString(), complete, total.records, total.unreadable,
+            elapsedMillis, Math.round(total.records * 1e9 / Math.max(1, elapsedNanos)), strategy, threads,
+            current.rules.size(), candidate.rules.size(),
+            outcomes(total.currentOutcomes), outcomes(total.candidateOutcomes),
+            changed, transitions, total.samples, rules);
+    }
+
+    private static RuleChange change(FraudRule rule, Side current) {
+        Integer index = current.indexes.get(rule.getId());
+        if (index == null) {
+            return RuleChange.NEW;
+        }
+        return sameDefinition(rule, current.rules.get(index)) ? RuleChange.UNCHANGED : RuleChange.CHANGED;
+    }
+
+    private static boolean sameDefinition(FraudRule a, FraudRule b) {
+        return a == b || a.getPriority() == b.getPriority() && a.isShadow() == b.isShadow()
+            && Objects.equals(a.getConditionTree(), b.getConditionTree())
+            && Objects.equals(a.getFieldPath(), b.getFieldPath())
+            && a.getOperator() == b.getOperator()
+            && Objects.equals(a.getValue(), b.getValue())
+            && Objects.equals(a.getWindowSeconds(), b.getWindowSeconds())
+            && Objects.equals(RuleSet.formatScope(a.getApplicationTypes()), RuleSet.formatScope(b.getApplicationTypes()))
+            && Objects.equals(RuleSet.formatScope(a.getSourceSystems()), RuleSet.formatScope(b.getSourceSystems()))
+            && a.getActionType() == b.getActionType()
+            && Objects.equals(a.getActionConfig(), b.getActionConfig());
+    }
+
+    /**
+     * The application a consumer would build from {@code payload}, received at the time in
+     * {@code timeField} if present.
+     */
+    static Application application(Map<String, Object> payload, String timeField) {
+        Application application = Application.fromKafkaMessage(TOPIC, payload);
+        Object time = timeField == null || timeField.isBlank() ? null : application.getFieldValue(timeField);
+        Instant receivedAt = time instanceof Number n ? Instant.ofEpochMilli(n.longValue())
+            : time instanceof String s ? Instant.parse(s)
+            : null;
+        return receivedAt == null ? application : new Application(application.id(), application.type(),
+            application.sourceSystem(), application.data(), receivedAt);
+    }
+
+    private static int outcome(Decision decision) {
+        return decision.finalAction() == null ? OUTCOMES - 1 : decision.finalAction().ordinal();
+    }
+
+    private static String outcomeName(int outcome) {
+        return outcome == OUTCOMES - 1 ? CLEAN : RuleAction.values()[outcome].name();
+    }
+
+    private static Map<String, Long> outcomes(long[] counts) {
+        Map<String, Long> outcomes = new LinkedHashMap<>();
+        for (int i = OUTCOMES - 1; i >= 0; i--) {
+            if (counts[i] > 0 || i == OUTCOMES - 1) {
+                outcomes.put(outcomeName(i), counts[i]);
+            }
+        }
+        return outcomes;
+    }
+
+    /**
+     * Reads {@code input} as UTF-8 lines, gunzipping it if it starts with the gzip magic bytes.
+     */
+    private static BufferedReader open(Path input, Progress progress) throws IOException {
+        InputStream in = new BufferedInputStream(new FilterInputStream(Files.newInputStream(input)) {
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b >= 0) {
+                    progress.bytesRead.incrementAndGet();
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int n = super.read(buffer, offset, length);
+                if (n > 0) {
+                    progress.bytesRead.addAndGet(n);
+                }
+                return n;
+            }
+        }, 1 << 16);
+        try {
+            in.mark(2);
+            boolean gzip = in.read() == 0x1f && in.read() == 0x8b;
+            in.reset();
+            if (gzip) {
+                in = new GZIPInputStream(in, 1 << 16);
+            }
+            return new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 1 << 16);
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Records read and input bytes consumed so far, and the cancel flag a run checks between
+     * chunks.
+     */
+    public static final class Progress {
+
+        private final AtomicLong records = new AtomicLong();
+        private final AtomicLong bytesRead = new AtomicLong();
+        private volatile boolean cancelled;
+
+        public long records() {
+            return records.get();
+        }
+
+        public long bytesRead() {
+            return bytesRead.get();
+        }
+
+        public void cancel() {
+            cancelled = true;
+        }
+
+        public boolean cancelled() {
+            return cancelled;
+        }
+    }
+
+    /**
+     * One rule set with its own engine, evaluator, metrics and velocity store.
+     */
+    private final class Side {
+
+        final List<FraudRule> rules;
+        final Map<Long, Integer> indexes = new HashMap<>();
+        final RuleSet ruleSet;
+        final DecisionEngine engine;
+
+        Side(List<FraudRule> rules, EvaluationStrategy strategy, Map<Long, LongAdder> regexAborts) {
+            MeterRegistry scratch = new SimpleMeterRegistry();
+            VelocityStore velocity = velocityStore.emptyCopy(velocityMaxKeys, scratch);
+            RuleEvaluator evaluator = new RuleEvaluator(new PipelineMetrics(scratch, 0), velocity, namedLists,
+                regexEngine, event -> {
+                    if (regexAborts != null && event instanceof RegexBudgetExceeded exceeded) {
+                        regexAborts.computeIfAbsent(exceeded.ruleId(), id -> new LongAdder()).increment();
+                    }
+                });
+            this.rules = rules.stream().sorted(RuleSet.ORDER).toList();
+            for (int i = 0; i < this.rules.size(); i++) {
+                Long id = Objects.requireNonNull(this.rules.get(i).getId(), "Backtested rules need ids");
+                if (indexes.put(id, i) != null) {
+                    throw new IllegalArgumentException("Duplicate rule id " + id);
+                }
+            }
+            this.ruleSet = new RuleSet(0, this.rules, evaluator::velocityFields);
+            this.engine = new DecisionEngine(evaluator, velocity, null, strategy, riskScoring);
+        }
+
+        Decision decide(Application application) {
+            return engine.decide(application, ruleSet.forApplication(application.type(), application.sourceSystem()));
+        }
+
+        int index(FraudRule rule) {
+            return indexes.get(rule.getId());
+        }
+    }
+
+    /**
+     * Counts from one chunk, or the merged counts of a run. Rules are counted by their index in
+     * the side's rule list.
+     */
+    private static final class Tally {
+
+        long records;
+        long unreadable;
+        final long[] currentOutcomes = new long[OUTCOMES];
+        final long[] candidateOutcomes = new long[OUTCOMES];
+        final long[] transitions = new long[OUTCOMES * OUTCOMES];
+        final long[] currentHits;
+        final long[] candidateHits;
+        final long[] exclusiveHits;
+        final long[] alreadyMatched;
+        // (candidate index << 32 | current index) -> applications both matched, for new and changed rules
+        final Map<Long, Long> overlaps = new HashMap<>();
+        final List<ChangedDecision> samples = new ArrayList<>();
+
+        Tally(int currentRules, int candidateRules) {
+            currentHits = new long[currentRules];
+            candidateHits = new long[candidateRules];
+            exclusiveHits = new long[candidateRules];
+            alreadyMatched = new long[candidateRules];
+        }
+
+        void add(Tally other) {
+            records += other.records;
+            unreadable += other.unreadable;
+            addAll(currentOutcomes, other.currentOutcomes);
+            addAll(candidateOutcomes, other.candidateOutcomes);
+            addAll(transitions, other.transitions);
+            addAll(currentHits, other.currentHits);
+            addAll(candidateHits, other.candidateHits);
+            addAll(exclusiveHits, other.exclusiveHits);
+            addAll(alreadyMatched, other.alreadyMatched);
+            other.overlaps.forEach((key, count) -> overlaps.merge(key, count, Long::sum));
+            for (ChangedDecision sample : other.samples) {
+                if (samples.size() < MAX_SAMPLES) {
+                    samples.add(sample);
+                }
+            }
+        }
+
+        private static void addAll(long[] into, long[] from) {
+            for (int i = 0; i < into.length; i++) {
+                into[i] += from[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package com.example.notifications.condition;
+
+import com.example.notifications.condition.Condition.All;
+import com.example.notifications.condition.Condition.Any;
+import com.example.notifications.condition.Condition.Not;
+import com.example.notifications.condition.Condition.Predicate;
+import com.example.notifications.entity.RuleOperator;
+import com.example.notifications.model.Application;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Executable form of a condition tree with short-circuiting and adaptive child order.
+ *
+ * Every node keeps how often it ran and matched, and predicates sample their own cost.
+ * Every {@link #REORDER_INTERVAL} evaluations a group re-sorts its children by expected cost
+ * per decisive outcome: cost / P(false) for {@code all}, cost / P(true) for {@code any}. Cheap,
+ * selective checks then run before regexes and list lookups. Until enough has been measured,
+ * costs come from static per-operator estimates.
+ *
+ * Statistics are updated without synchronization; lost updates only make the ordering
+ * slightly less precise. The child order is republished as a new array.
+ */
+public final class CompiledCondition {
+
+    /**
+     * Tests one predicate against an application.
+     */
+    @FunctionalInterface
+    public interface PredicateTester {
+        boolean test(Predicate predicate, Application application);
+    }
+
+    static final int REORDER_INTERVAL = 1024;
+    private static final int COST_SAMPLE_MASK = 63;
+    private static final double EWMA_WEIGHT = 0.2;
+
+    private final String source;
+    private final Node root;
+    private final Set<String> velocityFields;
+
+    private CompiledCondition(String source, Node root, Set<String> velocityFields) {
+        this.source = source;
+        this.root = root;
+        this.velocityFields = velocityFields;
+    }
+
+    public static CompiledCondition compile(String json) {
+        Condition condition = ConditionParser.parse(json);
+        Set<String> velocityFields = new LinkedHashSet<>();
+        ConditionParser.forEachPredicate(condition, p -> {
+            if (p.operator() == RuleOperator.VELOCITY_EXCEEDS) {
+                velocityFields.add(p.field());
+            }
+        });
+        return new CompiledCondition(json, build(condition), Set.copyOf(velocityFields));
+    }
+
+    public boolean evaluate(Application application, PredicateTester tester) {
+        return root.evaluate(application, tester);
+    }
+
+    /**
+     * The JSON this condition was compiled from.
+     */
+    public String source() {
+        return source;
+    }
+
+    /**
+     * Field paths watched by VELOCITY_EXCEEDS predicates.
+     */
+    public Set<String> velocityFields() {
+        return velocityFields;
+    }
+
+    /**
+     * Current evaluation order with per-node statistics.
+     */
+    public Map<String, Object> describe() {
+        return root.describe();
+    }
+
+    private static Node build(Condition condition) {
+        return switch (condition) {
+            case All all -> new GroupNode(true, all.children().stream().map(CompiledCondition::build).toArray(Node[]::new));
+            case Any any -> new GroupNode(false, any.children().stream().map(CompiledCondition::build).toArray(Node[]::new));
+            case Not not -> new NotNode(build(not.child()));
+            case Predicate predicate -> new PredicateNode(predicate);
+        };
+    }
+
+    /**
+     * Rough cost in nanoseconds before measurements are available.
+     */
+    static double staticCost(RuleOperator operator) {
+        return switch (operator) {
+            case IS_NULL, IS_NOT_NULL -> 5;
+            case EQUALS, NOT_EQUALS -> 15;
+            case GREATER_THAN, LESS_THAN, GREATER_THAN_OR_EQUALS, LESS_THAN_OR_EQUALS -> 30;
+            case CONTAINS, NOT_CONTAINS -> 40;
+            case IN_NAMED_LIST, NOT_IN_NAMED_LIST -> 60;
+            case IN_LIST, NOT_IN_LIST -> 80;
+            case VELOCITY_EXCEEDS -> 100;
+            case REGEX -> 400;
+        };
+    }
+
+    private abstract static class Node {
+        long evaluations;
+        long matches;
+
+        abstract boolean evaluate(Application application, PredicateTester tester);
+
+        abstract double cost();
+
+        double matchProbability() {
+            return (matches + 1.0) / (evaluations + 2.0);
+        }
+
+        boolean count(boolean result) {
+            evaluations++;
+            if (result) {
+                matches++;
+            }
+            return result;
+        }
+
+        Map<String, Object> stats(Map<String, Object> description) {
+            description.put("evaluations", evaluations);
+            description.put("matchRate", Math.round(matchProbability() * 1000) / 1000.0);
+            description.put("costNanos", Math.round(cost()));
+            return description;
+        }
+
+        abstract Map<String, Object> describe();
+    }
+
+    private static final class PredicateNode extends Node {
+        final Predicate predicate;
+        double costNanos;
+
+        PredicateNode(Predicate predicate) {
+            this.predicate = predicate;
+            this.costNanos = staticCost(predicate.operator());
+        }
+
+        @Override
+        boolean evaluate(Application application, PredicateTester tester) {
+            if ((evaluations & COST_SAMPLE_MASK) != 0) {
+                return count(tester.test(predicate, application));
+            }
+            long start = System.nanoTime();
+            boolean result = tester.test(predicate, application);
+            costNanos += EWMA_WEIGHT * ((System.nanoTime() - start) - costNanos);
+            return count(result);
+        }
+
+        @Override
+        double cost() {
+            return costNanos;
+        }
+
+        @Override
+        Map<String, Object> describe() {
+            Map<String, Object> description = new LinkedHashMap<>();
+            description.put("field", predicate.field());
+            description.put("op", predicate.operator().name());
+            if (predicate.value() != null) {
+                description.put("value", predicate.value());
+            }
+            return stats(description);
+        }
+    }
+
+    private static final class NotNode extends Node {
+        final Node child;
+
+        NotNode(Node child) {
+            this.child = child;
+        }
+
+        @Override
+        boolean evaluate(Application application, PredicateTester tester) {
+            return count(!child.evaluate(application, tester));
+        }
+
+        @Override
+        double cost() {
+            return child.cost();
+        }
+
+        @Override
+        Map<String, Object> describe() {
+            Map<String, Object> description = new LinkedHashMap<>();
+            description.put("not", child.describe());
+            return stats(description);
+        }
+    }
+
+    private static final class GroupNode extends Node {
+        final boolean all;
+        volatile Node[] order;
+
+        GroupNode(boolean all, Node[] children) {
+            this.all = all;
+            this.order = children;
+            reorder();
+        }
+
+        @Override
+        boolean evaluate(Application application, PredicateTester tester) {
+            if (evaluations > 0 && evaluations % REORDER_INTERVAL == 0) {
+                reorder();
+            }
+            for (Node child : order) {
+                boolean result = child.evaluate(application, tester);
+                if (result != all) {
+                    return count(result);
+                }
+            }
+            return count(all);
+        }
+
+        /**
+         * Expected cost: each child runs only if all children before it were not decisive.
+         */
+        @Override
+        double cost() {
+            double cost = 0;
+            double reached = 1;
+            for (Node child : order) {
+                cost += reached * child.cost();
+                reached *= all ? child.matchProbability() : 1 - child.matchProbability();
+            }
+            return cost;
+        }
+
+        /**
+         * Sorts on ranks taken once up front: other threads keep updating the children's
+         * counts, and a comparator reading them live could see a rank change mid-sort.
+         */
+        private void reorder() {
+            Node[] current = order;
+            double[] ranks = new double[current.length];
+            Integer[] indexes = new Integer[current.length];
+            for (int i = 0; i < current.length; i++) {
+                ranks[i] = rank(current[i]);
+                indexes[i] = i;
+            }
+            Arrays.sort(indexes, Comparator.comparingDouble(i -> ranks[i]));
+            Node[] sorted = new Node[current.length];
+            for (int i = 0; i < sorted.length; i++) {
+                sorted[i] = current[indexes[i]];
+            }
+            order = sorted;
+        }
+
+        private double rank(Node child) {
+            double decisive = all ? 1 - child.matchProbability() : child.matchProbability();
+            return child.cost() / Math.max(decisive, 1e-6);
+        }
+
+        @Override
+        Map<String, Object> describe() {
+            List<Map<String, Object>> children = new ArrayList<>();
+            for (Node child : order) {
+                children.add(child.describe());
+            }
+            Map<String, Object> description = new LinkedHashMap<>();
+            description.put(all ? "all" : "any", children);
+            return stats(description);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.notifications.condition;
+
+import com.example.notifications.entity.RuleOperator;
+
+import java.util.List;
+
+/**
+ * Boolean condition tree of a composite rule, as parsed from its {@code conditionTree} JSON.
+ */
+public sealed interface Condition {
+
+    record All(List<Condition> children) implements Condition {}
+
+    record Any(List<Condition> children) implements Condition {}
+
+    record Not(Condition child) implements Condition {}
+
+    /**
+     * Leaf condition with the same semantics as a single-condition rule.
+     */
+    record Predicate(String field, RuleOperator operator, String value, Integer windowSeconds) implements Condition {}
+}
@@ -0,0 +1,125 @@
+package com.example.notifications.condition;
+
+import com.example.notifications.condition.Condition.All;
+import com.example.notifications.condition.Condition.Any;
+import com.example.notifications.condition.Condition.Not;
+import com.example.notifications.condition.Condition.Predicate;
+import com.example.notifications.entity.RuleOperator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Parses and structurally validates condition tree JSON:
+ *
+ * <pre>
+ * {"all": [ {"field": "amount", "op": "GREATER_THAN", "value": "5000"},
+ *           {"any": [ {"field": "applicant.country", "op": "IN_LIST", "value": "NG,BR"},
+ *                     {"not": {"field": "applicant.phone", "op": "IS_NOT_NULL"}} ]} ]}
+ * </pre>
+ *
+ * Errors are reported as {@link IllegalArgumentException} with the JSON path of the offending
+ * node.
+ */
+public final class ConditionParser {
+
+    public static final int MAX_DEPTH = 16;
+    public static final int MAX_NODES = 256;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private ConditionParser() {
+    }
+
+    public static Condition parse(String json) {
+        JsonNode root;
+        try {
+            root = MAPPER.readTree(json);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Condition tree is not valid JSON: " + e.getOriginalMessage());
+        }
+        return new Walker().parse(root, "$", 1);
+    }
+
+    /**
+     * Calls {@code action} for every predicate of the tree, in declaration order.
+     */
+    public static void forEachPredicate(Condition condition, Consumer<Predicate> action) {
+        switch (condition) {
+            case All all -> all.children().forEach(c -> forEachPredicate(c, action));
+            case Any any -> any.children().forEach(c -> forEachPredicate(c, action));
+            case Not not -> forEachPredicate(not.child(), action);
+            case Predicate predicate -> action.accept(predicate);
+        }
+    }
+
+    private static final class Walker {
+
+        private int nodes;
+
+        Condition parse(JsonNode node, String path, int depth) {
+            if (depth > MAX_DEPTH) {
+                throw new IllegalArgumentException(path + ": condition tree deeper than " + MAX_DEPTH);
+            }
+            if (++nodes > MAX_NODES) {
+                throw new IllegalArgumentException("Condition tree has more than " + MAX_NODES + " nodes");
+            }
+            if (node == null || !node.isObject() || node.isEmpty()) {
+                throw new IllegalArgumentException(path + ": expected an object with all, any, not or field");
+            }
+            if (node.has("all")) {
+                return new All(children(node.get("all"), path + ".all", depth));
+            }
+            if (node.has("any")) {
+                return new Any(children(node.get("any"), path + ".any", depth));
+            }
+            if (node.has("not")) {
+                return new Not(parse(node.get("not"), path + ".not", depth + 1));
+            }
+            return predicate(node, path);
+        }
+
+        private List<Condition> children(JsonNode array, String path, int depth) {
+            if (!array.isArray() || array.isEmpty()) {
+                throw new IllegalArgumentException(path + ": expected a non-empty array");
+            }
+            List<Condition> children = new ArrayList<>(array.size());
+            for (int i = 0; i < array.size(); i++) {
+                children.add(parse(array.get(i), path + "[" + i + "]", depth + 1));
+            }
+            return List.copyOf(children);
+        }
+
+        private Predicate predicate(JsonNode node, String path) {
+            String field = text(node, "field");
+            if (field == null || field.isBlank()) {
+                throw new IllegalArgumentException(path + ": predicate needs a field");
+            }
+            String op = text(node, "op");
+            if (op == null) {
+                op = text(node, "operator");
+            }
+            RuleOperator operator;
+            try {
+                operator = RuleOperator.valueOf(String.valueOf(op));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(path + ": unknown operator '" + op + "'");
+            }
+            String value = text(node, "value");
+            if (value == null && operator != RuleOperator.IS_NULL && operator != RuleOperator.IS_NOT_NULL) {
+                throw new IllegalArgumentException(path + ": operator " + operator + " needs a value");
+            }
+            Integer windowSeconds = node.hasNonNull("windowSeconds") ? node.get("windowSeconds").asInt() : null;
+            return new Predicate(field, operator, value, windowSeconds);
+        }
+
+        private static String text(JsonNode node, String name) {
+            JsonNode value = node.get(name);
+            return value == null || value.isNull() ? null : value.asText();
+        }
+    }
+}
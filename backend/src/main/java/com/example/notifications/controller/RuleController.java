@@ -4,10 +4,19 @@ import com.example.notifications.entity.FraudRule;
 import com.example.notifications.entity.RuleAction;
 import com.example.notifications.entity.RuleOperator;
 import com.example.notifications.repository.FraudRuleRepository;
+import com.example.notifications.ruleset.RuleChangelog;
+import com.example.notifications.ruleset.RuleSet;
+import com.example.notifications.ruleset.RuleSetCache;
+import com.example.notifications.ruleset.RuleValidator;
+import com.example.notifications.service.RuleEvaluator;
+import com.example.notifications.shadow.ShadowEvaluator;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -17,9 +26,21 @@ import java.util.Map;
 public class RuleController {
 
     private final FraudRuleRepository ruleRepository;
+    private final RuleValidator ruleValidator;
+    private final RuleEvaluator ruleEvaluator;
+    private final RuleSetCache ruleSetCache;
+    private final RuleChangelog ruleChangelog;
+    private final ShadowEvaluator shadowEvaluator;
 
-    public RuleController(FraudRuleRepository ruleRepository) {
+    public RuleController(FraudRuleRepository ruleRepository, RuleValidator ruleValidator,
+                          RuleEvaluator ruleEvaluator, RuleSetCache ruleSetCache, RuleChangelog ruleChangelog,
+                          ShadowEvaluator shadowEvaluator) {
         this.ruleRepository = ruleRepository;
+        this.ruleValidator = ruleValidator;
+        this.ruleEvaluator = ruleEvaluator;
+        this.ruleSetCache = ruleSetCache;
+        this.ruleChangelog = ruleChangelog;
+        this.shadowEvaluator = shadowEvaluator;
     }
 
     @GetMapping
@@ -37,31 +58,54 @@ public class RuleController {
     @PostMapping
     public FraudRule createRule(@RequestBody FraudRule rule) {
         rule.setId(null); // Ensure new entity
-        return ruleRepository.save(rule);
+        validate(rule);
+        FraudRule saved = ruleRepository.save(rule);
+        ruleChangelog.ruleSaved(saved);
+        return saved;
     }
 
     @PutMapping("/{id}")
     public ResponseEntity<FraudRule> updateRule(@PathVariable Long id, @RequestBody FraudRule rule) {
+        validate(rule);
         return ruleRepository.findById(id)
             .map(existing -> {
                 existing.setName(rule.getName());
                 existing.setDescription(rule.getDescription());
                 existing.setEnabled(rule.isEnabled());
                 existing.setPriority(rule.getPriority());
+                existing.setShadow(rule.isShadow());
                 existing.setFieldPath(rule.getFieldPath());
                 existing.setOperator(rule.getOperator());
                 existing.setValue(rule.getValue());
+                existing.setWindowSeconds(rule.getWindowSeconds());
+                existing.setConditionTree(rule.getConditionTree());
+                existing.setApplicationTypes(rule.getApplicationTypes());
+                existing.setSourceSystems(rule.getSourceSystems());
                 existing.setActionType(rule.getActionType());
                 existing.setActionConfig(rule.getActionConfig());
-                return ResponseEntity.ok(ruleRepository.save(existing));
+                FraudRule saved = ruleRepository.save(existing);
+                ruleChangelog.ruleSaved(saved);
+                return ResponseEntity.ok(saved);
             })
             .orElse(ResponseEntity.notFound().build());
     }
 
+    /**
+     * Current evaluation order and statistics of a composite rule's condition tree.
+     */
+    @GetMapping("/{id}/condition")
+    public ResponseEntity<Map<String, Object>> getConditionStats(@PathVariable Long id) {
+        return ruleRepository.findById(id)
+            .filter(rule -> rule.getConditionTree() != null)
+            .map(rule -> ResponseEntity.ok(ruleEvaluator.describeCondition(rule)))
+            .orElse(ResponseEntity.notFound().build());
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteRule(@PathVariable Long id) {
         if (ruleRepository.existsById(id)) {
             ruleRepository.deleteById(id);
+            ruleChangelog.ruleDeleted(id);
             return ResponseEntity.noContent().build();
         }
         return ResponseEntity.notFound().build();
@@ -72,11 +116,81 @@ public class RuleController {
         return ruleRepository.findById(id)
             .map(rule -> {
                 rule.setEnabled(!rule.isEnabled());
-                return ResponseEntity.ok(ruleRepository.save(rule));
+                FraudRule saved = ruleRepository.save(rule);
+                ruleChangelog.ruleSaved(saved);
+                return ResponseEntity.ok(saved);
+            })
+            .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Makes a shadow rule live: from its next evaluation on it takes part in the decision.
+     */
+    @PatchMapping("/{id}/promote")
+    public ResponseEntity<FraudRule> promoteRule(@PathVariable Long id) {
+        return ruleRepository.findById(id)
+            .map(rule -> {
+                if (!rule.isShadow()) {
+                    throw new ResponseStatusException(HttpStatus.CONFLICT, "Rule " + id + " is not a shadow rule");
+                }
+                rule.setShadow(false);
+                FraudRule saved = ruleRepository.save(rule);
+                ruleChangelog.ruleSaved(saved);
+                return ResponseEntity.ok(saved);
             })
             .orElse(ResponseEntity.notFound().build());
     }
 
+    /**
+     * What shadow rules would have done on this node since startup.
+     */
+    @GetMapping("/shadow")
+    public List<Map<String, Object>> getShadowStats() {
+        RuleSet rules = ruleSetCache.current();
+        return shadowEvaluator.stats().entrySet().stream()
+            .sorted(Map.Entry.comparingByKey())
+            .map(e -> {
+                ShadowEvaluator.RuleStats stats = e.getValue();
+                Map<String, Object> info = new LinkedHashMap<>();
+                info.put("ruleId", e.getKey());
+                info.put("name", stats.name());
+                info.put("action", stats.action());
+                info.put("shadow", rules.rules().stream().anyMatch(r -> r.getId().equals(e.getKey()) && r.isShadow()));
+                info.put("evaluated", stats.evaluated());
+                info.put("matched", stats.matched());
+                info.put("matchRate", stats.evaluated() == 0 ? 0 : stats.matched() / (double) stats.evaluated());
+                info.put("matchedLiveClean", stats.matchedLiveClean());
+                return info;
+            })
+            .toList();
+    }
+
+    /**
+     * The cached rule set the pipeline evaluates, and the rules one type/source pair gets.
+     * Nodes that report the same checksum run the same rules.
+     */
+    @GetMapping("/snapshot")
+    public Map<String, Object> getSnapshot(@RequestParam(required = false) String type,
+                                           @RequestParam(required = false) String source) {
+        RuleSet rules = ruleSetCache.current();
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("version", rules.version());
+        snapshot.put("checksum", Long.toHexString(rules.checksum()));
+        snapshot.put("changelogOffset", ruleChangelog.appliedOffset());
+        snapshot.put("loadedAt", rules.loadedAt().toString());
+        snapshot.put("enabledRules", rules.size());
+        snapshot.put("shadowRules", rules.shadowCount());
+        snapshot.put("globalRules", rules.globalCount());
+        snapshot.put("resolvedScopes", rules.resolvedScopes());
+        if (type != null || source != null) {
+            RuleSet.Scope scope = rules.forApplication(type, source);
+            snapshot.put("applicableRuleIds", scope.rules().stream().map(FraudRule::getId).toList());
+            snapshot.put("shadowRuleIds", scope.shadowRules().stream().map(FraudRule::getId).toList());
+            snapshot.put("velocityFields", scope.velocityFields());
+        }
+        return snapshot;
+    }
+
     @GetMapping("/operators")
     public List<Map<String, String>> getOperators() {
         return Arrays.stream(RuleOperator.values())
@@ -97,6 +211,14 @@ public class RuleController {
             .toList();
     }
 
+    private void validate(FraudRule rule) {
+        try {
+            ruleValidator.validate(rule);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
     private String formatOperatorLabel(RuleOperator op) {
         return switch (op) {
             case EQUALS -> "Equals";
@@ -110,8 +232,11 @@ public class RuleController {
             case REGEX -> "Matches Regex";
             case IN_LIST -> "In List";
             case NOT_IN_LIST -> "Not In List";
+            case IN_NAMED_LIST -> "In Named List";
+            case NOT_IN_NAMED_LIST -> "Not In Named List";
             case IS_NULL -> "Is Null";
             case IS_NOT_NULL -> "Is Not Null";
+            case VELOCITY_EXCEEDS -> "Seen More Than N Times in Window";
         };
     }
 
@@ -120,7 +245,7 @@ public class RuleController {
             case FLAG -> "Flag for Review";
             case BLOCK -> "Block Application";
             case ROUTE -> "Route to Topic";
-            case ENRICH -> "Enrich with Metadata";
+            case ENRICH -> "Add to Risk Score";
         };
     }
 }
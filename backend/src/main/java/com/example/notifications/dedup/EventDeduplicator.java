@@ -0,0 +1,107 @@
+package com.example.notifications.dedup;
+
+import com.example.notifications.metrics.PipelineMetrics;
+import io.micrometer.core.instrument.FunctionCounter;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeader;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Idempotency check in front of the listeners. A record is identified by its payload
+ * {@code eventId}, then its {@code id}, and failing both by topic-partition@offset, which still
+ * catches redeliveries after a rebalance. Ids are remembered only once processing succeeded.
+ *
+ * Records forwarded to another topic carry the topic-partition@offset they were first read from
+ * in {@link #originHeaders} and fall back to that instead of their own.
+ */
+@Component
+public class EventDeduplicator {
+
+    static final String ORIGIN_TOPIC_HEADER = "fraud-origin-topic";
+    static final String ORIGIN_PARTITION_HEADER = "fraud-origin-partition";
+    static final String ORIGIN_OFFSET_HEADER = "fraud-origin-offset";
+
+    private final SeenIdStore store;
+    private final PipelineMetrics metrics;
+    private final boolean enabled;
+
+    public EventDeduplicator(SeenIdStore store, PipelineMetrics metrics,
+                             @Value("${fraud.dedup.enabled:true}") boolean enabled) {
+        this.store = store;
+        this.metrics = metrics;
+        this.enabled = enabled;
+        FunctionCounter.builder("events.dedup.evicted", store, SeenIdStore::overwritten)
+            .description("Ids evicted from the seen-id store before their window ended")
+            .register(metrics.registry());
+    }
+
+    public long key(ConsumerRecord<String, Map<String, Object>> record) {
+        return key(record.topic(), record);
+    }
+
+    /**
+     * Key of {@code record} with its payload id taken as an id of {@code topic}; for records
+     * forwarded from the topic they were first published to.
+     */
+    public long key(String topic, ConsumerRecord<String, Map<String, Object>> record) {
+        Map<String, Object> payload = record.value();
+        Object id = payload != null ? payload.get("eventId") : null;
+        if (id == null && payload != null) {
+            id = payload.get("id");
+        }
+        if (id != null) {
+            return SeenIdStore.key(topic, id.toString());
+        }
+        Headers headers = record.headers();
+        String originTopic = header(headers, ORIGIN_TOPIC_HEADER);
+        String originPartition = header(headers, ORIGIN_PARTITION_HEADER);
+        String originOffset = header(headers, ORIGIN_OFFSET_HEADER);
+        if (originTopic != null && originPartition != null && originOffset != null) {
+            return SeenIdStore.key(originTopic, originPartition + "@" + originOffset);
+        }
+        return SeenIdStore.key(record.topic(), record.partition() + "@" + record.offset());
+    }
+
+    /**
+     * Headers to forward {@code record} with, so it keeps its topic-partition@offset key.
+     */
+    public static List<Header> originHeaders(ConsumerRecord<?, ?> record) {
+        return List.of(
+            header(ORIGIN_TOPIC_HEADER, record.topic()),
+            header(ORIGIN_PARTITION_HEADER, Integer.toString(record.partition())),
+            header(ORIGIN_OFFSET_HEADER, Long.toString(record.offset())));
+    }
+
+    private static Header header(String name, String value) {
+        return new RecordHeader(name, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String header(Headers headers, String name) {
+        Header header = headers.lastHeader(name);
+        return header != null && header.value() != null ? new String(header.value(), StandardCharsets.UTF_8) : null;
+    }
+
+    /**
+     * Whether the record was already processed; counts it as skipped if so.
+     */
+    public boolean isDuplicate(String topic, long key) {
+        if (!enabled || !store.contains(key, System.currentTimeMillis())) {
+            return false;
+        }
+        metrics.duplicateSkipped(topic);
+        return true;
+    }
+
+    public void markProcessed(long key) {
+        if (enabled) {
+            store.add(key, System.currentTimeMillis());
+        }
+    }
+}
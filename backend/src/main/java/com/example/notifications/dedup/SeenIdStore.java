@@ -0,0 +1,298 @@
+package com.example.notifications.dedup;
+
+import com.example.notifications.support.Hashing;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded, time-expiring set of processed record ids, kept in a memory-mapped file so it
+ * survives restarts.
+ *
+ * Two Bloom filter generations, each covering one {@code window}, answer "definitely not
+ * seen" for new ids without touching the table. The exact table stores (id hash, seen-at)
+ * pairs. It is split into lock-striped segments with bounded linear probing. Entries older
+ * than the window count as free, and when a probe run is full the oldest entry is overwritten.
+ * A Bloom hit is only reported as a duplicate when the exact table confirms it, so false
+ * positives never drop records.
+ *
+ * Layout, big-endian: a 64-byte header (magic, version, table slots, bloom words, window,
+ * current generation and its start time), the two Bloom generations, then 16-byte table slots.
+ */
+@Component
+public class SeenIdStore {
+
+    private static final Logger log = LoggerFactory.getLogger(SeenIdStore.class);
+
+    private static final long MAGIC = 0x46525345454e3031L; // "FRSEEN01"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+    private static final int SLOT_BYTES = 16;
+    private static final int BITS_PER_ENTRY = 10;
+    private static final int BLOOM_PROBES = 7;
+    private static final int PROBE_LIMIT = 32;
+    private static final int STRIPES = 64;
+
+    private static final int CURRENT_GENERATION = 40;
+    private static final int GENERATION_START = 48;
+
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    private final Path file;
+    private final long windowMillis;
+    private final long tableSlots;
+    private final long bloomWords;
+    private final int tableOffset;
+    private final long stripeSlots;
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+    private final MappedByteBuffer buffer;
+    private final AtomicLong overwritten = new AtomicLong();
+
+    public SeenIdStore(
+            @Value("${fraud.dedup.file:./data/dedup/seen-ids.dat}") Path file,
+            @Value("${fraud.dedup.window:1h}") Duration window,
+            @Value("${fraud.dedup.capacity:2000000}") long capacity) throws IOException {
+        this.file = file;
+        this.windowMillis = window.toMillis();
+        // Twice as many slots as ids keeps probe runs short enough that live ids are rarely evicted.
+        this.stripeSlots = Math.max(PROBE_LIMIT, tableSizeFor(2 * capacity / STRIPES));
+        this.tableSlots = stripeSlots * STRIPES;
+        this.bloomWords = Math.max(1, tableSizeFor(capacity * BITS_PER_ENTRY) / Long.SIZE);
+        this.tableOffset = HEADER_BYTES + (int) (2 * bloomWords * Long.BYTES);
+        long size = tableOffset + tableSlots * SLOT_BYTES;
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("fraud.dedup.capacity too large for one mapping: " + capacity);
+        }
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            long existing = channel.size();
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            if (existing == size && matchesHeader()) {
+                log.info("Reusing seen-id store {} ({} slots, window {})", file, tableSlots, window);
+            } else {
+                if (existing > 0) {
+                    log.warn("Seen-id store {} has a different layout, starting empty", file);
+                }
+                initialize();
+            }
+        }
+    }
+
+    /**
+     * Hash of a record id within its topic, never 0.
+     */
+    public static long key(String topic, String id) {
+        long h = Hashing.hash64(topic, id);
+        return h == 0 ? 1 : h;
+    }
+
+    /**
+     * Whether {@code key} was added within the window before {@code nowMillis}.
+     */
+    public boolean contains(long key, long nowMillis) {
+        rotateIfDue(nowMillis);
+        if (!mightContain(key)) {
+            return false;
+        }
+        ReentrantLock lock = lock(key);
+        lock.lock();
+        try {
+            long base = stripeBase(key);
+            for (int p = 0; p < PROBE_LIMIT; p++) {
+                int at = slotOffset(base, key, p);
+                long stored = buffer.getLong(at);
+                if (stored == key) {
+                    return nowMillis - buffer.getLong(at + Long.BYTES) < windowMillis;
+                }
+                if (stored == 0) {
+                    return false;
+                }
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Records {@code key} as processed at {@code nowMillis}.
+     */
+    public void add(long key, long nowMillis) {
+        rotateIfDue(nowMillis);
+        ReentrantLock lock = lock(key);
+        lock.lock();
+        try {
+            long base = stripeBase(key);
+            int target = -1;
+            int oldestAt = -1;
+            long oldest = Long.MAX_VALUE;
+            for (int p = 0; p < PROBE_LIMIT; p++) {
+                int at = slotOffset(base, key, p);
+                long stored = buffer.getLong(at);
+                long seenAt = buffer.getLong(at + Long.BYTES);
+                if (stored == key || stored == 0 || nowMillis - seenAt >= windowMillis) {
+                    target = at;
+                    break;
+                }
+                if (seenAt < oldest) {
+                    oldest = seenAt;
+                    oldestAt = at;
+                }
+            }
+            if (target < 0) {
+                target = oldestAt;
+                overwritten.incrementAndGet();
+            }
+            buffer.putLong(target, key);
+            buffer.putLong(target + Long.BYTES, nowMillis);
+        } finally {
+            lock.unlock();
+        }
+
+        int generation = (int) buffer.getLong(CURRENT_GENERATION);
+        setBloomBits(generation, key);
+    }
+
+    /**
+     * Live ids evicted before their window ended because their probe run was full; a
+     * steadily rising value means {@code fraud.dedup.capacity} is too small.
+     */
+    public long overwritten() {
+        return overwritten.get();
+    }
+
+    public Duration window() {
+        return Duration.ofMillis(windowMillis);
+    }
+
+    @Scheduled(fixedDelayString = "${fraud.dedup.flush-interval-ms:5000}")
+    public void flush() {
+        buffer.force();
+    }
+
+    @PreDestroy
+    public void close() {
+        flush();
+        log.info("Flushed seen-id store {}", file);
+    }
+
+    private boolean mightContain(long key) {
+        return bloomContains(0, key) || bloomContains(1, key);
+    }
+
+    private boolean bloomContains(int generation, long key) {
+        long mask = bloomWords * Long.SIZE - 1;
+        long step = probeStep(key);
+        int base = HEADER_BYTES + (int) (generation * bloomWords * Long.BYTES);
+        for (int p = 0; p < BLOOM_PROBES; p++) {
+            long bit = (key + p * step) & mask;
+            if (((long) LONGS.getOpaque(buffer, base + (int) (bit >>> 6) * Long.BYTES) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void setBloomBits(int generation, long key) {
+        long mask = bloomWords * Long.SIZE - 1;
+        long step = probeStep(key);
+        int base = HEADER_BYTES + (int) (generation * bloomWords * Long.BYTES);
+        for (int p = 0; p < BLOOM_PROBES; p++) {
+            long bit = (key + p * step) & mask;
+            LONGS.getAndBitwiseOr(buffer, base + (int) (bit >>> 6) * Long.BYTES, 1L << bit);
+        }
+    }
+
+    /**
+     * Starts a new Bloom generation once the current one is a window old. The generation
+     * being reused is cleared while all stripes are locked, so no check sees it half-empty.
+     */
+    private void rotateIfDue(long nowMillis) {
+        if (nowMillis - buffer.getLong(GENERATION_START) < windowMillis) {
+            return;
+        }
+        for (ReentrantLock lock : locks) {
+            lock.lock();
+        }
+        try {
+            if (nowMillis - buffer.getLong(GENERATION_START) < windowMillis) {
+                return;
+            }
+            int next = 1 - (int) buffer.getLong(CURRENT_GENERATION);
+            int base = HEADER_BYTES + (int) (next * bloomWords * Long.BYTES);
+            for (long w = 0; w < bloomWords; w++) {
+                buffer.putLong(base + (int) w * Long.BYTES, 0L);
+            }
+            buffer.putLong(CURRENT_GENERATION, next);
+            buffer.putLong(GENERATION_START, nowMillis);
+        } finally {
+            for (ReentrantLock lock : locks) {
+                lock.unlock();
+            }
+        }
+    }
+
+    private boolean matchesHeader() {
+        return buffer.getLong(0) == MAGIC
+            && buffer.getInt(8) == VERSION
+            && buffer.getLong(16) == tableSlots
+            && buffer.getLong(24) == bloomWords
+            && buffer.getLong(32) == windowMillis;
+    }
+
+    private void initialize() {
+        for (int at = 0; at + Long.BYTES <= buffer.capacity(); at += Long.BYTES) {
+            buffer.putLong(at, 0L);
+        }
+        buffer.putLong(0, MAGIC);
+        buffer.putInt(8, VERSION);
+        buffer.putLong(16, tableSlots);
+        buffer.putLong(24, bloomWords);
+        buffer.putLong(32, windowMillis);
+        buffer.putLong(CURRENT_GENERATION, 0);
+        buffer.putLong(GENERATION_START, System.currentTimeMillis());
+        buffer.force();
+    }
+
+    private ReentrantLock lock(long key) {
+        return locks[(int) (key >>> 58)];
+    }
+
+    private long stripeBase(long key) {
+        return (key >>> 58) * stripeSlots;
+    }
+
+    private int slotOffset(long stripeBase, long key, int probe) {
+        long slot = stripeBase + ((key + probe) & (stripeSlots - 1));
+        return tableOffset + (int) slot * SLOT_BYTES;
+    }
+
+    private static long probeStep(long key) {
+        return Hashing.mix(key ^ 0x9e3779b97f4a7c15L) | 1;
+    }
+
+    private static long tableSizeFor(long n) {
+        return n <= 1 ? 1 : Long.highestOneBit(n - 1) << 1;
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.notifications.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event for one audit log write.
+ */
+@Name("com.example.fraud.AuditFlush")
+@Label("Audit Flush")
+@Category({"Fraud Gateway", "Audit"})
+@Description("Persisting the audit log row of one application")
+@Enabled(false)
+public class AuditFlushEvent extends Event {
+
+    @Label("Application Id")
+    public String applicationId;
+
+    @Label("Rules Evaluated")
+    public int rulesEvaluated;
+
+    @Label("Rules Skipped")
+    public int rulesSkipped;
+
+    @Label("Rules Matched")
+    public int rulesMatched;
+
+    @Label("Final Action")
+    public String finalAction;
+}
@@ -0,0 +1,38 @@
+package com.example.notifications.diagnostics;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/diagnostics")
+@CrossOrigin(origins = "http://localhost:5173")
+public class DiagnosticsController {
+
+    private final StageLatencyTracker latencyTracker;
+
+    public DiagnosticsController(StageLatencyTracker latencyTracker) {
+        this.latencyTracker = latencyTracker;
+    }
+
+    @GetMapping("/latency")
+    public Map<String, Object> getLatency() {
+        return latencyTracker.snapshot();
+    }
+
+    @DeleteMapping("/latency")
+    public ResponseEntity<Void> resetLatency() {
+        latencyTracker.reset();
+        return ResponseEntity.noContent().build();
+    }
+
+    @PutMapping("/latency/sample-rate")
+    public ResponseEntity<Map<String, Object>> setSampleRate(@RequestParam double rate) {
+        if (rate < 0 || rate > 1) {
+            return ResponseEntity.badRequest().body(Map.of("error", "rate must be between 0 and 1"));
+        }
+        latencyTracker.setSampleRate(rate);
+        return ResponseEntity.ok(Map.of("sampleRate", rate));
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.notifications.diagnostics;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs time-boxed JDK Flight Recorder recordings inside the running JVM, with the fraud
+ * gateway's custom events enabled on top of a built-in JFR configuration.
+ *
+ * Only one recording runs at a time; durations are capped by
+ * {@code fraud.profiling.max-duration}.
+ */
+@Component
+public class JfrProfiler {
+
+    private static final Logger log = LoggerFactory.getLogger(JfrProfiler.class);
+
+    private final Duration maxDuration;
+    private final AtomicBoolean recording = new AtomicBoolean();
+
+    public JfrProfiler(@Value("${fraud.profiling.max-duration:5m}") Duration maxDuration) {
+        this.maxDuration = maxDuration;
+    }
+
+    public Duration getMaxDuration() {
+        return maxDuration;
+    }
+
+    public boolean isRecording() {
+        return recording.get();
+    }
+
+    /**
+     * Records for {@code duration} and returns the dumped {@code .jfr} file, which the caller
+     * must delete.
+     *
+     * @param settings      built-in JFR configuration, "default" or "profile"
+     * @param ruleThreshold only rule evaluations at least this slow are recorded
+     * @throws IllegalStateException if another recording is already running
+     */
+    public Path record(Duration duration, String settings, Duration ruleThreshold)
+            throws IOException, ParseException, InterruptedException {
+        if (duration.isNegative() || duration.isZero() || duration.compareTo(maxDuration) > 0) {
+            throw new IllegalArgumentException("Duration must be between 0 and " + maxDuration);
+        }
+        if (!recording.compareAndSet(false, true)) {
+            throw new IllegalStateException("A recording is already in progress");
+        }
+
+        Path file = Files.createTempFile("fraud-gateway-", ".jfr");
+        try (Recording jfr = new Recording(Configuration.getConfiguration(settings))) {
+            jfr.setName("fraud-gateway-on-demand");
+            jfr.enable(RuleEvaluationEvent.class).withThreshold(ruleThreshold);
+            jfr.enable(ReactionExecutionEvent.class).withThreshold(Duration.ZERO);
+            jfr.enable(AuditFlushEvent.class).withThreshold(Duration.ZERO);
+
+            log.info("Starting JFR recording for {} (settings={}, ruleThreshold={})", duration, settings, ruleThreshold);
+            jfr.start();
+            Thread.sleep(duration.toMillis());
+            jfr.stop();
+            jfr.dump(file);
+            log.info("JFR recording finished: {} bytes", Files.size(file));
+            return file;
+        } catch (IOException | ParseException | InterruptedException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        } finally {
+            recording.set(false);
+        }
+    }
+}
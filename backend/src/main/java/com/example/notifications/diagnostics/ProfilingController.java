@@ -0,0 +1,68 @@
+package com.example.notifications.diagnostics;
+
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/profiling")
+public class ProfilingController {
+
+    private final JfrProfiler profiler;
+
+    public ProfilingController(JfrProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    @GetMapping
+    public Map<String, Object> getStatus() {
+        return Map.of(
+            "recording", profiler.isRecording(),
+            "maxDuration", profiler.getMaxDuration().toString()
+        );
+    }
+
+    /**
+     * Records for the given duration (e.g. "30s") and returns the .jfr file. The request
+     * blocks until the recording is complete.
+     */
+    @PostMapping("/jfr")
+    public ResponseEntity<?> recordJfr(
+            @RequestParam(defaultValue = "30s") String duration,
+            @RequestParam(defaultValue = "profile") String settings,
+            @RequestParam(defaultValue = "50us") String ruleThreshold) throws Exception {
+        Path file;
+        try {
+            file = profiler.record(DurationStyle.detectAndParse(duration), settings,
+                DurationStyle.detectAndParse(ruleThreshold));
+        } catch (IllegalArgumentException | ParseException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+
+        StreamingResponseBody body = out -> {
+            try (InputStream in = Files.newInputStream(file)) {
+                in.transferTo(out);
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        };
+        return ResponseEntity.ok()
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + file.getFileName() + "\"")
+            .contentLength(Files.size(file))
+            .contentType(MediaType.APPLICATION_OCTET_STREAM)
+            .body(body);
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.notifications.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event for one executed reaction (Kafka publish, frontend push, API call, log).
+ */
+@Name("com.example.fraud.ReactionExecution")
+@Label("Reaction Execution")
+@Category({"Fraud Gateway", "Reactions"})
+@Description("Execution of one reaction by the ReactionExecutor")
+@Enabled(false)
+public class ReactionExecutionEvent extends Event {
+
+    @Label("Reaction Type")
+    public String reactionType;
+
+    @Label("Target")
+    @Description("Topic, URL or log level the reaction was sent to")
+    public String target;
+}
@@ -0,0 +1,38 @@
+package com.example.notifications.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event for one rule evaluated against one application. Disabled unless a recording
+ * enables it, e.g. through {@link JfrProfiler}.
+ */
+@Name("com.example.fraud.RuleEvaluation")
+@Label("Rule Evaluation")
+@Category({"Fraud Gateway", "Rules"})
+@Description("Evaluation of one fraud rule against one application")
+@Enabled(false)
+public class RuleEvaluationEvent extends Event {
+
+    @Label("Rule Id")
+    public long ruleId;
+
+    @Label("Rule Name")
+    public String ruleName;
+
+    @Label("Operator")
+    public String operator;
+
+    @Label("Field Path")
+    public String fieldPath;
+
+    @Label("Application Id")
+    public String applicationId;
+
+    @Label("Matched")
+    public boolean matched;
+}
@@ -0,0 +1,29 @@
+package com.example.notifications.diagnostics;
+
+/**
+ * Stages a consumed record passes through on its way to the outbound topics or the browser.
+ */
+public enum Stage {
+    /** Record create time to listener entry: broker, fetch and container hand-off. */
+    QUEUE_WAIT,
+    /** JSON deserialization of the record value. */
+    DESERIALIZE,
+    /** Picking the applicable rules from the cached rule set. */
+    RULE_FETCH,
+    /** Evaluating fraud rules, or matching code-based routing rules. */
+    EVALUATION,
+    /** Synchronous part of a Kafka send (serialization and buffering). */
+    KAFKA_SEND,
+    /** Kafka send until broker acknowledgement. */
+    KAFKA_ACK,
+    /** Pushing a notification to connected SSE clients. */
+    FRONTEND_PUSH,
+    /** Other reactions such as external API calls and log events. */
+    OTHER_REACTION,
+    /** Inserting the audit log row. */
+    AUDIT_INSERT,
+    /** Listener entry to the end of processing. */
+    PROCESSING,
+    /** Record create time to the end of processing. */
+    END_TO_END
+}
@@ -0,0 +1,184 @@
+package com.example.notifications.diagnostics;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.DefaultKafkaConsumerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-stage, per-topic latency histograms for sampled records.
+ *
+ * Recording goes through HdrHistogram {@link Recorder}s, which are wait-free for writers;
+ * only the snapshot and reset paths synchronize. With the sample rate at 0 a record costs a
+ * single volatile read.
+ *
+ * The tracker is handed to the consumers' {@link TimedDeserializer}s through the consumer
+ * factory's configs. When deserialization is timed, the deserializer makes the sampling
+ * decision and marks sampled records with a {@value #DESERIALIZE_HEADER} header carrying the
+ * time it took; {@link #startTrace} then traces exactly those records.
+ */
+@Component
+public class StageLatencyTracker {
+
+    private static final long MAX_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10);
+    private static final int SIGNIFICANT_DIGITS = 2;
+
+    /**
+     * Header added to sampled records by {@link TimedDeserializer}: deserialization time in
+     * nanoseconds, as a big-endian long.
+     */
+    public static final String DESERIALIZE_HEADER = "fraud-trace-deserialize-nanos";
+
+    private final Map<String, TopicHistograms> byTopic = new ConcurrentHashMap<>();
+    private volatile double sampleRate;
+    private volatile Instant since = Instant.now();
+    private volatile boolean deserializationTimed;
+
+    public StageLatencyTracker(@Value("${fraud.diagnostics.latency.sample-rate:0.1}") double sampleRate) {
+        setSampleRate(sampleRate);
+    }
+
+    /**
+     * Passes this tracker to every {@link TimedDeserializer} the consumer factory creates.
+     */
+    @Bean
+    DefaultKafkaConsumerFactoryCustomizer stageLatencyConsumerConfig() {
+        return factory -> factory.updateConfigs(Map.of(TimedDeserializer.TRACKER, this));
+    }
+
+    /**
+     * Called by a {@link TimedDeserializer} configured with this tracker: from then on records
+     * are traced only if it sampled them.
+     */
+    void deserializationTimed() {
+        deserializationTimed = true;
+    }
+
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    public void setSampleRate(double sampleRate) {
+        if (sampleRate < 0 || sampleRate > 1) {
+            throw new IllegalArgumentException("Sample rate must be between 0 and 1");
+        }
+        this.sampleRate = sampleRate;
+    }
+
+    public boolean sample() {
+        double rate = sampleRate;
+        return rate > 0 && (rate >= 1 || ThreadLocalRandom.current().nextDouble() < rate);
+    }
+
+    /**
+     * Starts a trace for a consumed record, or returns {@link StageTrace#NOOP} when the
+     * record is not sampled.
+     */
+    public StageTrace startTrace(ConsumerRecord<?, ?> record) {
+        Header deserialized = record.headers().lastHeader(DESERIALIZE_HEADER);
+        if (deserialized == null && (deserializationTimed || !sample())) {
+            return StageTrace.NOOP;
+        }
+        StageTrace trace = new StageTrace(this, record.topic(), System.nanoTime(), record.timestamp());
+        if (deserialized != null && deserialized.value() != null && deserialized.value().length == Long.BYTES) {
+            record(record.topic(), Stage.DESERIALIZE, ByteBuffer.wrap(deserialized.value()).getLong());
+        }
+        if (record.timestamp() > 0) {
+            long waitMillis = Math.max(0, System.currentTimeMillis() - record.timestamp());
+            record(record.topic(), Stage.QUEUE_WAIT, TimeUnit.MILLISECONDS.toNanos(waitMillis));
+        }
+        return trace;
+    }
+
+    public void record(String topic, Stage stage, long nanos) {
+        long micros = Math.min(Math.max(0, nanos / 1_000), MAX_TRACKABLE_MICROS);
+        byTopic.computeIfAbsent(topic, t -> new TopicHistograms()).recorders[stage.ordinal()].recordValue(micros);
+    }
+
+    /**
+     * Percentiles in milliseconds per topic and stage, accumulated since the last reset.
+     */
+    public synchronized Map<String, Object> snapshot() {
+        Map<String, Object> topics = new TreeMap<>();
+        byTopic.forEach((topic, histograms) -> {
+            histograms.drain();
+            Map<String, Object> stages = new LinkedHashMap<>();
+            for (Stage stage : Stage.values()) {
+                Histogram h = histograms.totals[stage.ordinal()];
+                if (h.getTotalCount() > 0) {
+                    stages.put(stage.name(), summarize(h));
+                }
+            }
+            topics.put(topic, stages);
+        });
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("sampleRate", sampleRate);
+        result.put("since", since.toString());
+        result.put("unit", "ms");
+        result.put("topics", topics);
+        return result;
+    }
+
+    public synchronized void reset() {
+        byTopic.values().forEach(TopicHistograms::reset);
+        since = Instant.now();
+    }
+
+    private static Map<String, Object> summarize(Histogram h) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", h.getTotalCount());
+        summary.put("mean", millis(h.getMean()));
+        summary.put("p50", millis(h.getValueAtPercentile(50)));
+        summary.put("p90", millis(h.getValueAtPercentile(90)));
+        summary.put("p99", millis(h.getValueAtPercentile(99)));
+        summary.put("p999", millis(h.getValueAtPercentile(99.9)));
+        summary.put("max", millis(h.getMaxValue()));
+        return summary;
+    }
+
+    private static double millis(double micros) {
+        return Math.round(micros) / 1_000.0;
+    }
+
+    private static final class TopicHistograms {
+        final Recorder[] recorders = new Recorder[Stage.values().length];
+        final Histogram[] totals = new Histogram[Stage.values().length];
+        // Interval histograms can only be recycled into the recorder that produced them.
+        private final Histogram[] recycled = new Histogram[Stage.values().length];
+
+        TopicHistograms() {
+            for (int i = 0; i < recorders.length; i++) {
+                recorders[i] = new Recorder(MAX_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+                totals[i] = new Histogram(MAX_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+            }
+        }
+
+        void drain() {
+            for (int i = 0; i < recorders.length; i++) {
+                recycled[i] = recorders[i].getIntervalHistogram(recycled[i]);
+                totals[i].add(recycled[i]);
+            }
+        }
+
+        void reset() {
+            drain();
+            for (Histogram total : totals) {
+                total.reset();
+            }
+        }
+    }
+}
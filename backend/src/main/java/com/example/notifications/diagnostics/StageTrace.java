@@ -0,0 +1,58 @@
+package com.example.notifications.diagnostics;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stage timestamps for one sampled record, handed down the processing path.
+ *
+ * Unsampled records share {@link #NOOP}, whose methods do nothing and never read the clock,
+ * so callers can time stages unconditionally.
+ */
+public final class StageTrace {
+
+    public static final StageTrace NOOP = new StageTrace(null, null, 0, 0);
+
+    private final StageLatencyTracker tracker;
+    private final String topic;
+    private final long startNanos;
+    private final long recordTimestamp;
+
+    StageTrace(StageLatencyTracker tracker, String topic, long startNanos, long recordTimestamp) {
+        this.tracker = tracker;
+        this.topic = topic;
+        this.startNanos = startNanos;
+        this.recordTimestamp = recordTimestamp;
+    }
+
+    public boolean sampled() {
+        return tracker != null;
+    }
+
+    /**
+     * Returns the start of a stage, to be passed to {@link #end}.
+     */
+    public long begin() {
+        return tracker != null ? System.nanoTime() : 0;
+    }
+
+    public void end(Stage stage, long begin) {
+        if (tracker != null) {
+            tracker.record(topic, stage, System.nanoTime() - begin);
+        }
+    }
+
+    /**
+     * Records the total processing time and, when the record has a create time, the
+     * end-to-end latency since it was produced.
+     */
+    public void finish() {
+        if (tracker == null) {
+            return;
+        }
+        tracker.record(topic, Stage.PROCESSING, System.nanoTime() - startNanos);
+        if (recordTimestamp > 0) {
+            long millis = Math.max(0, System.currentTimeMillis() - recordTimestamp);
+            tracker.record(topic, Stage.END_TO_END, TimeUnit.MILLISECONDS.toNanos(millis));
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.notifications.diagnostics;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+/**
+ * Value deserializer that delegates to {@link JsonDeserializer} (or the class named by
+ * {@value #DELEGATE_CLASS}) and, for sampled records, passes the time spent on to the
+ * {@link Stage#DESERIALIZE} histogram in a {@link StageLatencyTracker#DESERIALIZE_HEADER} header.
+ *
+ * Kafka instantiates and configures this class from consumer properties, so per-listener
+ * overrides such as {@code spring.json.value.default.type} reach the delegate unchanged. The
+ * tracker arrives the same way, as the {@value #TRACKER} config the consumer factory carries;
+ * without it nothing is timed.
+ */
+public class TimedDeserializer<T> implements Deserializer<T> {
+
+    public static final String DELEGATE_CLASS = "timed.deserializer.value.delegate.class";
+    public static final String TRACKER = "timed.deserializer.tracker";
+
+    private Deserializer<T> delegate;
+    private StageLatencyTracker tracker;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        Object delegateClass = configs.get(DELEGATE_CLASS);
+        try {
+            if (delegateClass == null) {
+                delegate = (Deserializer<T>) new JsonDeserializer<>();
+            } else {
+                Class<?> type = delegateClass instanceof Class<?> c ? c : Class.forName(delegateClass.toString());
+                delegate = (Deserializer<T>) type.getDeclaredConstructor().newInstance();
+            }
+        } catch (ReflectiveOperationException e) {
+            throw new SerializationException("Cannot create delegate deserializer " + delegateClass, e);
+        }
+        delegate.configure(configs, isKey);
+        if (configs.get(TRACKER) instanceof StageLatencyTracker configured) {
+            tracker = configured;
+            tracker.deserializationTimed();
+        }
+    }
+
+    @Override
+    public T deserialize(String topic, byte[] data) {
+        return deserialize(topic, null, data);
+    }
+
+    @Override
+    public T deserialize(String topic, Headers headers, byte[] data) {
+        if (tracker == null || headers == null || !tracker.sample()) {
+            return delegate.deserialize(topic, headers, data);
+        }
+        long start = System.nanoTime();
+        T value = delegate.deserialize(topic, headers, data);
+        long nanos = System.nanoTime() - start;
+        headers.add(StageLatencyTracker.DESERIALIZE_HEADER, ByteBuffer.allocate(Long.BYTES).putLong(nanos).array());
+        return value;
+    }
+
+    @Override
+    public void close() {
+        if (delegate != null) {
+            delegate.close();
+        }
+    }
+}
@@ -23,6 +23,15 @@ public class AuditLog {
     @Column(name = "rules_evaluated")
     private int rulesEvaluated;
 
+    @Column(name = "rules_skipped")
+    private int rulesSkipped;
+
+    @Column(name = "skipped_rule_ids", columnDefinition = "TEXT")
+    private String skippedRuleIds;
+
+    @Column(name = "evaluation_strategy")
+    private String evaluationStrategy;
+
     @Column(name = "rules_matched")
     private int rulesMatched;
 
@@ -32,6 +41,12 @@ public class AuditLog {
     @Column(name = "matched_rule_names", columnDefinition = "TEXT")
     private String matchedRuleNames;
 
+    @Column(name = "risk_score")
+    private Double riskScore;
+
+    @Column(name = "risk_contributions", columnDefinition = "TEXT")
+    private String riskContributions;
+
     @Column(name = "final_action")
     @Enumerated(EnumType.STRING)
     private RuleAction finalAction;
@@ -63,6 +78,15 @@ public class AuditLog {
     public int getRulesEvaluated() { return rulesEvaluated; }
     public void setRulesEvaluated(int rulesEvaluated) { this.rulesEvaluated = rulesEvaluated; }
 
+    public int getRulesSkipped() { return rulesSkipped; }
+    public void setRulesSkipped(int rulesSkipped) { this.rulesSkipped = rulesSkipped; }
+
+    public String getSkippedRuleIds() { return skippedRuleIds; }
+    public void setSkippedRuleIds(String skippedRuleIds) { this.skippedRuleIds = skippedRuleIds; }
+
+    public String getEvaluationStrategy() { return evaluationStrategy; }
+    public void setEvaluationStrategy(String evaluationStrategy) { this.evaluationStrategy = evaluationStrategy; }
+
     public int getRulesMatched() { return rulesMatched; }
     public void setRulesMatched(int rulesMatched) { this.rulesMatched = rulesMatched; }
 
@@ -72,6 +96,12 @@ public class AuditLog {
     public String getMatchedRuleNames() { return matchedRuleNames; }
     public void setMatchedRuleNames(String matchedRuleNames) { this.matchedRuleNames = matchedRuleNames; }
 
+    public Double getRiskScore() { return riskScore; }
+    public void setRiskScore(Double riskScore) { this.riskScore = riskScore; }
+
+    public String getRiskContributions() { return riskContributions; }
+    public void setRiskContributions(String riskContributions) { this.riskContributions = riskContributions; }
+
     public RuleAction getFinalAction() { return finalAction; }
     public void setFinalAction(RuleAction finalAction) { this.finalAction = finalAction; }
 
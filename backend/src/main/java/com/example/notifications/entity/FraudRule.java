@@ -1,5 +1,8 @@
 package com.example.notifications.entity;
 
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import com.fasterxml.jackson.annotation.JsonSetter;
+import com.fasterxml.jackson.databind.JsonNode;
 import jakarta.persistence.*;
 import java.time.Instant;
 
@@ -22,17 +25,35 @@ public class FraudRule {
     @Column(nullable = false)
     private int priority = 100;
 
-    // Condition
-    @Column(name = "field_path", nullable = false)
+    // Shadow rules are evaluated off the decision path and only counted; they never act
+    @Column(columnDefinition = "boolean default false")
+    private boolean shadow;
+
+    // Condition: either a single fieldPath/operator/value check or a condition tree
+    @Column(name = "field_path")
     private String fieldPath;
 
-    @Column(nullable = false)
     @Enumerated(EnumType.STRING)
     private RuleOperator operator;
 
-    @Column(name = "rule_value", nullable = false)
+    @Column(name = "rule_value")
     private String value;
 
+    // JSON all/any/not tree of predicates; when set, fieldPath/operator/value are ignored
+    @Column(name = "condition_tree", columnDefinition = "TEXT")
+    private String conditionTree;
+
+    // Sliding window for VELOCITY_EXCEEDS rules
+    @Column(name = "window_seconds")
+    private Integer windowSeconds;
+
+    // Scope: comma-separated application types / source systems; null applies to all
+    @Column(name = "application_types")
+    private String applicationTypes;
+
+    @Column(name = "source_systems")
+    private String sourceSystems;
+
     // Action
     @Column(name = "action_type", nullable = false)
     @Enumerated(EnumType.STRING)
@@ -74,6 +95,9 @@ public class FraudRule {
     public int getPriority() { return priority; }
     public void setPriority(int priority) { this.priority = priority; }
 
+    public boolean isShadow() { return shadow; }
+    public void setShadow(boolean shadow) { this.shadow = shadow; }
+
     public String getFieldPath() { return fieldPath; }
     public void setFieldPath(String fieldPath) { this.fieldPath = fieldPath; }
 
@@ -83,6 +107,28 @@ public class FraudRule {
     public String getValue() { return value; }
     public void setValue(String value) { this.value = value; }
 
+    @JsonRawValue
+    public String getConditionTree() { return conditionTree; }
+    public void setConditionTree(String conditionTree) { this.conditionTree = conditionTree; }
+
+    @JsonSetter("conditionTree")
+    public void setConditionTreeJson(JsonNode conditionTree) {
+        if (conditionTree == null || conditionTree.isNull()) {
+            this.conditionTree = null;
+        } else {
+            this.conditionTree = conditionTree.isTextual() ? conditionTree.asText() : conditionTree.toString();
+        }
+    }
+
+    public Integer getWindowSeconds() { return windowSeconds; }
+    public void setWindowSeconds(Integer windowSeconds) { this.windowSeconds = windowSeconds; }
+
+    public String getApplicationTypes() { return applicationTypes; }
+    public void setApplicationTypes(String applicationTypes) { this.applicationTypes = applicationTypes; }
+
+    public String getSourceSystems() { return sourceSystems; }
+    public void setSourceSystems(String sourceSystems) { this.sourceSystems = sourceSystems; }
+
     public RuleAction getActionType() { return actionType; }
     public void setActionType(RuleAction actionType) { this.actionType = actionType; }
 
@@ -12,6 +12,11 @@ public enum RuleOperator {
     REGEX,
     IN_LIST,
     NOT_IN_LIST,
+    // `value` names a list uploaded through /api/lists
+    IN_NAMED_LIST,
+    NOT_IN_NAMED_LIST,
     IS_NULL,
-    IS_NOT_NULL
+    IS_NOT_NULL,
+    // More than `value` applications with the same field value within `windowSeconds`
+    VELOCITY_EXCEEDS
 }
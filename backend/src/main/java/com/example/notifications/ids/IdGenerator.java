@@ -0,0 +1,18 @@
+package com.example.notifications.ids;
+
+import java.util.UUID;
+
+/**
+ * Mints the ids of notifications, events and applications that arrive without one. Define a
+ * bean of this type to replace the generator chosen by {@code fraud.ids.generator}.
+ */
+@FunctionalInterface
+public interface IdGenerator {
+
+    /**
+     * Random version 4 UUIDs from the shared {@code SecureRandom}, as before ids were pluggable.
+     */
+    IdGenerator RANDOM = () -> UUID.randomUUID().toString();
+
+    String nextId();
+}
@@ -0,0 +1,39 @@
+package com.example.notifications.ids;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Installs the id generator: an {@link IdGenerator} bean if the application defines one,
+ * otherwise {@code fraud.ids.generator}, {@code time-ordered} (the default) or {@code random}.
+ * {@code fraud.ids.node-id} (0 to 65535) should differ between nodes; by default it is derived
+ * from the host name and process id.
+ */
+@Component
+public class IdGeneratorSetup {
+
+    private static final Logger log = LoggerFactory.getLogger(IdGeneratorSetup.class);
+
+    public IdGeneratorSetup(
+            ObjectProvider<IdGenerator> custom,
+            @Value("${fraud.ids.generator:time-ordered}") String generator,
+            @Value("${fraud.ids.node-id:-1}") int nodeId) {
+        IdGenerator configured = custom.getIfUnique();
+        if (configured != null) {
+            log.info("Ids from {}", configured.getClass().getName());
+        } else {
+            int node = nodeId >= 0 ? nodeId : Ids.defaultNodeId();
+            configured = switch (generator) {
+                case "time-ordered" -> new TimeOrderedIdGenerator(node);
+                case "random" -> IdGenerator.RANDOM;
+                default -> throw new IllegalArgumentException(
+                    "fraud.ids.generator is time-ordered or random, not " + generator);
+            };
+            log.info("Ids from the {} generator{}", generator, generator.equals("time-ordered") ? ", node " + node : "");
+        }
+        Ids.use(configured);
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.notifications.ids;
+
+import com.example.notifications.support.Hashing;
+
+import java.net.InetAddress;
+
+/**
+ * The generator behind the static factories ({@code Notification.create},
+ * {@code IncomingEvent.create}, {@code Application.fromKafkaMessage}). Until
+ * {@link IdGeneratorSetup} installs the configured one, and in the CLIs and benchmarks, it is a
+ * {@link TimeOrderedIdGenerator} with a node id derived from the host name and process id.
+ */
+public final class Ids {
+
+    private static volatile IdGenerator generator = new TimeOrderedIdGenerator(defaultNodeId());
+
+    private Ids() {
+    }
+
+    public static String next() {
+        return generator.nextId();
+    }
+
+    public static IdGenerator generator() {
+        return generator;
+    }
+
+    static void use(IdGenerator idGenerator) {
+        generator = idGenerator;
+    }
+
+    static int defaultNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "localhost";
+        }
+        return (int) (Hashing.hash64(host, Long.toString(ProcessHandle.current().pid())) & 0xffff);
+    }
+}
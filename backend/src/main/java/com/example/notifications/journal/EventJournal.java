@@ -0,0 +1,308 @@
+package com.example.notifications.journal;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.Deflater;
+
+/**
+ * Optional append-only journal of every record the event router consumes, kept on local disk
+ * independently of Kafka retention. Read it back with {@link JournalReader}.
+ *
+ * Listener threads encode records into an in-memory block. A block is sealed once it reaches
+ * {@code fraud.journal.block-size}, or after {@code fraud.journal.flush-interval-ms}, and
+ * deflated into the active {@link JournalSegment} by whichever thread sealed it while the
+ * others keep appending to the next block. Records become readable when their block is sealed.
+ * A full segment is rolled over and old segments are deleted when they are past
+ * {@code fraud.journal.retention} or the journal is over {@code fraud.journal.max-size}.
+ *
+ * The journal never fails a record: encoding or I/O errors are logged and counted in
+ * {@code events.journal.dropped}.
+ */
+@Component
+public class EventJournal {
+
+    private static final Logger log = LoggerFactory.getLogger(EventJournal.class);
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final boolean enabled;
+    private final Path directory;
+    private final int segmentBytes;
+    private final int blockBytes;
+    private final Duration retention;
+    private final long maxBytes;
+    private final JournalReader reader;
+
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private PendingBlock pending = new PendingBlock();          // guarded by appendLock
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED, true); // guarded by writeLock
+    private JournalSegment active;                               // guarded by writeLock
+    private long nextSequence;                                   // guarded by writeLock
+
+    private final LongAdder written = new LongAdder();
+    private final LongAdder writtenBytes = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    public EventJournal(
+            MeterRegistry registry,
+            @Value("${fraud.journal.enabled:false}") boolean enabled,
+            @Value("${fraud.journal.dir:./data/journal}") Path directory,
+            @Value("${fraud.journal.segment-size:64MB}") DataSize segmentSize,
+            @Value("${fraud.journal.block-size:256KB}") DataSize blockSize,
+            @Value("${fraud.journal.retention:7d}") Duration retention,
+            @Value("${fraud.journal.max-size:10GB}") DataSize maxSize) throws IOException {
+        if (segmentSize.toBytes() > Integer.MAX_VALUE || segmentSize.toBytes() < 2 * blockSize.toBytes()) {
+            throw new IllegalArgumentException("fraud.journal.segment-size must be at least twice block-size and under 2GB");
+        }
+        this.enabled = enabled;
+        this.directory = directory.toAbsolutePath().normalize();
+        this.segmentBytes = (int) segmentSize.toBytes();
+        this.blockBytes = (int) blockSize.toBytes();
+        this.retention = retention;
+        this.maxBytes = maxSize.toBytes();
+        this.reader = new JournalReader(this.directory);
+        FunctionCounter.builder("events.journal.records", written, LongAdder::sum)
+            .description("Consumed records written to the event journal")
+            .register(registry);
+        FunctionCounter.builder("events.journal.bytes", writtenBytes, LongAdder::sum)
+            .description("Compressed bytes written to the event journal")
+            .baseUnit("bytes")
+            .register(registry);
+        FunctionCounter.builder("events.journal.dropped", dropped, LongAdder::sum)
+            .description("Consumed records the event journal failed to write")
+            .register(registry);
+        if (enabled) {
+            open();
+        }
+    }
+
+    private void open() throws IOException {
+        Files.createDirectories(directory);
+        Path last = null;
+        try (var files = Files.list(directory)) {
+            for (Path file : files.filter(f -> f.getFileName().toString().endsWith(JournalSegment.SEGMENT_SUFFIX)).toList()) {
+                long sequence = JournalSegment.sequence(file);
+                if (sequence >= nextSequence) {
+                    nextSequence = sequence + 1;
+                    last = file;
+                }
+            }
+        }
+        if (last != null) {
+            active = JournalSegment.reopen(last);
+        }
+        if (active != null) {
+            log.info("Event journal {}: continuing {} at byte {}", directory, last.getFileName(), active.committedBytes());
+        } else {
+            log.info("Event journal {}: starting segment {}", directory, JournalSegment.name(nextSequence));
+        }
+        applyRetention();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public JournalReader reader() {
+        return reader;
+    }
+
+    /**
+     * Adds a consumed record to the journal; a no-op when the journal is disabled.
+     */
+    public void append(ConsumerRecord<String, Map<String, Object>> record) {
+        if (!enabled) {
+            return;
+        }
+        byte[] value;
+        try {
+            value = MAPPER.writeValueAsBytes(record.value());
+        } catch (IOException e) {
+            dropped.increment();
+            log.warn("Cannot journal {}-{}@{}: {}", record.topic(), record.partition(), record.offset(), e.getMessage());
+            return;
+        }
+        PendingBlock full = null;
+        appendLock.lock();
+        try {
+            pending.add(record, value);
+            if (pending.size() >= blockBytes) {
+                full = pending;
+                pending = new PendingBlock();
+                // Taken before the append lock is released so blocks reach the segment in order.
+                writeLock.lock();
+            }
+        } finally {
+            appendLock.unlock();
+        }
+        if (full != null) {
+            try {
+                write(full);
+            } finally {
+                writeLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Seals the pending block so its records become readable, and flushes the active segment.
+     */
+    @Scheduled(fixedDelayString = "${fraud.journal.flush-interval-ms:1000}")
+    public void flush() {
+        if (!enabled) {
+            return;
+        }
+        PendingBlock full = null;
+        appendLock.lock();
+        try {
+            if (pending.records > 0) {
+                full = pending;
+                pending = new PendingBlock();
+            }
+            writeLock.lock();
+        } finally {
+            appendLock.unlock();
+        }
+        try {
+            if (full != null) {
+                write(full);
+            }
+            if (active != null) {
+                active.force();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void write(PendingBlock block) {
+        try {
+            if (active == null) {
+                active = JournalSegment.create(directory.resolve(JournalSegment.name(nextSequence++)), segmentBytes);
+            }
+            int before = active.committedBytes();
+            if (!active.append(deflater, block.bytes(), block.size(), block.records, block.minTimestamp, block.maxTimestamp)) {
+                if (active.isEmpty()) {
+                    throw new IOException("a block of " + block.size() + " bytes does not fit in a segment");
+                }
+                roll();
+                before = active.committedBytes();
+                if (!active.append(deflater, block.bytes(), block.size(), block.records, block.minTimestamp, block.maxTimestamp)) {
+                    throw new IOException("a block of " + block.size() + " bytes does not fit in a segment");
+                }
+            }
+            written.add(block.records);
+            writtenBytes.add(active.committedBytes() - before);
+        } catch (IOException | RuntimeException e) {
+            dropped.add(block.records);
+            log.warn("Failed to journal {} records: {}", block.records, e.getMessage());
+        }
+    }
+
+    private void roll() throws IOException {
+        JournalSegment sealed = active;
+        active = null;
+        sealed.seal();
+        log.info("Event journal sealed {} ({} bytes)", sealed.file().getFileName(), sealed.committedBytes());
+        active = JournalSegment.create(directory.resolve(JournalSegment.name(nextSequence++)), segmentBytes);
+        applyRetention();
+    }
+
+    /**
+     * Deletes the oldest sealed segments while they are past the retention period or the
+     * journal is over its size limit.
+     */
+    private void applyRetention() {
+        try {
+            List<JournalReader.Segment> segments = reader.segments();
+            long total = segments.stream().mapToLong(JournalReader.Segment::bytes).sum();
+            long cutoff = System.currentTimeMillis() - retention.toMillis();
+            for (JournalReader.Segment segment : segments) {
+                boolean expired = segment.to() == null || segment.to().toEpochMilli() < cutoff;
+                if (!segment.sealed() || (!expired && total <= maxBytes)) {
+                    break;
+                }
+                Path file = directory.resolve(segment.name());
+                Files.deleteIfExists(JournalSegment.indexFile(file));
+                Files.deleteIfExists(file);
+                total -= segment.bytes();
+                log.info("Event journal removed {} ({} records up to {})", segment.name(), segment.records(), segment.to());
+            }
+        } catch (IOException e) {
+            log.warn("Event journal retention failed: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        flush();
+    }
+
+    /**
+     * Records encoded back to back, in the layout {@link JournalReader} decodes: timestamp,
+     * partition, offset, topic, key (length -1 for none) and value, big-endian with
+     * length-prefixed UTF-8 strings.
+     */
+    private static final class PendingBlock extends ByteArrayOutputStream {
+
+        private final DataOutputStream out = new DataOutputStream(this);
+        private int records;
+        private long minTimestamp = Long.MAX_VALUE;
+        private long maxTimestamp = Long.MIN_VALUE;
+
+        PendingBlock() {
+            super(8192);
+        }
+
+        void add(ConsumerRecord<String, Map<String, Object>> record, byte[] value) {
+            try {
+                out.writeLong(record.timestamp());
+                out.writeInt(record.partition());
+                out.writeLong(record.offset());
+                byte[] topic = record.topic().getBytes(StandardCharsets.UTF_8);
+                out.writeShort(topic.length);
+                out.write(topic);
+                if (record.key() == null) {
+                    out.writeInt(-1);
+                } else {
+                    byte[] key = record.key().getBytes(StandardCharsets.UTF_8);
+                    out.writeInt(key.length);
+                    out.write(key);
+                }
+                out.writeInt(value.length);
+                out.write(value);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            records++;
+            minTimestamp = Math.min(minTimestamp, record.timestamp());
+            maxTimestamp = Math.max(maxTimestamp, record.timestamp());
+        }
+
+        byte[] bytes() {
+            return buf;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.notifications.journal;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Reads a journal directory, of a running node or copied off one, and prints the records of a
+ * time range as NDJSON or replays them to Kafka.
+ *
+ * Usage: java EventProducerCli journal read|replay --from 2024-03-01T10:00:00Z --to ... [options]
+ */
+public class JournalCli {
+
+    public static void main(String[] args) {
+        if (args.length == 0 || args[0].equals("--help") || args[0].equals("-h")) {
+            printUsage();
+            return;
+        }
+        try {
+            run(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            printUsage();
+            System.exit(1);
+        } catch (Exception e) {
+            System.err.println("Error: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static void run(String[] args) throws Exception {
+        String command = args[0];
+        if (!command.equals("read") && !command.equals("replay")) {
+            throw new IllegalArgumentException("Unknown command: " + command);
+        }
+        Path dir = Path.of("./data/journal");
+        long from = 0;
+        long to = System.currentTimeMillis();
+        Set<String> topics = new HashSet<>();
+        long limit = Long.MAX_VALUE;
+        Path output = null;
+        String bootstrapServers = "localhost:29092";
+        double speed = 0;
+
+        for (int i = 1; i < args.length; i++) {
+            String arg = args[i];
+            String value = i + 1 < args.length ? args[++i] : null;
+            if (value == null) {
+                throw new IllegalArgumentException("Missing value for option " + arg);
+            }
+            switch (arg) {
+                case "--dir" -> dir = Path.of(value);
+                case "--from" -> from = JournalReader.parseTime(value);
+                case "--to" -> to = JournalReader.parseTime(value);
+                case "--topic" -> topics.add(value);
+                case "--limit" -> limit = Long.parseLong(value);
+                case "--output" -> output = Path.of(value);
+                case "--bootstrap-servers" -> bootstrapServers = value;
+                case "--speed" -> speed = Double.parseDouble(value);
+                default -> throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+        }
+        if (!Files.isDirectory(dir)) {
+            throw new IllegalArgumentException("No journal directory " + dir);
+        }
+        JournalReader reader = new JournalReader(dir);
+        long start = System.nanoTime();
+        long count = command.equals("read")
+            ? read(reader, from, to, topics, limit, output)
+            : replay(reader, from, to, topics, limit, bootstrapServers, speed);
+        System.err.printf("%s %,d records in %d ms%n", command.equals("read") ? "Read" : "Replayed",
+            count, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private static long read(JournalReader reader, long from, long to, Set<String> topics, long limit,
+                             Path output) throws IOException {
+        OutputStream out = output != null ? Files.newOutputStream(output) : System.out;
+        try (JsonGenerator json = new JsonFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            json.setRootValueSeparator(null);
+            return reader.read(from, to, topics, limit, entry -> {
+                try {
+                    entry.write(json);
+                    json.writeRaw('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    /**
+     * Sends each record to its original topic with its original key and value. With a speed
+     * above 0 the gaps between record timestamps are kept, divided by the speed.
+     */
+    private static long replay(JournalReader reader, long from, long to, Set<String> topics, long limit,
+                               String bootstrapServers, double speed) throws IOException {
+        Properties props = new Properties();
+        props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
+        props.put(ProducerConfig.LINGER_MS_CONFIG, 5);
+
+        try (KafkaProducer<String, byte[]> producer = new KafkaProducer<>(props)) {
+            long startNanos = System.nanoTime();
+            long[] firstTimestamp = {-1};
+            return reader.read(from, to, topics, limit, entry -> {
+                if (speed > 0) {
+                    if (firstTimestamp[0] < 0) {
+                        firstTimestamp[0] = entry.timestamp();
+                    }
+                    long due = startNanos + (long) ((entry.timestamp() - firstTimestamp[0]) * 1_000_000 / speed);
+                    long wait = due - System.nanoTime();
+                    if (wait > 0) {
+                        LockSupport.parkNanos(wait);
+                    }
+                }
+                producer.send(new ProducerRecord<>(entry.topic(), entry.key(), entry.value()));
+            });
+        }
+    }
+
+    public static void printUsage() {
+        System.out.println("Usage: java EventProducerCli journal <read|replay> [options]");
+        System.out.println();
+        System.out.println("Commands:");
+        System.out.println("  read                         Print the records as NDJSON");
+        System.out.println("  replay                       Send the records to their original topics");
+        System.out.println();
+        System.out.println("Options:");
+        System.out.println("  --dir <dir>                  Journal directory (default ./data/journal)");
+        System.out.println("  --from <time>                ISO-8601 instant or epoch millis (default: start of the journal)");
+        System.out.println("  --to <time>                  Exclusive end of the range (default: now)");
+        System.out.println("  --topic <topic>              Only this topic; repeatable (default: all)");
+        System.out.println("  --limit <n>                  Stop after n records");
+        System.out.println("  --output <file.ndjson>       read: write here instead of stdout");
+        System.out.println("  --bootstrap-servers <list>   replay: Kafka to send to (default localhost:29092)");
+        System.out.println("  --speed <x>                  replay: 1 keeps the original pacing, 10 is ten times faster,");
+        System.out.println("                               0 sends as fast as possible (default 0)");
+        System.out.println();
+        System.out.println("Examples:");
+        System.out.println("  java EventProducerCli journal read --from 2024-03-01T10:00:00Z --to 2024-03-01T10:15:00Z --topic applications.events");
+        System.out.println("  java EventProducerCli journal replay --dir incident-journal --from 2024-03-01T10:00:00Z --to 2024-03-01T10:15:00Z --speed 1");
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.notifications.journal;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@RestController
+@RequestMapping("/api/journal")
+@CrossOrigin(origins = "http://localhost:5173")
+public class JournalController {
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private final EventJournal journal;
+
+    public JournalController(EventJournal journal) {
+        this.journal = journal;
+    }
+
+    @GetMapping
+    public Map<String, Object> getStatus() throws IOException {
+        List<JournalReader.Segment> segments = journal.reader().segments();
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", journal.isEnabled());
+        status.put("dir", journal.reader().directory().toString());
+        status.put("records", segments.stream().mapToLong(JournalReader.Segment::records).sum());
+        status.put("bytes", segments.stream().mapToLong(JournalReader.Segment::bytes).sum());
+        status.put("segments", segments);
+        return status;
+    }
+
+    /**
+     * Streams journaled records received in {@code [from, to)} as NDJSON, one
+     * {@link JournalEntry} per line.
+     *
+     * @param from  ISO-8601 instant or epoch millis; default the start of the journal
+     * @param to    ISO-8601 instant or epoch millis; default now
+     * @param topic only these topics; repeatable, default all
+     * @param limit stop after this many records
+     */
+    @GetMapping("/events")
+    public ResponseEntity<StreamingResponseBody> getEvents(
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(required = false) Set<String> topic,
+            @RequestParam(defaultValue = "" + Long.MAX_VALUE) long limit) {
+        long fromMillis;
+        long toMillis;
+        try {
+            fromMillis = from != null ? JournalReader.parseTime(from) : 0;
+            toMillis = to != null ? JournalReader.parseTime(to) : System.currentTimeMillis();
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        Set<String> topics = topic != null ? topic : Set.of();
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator json = JSON.createGenerator(out, JsonEncoding.UTF8)) {
+                json.setRootValueSeparator(null);
+                journal.reader().read(fromMillis, toMillis, topics, limit, entry -> {
+                    try {
+                        entry.write(json);
+                        json.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType("application/x-ndjson")).body(body);
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.notifications.journal;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A consumed record as journaled: where it came from and its value as the JSON it was
+ * deserialized into.
+ */
+public record JournalEntry(String topic, int partition, long offset, long timestamp, String key, byte[] value) {
+
+    /**
+     * Writes the entry as one JSON object, the value embedded as JSON rather than a string.
+     */
+    public void write(JsonGenerator json) throws IOException {
+        json.writeStartObject();
+        json.writeStringField("topic", topic);
+        json.writeNumberField("partition", partition);
+        json.writeNumberField("offset", offset);
+        json.writeNumberField("timestamp", timestamp);
+        json.writeStringField("key", key);
+        json.writeFieldName("value");
+        json.writeRawValue(new String(value, StandardCharsets.UTF_8));
+        json.writeEndObject();
+    }
+}
@@ -0,0 +1,239 @@
+package com.example.notifications.journal;
+
+import com.example.notifications.journal.JournalSegment.Block;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads the segments of a journal directory, sealed or still being written, without going
+ * through the writer, so a copied journal can be read on another machine.
+ *
+ * A time range read only inflates the blocks whose timestamp range overlaps it: sealed segments
+ * are looked up in their index, the active one by hopping over its block headers. Entries come
+ * back in the order they were appended, which across partitions is only roughly timestamp order.
+ */
+public class JournalReader {
+
+    private static final Logger log = LoggerFactory.getLogger(JournalReader.class);
+
+    /**
+     * A segment file and the records and timestamp range it holds; from and to are null for an
+     * empty segment.
+     */
+    public record Segment(String name, boolean sealed, long bytes, int blocks, long records,
+                          Instant createdAt, Instant from, Instant to) {
+    }
+
+    private final Path directory;
+
+    public JournalReader(Path directory) {
+        this.directory = directory;
+    }
+
+    public Path directory() {
+        return directory;
+    }
+
+    public List<Segment> segments() throws IOException {
+        List<Segment> segments = new ArrayList<>();
+        for (Path file : files()) {
+            Mapped mapped = Mapped.open(file);
+            if (mapped == null) {
+                continue;
+            }
+            List<Block> blocks = mapped.blocks();
+            long from = blocks.stream().mapToLong(Block::minTimestamp).min().orElse(0);
+            long to = blocks.stream().mapToLong(Block::maxTimestamp).max().orElse(0);
+            segments.add(new Segment(file.getFileName().toString(), mapped.sealed,
+                mapped.committed, blocks.size(), blocks.stream().mapToLong(Block::records).sum(),
+                Instant.ofEpochMilli(JournalSegment.createdAt(mapped.buffer)),
+                blocks.isEmpty() ? null : Instant.ofEpochMilli(from),
+                blocks.isEmpty() ? null : Instant.ofEpochMilli(to)));
+        }
+        return segments;
+    }
+
+    /**
+     * Hands every entry with a timestamp in {@code [fromMillis, toMillis)} and, if {@code topics}
+     * is not empty, one of those topics to {@code sink}, stopping after {@code limit} entries.
+     *
+     * @return the number of entries handed to {@code sink}
+     */
+    public long read(long fromMillis, long toMillis, Set<String> topics, long limit,
+                     Consumer<JournalEntry> sink) throws IOException {
+        long count = 0;
+        Inflater inflater = new Inflater(true);
+        CRC32 crc = new CRC32();
+        try {
+            for (Path file : files()) {
+                Mapped mapped = Mapped.open(file);
+                if (mapped == null) {
+                    continue;
+                }
+                for (Block block : mapped.blocks()) {
+                    if (block.maxTimestamp() < fromMillis || block.minTimestamp() >= toMillis) {
+                        continue;
+                    }
+                    byte[] records = inflate(mapped.buffer, block, inflater, crc);
+                    if (records == null) {
+                        log.warn("Skipping corrupt journal block at {} of {}", block.position(), file);
+                        continue;
+                    }
+                    ByteBuffer in = ByteBuffer.wrap(records);
+                    for (int i = 0; i < block.records() && count < limit; i++) {
+                        JournalEntry entry = decode(in);
+                        if (entry.timestamp() >= fromMillis && entry.timestamp() < toMillis
+                                && (topics.isEmpty() || topics.contains(entry.topic()))) {
+                            sink.accept(entry);
+                            count++;
+                        }
+                    }
+                    if (count >= limit) {
+                        return count;
+                    }
+                }
+            }
+            return count;
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * An ISO-8601 instant or epoch millis.
+     */
+    public static long parseTime(String value) {
+        try {
+            return value.chars().allMatch(Character::isDigit) ? Long.parseLong(value) : Instant.parse(value).toEpochMilli();
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Not an ISO-8601 instant or epoch millis: " + value);
+        }
+    }
+
+    private List<Path> files() throws IOException {
+        List<Path> files = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return files;
+        }
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory, "*" + JournalSegment.SEGMENT_SUFFIX)) {
+            for (Path file : entries) {
+                if (JournalSegment.sequence(file) >= 0) {
+                    files.add(file);
+                }
+            }
+        }
+        files.sort(null);
+        return files;
+    }
+
+    private static byte[] inflate(ByteBuffer buffer, Block block, Inflater inflater, CRC32 crc) {
+        int p = block.position();
+        int compressed = buffer.getInt(p);
+        int length = buffer.getInt(p + 4);
+        ByteBuffer input = buffer.slice(p + JournalSegment.BLOCK_HEADER_BYTES, compressed);
+        crc.reset();
+        crc.update(input.duplicate());
+        if ((int) crc.getValue() != buffer.getInt(p + 28)) {
+            return null;
+        }
+        byte[] records = new byte[length];
+        inflater.reset();
+        inflater.setInput(input);
+        try {
+            int n = 0;
+            while (n < length && !inflater.finished()) {
+                n += inflater.inflate(records, n, length - n);
+            }
+            return n == length ? records : null;
+        } catch (DataFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Reverse of {@link EventJournal}'s record encoding.
+     */
+    private static JournalEntry decode(ByteBuffer in) {
+        long timestamp = in.getLong();
+        int partition = in.getInt();
+        long offset = in.getLong();
+        String topic = string(in, in.getShort() & 0xFFFF);
+        int keyLength = in.getInt();
+        String key = keyLength < 0 ? null : string(in, keyLength);
+        byte[] value = new byte[in.getInt()];
+        in.get(value);
+        return new JournalEntry(topic, partition, offset, timestamp, key, value);
+    }
+
+    private static String string(ByteBuffer in, int length) {
+        String s = new String(in.array(), in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return s;
+    }
+
+    /**
+     * A read-only mapping of a segment up to its committed length.
+     */
+    private static final class Mapped {
+
+        private final Path file;
+        private final MappedByteBuffer buffer;
+        private final boolean sealed;
+        private final int committed;
+
+        private Mapped(Path file, MappedByteBuffer buffer) {
+            this.file = file;
+            this.buffer = buffer;
+            this.sealed = JournalSegment.sealed(buffer);
+            this.committed = JournalSegment.committed(buffer);
+        }
+
+        static Mapped open(Path file) throws IOException {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                long size = channel.size();
+                if (size < JournalSegment.HEADER_BYTES || size > Integer.MAX_VALUE) {
+                    return null;
+                }
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                if (!JournalSegment.isSegment(buffer)) {
+                    log.warn("Ignoring {}: not a version {} journal segment", file, JournalSegment.VERSION);
+                    return null;
+                }
+                return new Mapped(file, buffer);
+            } catch (NoSuchFileException e) {
+                // Removed by retention since the directory was listed.
+                return null;
+            }
+        }
+
+        List<Block> blocks() {
+            if (sealed) {
+                List<Block> blocks = JournalSegment.readIndex(JournalSegment.indexFile(file));
+                if (blocks != null) {
+                    return blocks;
+                }
+            }
+            return JournalSegment.scan(buffer, committed);
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package com.example.notifications.journal;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * One journal segment file, and the active segment while it is being written.
+ *
+ * A segment is preallocated to {@code fraud.journal.segment-size} and mapped read-write. Blocks
+ * of records are deflated straight into the mapping, then the committed length in the header is
+ * advanced, so a reader (or a restart) never sees a partly written block. When the next block
+ * does not fit, the segment is sealed: its sparse time index is written next to it as
+ * {@code .idx}, the sealed flag is set and the unused tail is truncated away.
+ *
+ * Segment layout, big-endian: a 64-byte header (magic, version, sealed flag, created-at millis,
+ * committed length, record count), then blocks. A block is a 32-byte header (compressed and
+ * raw length, record count, min and max record timestamp, CRC32 of the compressed bytes)
+ * followed by raw-deflated records.
+ *
+ * Index layout: a 40-byte header (magic, version, block count, min and max timestamp, record
+ * count), then one 24-byte entry per block (min and max timestamp, position, record count).
+ */
+final class JournalSegment {
+
+    static final long MAGIC = 0x46524a524e4c3031L; // "FRJRNL01"
+    static final long INDEX_MAGIC = 0x46524a4944583031L; // "FRJIDX01"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 64;
+    static final int BLOCK_HEADER_BYTES = 32;
+    static final int INDEX_HEADER_BYTES = 40;
+    static final int INDEX_ENTRY_BYTES = 24;
+    static final String SEGMENT_SUFFIX = ".seg";
+    static final String INDEX_SUFFIX = ".idx";
+
+    private static final int SEALED = 12;
+    private static final int CREATED_AT = 16;
+    private static final int COMMITTED = 24;
+    private static final int RECORDS = 32;
+
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    /**
+     * A block of records: where it starts and the range of record timestamps in it.
+     */
+    record Block(int position, int records, long minTimestamp, long maxTimestamp) {
+    }
+
+    private final Path file;
+    private final MappedByteBuffer buffer;
+    private final int size;
+    private final List<Block> blocks;
+    private int position;
+    private long records;
+
+    private JournalSegment(Path file, MappedByteBuffer buffer, int size, List<Block> blocks, int position, long records) {
+        this.file = file;
+        this.buffer = buffer;
+        this.size = size;
+        this.blocks = blocks;
+        this.position = position;
+        this.records = records;
+    }
+
+    static String name(long sequence) {
+        return String.format("%020d%s", sequence, SEGMENT_SUFFIX);
+    }
+
+    static long sequence(Path file) {
+        String name = file.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+        } catch (RuntimeException e) {
+            return -1;
+        }
+    }
+
+    static Path indexFile(Path segment) {
+        String name = segment.getFileName().toString();
+        return segment.resolveSibling(name.substring(0, name.length() - SEGMENT_SUFFIX.length()) + INDEX_SUFFIX);
+    }
+
+    /**
+     * Creates and maps a new, empty segment of {@code size} bytes.
+     */
+    static JournalSegment create(Path file, int size) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+        buffer.putLong(0, MAGIC).putInt(8, VERSION).putLong(CREATED_AT, System.currentTimeMillis())
+            .putInt(SEALED, 0).putLong(RECORDS, 0);
+        LONGS.setRelease(buffer, COMMITTED, (long) HEADER_BYTES);
+        return new JournalSegment(file, buffer, size, new ArrayList<>(), HEADER_BYTES, 0);
+    }
+
+    /**
+     * Maps an unsealed segment left by a previous run to continue writing after its last
+     * committed block, or returns null if it is sealed or not a segment.
+     */
+    static JournalSegment reopen(Path file) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES || size > Integer.MAX_VALUE) {
+                return null;
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+        if (!isSegment(buffer) || sealed(buffer)) {
+            return null;
+        }
+        int committed = committed(buffer);
+        List<Block> blocks = scan(buffer, committed);
+        long records = blocks.stream().mapToLong(Block::records).sum();
+        return new JournalSegment(file, buffer, buffer.capacity(), new ArrayList<>(blocks), committed, records);
+    }
+
+    Path file() {
+        return file;
+    }
+
+    int committedBytes() {
+        return position;
+    }
+
+    boolean isEmpty() {
+        return blocks.isEmpty();
+    }
+
+    /**
+     * Deflates {@code length} bytes of encoded records into the next block.
+     *
+     * @return false, with nothing committed, if the compressed block does not fit
+     */
+    boolean append(Deflater deflater, byte[] data, int length, int count, long minTimestamp, long maxTimestamp) {
+        int start = position + BLOCK_HEADER_BYTES;
+        if (start >= size) {
+            return false;
+        }
+        deflater.reset();
+        deflater.setInput(data, 0, length);
+        deflater.finish();
+        ByteBuffer target = buffer.slice(start, size - start);
+        while (!deflater.finished()) {
+            if (!target.hasRemaining()) {
+                return false;
+            }
+            deflater.deflate(target);
+        }
+        int compressed = target.position();
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(start, compressed));
+        buffer.putInt(position, compressed).putInt(position + 4, length).putInt(position + 8, count)
+            .putLong(position + 12, minTimestamp).putLong(position + 20, maxTimestamp)
+            .putInt(position + 28, (int) crc.getValue());
+        blocks.add(new Block(position, count, minTimestamp, maxTimestamp));
+        position = start + compressed;
+        records += count;
+        buffer.putLong(RECORDS, records);
+        LONGS.setRelease(buffer, COMMITTED, (long) position);
+        return true;
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    /**
+     * Writes the index, marks the segment sealed and gives back the preallocated tail. The
+     * segment must not be appended to afterwards.
+     */
+    void seal() throws IOException {
+        writeIndex(indexFile(file), blocks);
+        buffer.putInt(SEALED, 1);
+        buffer.force();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(position);
+        } catch (IOException e) {
+            // Some platforms refuse to truncate a mapped file; readers stop at the committed length anyway.
+        }
+    }
+
+    static boolean isSegment(ByteBuffer buffer) {
+        return buffer.capacity() >= HEADER_BYTES && buffer.getLong(0) == MAGIC && buffer.getInt(8) == VERSION;
+    }
+
+    static boolean sealed(ByteBuffer buffer) {
+        return buffer.getInt(SEALED) != 0;
+    }
+
+    static long createdAt(ByteBuffer buffer) {
+        return buffer.getLong(CREATED_AT);
+    }
+
+    static int committed(ByteBuffer buffer) {
+        long committed = (long) LONGS.getAcquire(buffer, COMMITTED);
+        return (int) Math.max(HEADER_BYTES, Math.min(committed, buffer.capacity()));
+    }
+
+    /**
+     * Blocks of a segment found by hopping from block header to block header.
+     */
+    static List<Block> scan(ByteBuffer buffer, int committed) {
+        List<Block> blocks = new ArrayList<>();
+        int p = HEADER_BYTES;
+        while (p + BLOCK_HEADER_BYTES <= committed) {
+            int compressed = buffer.getInt(p);
+            if (compressed < 0 || p + BLOCK_HEADER_BYTES + (long) compressed > committed) {
+                break;
+            }
+            blocks.add(new Block(p, buffer.getInt(p + 8), buffer.getLong(p + 12), buffer.getLong(p + 20)));
+            p += BLOCK_HEADER_BYTES + compressed;
+        }
+        return blocks;
+    }
+
+    /**
+     * Blocks of a sealed segment from its index file, or null if the index is missing or invalid.
+     */
+    static List<Block> readIndex(Path index) {
+        if (!Files.isRegularFile(index)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(index, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < INDEX_HEADER_BYTES || size > Integer.MAX_VALUE) {
+                return null;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            int count = buffer.getInt(12);
+            if (buffer.getLong(0) != INDEX_MAGIC || buffer.getInt(8) != VERSION
+                    || count < 0 || INDEX_HEADER_BYTES + (long) count * INDEX_ENTRY_BYTES != size) {
+                return null;
+            }
+            List<Block> blocks = new ArrayList<>(count);
+            for (int i = 0, p = INDEX_HEADER_BYTES; i < count; i++, p += INDEX_ENTRY_BYTES) {
+                blocks.add(new Block(buffer.getInt(p + 16), buffer.getInt(p + 20), buffer.getLong(p), buffer.getLong(p + 8)));
+            }
+            return blocks;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static void writeIndex(Path index, List<Block> blocks) throws IOException {
+        ByteBuffer content = ByteBuffer.allocate(INDEX_HEADER_BYTES + blocks.size() * INDEX_ENTRY_BYTES);
+        content.putLong(INDEX_MAGIC).putInt(VERSION).putInt(blocks.size())
+            .putLong(blocks.stream().mapToLong(Block::minTimestamp).min().orElse(0))
+            .putLong(blocks.stream().mapToLong(Block::maxTimestamp).max().orElse(0))
+            .putLong(blocks.stream().mapToLong(Block::records).sum());
+        for (Block block : blocks) {
+            content.putLong(block.minTimestamp()).putLong(block.maxTimestamp())
+                .putInt(block.position()).putInt(block.records());
+        }
+        content.flip();
+        Path tmp = Files.createTempFile(index.toAbsolutePath().getParent(), index.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                channel.write(content);
+                channel.force(true);
+            }
+            Files.move(tmp, index, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.example.notifications.lists;
+
+import com.example.notifications.support.Hashing;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.zip.CRC32C;
+
+/**
+ * Read-only, memory-mapped set of list values.
+ *
+ * Values are trimmed, lower-cased and stored only as 64-bit hashes. The file holds a Bloom
+ * filter (10 bits per entry, 7 probes, about 1% false positives) followed by an
+ * open-addressed hash table at load factor 0.5 or less, so a lookup is a few bit tests for
+ * most misses and one or two probes otherwise. Nothing but the mapping lives on the heap.
+ *
+ * Layout, big-endian:
+ * <pre>
+ *   0  magic "FRLIST01"    8  version          12 bloom probes
+ *  16  entries            24  bloom words      32 table slots
+ *  40  created (epoch ms) 48  CRC32C of body   56 reserved
+ *  64  bloom words, then table slots (0 = empty)
+ * </pre>
+ */
+public final class MappedList {
+
+    private static final long MAGIC = 0x46524c4953543031L; // "FRLIST01"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+    private static final int BITS_PER_ENTRY = 10;
+    private static final int BLOOM_PROBES = 7;
+    private static final long MAX_BYTES = Integer.MAX_VALUE;
+
+    private final String name;
+    private final Path file;
+    private final MappedByteBuffer buffer;
+    private final long entries;
+    private final long bloomMask;
+    private final int bloomProbes;
+    private final int tableOffset;
+    private final long tableMask;
+    private final Instant createdAt;
+
+    private MappedList(String name, Path file, MappedByteBuffer buffer) {
+        this.name = name;
+        this.file = file;
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_BYTES || buffer.getLong(0) != MAGIC || buffer.getInt(8) != VERSION) {
+            throw new IllegalStateException("Not a list file: " + file);
+        }
+        this.bloomProbes = buffer.getInt(12);
+        this.entries = buffer.getLong(16);
+        long bloomWords = buffer.getLong(24);
+        long tableSlots = buffer.getLong(32);
+        this.createdAt = Instant.ofEpochMilli(buffer.getLong(40));
+        if (HEADER_BYTES + (bloomWords + tableSlots) * Long.BYTES != buffer.capacity()) {
+            throw new IllegalStateException("Truncated list file: " + file);
+        }
+        this.bloomMask = bloomWords * Long.SIZE - 1;
+        this.tableOffset = HEADER_BYTES + (int) (bloomWords * Long.BYTES);
+        this.tableMask = tableSlots - 1;
+    }
+
+    /**
+     * Maps an existing list file, verifying its checksum.
+     */
+    public static MappedList open(String name, Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedList list = new MappedList(name, file, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            if (list.checksum() != list.buffer.getLong(48)) {
+                throw new IllegalStateException("Checksum mismatch in list file: " + file);
+            }
+            return list;
+        }
+    }
+
+    /**
+     * Writes a list file for {@code hashes} (from {@link #hash}) next to {@code target} and
+     * atomically moves it into place. Duplicates are removed; the array is sorted in place.
+     *
+     * @return number of distinct entries written
+     */
+    public static long write(Path target, long[] hashes, int count) throws IOException {
+        Arrays.sort(hashes, 0, count);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || hashes[distinct - 1] != hashes[i]) {
+                hashes[distinct++] = hashes[i];
+            }
+        }
+
+        long bloomBits = Math.max(Long.SIZE, tableSizeFor((long) distinct * BITS_PER_ENTRY));
+        long bloomWords = bloomBits / Long.SIZE;
+        long tableSlots = Math.max(16, tableSizeFor(2L * distinct));
+        long size = HEADER_BYTES + (bloomWords + tableSlots) * Long.BYTES;
+        if (size > MAX_BYTES) {
+            throw new IllegalArgumentException("List too large: " + distinct + " entries");
+        }
+
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            out.putLong(0, MAGIC);
+            out.putInt(8, VERSION);
+            out.putInt(12, BLOOM_PROBES);
+            out.putLong(16, distinct);
+            out.putLong(24, bloomWords);
+            out.putLong(32, tableSlots);
+            out.putLong(40, System.currentTimeMillis());
+
+            int tableOffset = HEADER_BYTES + (int) (bloomWords * Long.BYTES);
+            long bloomMask = bloomBits - 1;
+            long tableMask = tableSlots - 1;
+            for (int i = 0; i < distinct; i++) {
+                long h = hashes[i];
+                long step = probeStep(h);
+                for (int p = 0; p < BLOOM_PROBES; p++) {
+                    long bit = (h + p * step) & bloomMask;
+                    int at = HEADER_BYTES + (int) (bit >>> 6) * Long.BYTES;
+                    out.putLong(at, out.getLong(at) | (1L << bit));
+                }
+                long slot = h & tableMask;
+                while (out.getLong(tableOffset + (int) slot * Long.BYTES) != 0) {
+                    slot = (slot + 1) & tableMask;
+                }
+                out.putLong(tableOffset + (int) slot * Long.BYTES, h);
+            }
+            out.putLong(48, checksum(out));
+            out.force();
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return distinct;
+    }
+
+    /**
+     * Hash of a list value as stored in the file, never 0.
+     */
+    public static long hash(CharSequence value) {
+        long h = Hashing.hash64(value.toString().trim().toLowerCase(Locale.ROOT));
+        return h == 0 ? 1 : h;
+    }
+
+    public boolean contains(Object value) {
+        if (value == null) {
+            return false;
+        }
+        long h = hash(value.toString());
+        long step = probeStep(h);
+        for (int p = 0; p < bloomProbes; p++) {
+            long bit = (h + p * step) & bloomMask;
+            if ((buffer.getLong(HEADER_BYTES + (int) (bit >>> 6) * Long.BYTES) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        for (long slot = h & tableMask; ; slot = (slot + 1) & tableMask) {
+            long stored = buffer.getLong(tableOffset + (int) slot * Long.BYTES);
+            if (stored == h) {
+                return true;
+            }
+            if (stored == 0) {
+                return false;
+            }
+        }
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public Path file() {
+        return file;
+    }
+
+    public long entries() {
+        return entries;
+    }
+
+    public long bytes() {
+        return buffer.capacity();
+    }
+
+    public Instant createdAt() {
+        return createdAt;
+    }
+
+    private long checksum() {
+        return checksum(buffer);
+    }
+
+    private static long checksum(ByteBuffer buffer) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(HEADER_BYTES, buffer.capacity() - HEADER_BYTES));
+        return crc.getValue();
+    }
+
+    private static long probeStep(long h) {
+        return Hashing.mix(h ^ 0x9e3779b97f4a7c15L) | 1;
+    }
+
+    private static long tableSizeFor(long n) {
+        return n <= 1 ? 1 : Long.highestOneBit(n - 1) << 1;
+    }
+}
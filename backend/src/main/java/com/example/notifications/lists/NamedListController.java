@@ -0,0 +1,126 @@
+package com.example.notifications.lists;
+
+import com.example.notifications.condition.ConditionParser;
+import com.example.notifications.entity.FraudRule;
+import com.example.notifications.entity.RuleOperator;
+import com.example.notifications.repository.FraudRuleRepository;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/lists")
+@CrossOrigin(origins = "http://localhost:5173")
+public class NamedListController {
+
+    private static final List<RuleOperator> LIST_OPERATORS =
+        List.of(RuleOperator.IN_NAMED_LIST, RuleOperator.NOT_IN_NAMED_LIST);
+
+    private final NamedListRegistry registry;
+    private final FraudRuleRepository ruleRepository;
+
+    public NamedListController(NamedListRegistry registry, FraudRuleRepository ruleRepository) {
+        this.registry = registry;
+        this.ruleRepository = ruleRepository;
+    }
+
+    @GetMapping
+    public List<Map<String, Object>> getLists() {
+        return registry.all().stream()
+            .sorted(Comparator.comparing(MappedList::name))
+            .map(this::describe)
+            .toList();
+    }
+
+    @GetMapping("/{name}")
+    public ResponseEntity<Map<String, Object>> getList(@PathVariable String name) {
+        return registry.get(name)
+            .map(list -> ResponseEntity.ok(describe(list)))
+            .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/{name}/contains")
+    public ResponseEntity<Map<String, Object>> contains(@PathVariable String name, @RequestParam String value) {
+        return registry.get(name)
+            .map(list -> ResponseEntity.ok(Map.<String, Object>of("list", name, "value", value, "contains", list.contains(value))))
+            .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Replaces the list with the request body, one value per line.
+     */
+    @PutMapping(value = "/{name}", consumes = MediaType.TEXT_PLAIN_VALUE)
+    public ResponseEntity<Map<String, Object>> uploadBody(@PathVariable String name, HttpServletRequest request)
+            throws IOException {
+        try (InputStream body = request.getInputStream()) {
+            return upload(name, body);
+        }
+    }
+
+    /**
+     * Replaces the list with an uploaded file, one value per line.
+     */
+    @PostMapping(value = "/{name}", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<Map<String, Object>> uploadFile(@PathVariable String name, @RequestParam("file") MultipartFile file)
+            throws IOException {
+        try (InputStream in = file.getInputStream()) {
+            return upload(name, in);
+        }
+    }
+
+    @DeleteMapping("/{name}")
+    public ResponseEntity<Map<String, Object>> deleteList(@PathVariable String name) throws IOException {
+        if (ruleRepository.existsByOperatorInAndValue(LIST_OPERATORS, name) || referencedByConditionTree(name)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(Map.of("error", "List '" + name + "' is referenced by rules"));
+        }
+        return registry.delete(name)
+            ? ResponseEntity.noContent().build()
+            : ResponseEntity.notFound().build();
+    }
+
+    private boolean referencedByConditionTree(String name) {
+        for (FraudRule rule : ruleRepository.findByConditionTreeIsNotNull()) {
+            try {
+                boolean[] referenced = {false};
+                ConditionParser.forEachPredicate(ConditionParser.parse(rule.getConditionTree()), p -> {
+                    if (LIST_OPERATORS.contains(p.operator()) && name.equals(p.value())) {
+                        referenced[0] = true;
+                    }
+                });
+                if (referenced[0]) {
+                    return true;
+                }
+            } catch (IllegalArgumentException e) {
+                // An unparseable tree cannot reference the list
+            }
+        }
+        return false;
+    }
+
+    private ResponseEntity<Map<String, Object>> upload(String name, InputStream values) throws IOException {
+        try {
+            return ResponseEntity.ok(describe(registry.upload(name, values)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    private Map<String, Object> describe(MappedList list) {
+        return Map.of(
+            "name", list.name(),
+            "entries", list.entries(),
+            "bytes", list.bytes(),
+            "createdAt", list.createdAt().toString()
+        );
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.notifications.lists;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Named lists referenced by IN_NAMED_LIST / NOT_IN_NAMED_LIST rules, one {@link MappedList}
+ * file per list in {@code fraud.lists.dir}. Uploads replace a list atomically; evaluations in
+ * flight keep reading the previous mapping.
+ */
+@Component
+public class NamedListRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(NamedListRegistry.class);
+
+    private static final String EXTENSION = ".list";
+    private static final Pattern VALID_NAME = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
+    private final Path directory;
+    private final Map<String, MappedList> lists = new ConcurrentHashMap<>();
+
+    public NamedListRegistry(@Value("${fraud.lists.dir:./data/lists}") Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + EXTENSION)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString().replace(EXTENSION, "");
+                try {
+                    lists.put(name, MappedList.open(name, file));
+                } catch (IOException | RuntimeException e) {
+                    log.error("Skipping unreadable list file {}: {}", file, e.getMessage());
+                }
+            }
+        }
+        log.info("Loaded {} named lists from {}", lists.size(), directory);
+    }
+
+    public static boolean isValidName(String name) {
+        return name != null && VALID_NAME.matcher(name).matches();
+    }
+
+    public Optional<MappedList> get(String name) {
+        return Optional.ofNullable(lists.get(name));
+    }
+
+    public Collection<MappedList> all() {
+        return lists.values();
+    }
+
+    /**
+     * Membership check used by rule evaluation.
+     *
+     * @throws IllegalArgumentException if no list has that name
+     */
+    public boolean contains(String name, Object value) {
+        MappedList list = lists.get(name);
+        if (list == null) {
+            throw new IllegalArgumentException("Unknown list: " + name);
+        }
+        return list.contains(value);
+    }
+
+    /**
+     * Replaces (or creates) a list from newline-separated values. Blank lines and lines
+     * starting with '#' are ignored.
+     */
+    public MappedList upload(String name, InputStream values) throws IOException {
+        if (!isValidName(name)) {
+            throw new IllegalArgumentException("List names may only contain letters, digits, '-' and '_'");
+        }
+
+        long[] hashes = new long[1024];
+        int count = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(values, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String value = line.trim();
+                if (value.isEmpty() || value.startsWith("#")) {
+                    continue;
+                }
+                if (count == hashes.length) {
+                    hashes = Arrays.copyOf(hashes, hashes.length * 2);
+                }
+                hashes[count++] = MappedList.hash(value);
+            }
+        }
+
+        Path file = directory.resolve(name + EXTENSION);
+        long distinct;
+        MappedList list;
+        synchronized (this) {
+            distinct = MappedList.write(file, hashes, count);
+            list = MappedList.open(name, file);
+            lists.put(name, list);
+        }
+        log.info("Uploaded list '{}': {} lines, {} distinct entries, {} bytes", name, count, distinct, list.bytes());
+        return list;
+    }
+
+    public synchronized boolean delete(String name) throws IOException {
+        MappedList removed = lists.remove(name);
+        if (removed == null) {
+            return false;
+        }
+        Files.deleteIfExists(removed.file());
+        log.info("Deleted list '{}'", name);
+        return true;
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.notifications.loadgen;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Produces a value for one payload field of a {@link PayloadTemplate}.
+ *
+ * Generators are described in template files as small JSON objects keyed by "kind", e.g.
+ * {"kind":"uniform","min":10,"max":5000} or {"kind":"choice","values":["a","b"],"weights":[9,1]}.
+ */
+public sealed interface FieldGenerator {
+
+    Object next();
+
+    record Constant(Object value) implements FieldGenerator {
+        public Object next() {
+            return value;
+        }
+    }
+
+    record Sequence(String prefix, AtomicLong counter) implements FieldGenerator {
+        public Object next() {
+            return prefix + counter.incrementAndGet();
+        }
+    }
+
+    record RandomUuid() implements FieldGenerator {
+        public Object next() {
+            return UUID.randomUUID().toString();
+        }
+    }
+
+    record Uniform(double min, double max, int scale) implements FieldGenerator {
+        public Object next() {
+            double value = ThreadLocalRandom.current().nextDouble(min, max);
+            double factor = Math.pow(10, scale);
+            return Math.round(value * factor) / factor;
+        }
+    }
+
+    record IntRange(long min, long max) implements FieldGenerator {
+        public Object next() {
+            return ThreadLocalRandom.current().nextLong(min, max + 1);
+        }
+    }
+
+    record Gaussian(double mean, double stddev, double min) implements FieldGenerator {
+        public Object next() {
+            double value = mean + ThreadLocalRandom.current().nextGaussian() * stddev;
+            return Math.round(Math.max(min, value) * 100) / 100.0;
+        }
+    }
+
+    /**
+     * Picks one of a fixed set of values; a small value set gives a realistic repeat rate for
+     * fields such as emails or device ids.
+     */
+    record Choice(List<Object> values, double[] cumulativeWeights) implements FieldGenerator {
+        public Object next() {
+            double roll = ThreadLocalRandom.current().nextDouble(cumulativeWeights[cumulativeWeights.length - 1]);
+            for (int i = 0; i < cumulativeWeights.length; i++) {
+                if (roll < cumulativeWeights[i]) {
+                    return values.get(i);
+                }
+            }
+            return values.get(values.size() - 1);
+        }
+    }
+
+    record Email(String domain, long distinct) implements FieldGenerator {
+        public Object next() {
+            return "user" + ThreadLocalRandom.current().nextLong(distinct) + "@" + domain;
+        }
+    }
+
+    record Nested(Map<String, FieldGenerator> fields) implements FieldGenerator {
+        public Object next() {
+            return PayloadTemplate.generate(fields);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    static FieldGenerator fromSpec(Object spec) {
+        if (!(spec instanceof Map<?, ?> map) || !map.containsKey("kind")) {
+            if (spec instanceof Map<?, ?> nested) {
+                return new Nested(PayloadTemplate.parseFields((Map<String, Object>) nested));
+            }
+            return new Constant(spec);
+        }
+
+        String kind = map.get("kind").toString();
+        return switch (kind) {
+            case "constant" -> new Constant(map.get("value"));
+            case "sequence" -> new Sequence(stringOr(map, "prefix", ""), new AtomicLong());
+            case "uuid" -> new RandomUuid();
+            case "uniform" -> new Uniform(number(map, "min", 0), number(map, "max", 1),
+                (int) number(map, "scale", 2));
+            case "int" -> new IntRange((long) number(map, "min", 0), (long) number(map, "max", 100));
+            case "gaussian" -> new Gaussian(number(map, "mean", 0), number(map, "stddev", 1),
+                number(map, "min", Double.NEGATIVE_INFINITY));
+            case "choice" -> choice((List<Object>) map.get("values"), (List<Object>) map.get("weights"));
+            case "email" -> new Email(stringOr(map, "domain", "example.com"), (long) number(map, "distinct", 1_000_000));
+            default -> throw new IllegalArgumentException("Unknown field generator kind: " + kind);
+        };
+    }
+
+    private static Choice choice(List<Object> values, List<Object> weights) {
+        if (values == null || values.isEmpty()) {
+            throw new IllegalArgumentException("choice generator needs a non-empty 'values' list");
+        }
+        if (weights != null && weights.size() != values.size()) {
+            throw new IllegalArgumentException("choice generator 'weights' must match 'values' in length");
+        }
+        double[] cumulative = new double[values.size()];
+        double total = 0;
+        for (int i = 0; i < values.size(); i++) {
+            total += weights != null ? ((Number) weights.get(i)).doubleValue() : 1.0;
+            cumulative[i] = total;
+        }
+        return new Choice(List.copyOf(values), cumulative);
+    }
+
+    private static double number(Map<?, ?> map, String key, double defaultValue) {
+        Object value = map.get(key);
+        return value instanceof Number n ? n.doubleValue() : defaultValue;
+    }
+
+    private static String stringOr(Map<?, ?> map, String key, String defaultValue) {
+        Object value = map.get(key);
+        return value != null ? value.toString() : defaultValue;
+    }
+}
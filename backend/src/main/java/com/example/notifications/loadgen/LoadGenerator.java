@@ -0,0 +1,201 @@
+package com.example.notifications.loadgen;
+
+import com.example.notifications.ids.Ids;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends a templated event mix through a single long-lived {@link KafkaProducer} at a target
+ * rate and reports achieved throughput and send latency percentiles.
+ *
+ * Each record carries its scheduled send time in the {@value #SENT_AT_HEADER} header (epoch
+ * millis) so consumers can measure end-to-end latency. When a rate is set, latency is measured
+ * from the scheduled send time rather than the actual one, here and by consumers of the
+ * header, so a generator that falls behind reports the delay instead of hiding it.
+ */
+public class LoadGenerator {
+
+    public static final String SENT_AT_HEADER = "x-sent-at";
+
+    private static final long MAX_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(5);
+
+    private final LoadOptions options;
+    private final TemplateSet templates;
+    private final Recorder latencyRecorder = new Recorder(MAX_TRACKABLE_MICROS, 3);
+    private final Histogram totalLatency = new Histogram(MAX_TRACKABLE_MICROS, 3);
+    private final AtomicLong acked = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    public LoadGenerator(LoadOptions options, TemplateSet templates) {
+        this.options = options;
+        this.templates = templates;
+    }
+
+    public static void main(String[] args) {
+        if (args.length > 0 && (args[0].equals("--help") || args[0].equals("-h"))) {
+            LoadOptions.printUsage();
+            return;
+        }
+        try {
+            LoadOptions options = LoadOptions.parse(args);
+            TemplateSet templates = options.templateFile() != null
+                ? TemplateSet.load(options.templateFile())
+                : TemplateSet.defaults();
+            if (!options.types().isEmpty()) {
+                templates = templates.onlyTypes(options.types());
+            }
+            new LoadGenerator(options, templates).run();
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            LoadOptions.printUsage();
+            System.exit(1);
+        } catch (Exception e) {
+            System.err.println("Error: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    public void run() {
+        long intervalNanos = options.ratePerSecond() > 0 ? (long) (1_000_000_000L / options.ratePerSecond()) : 0;
+        long deadline = options.duration() != null
+            ? System.nanoTime() + options.duration().toNanos()
+            : Long.MAX_VALUE;
+
+        System.out.printf("Load run: rate=%s, count=%s, duration=%s, templates=%d%n",
+            intervalNanos > 0 ? options.ratePerSecond() + "/s" : "unthrottled",
+            options.count() == Long.MAX_VALUE ? "-" : options.count(),
+            options.duration() != null ? options.duration() : "-",
+            templates.templates().size());
+
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "load-reporter");
+            t.setDaemon(true);
+            return t;
+        });
+        long reportMillis = options.reportInterval().toMillis();
+        reporter.scheduleAtFixedRate(this::reportInterval, reportMillis, reportMillis, TimeUnit.MILLISECONDS);
+
+        long startMillis = System.currentTimeMillis();
+        long start = System.nanoTime();
+        long sent = 0;
+        try (KafkaProducer<String, Map<String, Object>> producer = new KafkaProducer<>(producerProperties())) {
+            while (sent < options.count()) {
+                long scheduled = intervalNanos > 0 ? start + sent * intervalNanos : System.nanoTime();
+                if (scheduled >= deadline) {
+                    break;
+                }
+                if (intervalNanos > 0) {
+                    waitUntil(scheduled);
+                } else if (System.nanoTime() >= deadline) {
+                    break;
+                }
+                send(producer, scheduled, startMillis + (scheduled - start) / 1_000_000);
+                sent++;
+            }
+            producer.flush();
+        } finally {
+            reporter.shutdownNow();
+        }
+
+        long elapsed = System.nanoTime() - start;
+        reportInterval();
+        printSummary(sent, elapsed);
+    }
+
+    private void send(KafkaProducer<String, Map<String, Object>> producer, long scheduledNanos,
+                      long scheduledMillis) {
+        PayloadTemplate template = templates.pick();
+        Map<String, Object> payload = template.nextPayload();
+        payload.putIfAbsent("source", "load-generator");
+        payload.put("eventId", Ids.next());
+
+        ProducerRecord<String, Map<String, Object>> record =
+            new ProducerRecord<>(template.topic(), (String) payload.get("eventId"), payload);
+        record.headers().add(SENT_AT_HEADER, Long.toString(scheduledMillis).getBytes(StandardCharsets.UTF_8));
+
+        producer.send(record, (metadata, exception) -> {
+            if (exception != null) {
+                failed.incrementAndGet();
+                return;
+            }
+            acked.incrementAndGet();
+            long micros = (System.nanoTime() - scheduledNanos) / 1_000;
+            latencyRecorder.recordValue(Math.min(micros, MAX_TRACKABLE_MICROS));
+        });
+    }
+
+    private static void waitUntil(long targetNanos) {
+        long remaining;
+        while ((remaining = targetNanos - System.nanoTime()) > 0) {
+            // Park for long waits, spin for the last few microseconds to keep the rate accurate.
+            if (remaining > 50_000) {
+                LockSupport.parkNanos(remaining - 20_000);
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    private synchronized void reportInterval() {
+        Histogram interval = latencyRecorder.getIntervalHistogram();
+        totalLatency.add(interval);
+        if (interval.getTotalCount() == 0) {
+            return;
+        }
+        System.out.printf("  acked=%d failed=%d | interval: %d acks, p50=%.2fms p99=%.2fms max=%.2fms%n",
+            acked.get(), failed.get(), interval.getTotalCount(),
+            millis(interval.getValueAtPercentile(50)),
+            millis(interval.getValueAtPercentile(99)),
+            millis(interval.getMaxValue()));
+    }
+
+    private void printSummary(long sent, long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        System.out.println();
+        System.out.println("Load run complete");
+        System.out.printf("  Sent:       %d in %.2fs%n", sent, seconds);
+        System.out.printf("  Acked:      %d%n", acked.get());
+        System.out.printf("  Failed:     %d%n", failed.get());
+        System.out.printf("  Throughput: %.0f events/s%n", acked.get() / seconds);
+        System.out.println("  Send latency (ms):");
+        for (double percentile : new double[] {50, 90, 99, 99.9}) {
+            System.out.printf("    p%-5s %.2f%n", trimPercentile(percentile), millis(totalLatency.getValueAtPercentile(percentile)));
+        }
+        System.out.printf("    max    %.2f%n", millis(totalLatency.getMaxValue()));
+    }
+
+    private Properties producerProperties() {
+        Properties props = new Properties();
+        props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, options.bootstrapServers());
+        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+        props.put(ProducerConfig.ACKS_CONFIG, options.acks());
+        props.put(ProducerConfig.LINGER_MS_CONFIG, 5);
+        props.put(ProducerConfig.BATCH_SIZE_CONFIG, 64 * 1024);
+        props.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, "lz4");
+        props.put(JsonSerializer.ADD_TYPE_INFO_HEADERS, false);
+        return props;
+    }
+
+    private static double millis(long micros) {
+        return micros / 1_000.0;
+    }
+
+    private static String trimPercentile(double percentile) {
+        return percentile == Math.rint(percentile) ? Long.toString((long) percentile) : Double.toString(percentile);
+    }
+}
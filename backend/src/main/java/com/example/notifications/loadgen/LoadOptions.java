@@ -0,0 +1,103 @@
+package com.example.notifications.loadgen;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Command line options for {@link LoadGenerator}.
+ *
+ * A run stops at whichever of --count or --duration is reached first; when neither is
+ * given it sends 10,000 events. A --rate of 0 sends as fast as the producer accepts.
+ */
+public record LoadOptions(
+    String bootstrapServers,
+    double ratePerSecond,
+    long count,
+    Duration duration,
+    Path templateFile,
+    List<String> types,
+    Duration reportInterval,
+    String acks
+) {
+    private static final long DEFAULT_COUNT = 10_000;
+
+    public static LoadOptions parse(String[] args) {
+        String bootstrap = "localhost:29092";
+        double rate = 0;
+        long count = -1;
+        Duration duration = null;
+        Path templates = null;
+        List<String> types = List.of();
+        Duration reportInterval = Duration.ofSeconds(5);
+        String acks = "1";
+
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            String value = i + 1 < args.length ? args[i + 1] : null;
+            if (value == null) {
+                throw new IllegalArgumentException("Missing value for option " + arg);
+            }
+            switch (arg) {
+                case "--bootstrap" -> bootstrap = value;
+                case "--rate" -> rate = Double.parseDouble(value);
+                case "--count" -> count = Long.parseLong(value);
+                case "--duration" -> duration = parseDuration(value);
+                case "--templates" -> templates = Path.of(value);
+                case "--types" -> types = Arrays.stream(value.split(",")).map(String::trim).toList();
+                case "--report-interval" -> reportInterval = parseDuration(value);
+                case "--acks" -> acks = value;
+                default -> throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+            i++;
+        }
+
+        if (rate < 0) {
+            throw new IllegalArgumentException("--rate must be >= 0");
+        }
+        if (count < 0 && duration == null) {
+            count = DEFAULT_COUNT;
+        }
+        return new LoadOptions(bootstrap, rate, count < 0 ? Long.MAX_VALUE : count, duration,
+            templates, types, reportInterval, acks);
+    }
+
+    /**
+     * Accepts "500ms", "30s", "5m", "1h" or an ISO-8601 duration such as "PT30S".
+     */
+    static Duration parseDuration(String value) {
+        String v = value.trim().toLowerCase();
+        if (v.startsWith("pt")) {
+            return Duration.parse(value);
+        }
+        if (v.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(v.substring(0, v.length() - 2)));
+        }
+        long amount = Long.parseLong(v.substring(0, v.length() - 1));
+        return switch (v.charAt(v.length() - 1)) {
+            case 's' -> Duration.ofSeconds(amount);
+            case 'm' -> Duration.ofMinutes(amount);
+            case 'h' -> Duration.ofHours(amount);
+            default -> Duration.ofSeconds(Long.parseLong(v));
+        };
+    }
+
+    public static void printUsage() {
+        System.out.println("Usage: java EventProducerCli load [options]");
+        System.out.println();
+        System.out.println("Options:");
+        System.out.println("  --bootstrap <servers>      Kafka bootstrap servers (default localhost:29092)");
+        System.out.println("  --rate <events/sec>        Target send rate, 0 = as fast as possible (default 0)");
+        System.out.println("  --count <n>                Stop after n events");
+        System.out.println("  --duration <30s|5m|PT1M>   Stop after the given duration");
+        System.out.println("  --templates <file.json>    Payload templates (default: built-in mix)");
+        System.out.println("  --types <a,b,...>          Only send these event types from the template mix");
+        System.out.println("  --report-interval <5s>     Progress report interval");
+        System.out.println("  --acks <0|1|all>           Producer acks setting (default 1)");
+        System.out.println();
+        System.out.println("Examples:");
+        System.out.println("  java EventProducerCli load --rate 2000 --duration 60s");
+        System.out.println("  java EventProducerCli load --count 1000000 --types order.created,payment.failed");
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.notifications.loadgen;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Describes one kind of event the load generator emits: the target topic, the event type
+ * stamped into the payload, its relative weight in the mix, and a generator per field.
+ */
+public record PayloadTemplate(
+    String topic,
+    String type,
+    double weight,
+    Map<String, FieldGenerator> fields
+) {
+    @SuppressWarnings("unchecked")
+    public static PayloadTemplate fromSpec(Map<String, Object> spec) {
+        String topic = (String) spec.get("topic");
+        String type = (String) spec.get("type");
+        if (topic == null || type == null) {
+            throw new IllegalArgumentException("Template needs both 'topic' and 'type': " + spec);
+        }
+        Object weight = spec.getOrDefault("weight", 1);
+        Map<String, Object> fields = (Map<String, Object>) spec.getOrDefault("fields", Map.of());
+        return new PayloadTemplate(topic, type, ((Number) weight).doubleValue(), parseFields(fields));
+    }
+
+    static Map<String, FieldGenerator> parseFields(Map<String, Object> specs) {
+        Map<String, FieldGenerator> fields = new LinkedHashMap<>();
+        specs.forEach((name, spec) -> fields.put(name, FieldGenerator.fromSpec(spec)));
+        return fields;
+    }
+
+    static Map<String, Object> generate(Map<String, FieldGenerator> fields) {
+        Map<String, Object> values = new HashMap<>();
+        fields.forEach((name, generator) -> values.put(name, generator.next()));
+        return values;
+    }
+
+    public Map<String, Object> nextPayload() {
+        Map<String, Object> payload = generate(fields);
+        payload.put("type", type);
+        return payload;
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.notifications.loadgen;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Weighted mix of {@link PayloadTemplate}s. Either loaded from a JSON file (an array of
+ * template objects) or built from the defaults below, which cover the event types the
+ * built-in routing rules and the fraud gateway react to.
+ */
+public class TemplateSet {
+
+    private final List<PayloadTemplate> templates;
+    private final double[] cumulativeWeights;
+
+    public TemplateSet(List<PayloadTemplate> templates) {
+        if (templates.isEmpty()) {
+            throw new IllegalArgumentException("At least one payload template is required");
+        }
+        this.templates = List.copyOf(templates);
+        this.cumulativeWeights = new double[templates.size()];
+        double total = 0;
+        for (int i = 0; i < templates.size(); i++) {
+            total += templates.get(i).weight();
+            cumulativeWeights[i] = total;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public static TemplateSet load(Path file) throws IOException {
+        List<Map<String, Object>> specs = new ObjectMapper().readValue(file.toFile(), List.class);
+        return new TemplateSet(specs.stream().map(PayloadTemplate::fromSpec).toList());
+    }
+
+    public static TemplateSet defaults() {
+        List<Map<String, Object>> specs = List.of(
+            Map.of("topic", "orders.events", "type", "order.created", "weight", 50,
+                "fields", Map.of(
+                    "orderId", Map.of("kind", "sequence", "prefix", "ORD-"),
+                    "amount", Map.of("kind", "gaussian", "mean", 250, "stddev", 400, "min", 1),
+                    "currency", Map.of("kind", "choice", "values", List.of("USD", "EUR", "GBP"),
+                        "weights", List.of(7, 2, 1)))),
+            Map.of("topic", "payments.events", "type", "payment.failed", "weight", 5,
+                "fields", Map.of(
+                    "paymentId", Map.of("kind", "sequence", "prefix", "PAY-"),
+                    "reason", Map.of("kind", "choice",
+                        "values", List.of("Insufficient funds", "Card expired", "Do not honor")))),
+            Map.of("topic", "inventory.events", "type", "inventory.low", "weight", 10,
+                "fields", Map.of(
+                    "productId", Map.of("kind", "sequence", "prefix", "PROD-"),
+                    "productName", Map.of("kind", "choice", "values", List.of("Widget", "Gadget", "Gizmo")),
+                    "currentStock", Map.of("kind", "int", "min", 0, "max", 20))),
+            Map.of("topic", "applications.events", "type", "credit_card", "weight", 25,
+                "fields", Map.of(
+                    "id", Map.of("kind", "uuid"),
+                    "source", Map.of("kind", "choice", "values", List.of("partner-a", "partner-b", "web")),
+                    "applicant", Map.of(
+                        "email", Map.of("kind", "email", "distinct", 100_000),
+                        "income", Map.of("kind", "gaussian", "mean", 60_000, "stddev", 25_000, "min", 0),
+                        "country", Map.of("kind", "choice", "values", List.of("US", "GB", "DE", "NG"),
+                            "weights", List.of(70, 15, 10, 5))),
+                    "requestedLimit", Map.of("kind", "int", "min", 500, "max", 20_000))),
+            Map.of("topic", "applications.events", "type", "loan", "weight", 10,
+                "fields", Map.of(
+                    "id", Map.of("kind", "uuid"),
+                    "source", Map.of("kind", "choice", "values", List.of("partner-a", "web")),
+                    "applicant", Map.of(
+                        "email", Map.of("kind", "email", "distinct", 100_000),
+                        "income", Map.of("kind", "gaussian", "mean", 55_000, "stddev", 20_000, "min", 0)),
+                    "amount", Map.of("kind", "int", "min", 1_000, "max", 50_000)))
+        );
+
+        List<PayloadTemplate> templates = new ArrayList<>();
+        for (Map<String, Object> spec : specs) {
+            templates.add(PayloadTemplate.fromSpec(spec));
+        }
+        return new TemplateSet(templates);
+    }
+
+    public PayloadTemplate pick() {
+        if (templates.size() == 1) {
+            return templates.get(0);
+        }
+        double roll = ThreadLocalRandom.current().nextDouble(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (roll < cumulativeWeights[i]) {
+                return templates.get(i);
+            }
+        }
+        return templates.get(templates.size() - 1);
+    }
+
+    /**
+     * Restricts the mix to the given event types, keeping their relative weights.
+     */
+    public TemplateSet onlyTypes(List<String> types) {
+        List<PayloadTemplate> selected = templates.stream()
+            .filter(t -> types.contains(t.type()))
+            .toList();
+        if (selected.isEmpty()) {
+            throw new IllegalArgumentException("No templates for event types " + types);
+        }
+        return new TemplateSet(selected);
+    }
+
+    public List<PayloadTemplate> templates() {
+        return templates;
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.notifications.metrics;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.ListOffsetsResult.ListOffsetsResultInfo;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Publishes per-topic consumer lag for the service's consumer groups as the
+ * {@code kafka.consumer.group.lag} gauge (tags: group, topic).
+ *
+ * Lag is computed from committed group offsets and log end offsets through the admin
+ * client, so it reflects the whole group rather than only the partitions this node owns.
+ */
+@Component
+public class ConsumerLagMonitor {
+
+    private static final Logger log = LoggerFactory.getLogger(ConsumerLagMonitor.class);
+
+    private final KafkaAdmin kafkaAdmin;
+    private final MeterRegistry registry;
+    private final List<String> groups;
+    private final Map<String, AtomicLong> lagByGroupTopic = new ConcurrentHashMap<>();
+    private volatile AdminClient adminClient;
+
+    public ConsumerLagMonitor(
+            KafkaAdmin kafkaAdmin,
+            MeterRegistry registry,
+            @Value("${fraud.metrics.lag.groups:fraud-gateway,fraud-gateway-deferred,event-router,notification-service}") List<String> groups) {
+        this.kafkaAdmin = kafkaAdmin;
+        this.registry = registry;
+        this.groups = groups;
+    }
+
+    @Scheduled(fixedDelayString = "${fraud.metrics.lag.interval-ms:15000}",
+               initialDelayString = "${fraud.metrics.lag.interval-ms:15000}")
+    public void refresh() {
+        try {
+            AdminClient admin = adminClient();
+            for (String group : groups) {
+                refreshGroup(admin, group);
+            }
+        } catch (Exception e) {
+            log.debug("Could not refresh consumer lag: {}", e.getMessage());
+        }
+    }
+
+    private void refreshGroup(AdminClient admin, String group) throws Exception {
+        Map<TopicPartition, OffsetAndMetadata> committed = admin.listConsumerGroupOffsets(group)
+            .partitionsToOffsetAndMetadata()
+            .get(10, TimeUnit.SECONDS);
+        if (committed.isEmpty()) {
+            return;
+        }
+
+        Map<TopicPartition, OffsetSpec> latest = committed.keySet().stream()
+            .collect(Collectors.toMap(tp -> tp, tp -> OffsetSpec.latest()));
+        Map<TopicPartition, ListOffsetsResultInfo> endOffsets = admin.listOffsets(latest)
+            .all()
+            .get(10, TimeUnit.SECONDS);
+
+        Map<String, Long> lagByTopic = new HashMap<>();
+        committed.forEach((tp, offset) -> {
+            ListOffsetsResultInfo end = endOffsets.get(tp);
+            if (offset != null && end != null) {
+                lagByTopic.merge(tp.topic(), Math.max(0, end.offset() - offset.offset()), Long::sum);
+            }
+        });
+        lagByTopic.forEach((topic, lag) -> lagGauge(group, topic).set(lag));
+    }
+
+    private AtomicLong lagGauge(String group, String topic) {
+        return lagByGroupTopic.computeIfAbsent(group + '|' + topic, key -> {
+            AtomicLong value = new AtomicLong();
+            Gauge.builder("kafka.consumer.group.lag", value, AtomicLong::get)
+                .description("Records between the committed offset and the log end, summed over partitions")
+                .tag("group", group)
+                .tag("topic", topic)
+                .register(registry);
+            return value;
+        });
+    }
+
+    private AdminClient adminClient() {
+        if (adminClient == null) {
+            synchronized (this) {
+                if (adminClient == null) {
+                    adminClient = AdminClient.create(kafkaAdmin.getConfigurationProperties());
+                }
+            }
+        }
+        return adminClient;
+    }
+
+    @PreDestroy
+    public void close() {
+        if (adminClient != null) {
+            adminClient.close();
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package com.example.notifications.metrics;
+
+import com.example.notifications.entity.FraudRule;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timers and counters for the event pipeline.
+ *
+ * Meters are cached per tag combination so the hot path does not go through the registry
+ * lookup on every record. Tags are limited to bounded values: topic names, actions,
+ * reaction types and rule ids. Per-rule meters are capped at {@code fraud.metrics.max-rule-tags}
+ * distinct rules; rules beyond the cap share a single {@code rule="other"} series. Meters of
+ * rules that leave the rule set are removed, so the cap counts current rules only.
+ */
+@Component
+public class PipelineMetrics {
+
+    private static final String OTHER = "other";
+
+    private final MeterRegistry registry;
+    private final int maxRuleTags;
+
+    private final Map<String, Timer> applicationTimers = new ConcurrentHashMap<>();
+    private final Map<String, Timer> routingTimers = new ConcurrentHashMap<>();
+    private final Map<String, Timer> laneTimers = new ConcurrentHashMap<>();
+    private final Map<Long, RuleMeters> ruleMeters = new ConcurrentHashMap<>();
+    private final Map<String, Timer> reactionTimers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> reactionFailures = new ConcurrentHashMap<>();
+    private final Map<String, Counter> reactionsCoalesced = new ConcurrentHashMap<>();
+    private final Map<String, Counter> digests = new ConcurrentHashMap<>();
+    private final Map<String, Counter> routedCounters = new ConcurrentHashMap<>();
+    private final Map<String, Counter> duplicateCounters = new ConcurrentHashMap<>();
+    private final Timer auditWriteTimer;
+    private final Counter auditWriteFailures;
+    private final Counter rulesSkipped;
+    private final DistributionSummary riskScores;
+    private final Counter regexBudgetExceeded;
+    private final RuleMeters otherRuleMeters;
+
+    public PipelineMetrics(MeterRegistry registry,
+                           @Value("${fraud.metrics.max-rule-tags:500}") int maxRuleTags) {
+        this.registry = registry;
+        this.maxRuleTags = maxRuleTags;
+        this.auditWriteTimer = Timer.builder("fraud.audit.write")
+            .description("Time to persist one audit log row")
+            .register(registry);
+        this.auditWriteFailures = Counter.builder("fraud.audit.write.failed")
+            .description("Audit log rows lost because the insert failed after the application was routed")
+            .register(registry);
+        this.rulesSkipped = Counter.builder("fraud.rules.skipped")
+            .description("Rules not evaluated because an early-exit strategy already decided the outcome")
+            .register(registry);
+        this.riskScores = DistributionSummary.builder("fraud.risk.score")
+            .description("Risk score of applications matched by at least one ENRICH rule")
+            .register(registry);
+        this.regexBudgetExceeded = Counter.builder("fraud.regex.budget.exceeded")
+            .description("Rule evaluations aborted because a regex exceeded its step budget")
+            .register(registry);
+        this.otherRuleMeters = new RuleMeters(registry, OTHER, OTHER);
+    }
+
+    public MeterRegistry registry() {
+        return registry;
+    }
+
+    public Timer.Sample start() {
+        return Timer.start(registry);
+    }
+
+    /**
+     * Records the processing time of one application, tagged with its outcome
+     * (the final action, or CLEAN when no rule matched).
+     */
+    public void recordApplication(Timer.Sample sample, String outcome) {
+        sample.stop(applicationTimers.computeIfAbsent(outcome, o -> Timer.builder("fraud.application.processing")
+            .description("Time to evaluate, route and audit one application")
+            .tag("outcome", o)
+            .register(registry)));
+    }
+
+    /**
+     * Records the routing time of one event from the *.events topics.
+     */
+    public void recordRouting(Timer.Sample sample, String topic, boolean matched) {
+        String key = topic + '|' + matched;
+        sample.stop(routingTimers.computeIfAbsent(key, k -> Timer.builder("events.routing")
+            .description("Time to match and react to one event")
+            .tag("topic", topic)
+            .tag("matched", Boolean.toString(matched))
+            .register(registry)));
+    }
+
+    /**
+     * Records the time from an event's publish timestamp until its routing lane finished it.
+     */
+    public void recordLaneLatency(String lane, long millis) {
+        laneTimers.computeIfAbsent(lane, l -> Timer.builder("events.lane.latency")
+            .description("Time from publishing an event until its routing lane finished it")
+            .tag("lane", l)
+            .publishPercentileHistogram()
+            .register(registry)).record(Math.max(0, millis), TimeUnit.MILLISECONDS);
+    }
+
+    public void recordRuleEvaluation(FraudRule rule, long nanos, boolean matched) {
+        RuleMeters meters = ruleMeters(rule);
+        meters.evaluation.record(nanos, TimeUnit.NANOSECONDS);
+        if (matched) {
+            meters.matches.increment();
+        }
+    }
+
+    /**
+     * Value of the {@code rule} tag for {@code rule}: its id, or {@code other} once
+     * {@code fraud.metrics.max-rule-tags} rules have their own series.
+     */
+    public String ruleTag(FraudRule rule) {
+        return ruleMeters(rule).ruleId;
+    }
+
+    /**
+     * Removes the per-rule meters of rules not in {@code rules}, and of rules whose operator
+     * changed, so an edited rule gets a series with its current operator tag.
+     */
+    public void retainRules(Collection<FraudRule> rules) {
+        Map<Long, String> operators = new HashMap<>();
+        for (FraudRule rule : rules) {
+            operators.put(rule.getId(), operatorTag(rule));
+        }
+        ruleMeters.entrySet().removeIf(entry -> {
+            if (entry.getValue().operator.equals(operators.get(entry.getKey()))) {
+                return false;
+            }
+            registry.remove(entry.getValue().evaluation);
+            registry.remove(entry.getValue().matches);
+            return true;
+        });
+    }
+
+    public void rulesSkipped(int count) {
+        if (count > 0) {
+            rulesSkipped.increment(count);
+        }
+    }
+
+    public void regexBudgetExceeded() {
+        regexBudgetExceeded.increment();
+    }
+
+    public void recordRiskScore(double score) {
+        riskScores.record(score);
+    }
+
+    public void recordReaction(String reactionType, long nanos) {
+        reactionTimers.computeIfAbsent(reactionType, t -> Timer.builder("reactions.execution")
+            .description("Time to execute one reaction")
+            .tag("type", t)
+            .register(registry))
+            .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void reactionFailed(String reactionType) {
+        reactionFailures.computeIfAbsent(reactionType, t -> Counter.builder("reactions.failures")
+            .description("Reactions that failed to execute")
+            .tag("type", t)
+            .register(registry))
+            .increment();
+    }
+
+    public void reactionCoalesced(String reactionType) {
+        reactionsCoalesced.computeIfAbsent(reactionType, t -> Counter.builder("reactions.coalesced")
+            .description("Reactions held back and folded into a digest")
+            .tag("type", t)
+            .register(registry))
+            .increment();
+    }
+
+    public void digestEmitted(String reactionType) {
+        digests.computeIfAbsent(reactionType, t -> Counter.builder("reactions.digests")
+            .description("Digest reactions emitted in place of coalesced ones")
+            .tag("type", t)
+            .register(registry))
+            .increment();
+    }
+
+    public void recordAuditWrite(long nanos) {
+        auditWriteTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void auditWriteFailed() {
+        auditWriteFailures.increment();
+    }
+
+    public void duplicateSkipped(String topic) {
+        duplicateCounters.computeIfAbsent(topic, t -> Counter.builder("events.duplicates")
+            .description("Records skipped because their id was already processed")
+            .tag("topic", t)
+            .register(registry))
+            .increment();
+    }
+
+    public void applicationRouted(String topic) {
+        routedCounters.computeIfAbsent(topic, t -> Counter.builder("fraud.applications.routed")
+            .description("Applications routed to an outbound topic")
+            .tag("topic", t)
+            .register(registry))
+            .increment();
+    }
+
+    /**
+     * Exposes the number of connected SSE subscribers as a gauge on the given collection.
+     */
+    public void registerSubscriberGauge(Collection<?> subscribers) {
+        Gauge.builder("notifications.sse.subscribers", subscribers, Collection::size)
+            .description("Connected server-sent event subscribers")
+            .register(registry);
+    }
+
+    private RuleMeters ruleMeters(FraudRule rule) {
+        Long id = rule.getId();
+        if (id == null) {
+            return otherRuleMeters;
+        }
+        RuleMeters meters = ruleMeters.get(id);
+        if (meters != null) {
+            return meters;
+        }
+        if (ruleMeters.size() >= maxRuleTags) {
+            return otherRuleMeters;
+        }
+        return ruleMeters.computeIfAbsent(id, i -> new RuleMeters(registry, i.toString(), operatorTag(rule)));
+    }
+
+    private static String operatorTag(FraudRule rule) {
+        return rule.getConditionTree() != null ? "COMPOSITE"
+            : rule.getOperator() != null ? rule.getOperator().name() : OTHER;
+    }
+
+    private static final class RuleMeters {
+        final String ruleId;
+        final String operator;
+        final Timer evaluation;
+        final Counter matches;
+
+        RuleMeters(MeterRegistry registry, String ruleId, String operator) {
+            this.ruleId = ruleId;
+            this.operator = operator;
+            this.evaluation = Timer.builder("fraud.rule.evaluation")
+                .description("Time to evaluate one rule against one application")
+                .tag("rule", ruleId)
+                .tag("operator", operator)
+                .register(registry);
+            this.matches = Counter.builder("fraud.rule.matches")
+                .description("Applications matched by a rule")
+                .tag("rule", ruleId)
+                .register(registry);
+        }
+    }
+}
@@ -1,8 +1,9 @@
 package com.example.notifications.model;
 
+import com.example.notifications.ids.Ids;
+
 import java.time.Instant;
 import java.util.Map;
-import java.util.UUID;
 
 public record Application(
     String id,
@@ -12,7 +13,8 @@ public record Application(
     Instant receivedAt
 ) {
     public static Application fromKafkaMessage(String topic, Map<String, Object> payload) {
-        String id = (String) payload.getOrDefault("id", UUID.randomUUID().toString());
+        Object payloadId = payload.get("id");
+        String id = payloadId != null ? payloadId.toString() : Ids.next();
         String type = (String) payload.getOrDefault("type", "unknown");
         String source = (String) payload.getOrDefault("source", "unknown");
 
@@ -1,8 +1,9 @@
 package com.example.notifications.model;
 
+import com.example.notifications.ids.Ids;
+
 import java.time.Instant;
 import java.util.Map;
-import java.util.UUID;
 
 public record IncomingEvent(
     String id,
@@ -12,9 +13,14 @@ public record IncomingEvent(
     Map<String, Object> payload,
     Instant timestamp
 ) {
+    /**
+     * Keeps the producer's {@code eventId} when the payload has one, so reactions and logs
+     * can be correlated with the original record.
+     */
     public static IncomingEvent create(String source, String topic, String type, Map<String, Object> payload) {
+        Object eventId = payload.get("eventId");
         return new IncomingEvent(
-            UUID.randomUUID().toString(),
+            eventId != null && !eventId.toString().isBlank() ? eventId.toString() : Ids.next(),
             source,
             topic,
             type,
@@ -0,0 +1,7 @@
+package com.example.notifications.regex;
+
+/**
+ * Application event published when a rule's regex exceeded its step budget.
+ */
+public record RegexBudgetExceeded(Long ruleId, String ruleName) {
+}
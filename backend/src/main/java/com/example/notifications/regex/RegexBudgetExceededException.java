@@ -0,0 +1,14 @@
+package com.example.notifications.regex;
+
+/**
+ * Thrown when a regex match takes more steps than its budget allows, which in practice means
+ * catastrophic backtracking.
+ */
+public class RegexBudgetExceededException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public RegexBudgetExceededException(String pattern, long budget) {
+        super("Regex exceeded its budget of " + budget + " steps: " + pattern, null, false, false);
+    }
+}
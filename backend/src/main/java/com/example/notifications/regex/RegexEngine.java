@@ -0,0 +1,235 @@
+package com.example.notifications.regex;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Matches REGEX rule patterns against untrusted input with bounded work.
+ *
+ * Patterns are compiled once and cached. Each match runs the JDK engine over a
+ * {@link CharSequence} wrapper that counts character reads. Backtracking re-reads input, so
+ * the count bounds the work of one match whatever the pattern. Past {@code fraud.regex.max-steps}
+ * the match is aborted with {@link RegexBudgetExceededException}.
+ *
+ * {@link #validate} is applied when a rule is saved. It rejects patterns that do not compile and
+ * patterns that exceed the budget on generated adversarial inputs: long runs of characters the
+ * pattern accepts, ending in one it does not. The JDK engine memoizes simple nested loops like
+ * {@code (a+)+$}, but not bounded repetition of wildcards ({@code (.*a){12}}) or stacked
+ * wildcards ({@code .*.*.*=.*}). Those blow up on such inputs and are rejected.
+ */
+@Component
+public class RegexEngine {
+
+    private static final int MAX_CACHED = 10_000;
+    private static final int PROBE_LENGTH = 64;
+
+    private final long maxSteps;
+    private final Map<String, Pattern> patterns = new ConcurrentHashMap<>();
+
+    public RegexEngine(@Value("${fraud.regex.max-steps:100000}") long maxSteps) {
+        if (maxSteps <= 0) {
+            throw new IllegalArgumentException("fraud.regex.max-steps must be positive");
+        }
+        this.maxSteps = maxSteps;
+    }
+
+    public long maxSteps() {
+        return maxSteps;
+    }
+
+    /**
+     * Whether the whole {@code input} matches {@code regex}.
+     *
+     * @throws RegexBudgetExceededException if the match needs more than the step budget
+     * @throws PatternSyntaxException       if the pattern does not compile
+     */
+    public boolean matches(String regex, CharSequence input) {
+        Matcher matcher = compile(regex).matcher(new BudgetedSequence(input, regex, maxSteps));
+        return matcher.matches();
+    }
+
+    /**
+     * Checks a pattern before it is saved.
+     *
+     * @throws IllegalArgumentException describing why the pattern is rejected
+     */
+    public void validate(String regex) {
+        Pattern pattern;
+        try {
+            pattern = Pattern.compile(regex);
+        } catch (PatternSyntaxException e) {
+            throw new IllegalArgumentException("Invalid regex: " + e.getDescription());
+        }
+        for (String probe : probes(regex)) {
+            try {
+                pattern.matcher(new BudgetedSequence(probe, regex, maxSteps)).matches();
+            } catch (RegexBudgetExceededException e) {
+                String nested = findNestedQuantifier(regex);
+                throw new IllegalArgumentException("Regex exceeds the budget of " + maxSteps + " steps on a "
+                    + probe.length() + "-character input, so it backtracks catastrophically"
+                    + (nested != null ? " (nested quantifier at '" + nested + "')" : ""));
+            }
+        }
+    }
+
+    private Pattern compile(String regex) {
+        Pattern pattern = patterns.get(regex);
+        if (pattern == null) {
+            pattern = Pattern.compile(regex);
+            if (patterns.size() >= MAX_CACHED) {
+                patterns.clear();
+            }
+            patterns.put(regex, pattern);
+        }
+        return pattern;
+    }
+
+    /**
+     * Finds a group that contains an unbounded quantifier and is itself repeated without bound,
+     * returning the offending text, or null. Character classes and escapes are skipped. Used
+     * only to point at the likely culprit in error messages.
+     */
+    static String findNestedQuantifier(String regex) {
+        Deque<int[]> groups = new ArrayDeque<>(); // {start index, contains unbounded quantifier}
+        for (int i = 0; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == '[') {
+                i = skipClass(regex, i);
+            } else if (c == '(') {
+                groups.push(new int[] {i, 0});
+            } else if (c == ')' && !groups.isEmpty()) {
+                int[] group = groups.pop();
+                boolean inner = group[1] == 1;
+                if (inner && unboundedAt(regex, i + 1)) {
+                    return regex.substring(group[0], Math.min(regex.length(), i + 2));
+                }
+                if (inner && !groups.isEmpty()) {
+                    groups.peek()[1] = 1;
+                }
+            } else if ((c == '*' || c == '+' || (c == '{' && unboundedAt(regex, i))) && !groups.isEmpty()) {
+                groups.peek()[1] = 1;
+            }
+        }
+        return null;
+    }
+
+    private static boolean unboundedAt(String regex, int i) {
+        if (i >= regex.length()) {
+            return false;
+        }
+        char c = regex.charAt(i);
+        if (c == '*' || c == '+') {
+            return true;
+        }
+        if (c == '{') {
+            int close = regex.indexOf('}', i);
+            return close > 0 && regex.substring(i + 1, close).matches("\\d+,");
+        }
+        return false;
+    }
+
+    private static int skipClass(String regex, int open) {
+        int i = open + 1;
+        if (i < regex.length() && regex.charAt(i) == '^') {
+            i++;
+        }
+        if (i < regex.length() && regex.charAt(i) == ']') {
+            i++;
+        }
+        for (; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == '[') {
+                i = skipClass(regex, i);
+            } else if (c == ']') {
+                return i;
+            }
+        }
+        return i;
+    }
+
+    /**
+     * Inputs that make backtracking engines explode on vulnerable patterns: long runs of one or
+     * two characters the pattern may accept, followed by one it is unlikely to accept.
+     */
+    private static Set<String> probes(String regex) {
+        Set<Character> alphabet = new LinkedHashSet<>();
+        for (char c : new char[] {'a', '0', ' ', '.', '@', '-', '_'}) {
+            alphabet.add(c);
+        }
+        for (int i = 0; i < regex.length() && alphabet.size() < 24; i++) {
+            char c = regex.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                alphabet.add(c);
+            }
+        }
+        Set<String> probes = new LinkedHashSet<>();
+        for (char c : alphabet) {
+            String run = String.valueOf(c).repeat(PROBE_LENGTH);
+            probes.add(run + '\u0000');
+            probes.add(run + "!");
+        }
+        Character[] chars = alphabet.toArray(Character[]::new);
+        for (int i = 0; i < Math.min(chars.length, 12); i++) {
+            for (int j = 0; j < Math.min(chars.length, 12); j++) {
+                if (i != j) {
+                    probes.add(("" + chars[i] + chars[j]).repeat(PROBE_LENGTH / 2) + '\u0000');
+                }
+            }
+        }
+        return probes;
+    }
+
+    /**
+     * Input wrapper that charges one step per character read.
+     */
+    private static final class BudgetedSequence implements CharSequence {
+
+        private final CharSequence input;
+        private final String regex;
+        private final long budget;
+        private long steps;
+
+        BudgetedSequence(CharSequence input, String regex, long budget) {
+            this.input = input;
+            this.regex = regex;
+            this.budget = budget;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (++steps > budget) {
+                throw new RegexBudgetExceededException(regex, budget);
+            }
+            return input.charAt(index);
+        }
+
+        @Override
+        public int length() {
+            return input.length();
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return input.subSequence(start, end);
+        }
+
+        @Override
+        public String toString() {
+            return input.toString();
+        }
+    }
+}
@@ -1,9 +1,11 @@
 package com.example.notifications.repository;
 
 import com.example.notifications.entity.FraudRule;
+import com.example.notifications.entity.RuleOperator;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -12,4 +14,8 @@ public interface FraudRuleRepository extends JpaRepository<FraudRule, Long> {
     List<FraudRule> findByEnabledTrueOrderByPriorityAsc();
 
     List<FraudRule> findAllByOrderByPriorityAsc();
+
+    List<FraudRule> findByConditionTreeIsNotNull();
+
+    boolean existsByOperatorInAndValue(Collection<RuleOperator> operators, String value);
 }
@@ -0,0 +1,181 @@
+package com.example.notifications.routing;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListenerConfigurer;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistrar;
+import org.springframework.kafka.config.MethodKafkaListenerEndpoint;
+import org.springframework.messaging.handler.annotation.support.DefaultMessageHandlerMethodFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Priority lanes for the {@code *.events} topics, so latency-critical events do not wait behind
+ * bulk traffic.
+ *
+ * Each lane in {@code fraud.routing.lanes} is its own listener container with its own consumer
+ * group ({@code event-router-<lane>}), consumer threads and fetch queue. An entry is
+ * {@code name:threads:selector|selector...}, where a selector is {@code topic=<topic>} or
+ * {@code type=<event type>}. A record belongs to the first lane with a matching selector, and
+ * to the {@code default} lane (group {@code event-router}) otherwise. Every other lane reads
+ * past it.
+ *
+ * A lane that selects only topics subscribes to just those topics, and the default lane no
+ * longer subscribes to them. A lane that selects event types has to read every {@code *.events}
+ * record to find them, so bulk traffic costs it a deserialization per record. It never waits for
+ * the routing of another lane's records, though.
+ */
+@Component
+public class EventLanes implements KafkaListenerConfigurer {
+
+    private static final Logger log = LoggerFactory.getLogger(EventLanes.class);
+
+    static final String DEFAULT_LANE = "default";
+    private static final String GROUP = "event-router";
+    private static final String EVENT_TOPICS = "(?!applications)%s.*\\.events";
+
+    private final EventRouter router;
+    private final List<Lane> lanes = new ArrayList<>();
+    private final int defaultThreads;
+
+    /**
+     * One configured lane.
+     */
+    record Lane(String name, int threads, Set<String> topics, Set<String> types) {
+
+        boolean matches(String topic, Object type) {
+            return topics.contains(topic) || (type != null && types.contains(type.toString()));
+        }
+    }
+
+    public EventLanes(
+            EventRouter router,
+            @Value("${fraud.routing.lanes:}") List<String> laneSpecs,
+            @Value("${fraud.routing.default-lane-threads:1}") int defaultThreads) {
+        if (defaultThreads < 1) {
+            throw new IllegalArgumentException("fraud.routing.default-lane-threads must be >= 1, not " + defaultThreads);
+        }
+        this.router = router;
+        this.defaultThreads = defaultThreads;
+        for (String spec : laneSpecs) {
+            if (!spec.isBlank()) {
+                lanes.add(parse(spec.trim()));
+            }
+        }
+        log.info("Event routing lanes: {}, default lane with {} thread(s)", lanes, defaultThreads);
+    }
+
+    private static Lane parse(String spec) {
+        String[] parts = spec.split(":", 3);
+        int threads = parts.length == 3 && parts[1].matches("\\d{1,4}") ? Integer.parseInt(parts[1]) : 0;
+        if (threads < 1 || parts[0].isBlank() || parts[0].equals(DEFAULT_LANE)) {
+            throw new IllegalArgumentException(
+                "fraud.routing.lanes entries are name:threads:selector|selector... with threads >= 1, not " + spec);
+        }
+        Set<String> topics = new LinkedHashSet<>();
+        Set<String> types = new LinkedHashSet<>();
+        for (String selector : parts[2].split("\\|")) {
+            int separator = selector.indexOf('=');
+            String value = selector.substring(separator + 1).trim();
+            if (separator < 0 || value.isEmpty()) {
+                throw new IllegalArgumentException(
+                    "fraud.routing.lanes selectors are topic=<topic> or type=<type>, not " + selector);
+            } else if (selector.startsWith("topic=")) {
+                topics.add(value);
+            } else if (selector.startsWith("type=")) {
+                types.add(value);
+            } else {
+                throw new IllegalArgumentException(
+                    "fraud.routing.lanes selectors are topic=<topic> or type=<type>, not " + selector);
+            }
+        }
+        return new Lane(parts[0], threads, topics, types);
+    }
+
+    /**
+     * Name of the lane that routes {@code record}.
+     */
+    String laneOf(ConsumerRecord<String, Map<String, Object>> record) {
+        Object type = record.value() != null ? record.value().get("type") : null;
+        for (Lane lane : lanes) {
+            if (lane.matches(record.topic(), type)) {
+                return lane.name();
+            }
+        }
+        return DEFAULT_LANE;
+    }
+
+    @Override
+    public void configureKafkaListeners(KafkaListenerEndpointRegistrar registrar) {
+        StringBuilder excluded = new StringBuilder();
+        for (Lane lane : lanes) {
+            if (lane.types().isEmpty()) {
+                registrar.registerEndpoint(endpoint(lane.name(), GROUP + "-" + lane.name(), lane.threads(),
+                    lane.topics(), null));
+                lane.topics().forEach(topic -> excluded.append("(?!").append(Pattern.quote(topic)).append("$)"));
+            } else {
+                registrar.registerEndpoint(endpoint(lane.name(), GROUP + "-" + lane.name(), lane.threads(),
+                    null, allEvents("")));
+            }
+        }
+        registrar.registerEndpoint(endpoint(DEFAULT_LANE, GROUP, defaultThreads, null, allEvents(excluded.toString())));
+    }
+
+    private static Pattern allEvents(String exclusions) {
+        return Pattern.compile(String.format(EVENT_TOPICS, exclusions));
+    }
+
+    private MethodKafkaListenerEndpoint<String, Map<String, Object>> endpoint(
+            String lane, String group, int threads, Set<String> topics, Pattern pattern) {
+        MethodKafkaListenerEndpoint<String, Map<String, Object>> endpoint = new MethodKafkaListenerEndpoint<>();
+        endpoint.setId(group);
+        endpoint.setGroupId(group);
+        endpoint.setConcurrency(threads);
+        if (topics != null) {
+            endpoint.setTopics(topics.toArray(String[]::new));
+        } else {
+            endpoint.setTopicPattern(pattern);
+        }
+        Properties properties = new Properties();
+        properties.setProperty("spring.json.trusted.packages", "*");
+        properties.setProperty("spring.json.value.default.type", "java.util.Map");
+        endpoint.setConsumerProperties(properties);
+        DefaultMessageHandlerMethodFactory handlerMethodFactory = new DefaultMessageHandlerMethodFactory();
+        handlerMethodFactory.afterPropertiesSet();
+        endpoint.setMessageHandlerMethodFactory(handlerMethodFactory);
+        endpoint.setBean(new Listener(lane));
+        try {
+            endpoint.setMethod(Listener.class.getMethod("onRecord", ConsumerRecord.class));
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+        return endpoint;
+    }
+
+    /**
+     * Listener of one lane's container: routes the records of its lane and reads past the rest.
+     */
+    public final class Listener {
+
+        private final String lane;
+
+        Listener(String lane) {
+            this.lane = lane;
+        }
+
+        public void onRecord(ConsumerRecord<String, Map<String, Object>> record) {
+            if (laneOf(record).equals(lane)) {
+                router.routeEvent(record, lane);
+            }
+        }
+    }
+}
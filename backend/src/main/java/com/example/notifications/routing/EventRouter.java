@@ -1,15 +1,24 @@
 package com.example.notifications.routing;
 
+import com.example.notifications.admission.SourceAdmission;
+import com.example.notifications.dedup.EventDeduplicator;
+import com.example.notifications.diagnostics.Stage;
+import com.example.notifications.diagnostics.StageLatencyTracker;
+import com.example.notifications.diagnostics.StageTrace;
+import com.example.notifications.journal.EventJournal;
+import com.example.notifications.metrics.PipelineMetrics;
 import com.example.notifications.model.Application;
 import com.example.notifications.model.IncomingEvent;
 import com.example.notifications.model.Reaction;
 import com.example.notifications.service.FraudDetectionService;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Service;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -18,79 +27,155 @@ public class EventRouter {
 
     private static final Logger log = LoggerFactory.getLogger(EventRouter.class);
 
+    static final String APPLICATIONS_TOPIC = "applications.events";
+
     private final List<RoutingRule> rules;
     private final ReactionExecutor reactionExecutor;
     private final FraudDetectionService fraudDetectionService;
+    private final PipelineMetrics metrics;
+    private final StageLatencyTracker latencyTracker;
+    private final EventDeduplicator deduplicator;
+    private final EventJournal journal;
+    private final SourceAdmission admission;
 
     public EventRouter(List<RoutingRule> rules, ReactionExecutor reactionExecutor,
-                       FraudDetectionService fraudDetectionService) {
+                       FraudDetectionService fraudDetectionService, PipelineMetrics metrics,
+                       StageLatencyTracker latencyTracker, EventDeduplicator deduplicator,
+                       EventJournal journal, SourceAdmission admission) {
         this.rules = rules;
         this.reactionExecutor = reactionExecutor;
         this.fraudDetectionService = fraudDetectionService;
+        this.metrics = metrics;
+        this.latencyTracker = latencyTracker;
+        this.deduplicator = deduplicator;
+        this.journal = journal;
+        this.admission = admission;
         log.info("EventRouter initialized with {} code-based rules: {}",
             rules.size(),
             rules.stream().map(RoutingRule::getName).toList());
     }
 
     @KafkaListener(
-        topics = "applications.events",
+        topics = APPLICATIONS_TOPIC,
         groupId = "fraud-gateway",
+        batch = "true",
         properties = {
             "spring.json.trusted.packages=*",
             "spring.json.value.default.type=java.util.Map"
         }
     )
-    public void processApplication(ConsumerRecord<String, Map<String, Object>> record) {
-        String topic = record.topic();
-        Map<String, Object> payload = record.value();
-
-        log.info("Received application on topic {}: {}", topic, payload);
-
-        Application application = Application.fromKafkaMessage(topic, payload);
-        fraudDetectionService.processApplication(application);
+    public void processApplications(List<ConsumerRecord<String, Map<String, Object>>> records) {
+        for (ConsumerRecord<String, Map<String, Object>> record : records) {
+            journal.append(record);
+        }
+        admission.schedule(records, record -> processApplication(record, APPLICATIONS_TOPIC));
     }
 
+    /**
+     * Applications their source's rate deferred to the spill-over topic, taken at the
+     * spill-over rate and deduplicated as records of {@code applications.events}. Polls are
+     * sized so that one poll's records fit into the poll interval at that rate.
+     */
     @KafkaListener(
-        topicPattern = "(?!applications).*\\.events",
-        groupId = "event-router",
+        topics = "${fraud.admission.spill-topic:applications.deferred}",
+        groupId = "fraud-gateway-deferred",
         properties = {
             "spring.json.trusted.packages=*",
-            "spring.json.value.default.type=java.util.Map"
+            "spring.json.value.default.type=java.util.Map",
+            "max.poll.records=#{@sourceAdmission.spillMaxPollRecords()}",
+            "max.poll.interval.ms=#{@sourceAdmission.spillMaxPollIntervalMillis()}"
         }
     )
+    public void processDeferredApplication(ConsumerRecord<String, Map<String, Object>> record) {
+        admission.awaitSpillSlot();
+        processApplication(record, APPLICATIONS_TOPIC);
+    }
+
+    private void processApplication(ConsumerRecord<String, Map<String, Object>> record, String topic) {
+        StageTrace trace = latencyTracker.startTrace(record);
+        Map<String, Object> payload = record.value();
+
+        log.info("Received application on topic {}: {}", record.topic(), payload);
+
+        long dedupKey = deduplicator.key(topic, record);
+        if (deduplicator.isDuplicate(topic, dedupKey)) {
+            log.info("Skipping already processed application {} ({}-{}@{})",
+                payload.get("id"), record.topic(), record.partition(), record.offset());
+            return;
+        }
+
+        Application application = Application.fromKafkaMessage(topic, payload);
+        fraudDetectionService.processApplication(application, trace);
+        deduplicator.markProcessed(dedupKey);
+        trace.finish();
+    }
+
     public void routeEvent(ConsumerRecord<String, Map<String, Object>> record) {
+        routeEvent(record, EventLanes.DEFAULT_LANE);
+    }
+
+    /**
+     * Routes one {@code *.events} record for its {@link EventLanes lane}.
+     */
+    public void routeEvent(ConsumerRecord<String, Map<String, Object>> record, String lane) {
+        route(record);
+        if (record.timestamp() >= 0) {
+            metrics.recordLaneLatency(lane, System.currentTimeMillis() - record.timestamp());
+        }
+    }
+
+    private void route(ConsumerRecord<String, Map<String, Object>> record) {
+        StageTrace trace = latencyTracker.startTrace(record);
+        Timer.Sample sample = metrics.start();
+        journal.append(record);
         String topic = record.topic();
         Map<String, Object> payload = record.value();
 
         log.info("Received event on topic {}: {}", topic, payload);
 
+        long dedupKey = deduplicator.key(record);
+        if (deduplicator.isDuplicate(topic, dedupKey)) {
+            log.info("Skipping already processed event {} ({}-{}@{})",
+                payload.get("eventId"), topic, record.partition(), record.offset());
+            return;
+        }
+
         // Extract event type from payload
         String type = (String) payload.get("type");
         String source = (String) payload.getOrDefault("source", "unknown");
 
         if (type == null) {
             log.warn("Event missing 'type' field, skipping: {}", payload);
+            metrics.recordRouting(sample, topic, false);
             return;
         }
 
         IncomingEvent event = IncomingEvent.create(source, topic, type, payload);
 
-        // Find matching rules and execute reactions (code-based rules)
-        int matchCount = 0;
+        // Find matching rules (code-based rules)
+        long stage = trace.begin();
+        List<RoutingRule> matchedRules = new ArrayList<>();
         for (RoutingRule rule : rules) {
             if (rule.matches(event)) {
                 log.info("Rule '{}' matched event {}", rule.getName(), event.id());
-                matchCount++;
+                matchedRules.add(rule);
+            }
+        }
+        trace.end(Stage.EVALUATION, stage);
 
-                List<Reaction> reactions = rule.getReactions(event);
-                for (Reaction reaction : reactions) {
-                    reactionExecutor.execute(reaction);
-                }
+        // Execute reactions of the matched rules
+        for (RoutingRule rule : matchedRules) {
+            List<Reaction> reactions = rule.getReactions(event);
+            for (Reaction reaction : reactions) {
+                reactionExecutor.execute(reaction, rule, trace);
             }
         }
 
-        if (matchCount == 0) {
+        if (matchedRules.isEmpty()) {
             log.debug("No rules matched event: {} (type={})", event.id(), type);
         }
+        metrics.recordRouting(sample, topic, !matchedRules.isEmpty());
+        deduplicator.markProcessed(dedupKey);
+        trace.finish();
     }
 }
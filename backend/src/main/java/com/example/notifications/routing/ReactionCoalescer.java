@@ -0,0 +1,220 @@
+package com.example.notifications.routing;
+
+import com.example.notifications.Notification;
+import com.example.notifications.ids.Ids;
+import com.example.notifications.metrics.PipelineMetrics;
+import com.example.notifications.model.Reaction;
+import com.example.notifications.model.Reaction.PublishToKafka;
+import com.example.notifications.model.Reaction.PushToFrontend;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Folds bursts of routing-rule notifications into digests.
+ *
+ * Frontend pushes and Kafka publishes are grouped by rule, notification type and user (see
+ * {@code fraud.reactions.coalescing.key}); Kafka publishes also by topic. In each window of
+ * {@code fraud.reactions.coalescing.window} per group, the first {@code max-immediate}
+ * reactions go out as usual and the rest are held. When the window ends, the held reactions go
+ * out as one digest: the rule's {@link RoutingRule#digestSummary summary}, the count and the
+ * first {@code sample-size} items. A group that produced a digest holds everything in its next
+ * window, so a sustained burst yields one digest per window. A window with nothing held ends the
+ * burst, and the next reaction goes out immediately again.
+ *
+ * Only reactions of routing rules are coalesced; fraud decisions, API calls and log events are
+ * never held.
+ */
+@Component
+public class ReactionCoalescer {
+
+    private final PipelineMetrics metrics;
+    private final boolean enabled;
+    private final long windowMillis;
+    private final int maxImmediate;
+    private final int sampleSize;
+    private final boolean byRule;
+    private final boolean byType;
+    private final boolean byUser;
+    private final Map<Key, Window> windows = new ConcurrentHashMap<>();
+
+    public ReactionCoalescer(
+            PipelineMetrics metrics,
+            @Value("${fraud.reactions.coalescing.enabled:true}") boolean enabled,
+            @Value("${fraud.reactions.coalescing.window:2s}") Duration window,
+            @Value("${fraud.reactions.coalescing.max-immediate:3}") int maxImmediate,
+            @Value("${fraud.reactions.coalescing.sample-size:5}") int sampleSize,
+            @Value("${fraud.reactions.coalescing.key:rule,type,userId}") String key) {
+        this.metrics = metrics;
+        this.enabled = enabled;
+        this.windowMillis = window.toMillis();
+        this.maxImmediate = Math.max(0, maxImmediate);
+        this.sampleSize = Math.max(0, sampleSize);
+        List<String> fields = Arrays.stream(key.split(",")).map(String::trim).filter(f -> !f.isEmpty()).toList();
+        for (String field : fields) {
+            if (!List.of("rule", "type", "userId").contains(field)) {
+                throw new IllegalArgumentException("fraud.reactions.coalescing.key fields are rule, type and userId, not " + field);
+            }
+        }
+        this.byRule = fields.contains("rule");
+        this.byType = fields.contains("type");
+        this.byUser = fields.contains("userId");
+    }
+
+    /**
+     * Whether {@code reaction} of {@code rule} is held for a digest instead of running now.
+     */
+    public boolean hold(Reaction reaction, RoutingRule rule, long nowMillis) {
+        if (!enabled || rule == null) {
+            return false;
+        }
+        Key key = key(reaction, rule);
+        if (key == null) {
+            return false;
+        }
+        while (true) {
+            Window window = windows.computeIfAbsent(key, k -> new Window(rule, nowMillis));
+            synchronized (window) {
+                if (window.removed) {
+                    continue;
+                }
+                if (!window.hot && nowMillis - window.start >= windowMillis) {
+                    // A quiet window that was not drained yet.
+                    window.start = nowMillis;
+                    window.passed = 0;
+                }
+                if (!window.hot && window.passed < maxImmediate) {
+                    window.passed++;
+                    return false;
+                }
+                window.held.add(reaction);
+                window.count++;
+                if (window.held.size() > Math.max(1, sampleSize)) {
+                    window.held.remove(window.held.size() - 1);
+                }
+                metrics.reactionCoalesced(reaction.getClass().getSimpleName());
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Digests of the windows that ended by {@code nowMillis}; a single held reaction is
+     * returned as it is.
+     */
+    public List<Reaction> drain(long nowMillis) {
+        return drain(nowMillis, false);
+    }
+
+    /**
+     * Digests of everything held, whether or not its window has ended; for shutdown.
+     */
+    public List<Reaction> drainAll() {
+        return drain(System.currentTimeMillis(), true);
+    }
+
+    private List<Reaction> drain(long nowMillis, boolean all) {
+        List<Reaction> out = new ArrayList<>();
+        for (Map.Entry<Key, Window> entry : windows.entrySet()) {
+            Window window = entry.getValue();
+            synchronized (window) {
+                if (!all && nowMillis - window.start < windowMillis) {
+                    continue;
+                }
+                if (window.count == 0) {
+                    window.removed = true;
+                    windows.remove(entry.getKey(), window);
+                    continue;
+                }
+                out.add(window.count == 1 ? window.held.get(0) : digest(entry.getKey(), window, nowMillis));
+                window.held.clear();
+                window.count = 0;
+                window.start = nowMillis;
+                window.passed = 0;
+                window.hot = true;
+            }
+        }
+        return out;
+    }
+
+    private Key key(Reaction reaction, RoutingRule rule) {
+        String ruleName = byRule ? rule.getName() : null;
+        return switch (reaction) {
+            case PushToFrontend r -> new Key("sse", ruleName,
+                byType ? r.notification().type() : null,
+                byUser ? r.notification().userId() : null);
+            case PublishToKafka r -> {
+                Map<?, ?> message = r.message() instanceof Map<?, ?> m ? m : Map.of();
+                yield new Key(r.topic(), ruleName,
+                    byType ? String.valueOf(message.get("type")) : null,
+                    byUser ? String.valueOf(message.get("userId")) : null);
+            }
+            default -> null;
+        };
+    }
+
+    private Reaction digest(Key key, Window window, long nowMillis) {
+        String summary = window.rule.digestSummary(window.count);
+        Instant from = Instant.ofEpochMilli(window.start);
+        Instant to = Instant.ofEpochMilli(nowMillis);
+        Reaction first = window.held.get(0);
+        Reaction digest = switch (first) {
+            case PushToFrontend r -> {
+                List<String> sample = window.held.stream().limit(sampleSize)
+                    .map(held -> ((PushToFrontend) held).notification().message()).toList();
+                Notification notification = r.notification();
+                yield new PushToFrontend(new Notification(Ids.next(), notification.userId(),
+                    notification.type(), summary, Instant.now(),
+                    new Notification.Digest(window.count, from, to, sample)));
+            }
+            case PublishToKafka r -> {
+                Map<String, Object> message = new LinkedHashMap<>();
+                if (r.message() instanceof Map<?, ?> m && m.get("type") != null) {
+                    message.put("type", m.get("type"));
+                }
+                message.put("digest", true);
+                message.put("summary", summary);
+                message.put("rule", window.rule.getName());
+                message.put("count", window.count);
+                message.put("from", from.toString());
+                message.put("to", to.toString());
+                message.put("sample", window.held.stream().limit(sampleSize)
+                    .map(held -> ((PublishToKafka) held).message()).toList());
+                yield new PublishToKafka(key.target(), message);
+            }
+            default -> throw new IllegalStateException("Not coalesced: " + first);
+        };
+        metrics.digestEmitted(first.getClass().getSimpleName());
+        return digest;
+    }
+
+    /**
+     * Where the reactions go (the SSE clients or a topic) and the configured grouping fields.
+     */
+    private record Key(String target, String rule, String type, String userId) {
+    }
+
+    private static final class Window {
+
+        private final RoutingRule rule;
+        private final List<Reaction> held = new ArrayList<>();
+        private long start;
+        private int passed;
+        private int count;
+        private boolean hot;
+        private boolean removed;
+
+        Window(RoutingRule rule, long start) {
+            this.rule = rule;
+            this.start = start;
+        }
+    }
+}
@@ -1,11 +1,17 @@
 package com.example.notifications.routing;
 
 import com.example.notifications.Notification;
+import com.example.notifications.diagnostics.ReactionExecutionEvent;
+import com.example.notifications.diagnostics.Stage;
+import com.example.notifications.diagnostics.StageTrace;
+import com.example.notifications.metrics.PipelineMetrics;
 import com.example.notifications.model.Reaction;
 import com.example.notifications.model.Reaction.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import jakarta.annotation.PreDestroy;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestClient;
 
@@ -20,25 +26,105 @@ public class ReactionExecutor {
 
     private final KafkaTemplate<String, Object> kafkaTemplate;
     private final RestClient restClient;
+    private final PipelineMetrics metrics;
+    private final ReactionCoalescer coalescer;
     private final List<Consumer<Notification>> frontendListeners = new CopyOnWriteArrayList<>();
 
-    public ReactionExecutor(KafkaTemplate<String, Object> kafkaTemplate) {
+    public ReactionExecutor(KafkaTemplate<String, Object> kafkaTemplate, PipelineMetrics metrics,
+                            ReactionCoalescer coalescer) {
         this.kafkaTemplate = kafkaTemplate;
         this.restClient = RestClient.create();
+        this.metrics = metrics;
+        this.coalescer = coalescer;
+        metrics.registerSubscriberGauge(frontendListeners);
     }
 
     public void execute(Reaction reaction) {
-        switch (reaction) {
-            case PublishToKafka r -> executeKafkaPublish(r);
-            case PushToFrontend r -> executeFrontendPush(r);
-            case CallExternalApi r -> executeApiCall(r);
-            case LogEvent r -> executeLogEvent(r);
+        execute(reaction, StageTrace.NOOP);
+    }
+
+    /**
+     * Executes a reaction of a routing rule, unless it is held to be folded into a digest
+     * during a burst (see {@link ReactionCoalescer}).
+     */
+    public void execute(Reaction reaction, RoutingRule rule, StageTrace trace) {
+        if (!coalescer.hold(reaction, rule, System.currentTimeMillis())) {
+            execute(reaction, trace);
+        }
+    }
+
+    /**
+     * Sends the digests of coalescing windows that have ended.
+     */
+    @Scheduled(fixedDelayString = "${fraud.reactions.coalescing.flush-interval-ms:250}")
+    public void flushDigests() {
+        for (Reaction digest : coalescer.drain(System.currentTimeMillis())) {
+            execute(digest);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        for (Reaction digest : coalescer.drainAll()) {
+            execute(digest);
+        }
+    }
+
+    public void execute(Reaction reaction, StageTrace trace) {
+        ReactionExecutionEvent event = new ReactionExecutionEvent();
+        event.begin();
+        long start = System.nanoTime();
+        Stage stage = switch (reaction) {
+            case PublishToKafka r -> {
+                executeKafkaPublish(r, trace, start);
+                yield Stage.KAFKA_SEND;
+            }
+            case PushToFrontend r -> {
+                executeFrontendPush(r);
+                yield Stage.FRONTEND_PUSH;
+            }
+            case CallExternalApi r -> {
+                executeApiCall(r);
+                yield Stage.OTHER_REACTION;
+            }
+            case LogEvent r -> {
+                executeLogEvent(r);
+                yield Stage.OTHER_REACTION;
+            }
+        };
+        long elapsed = System.nanoTime() - start;
+        metrics.recordReaction(reaction.getClass().getSimpleName(), elapsed);
+        if (trace.sampled()) {
+            trace.end(stage, start);
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.reactionType = reaction.getClass().getSimpleName();
+            event.target = target(reaction);
+            event.commit();
         }
     }
 
-    private void executeKafkaPublish(PublishToKafka reaction) {
+    private static String target(Reaction reaction) {
+        return switch (reaction) {
+            case PublishToKafka r -> r.topic();
+            case PushToFrontend r -> "sse";
+            case CallExternalApi r -> r.method() + " " + r.url();
+            case LogEvent r -> r.level();
+        };
+    }
+
+    private void executeKafkaPublish(PublishToKafka reaction, StageTrace trace, long start) {
         log.info("Publishing to Kafka topic '{}': {}", reaction.topic(), reaction.message());
-        kafkaTemplate.send(reaction.topic(), reaction.message());
+        kafkaTemplate.send(reaction.topic(), reaction.message())
+            .whenComplete((result, ex) -> {
+                if (ex != null) {
+                    log.error("Kafka publish to '{}' failed: {}", reaction.topic(), ex.getMessage());
+                    metrics.reactionFailed("PublishToKafka");
+                } else {
+                    trace.end(Stage.KAFKA_ACK, start);
+                }
+            });
     }
 
     private void executeFrontendPush(PushToFrontend reaction) {
@@ -48,6 +134,7 @@ public class ReactionExecutor {
                 listener.accept(reaction.notification());
             } catch (Exception e) {
                 log.warn("Failed to push to frontend listener", e);
+                metrics.reactionFailed("PushToFrontend");
             }
         }
     }
@@ -63,6 +150,7 @@ public class ReactionExecutor {
             log.info("API call successful: {}", reaction.url());
         } catch (Exception e) {
             log.error("API call failed: {} - {}", reaction.url(), e.getMessage());
+            metrics.reactionFailed("CallExternalApi");
         }
     }
 
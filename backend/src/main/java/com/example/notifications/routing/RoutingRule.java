@@ -23,4 +23,11 @@ public interface RoutingRule {
     default String getName() {
         return getClass().getSimpleName();
     }
+
+    /**
+     * Headline of a digest that replaces {@code count} of this rule's notifications during a burst.
+     */
+    default String digestSummary(int count) {
+        return count + " " + getName() + " notifications";
+    }
 }
@@ -39,4 +39,9 @@ public class HighValueOrderRule implements RoutingRule {
             new Reaction.LogEvent("INFO", "High-value order processed", event)
         );
     }
+
+    @Override
+    public String digestSummary(int count) {
+        return count + " high-value orders";
+    }
 }
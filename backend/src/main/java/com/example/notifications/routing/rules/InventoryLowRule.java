@@ -44,4 +44,9 @@ public class InventoryLowRule implements RoutingRule {
             new Reaction.LogEvent("WARN", "Low inventory detected", event)
         );
     }
+
+    @Override
+    public String digestSummary(int count) {
+        return count + " products low on stock";
+    }
 }
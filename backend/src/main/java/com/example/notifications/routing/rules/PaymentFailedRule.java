@@ -41,4 +41,9 @@ public class PaymentFailedRule implements RoutingRule {
             new Reaction.LogEvent("ERROR", "Payment failure detected", event)
         );
     }
+
+    @Override
+    public String digestSummary(int count) {
+        return count + " payments failed";
+    }
 }
@@ -0,0 +1,141 @@
+package com.example.notifications.ruleset;
+
+import com.example.notifications.entity.FraudRule;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.PartitionOffset;
+import org.springframework.kafka.annotation.TopicPartition;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Propagates rule changes to every node through a log-compacted Kafka topic.
+ *
+ * Each create, update, toggle or delete made through the API is applied to this node's
+ * {@link RuleSetCache} at once and published to {@code fraud.rules.changelog.topic}, keyed by
+ * rule id: the rule as saved, or a tombstone for a delete. Compaction keeps the latest record
+ * per rule, so the topic always holds the current rule set.
+ *
+ * Every node reads the topic's single partition from the start, without group management, and
+ * applies each poll's records to its cache as one delta. A node therefore rebuilds the current
+ * rules at startup and sees edits from other nodes within one poll. Nodes agree when they
+ * report the same {@link RuleSet#checksum()}.
+ */
+@Component
+public class RuleChangelog {
+
+    public static final String LISTENER_ID = "rules-changelog";
+
+    private static final Logger log = LoggerFactory.getLogger(RuleChangelog.class);
+
+    // Tolerates fields added by newer nodes during a rolling upgrade.
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+        .registerModule(new JavaTimeModule())
+        .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    private final RuleSetCache ruleSetCache;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final boolean enabled;
+    private final String topic;
+    private volatile long appliedOffset = -1;
+
+    public RuleChangelog(
+            RuleSetCache ruleSetCache,
+            KafkaTemplate<String, Object> kafkaTemplate,
+            @Value("${fraud.rules.changelog.enabled:true}") boolean enabled,
+            @Value("${fraud.rules.changelog.topic:fraud-rules-changelog}") String topic,
+            MeterRegistry registry) {
+        this.ruleSetCache = ruleSetCache;
+        this.kafkaTemplate = kafkaTemplate;
+        this.enabled = enabled;
+        this.topic = topic;
+        Gauge.builder("fraud.rules.changelog.offset", this, c -> c.appliedOffset)
+            .description("Offset of the last rule changelog record applied on this node")
+            .register(registry);
+    }
+
+    @Bean
+    NewTopic ruleChangelogTopic() {
+        return TopicBuilder.name(topic).partitions(1).compact().build();
+    }
+
+    /**
+     * Offset of the last changelog record applied, or -1 before the first.
+     */
+    public long appliedOffset() {
+        return appliedOffset;
+    }
+
+    /**
+     * Applies a saved rule locally and publishes it to the other nodes.
+     */
+    public void ruleSaved(FraudRule rule) {
+        ruleSetCache.apply(Map.of(rule.getId(), rule));
+        publish(rule.getId(), rule);
+    }
+
+    /**
+     * Removes a deleted rule locally and publishes a tombstone.
+     */
+    public void ruleDeleted(Long id) {
+        ruleSetCache.apply(Collections.singletonMap(id, null));
+        publish(id, null);
+    }
+
+    @KafkaListener(
+        id = LISTENER_ID,
+        groupId = LISTENER_ID,
+        autoStartup = "${fraud.rules.changelog.enabled:true}",
+        batch = "true",
+        topicPartitions = @TopicPartition(
+            topic = "${fraud.rules.changelog.topic:fraud-rules-changelog}",
+            partitionOffsets = @PartitionOffset(partition = "0", initialOffset = "0")),
+        properties = {
+            "value.deserializer=org.apache.kafka.common.serialization.StringDeserializer",
+            "enable.auto.commit=false"
+        }
+    )
+    public void onChanges(List<ConsumerRecord<String, String>> records) {
+        Map<Long, FraudRule> changes = new LinkedHashMap<>();
+        for (ConsumerRecord<String, String> record : records) {
+            try {
+                Long id = Long.valueOf(record.key());
+                changes.put(id, record.value() == null ? null : MAPPER.readValue(record.value(), FraudRule.class));
+            } catch (Exception e) {
+                log.warn("Skipping unreadable rule changelog record at offset {}: {}", record.offset(), e.getMessage());
+            }
+        }
+        RuleSet rules = ruleSetCache.apply(changes);
+        appliedOffset = records.get(records.size() - 1).offset();
+        log.debug("Applied {} rule changelog record(s) up to offset {}, now v{}",
+            records.size(), appliedOffset, rules.version());
+    }
+
+    private void publish(Long id, FraudRule rule) {
+        if (!enabled) {
+            return;
+        }
+        kafkaTemplate.send(topic, String.valueOf(id), rule).whenComplete((result, e) -> {
+            if (e != null) {
+                log.warn("Failed to publish change of rule {} to {}; other nodes pick it up on their next reload: {}",
+                    id, topic, e.getMessage());
+            }
+        });
+    }
+}
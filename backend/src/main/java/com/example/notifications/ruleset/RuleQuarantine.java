@@ -0,0 +1,112 @@
+package com.example.notifications.ruleset;
+
+import com.example.notifications.regex.RegexBudgetExceeded;
+import com.example.notifications.repository.FraudRuleRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Disables rules whose regex keeps exceeding its step budget.
+ *
+ * Every budget violation already makes the rule evaluate as "no match". A rule that exceeds
+ * the budget {@code fraud.regex.max-violations} times within {@code fraud.regex.violation-window}
+ * is switched off in the database and dropped from the rule set on every node. It stays off until an analyst
+ * fixes the pattern and re-enables it.
+ *
+ * Budget violations are reported on the evaluating thread, in the middle of a decision. Only the
+ * counting happens there; disabling the rule (database write, rule set rebuild, changelog send)
+ * runs on a single background thread, and its failures are logged rather than thrown.
+ */
+@Component
+public class RuleQuarantine {
+
+    private static final Logger log = LoggerFactory.getLogger(RuleQuarantine.class);
+
+    private final FraudRuleRepository ruleRepository;
+    private final RuleChangelog ruleChangelog;
+    private final int maxViolations;
+    private final long windowMillis;
+    private final Counter disabled;
+    private final Map<Long, long[]> violations = new HashMap<>(); // rule id -> {window start, count}
+    private final ExecutorService disabler = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "rule-quarantine");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public RuleQuarantine(
+            FraudRuleRepository ruleRepository,
+            RuleChangelog ruleChangelog,
+            @Value("${fraud.regex.max-violations:3}") int maxViolations,
+            @Value("${fraud.regex.violation-window:10m}") Duration violationWindow,
+            MeterRegistry registry) {
+        this.ruleRepository = ruleRepository;
+        this.ruleChangelog = ruleChangelog;
+        this.maxViolations = maxViolations;
+        this.windowMillis = violationWindow.toMillis();
+        this.disabled = Counter.builder("fraud.regex.rules.disabled")
+            .description("Rules disabled after repeatedly exceeding the regex step budget")
+            .register(registry);
+    }
+
+    @EventListener
+    public void onBudgetExceeded(RegexBudgetExceeded event) {
+        if (event.ruleId() == null || maxViolations <= 0 || !countViolation(event.ruleId())) {
+            return;
+        }
+        try {
+            disabler.execute(() -> disable(event.ruleId()));
+        } catch (RejectedExecutionException e) {
+            log.warn("Not disabling rule {} while shutting down", event.ruleId());
+        }
+    }
+
+    private void disable(Long ruleId) {
+        try {
+            ruleRepository.findById(ruleId).filter(rule -> rule.isEnabled()).ifPresent(rule -> {
+                rule.setEnabled(false);
+                ruleChangelog.ruleSaved(ruleRepository.save(rule));
+                disabled.increment();
+                log.warn("Disabled rule '{}' (id {}) after {} regex budget violations within {} ms",
+                    rule.getName(), rule.getId(), maxViolations, windowMillis);
+            });
+        } catch (RuntimeException e) {
+            log.error("Failed to disable rule {} after repeated regex budget violations", ruleId, e);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        disabler.shutdownNow();
+    }
+
+    /**
+     * Records one violation and reports whether the rule has now reached the limit.
+     */
+    private synchronized boolean countViolation(Long ruleId) {
+        long now = System.currentTimeMillis();
+        long[] entry = violations.computeIfAbsent(ruleId, id -> new long[] {now, 0});
+        if (now - entry[0] > windowMillis) {
+            entry[0] = now;
+            entry[1] = 0;
+        }
+        if (++entry[1] < maxViolations) {
+            return false;
+        }
+        violations.remove(ruleId);
+        return true;
+    }
+}
@@ -0,0 +1,209 @@
+package com.example.notifications.ruleset;
+
+import com.example.notifications.entity.FraudRule;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Immutable snapshot of the enabled rules in priority order, indexed by application type and
+ * source system. Shadow rules are part of the snapshot but are kept apart in each scope, so
+ * they never take part in the decision.
+ *
+ * A rule with no {@code applicationTypes} (or {@code sourceSystems}) applies to every type
+ * (or source). Types and sources no rule mentions all share one entry, so the number of
+ * resolved scopes is bounded by the rule set rather than by the traffic. Each scope is
+ * resolved once, on first use, into the applicable rules and the field paths their velocity
+ * conditions watch; after that, picking an application's rules is two map lookups.
+ *
+ * The {@link #checksum()} depends only on the rules (ids, priorities and update times), so
+ * nodes that run the same rules report the same checksum even when their versions differ.
+ */
+public final class RuleSet {
+
+    /**
+     * Rules applicable to one (type, source) pair, in priority order.
+     *
+     * @param rules          live rules, which decide
+     * @param velocityFields field paths watched by the velocity conditions of live and shadow
+     *                       rules, so shadow rules read the same counts live ones would
+     * @param shadowRules    shadow rules, evaluated after the decision
+     */
+    public record Scope(List<FraudRule> rules, Set<String> velocityFields, List<FraudRule> shadowRules) {
+    }
+
+    private static final String OTHER = "";
+
+    /**
+     * Evaluation order: priority, then id, so every node orders equal priorities the same way.
+     */
+    public static final Comparator<FraudRule> ORDER =
+        Comparator.comparingInt(FraudRule::getPriority).thenComparing(FraudRule::getId, Comparator.nullsLast(Long::compare));
+
+    private final long version;
+    private final long checksum;
+    private final Instant loadedAt;
+    private final List<FraudRule> rules;
+    private final List<Set<String>> typeScopes;
+    private final List<Set<String>> sourceScopes;
+    private final Set<String> knownTypes = new HashSet<>();
+    private final Set<String> knownSources = new HashSet<>();
+    private final Function<FraudRule, Collection<String>> velocityFields;
+    private final Map<String, Map<String, Scope>> scopes = new ConcurrentHashMap<>();
+
+    /**
+     * @param rules          enabled rules in priority order
+     * @param velocityFields field paths watched by a rule's velocity conditions
+     */
+    public RuleSet(long version, List<FraudRule> rules, Function<FraudRule, Collection<String>> velocityFields) {
+        this.version = version;
+        this.checksum = checksum(rules);
+        this.loadedAt = Instant.now();
+        this.rules = List.copyOf(rules);
+        this.velocityFields = velocityFields;
+        this.typeScopes = new ArrayList<>(rules.size());
+        this.sourceScopes = new ArrayList<>(rules.size());
+        for (FraudRule rule : this.rules) {
+            Set<String> types = parseScope(rule.getApplicationTypes());
+            Set<String> sources = parseScope(rule.getSourceSystems());
+            typeScopes.add(types);
+            sourceScopes.add(sources);
+            if (types != null) {
+                knownTypes.addAll(types);
+            }
+            if (sources != null) {
+                knownSources.addAll(sources);
+            }
+        }
+    }
+
+    /**
+     * Parses a comma-separated scope column into its normalized values, or null for "any".
+     */
+    public static Set<String> parseScope(String values) {
+        if (values == null || values.isBlank()) {
+            return null;
+        }
+        Set<String> scope = Arrays.stream(values.split(","))
+            .map(RuleSet::normalize)
+            .filter(v -> !v.isEmpty())
+            .collect(Collectors.toCollection(LinkedHashSet::new));
+        return scope.isEmpty() ? null : scope;
+    }
+
+    /**
+     * Checksum of rules in evaluation order: a non-negative 48-bit value, so it is exact when
+     * exported as a gauge. Update times count to the millisecond, which every store keeps.
+     */
+    public static long checksum(List<FraudRule> rules) {
+        long h = 1125899906842597L;
+        for (FraudRule rule : rules) {
+            h = 31 * h + (rule.getId() == null ? 0 : rule.getId());
+            h = 31 * h + rule.getPriority();
+            h = 31 * h + (rule.getUpdatedAt() == null ? 0 : rule.getUpdatedAt().toEpochMilli());
+        }
+        h ^= h >>> 29;
+        h *= 0xBF58476D1CE4E5B9L;
+        h ^= h >>> 32;
+        return h & 0xFFFF_FFFF_FFFFL;
+    }
+
+    /**
+     * Canonical form of a scope column: normalized values joined by commas, or null for "any".
+     */
+    public static String formatScope(String values) {
+        Set<String> scope = parseScope(values);
+        return scope == null ? null : String.join(",", scope);
+    }
+
+    public Scope forApplication(String type, String sourceSystem) {
+        String typeKey = key(type, knownTypes);
+        String sourceKey = key(sourceSystem, knownSources);
+        return scopes.computeIfAbsent(typeKey, t -> new ConcurrentHashMap<>())
+            .computeIfAbsent(sourceKey, s -> resolve(typeKey, sourceKey));
+    }
+
+    public long version() {
+        return version;
+    }
+
+    public long checksum() {
+        return checksum;
+    }
+
+    public Instant loadedAt() {
+        return loadedAt;
+    }
+
+    /**
+     * All enabled rules, live and shadow, in priority order.
+     */
+    public List<FraudRule> rules() {
+        return rules;
+    }
+
+    public int size() {
+        return rules.size();
+    }
+
+    public long shadowCount() {
+        return rules.stream().filter(FraudRule::isShadow).count();
+    }
+
+    /**
+     * Rules that apply to every type and source.
+     */
+    public long globalCount() {
+        long count = 0;
+        for (int i = 0; i < rules.size(); i++) {
+            if (typeScopes.get(i) == null && sourceScopes.get(i) == null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Number of (type, source) scopes resolved so far.
+     */
+    public int resolvedScopes() {
+        return scopes.values().stream().mapToInt(Map::size).sum();
+    }
+
+    private Scope resolve(String type, String source) {
+        List<FraudRule> applicable = new ArrayList<>();
+        List<FraudRule> shadow = new ArrayList<>();
+        Set<String> watched = new LinkedHashSet<>();
+        for (int i = 0; i < rules.size(); i++) {
+            Set<String> types = typeScopes.get(i);
+            Set<String> sources = sourceScopes.get(i);
+            if ((types == null || types.contains(type)) && (sources == null || sources.contains(source))) {
+                FraudRule rule = rules.get(i);
+                (rule.isShadow() ? shadow : applicable).add(rule);
+                watched.addAll(velocityFields.apply(rule));
+            }
+        }
+        return new Scope(List.copyOf(applicable), Set.copyOf(watched), List.copyOf(shadow));
+    }
+
+    private static String key(String value, Set<String> known) {
+        String normalized = normalize(value);
+        return known.contains(normalized) ? normalized : OTHER;
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+}
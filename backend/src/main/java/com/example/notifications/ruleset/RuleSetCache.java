@@ -0,0 +1,192 @@
+package com.example.notifications.ruleset;
+
+import com.example.notifications.entity.FraudRule;
+import com.example.notifications.repository.FraudRuleRepository;
+import com.example.notifications.service.RuleEvaluator;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Holds the current {@link RuleSet}, so processing an application does not query the
+ * database.
+ *
+ * At startup the last {@link RuleSnapshotFile} is loaded before the database is queried, so
+ * a node can decide as soon as its consumers start. Without a snapshot the rules are loaded
+ * from the database on first use. After that the snapshot follows rule changes as deltas:
+ * those made on this node right away, and those made on other nodes as they arrive through
+ * the {@link RuleChangelog}. The rules are also re-read once the application is ready and every
+ * {@code fraud.rules.refresh-interval-ms} to pick up changes made outside the API. A change
+ * that leaves the same rules (by {@link RuleSet#checksum()}) keeps the current snapshot and
+ * its resolved scopes; every other change is written to the snapshot file.
+ *
+ * When a reload fails the current rules keep serving, and {@link RuleSetHealthIndicator}
+ * reports the rule set as degraded until a reload succeeds.
+ */
+@Component
+public class RuleSetCache {
+
+    private static final Logger log = LoggerFactory.getLogger(RuleSetCache.class);
+
+    private final FraudRuleRepository ruleRepository;
+    private final RuleEvaluator ruleEvaluator;
+    private final RuleSnapshotFile snapshotFile;
+    private final Map<Long, FraudRule> enabledRules = new HashMap<>();
+    private volatile RuleSet current;
+    private volatile Instant reloadedAt;
+    private volatile Instant reloadFailingSince;
+    private volatile String reloadError;
+
+    public RuleSetCache(FraudRuleRepository ruleRepository, RuleEvaluator ruleEvaluator,
+                        RuleSnapshotFile snapshotFile, MeterRegistry registry) {
+        this.ruleRepository = ruleRepository;
+        this.ruleEvaluator = ruleEvaluator;
+        this.snapshotFile = snapshotFile;
+        Gauge.builder("fraud.rules.enabled", this, c -> c.current == null ? 0 : c.current.size())
+            .description("Enabled rules in the cached rule set")
+            .register(registry);
+        Gauge.builder("fraud.rules.version", this, c -> c.current == null ? 0 : c.current.version())
+            .description("Version of the cached rule set, incremented whenever its rules change")
+            .register(registry);
+        Gauge.builder("fraud.rules.checksum", this, c -> c.current == null ? 0 : c.current.checksum())
+            .description("Checksum of the cached rules; equal on nodes that run the same rules")
+            .register(registry);
+        loadSnapshot();
+    }
+
+    public RuleSet current() {
+        RuleSet rules = current;
+        return rules != null ? rules : refresh();
+    }
+
+    /**
+     * The current rule set without loading it, or null before the first load.
+     */
+    public RuleSet loaded() {
+        return current;
+    }
+
+    /**
+     * Last successful database reload, or null if there was none yet.
+     */
+    public Instant reloadedAt() {
+        return reloadedAt;
+    }
+
+    /**
+     * Start of the current run of failed reloads, or null while reloads succeed.
+     */
+    public Instant reloadFailingSince() {
+        return reloadFailingSince;
+    }
+
+    public String reloadError() {
+        return reloadError;
+    }
+
+    /**
+     * Reloads the enabled rules and swaps in a new snapshot if they changed.
+     */
+    public synchronized RuleSet refresh() {
+        List<FraudRule> rules;
+        try {
+            rules = ruleRepository.findByEnabledTrueOrderByPriorityAsc();
+        } catch (RuntimeException e) {
+            if (reloadFailingSince == null) {
+                reloadFailingSince = Instant.now();
+            }
+            reloadError = e.getMessage();
+            throw e;
+        }
+        reloadedAt = Instant.now();
+        reloadFailingSince = null;
+        reloadError = null;
+        enabledRules.clear();
+        for (FraudRule rule : rules) {
+            enabledRules.put(rule.getId(), rule);
+        }
+        return rebuild("reload");
+    }
+
+    /**
+     * Applies rule changes by id. A null or disabled rule removes the id; a change older than
+     * the rule already held (by update time) is ignored, so a late replay cannot undo a newer
+     * edit.
+     */
+    public synchronized RuleSet apply(Map<Long, FraudRule> changes) {
+        if (current == null) {
+            try {
+                refresh();
+            } catch (RuntimeException e) {
+                log.warn("Rule reload failed, building the rule set from changes only: {}", e.getMessage());
+            }
+        }
+        for (Map.Entry<Long, FraudRule> change : changes.entrySet()) {
+            FraudRule rule = change.getValue();
+            FraudRule held = enabledRules.get(change.getKey());
+            if (rule != null && held != null && olderThan(rule, held)) {
+                continue;
+            }
+            if (rule == null || !rule.isEnabled()) {
+                enabledRules.remove(change.getKey());
+            } else {
+                enabledRules.put(change.getKey(), rule);
+            }
+        }
+        return rebuild(changes.size() + " change(s)");
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${fraud.rules.refresh-interval-ms:5000}",
+               initialDelayString = "${fraud.rules.refresh-interval-ms:5000}")
+    public void scheduledRefresh() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            log.warn("Rule set refresh failed, keeping v{}: {}",
+                current == null ? 0 : current.version(), e.getMessage());
+        }
+    }
+
+    private synchronized void loadSnapshot() {
+        RuleSnapshotFile.Snapshot snapshot = snapshotFile.load();
+        if (snapshot == null) {
+            return;
+        }
+        for (FraudRule rule : snapshot.rules()) {
+            enabledRules.put(rule.getId(), rule);
+        }
+        current = new RuleSet(1, enabledRules.values().stream().sorted(RuleSet.ORDER).toList(),
+            ruleEvaluator::velocityFields);
+        log.info("Loaded rule set v1 from snapshot {} written at {}: {} enabled rules, checksum {}",
+            snapshotFile.file(), snapshot.writtenAt(), current.size(), Long.toHexString(current.checksum()));
+    }
+
+    private RuleSet rebuild(String cause) {
+        List<FraudRule> rules = enabledRules.values().stream().sorted(RuleSet.ORDER).toList();
+        if (current == null || RuleSet.checksum(rules) != current.checksum()) {
+            long version = current == null ? 1 : current.version() + 1;
+            current = new RuleSet(version, rules, ruleEvaluator::velocityFields);
+            ruleEvaluator.retainRules(rules);
+            log.info("Loaded rule set v{} ({}): {} enabled rules, {} global, checksum {}",
+                version, cause, rules.size(), current.globalCount(), Long.toHexString(current.checksum()));
+            snapshotFile.save(current);
+        }
+        return current;
+    }
+
+    private static boolean olderThan(FraudRule rule, FraudRule held) {
+        return rule.getUpdatedAt() != null && held.getUpdatedAt() != null
+            && rule.getUpdatedAt().toEpochMilli() < held.getUpdatedAt().toEpochMilli();
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.notifications.ruleset;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports the rule set under {@code ruleSet} in {@code /actuator/health}.
+ *
+ * DEGRADED means the database reload is failing and decisions use the last good rules. The
+ * status is outside the default aggregation order, so it does not change the overall status
+ * and readiness checks keep routing traffic to the node.
+ */
+@Component
+public class RuleSetHealthIndicator implements HealthIndicator {
+
+    static final Status DEGRADED = new Status("DEGRADED", "Rule reload failing; serving the last good rule set");
+
+    private final RuleSetCache ruleSetCache;
+
+    public RuleSetHealthIndicator(RuleSetCache ruleSetCache) {
+        this.ruleSetCache = ruleSetCache;
+    }
+
+    @Override
+    public Health health() {
+        RuleSet rules = ruleSetCache.loaded();
+        if (rules == null) {
+            return Health.unknown().withDetail("reason", "Rule set not loaded yet").build();
+        }
+        Health.Builder health = ruleSetCache.reloadFailingSince() == null ? Health.up() : Health.status(DEGRADED);
+        health.withDetail("version", rules.version())
+            .withDetail("checksum", Long.toHexString(rules.checksum()))
+            .withDetail("enabledRules", rules.size())
+            .withDetail("loadedAt", rules.loadedAt().toString())
+            .withDetail("reloadedAt", String.valueOf(ruleSetCache.reloadedAt()));
+        if (ruleSetCache.reloadFailingSince() != null) {
+            health.withDetail("reloadFailingSince", ruleSetCache.reloadFailingSince().toString())
+                .withDetail("reloadError", String.valueOf(ruleSetCache.reloadError()));
+        }
+        return health.build();
+    }
+}
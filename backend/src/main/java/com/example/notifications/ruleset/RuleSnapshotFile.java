@@ -0,0 +1,181 @@
+package com.example.notifications.ruleset;
+
+import com.example.notifications.entity.FraudRule;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Local copy of the last enabled rule set, so a node can decide without the database.
+ *
+ * Written whenever {@link RuleSetCache} swaps in a new rule set: to a temporary file that is
+ * then moved over the old one, so a crash mid-write leaves the previous snapshot intact. Read
+ * once at startup through a read-only mapping. A file whose CRC or rule set checksum does not
+ * match is ignored.
+ *
+ * Layout, big-endian: a 48-byte header (magic, version, rule set checksum, written-at millis,
+ * rule count, payload length, payload CRC32), then the payload, the rules as gzipped JSON.
+ */
+@Component
+public class RuleSnapshotFile {
+
+    private static final Logger log = LoggerFactory.getLogger(RuleSnapshotFile.class);
+
+    private static final long MAGIC = 0x4652524c53455431L; // "FRRLSET1"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 48;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+        .registerModule(new JavaTimeModule())
+        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+        .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    /**
+     * Rules read back from a snapshot, with the checksum and time they were written.
+     */
+    public record Snapshot(List<FraudRule> rules, long checksum, Instant writtenAt) {
+    }
+
+    private final Path file;
+    private final boolean enabled;
+
+    public RuleSnapshotFile(
+            @Value("${fraud.rules.snapshot.file:./data/rules/snapshot.dat}") Path file,
+            @Value("${fraud.rules.snapshot.enabled:true}") boolean enabled) {
+        this.file = file;
+        this.enabled = enabled;
+    }
+
+    public Path file() {
+        return file;
+    }
+
+    /**
+     * The last snapshot written, or null if there is none or it fails verification.
+     */
+    public Snapshot load() {
+        if (!enabled || !Files.exists(file)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES) {
+                throw new IOException("truncated header");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getLong(0) != MAGIC || buffer.getInt(8) != VERSION) {
+                throw new IOException("not a version " + VERSION + " rule snapshot");
+            }
+            long checksum = buffer.getLong(12);
+            long writtenAt = buffer.getLong(20);
+            int count = buffer.getInt(28);
+            int length = buffer.getInt(32);
+            long crc = buffer.getLong(36);
+            if (length < 0 || HEADER_BYTES + (long) length != channel.size()) {
+                throw new IOException("truncated payload");
+            }
+            ByteBuffer payload = buffer.slice(HEADER_BYTES, length);
+            CRC32 actual = new CRC32();
+            actual.update(payload.duplicate());
+            if (actual.getValue() != crc) {
+                throw new IOException("payload CRC mismatch");
+            }
+            List<FraudRule> rules;
+            try (InputStream in = new GZIPInputStream(new ByteBufferInputStream(payload))) {
+                rules = MAPPER.readValue(in, new TypeReference<List<FraudRule>>() { });
+            }
+            if (rules.size() != count || RuleSet.checksum(rules) != checksum) {
+                throw new IOException("rule set checksum mismatch");
+            }
+            return new Snapshot(rules, checksum, Instant.ofEpochMilli(writtenAt));
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring rule snapshot {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Replaces the snapshot with {@code rules}. Failures are logged; the previous file stays.
+     */
+    public void save(RuleSet rules) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+                MAPPER.writeValue(out, rules.rules());
+            }
+            byte[] payload = bytes.toByteArray();
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putLong(MAGIC).putInt(VERSION).putLong(rules.checksum()).putLong(System.currentTimeMillis())
+                .putInt(rules.size()).putInt(payload.length).putLong(crc.getValue());
+            header.rewind();
+
+            Path dir = file.toAbsolutePath().getParent();
+            Files.createDirectories(dir);
+            Path tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+            try {
+                try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                    channel.write(new ByteBuffer[] {header, ByteBuffer.wrap(payload)});
+                    channel.force(true);
+                }
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+            log.debug("Wrote rule snapshot v{} to {} ({} rules, {} bytes)",
+                rules.version(), file, rules.size(), HEADER_BYTES + payload.length);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to write rule snapshot {}: {}", file, e.getMessage());
+        }
+    }
+
+    private static final class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.notifications.ruleset;
+
+import com.example.notifications.condition.ConditionParser;
+import com.example.notifications.entity.FraudRule;
+import com.example.notifications.entity.RuleAction;
+import com.example.notifications.entity.RuleOperator;
+import com.example.notifications.lists.NamedListRegistry;
+import com.example.notifications.regex.RegexEngine;
+import com.example.notifications.service.RiskScoring;
+import com.example.notifications.velocity.VelocityStore;
+import org.springframework.stereotype.Component;
+
+/**
+ * Checks a rule before it is saved or backtested, and normalizes its scope columns.
+ */
+@Component
+public class RuleValidator {
+
+    private final NamedListRegistry namedLists;
+    private final VelocityStore velocityStore;
+    private final RegexEngine regexEngine;
+
+    public RuleValidator(NamedListRegistry namedLists, VelocityStore velocityStore, RegexEngine regexEngine) {
+        this.namedLists = namedLists;
+        this.velocityStore = velocityStore;
+        this.regexEngine = regexEngine;
+    }
+
+    /**
+     * @throws IllegalArgumentException with a message for the rule's author
+     */
+    public void validate(FraudRule rule) {
+        rule.setApplicationTypes(RuleSet.formatScope(rule.getApplicationTypes()));
+        rule.setSourceSystems(RuleSet.formatScope(rule.getSourceSystems()));
+        if (rule.getActionType() == null) {
+            throw new IllegalArgumentException("A rule needs an actionType");
+        }
+        if (rule.getActionType() == RuleAction.ENRICH) {
+            RiskScoring.parseWeight(rule.getActionConfig());
+        }
+        if (rule.getConditionTree() != null) {
+            ConditionParser.forEachPredicate(ConditionParser.parse(rule.getConditionTree()),
+                p -> validatePredicate(p.field(), p.operator(), p.value(), p.windowSeconds()));
+            return;
+        }
+        if (rule.getFieldPath() == null || rule.getFieldPath().isBlank() || rule.getOperator() == null) {
+            throw new IllegalArgumentException("A rule needs either a conditionTree or a fieldPath and operator");
+        }
+        if (rule.getValue() == null) {
+            rule.setValue("");
+        }
+        validatePredicate(rule.getFieldPath(), rule.getOperator(), rule.getValue(), rule.getWindowSeconds());
+    }
+
+    private void validatePredicate(String fieldPath, RuleOperator operator, String value, Integer windowSeconds) {
+        switch (operator) {
+            case IN_NAMED_LIST, NOT_IN_NAMED_LIST -> {
+                if (namedLists.get(value).isEmpty()) {
+                    throw new IllegalArgumentException("Unknown list '" + value + "'; upload it to /api/lists first");
+                }
+            }
+            case VELOCITY_EXCEEDS -> {
+                long maxWindow = velocityStore.maxWindow().toSeconds();
+                if (windowSeconds == null || windowSeconds <= 0 || windowSeconds > maxWindow) {
+                    throw new IllegalArgumentException(
+                        "Velocity condition on '" + fieldPath + "' needs windowSeconds between 1 and " + maxWindow);
+                }
+                try {
+                    Long.parseLong(value.trim());
+                } catch (RuntimeException e) {
+                    throw new IllegalArgumentException(
+                        "Velocity condition on '" + fieldPath + "' needs a whole number of occurrences as value");
+                }
+            }
+            case GREATER_THAN, LESS_THAN, GREATER_THAN_OR_EQUALS, LESS_THAN_OR_EQUALS -> {
+                try {
+                    Double.parseDouble(value);
+                } catch (RuntimeException e) {
+                    throw new IllegalArgumentException(
+                        "Comparison on '" + fieldPath + "' needs a numeric value, got '" + value + "'");
+                }
+            }
+            case REGEX -> {
+                try {
+                    regexEngine.validate(value);
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Rejected regex on '" + fieldPath + "': " + e.getMessage());
+                }
+            }
+            default -> {
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.notifications.ruleset;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+
+/**
+ * Lets a node start while the database is down, so it can decide from its
+ * {@link RuleSnapshotFile}.
+ *
+ * Hibernate tolerates an unreachable database at boot as long as the dialect is configured,
+ * except for the schema update of {@code spring.jpa.hibernate.ddl-auto}, which fails startup.
+ * When the snapshot is enabled and no connection can be opened, the schema update is skipped
+ * for this run. The schema was created by an earlier start, which is also what wrote the
+ * snapshot; entity changes made since are applied on the next start with the database up.
+ */
+@Component
+public class StartupSchemaGuard implements HibernatePropertiesCustomizer {
+
+    private static final Logger log = LoggerFactory.getLogger(StartupSchemaGuard.class);
+
+    private final DataSource dataSource;
+    private final boolean snapshotEnabled;
+
+    public StartupSchemaGuard(
+            DataSource dataSource,
+            @Value("${fraud.rules.snapshot.enabled:true}") boolean snapshotEnabled) {
+        this.dataSource = dataSource;
+        this.snapshotEnabled = snapshotEnabled;
+    }
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        Object action = hibernateProperties.get(AvailableSettings.HBM2DDL_AUTO);
+        if (!snapshotEnabled || action == null || "none".equals(action.toString())) {
+            return;
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            // Reachable: the schema update runs as configured.
+        } catch (SQLException | RuntimeException e) {
+            log.warn("Database unreachable at startup, skipping schema update '{}' and starting from the rule snapshot: {}",
+                action, e.getMessage());
+            hibernateProperties.put(AvailableSettings.HBM2DDL_AUTO, "none");
+        }
+    }
+}
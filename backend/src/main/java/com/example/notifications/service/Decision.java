@@ -0,0 +1,34 @@
+package com.example.notifications.service;
+
+import com.example.notifications.entity.FraudRule;
+import com.example.notifications.entity.RuleAction;
+
+import java.util.List;
+
+/**
+ * Outcome of evaluating one application, before anything is routed or audited.
+ *
+ * @param matchedRules   every rule that matched, in priority order
+ * @param actionRules    the matched rules other than ENRICH, whose actions are executed
+ * @param skippedRules   rules the evaluation strategy did not evaluate
+ * @param rulesEvaluated number of rules evaluated
+ * @param score          risk score from the matched ENRICH rules
+ * @param finalAction    action recorded in the audit log, or null for a clean application
+ * @param actionDetails  config of the deciding rule, or the score summary
+ */
+public record Decision(
+    List<FraudRule> matchedRules,
+    List<FraudRule> actionRules,
+    List<FraudRule> skippedRules,
+    int rulesEvaluated,
+    RiskScoring.Score score,
+    RuleAction finalAction,
+    String actionDetails
+) {
+    /**
+     * The final action's name, or CLEAN.
+     */
+    public String outcome() {
+        return finalAction != null ? finalAction.name() : "CLEAN";
+    }
+}
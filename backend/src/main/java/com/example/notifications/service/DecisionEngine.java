@@ -0,0 +1,126 @@
+package com.example.notifications.service;
+
+import com.example.notifications.entity.FraudRule;
+import com.example.notifications.entity.RuleAction;
+import com.example.notifications.model.Application;
+import com.example.notifications.ruleset.RuleSet;
+import com.example.notifications.velocity.VelocityStore;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Evaluates an application against the rules of its scope and decides the outcome.
+ *
+ * The engine only counts the application in its own {@link VelocityStore}, the one its
+ * {@link RuleEvaluator} reads. Routing, reactions and the audit log are left to the caller.
+ * {@link FraudDetectionService} runs the live engine. Engines built on a separate evaluator and
+ * velocity store run the same code without touching live state.
+ */
+public class DecisionEngine {
+
+    private final RuleEvaluator ruleEvaluator;
+    private final VelocityStore velocityStore;
+    private final ParallelRuleEvaluator parallelEvaluator;
+    private final EvaluationStrategy strategy;
+    private final RiskScoring riskScoring;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * @param parallelEvaluator shards large rule sets, or null to always evaluate sequentially
+     */
+    public DecisionEngine(RuleEvaluator ruleEvaluator, VelocityStore velocityStore,
+                          ParallelRuleEvaluator parallelEvaluator, EvaluationStrategy strategy,
+                          RiskScoring riskScoring) {
+        this.ruleEvaluator = ruleEvaluator;
+        this.velocityStore = velocityStore;
+        this.parallelEvaluator = parallelEvaluator;
+        this.strategy = strategy;
+        this.riskScoring = riskScoring;
+    }
+
+    public EvaluationStrategy strategy() {
+        return strategy;
+    }
+
+    public Decision decide(Application application, RuleSet.Scope scope) {
+        List<FraudRule> rules = scope.rules();
+        List<FraudRule> matchedRules = new ArrayList<>();
+
+        // Evaluate rules in priority order until the strategy says the outcome is decided, or the
+        // risk score from ENRICH rules reaches the block threshold.
+        // Velocity is recorded for all applicable rules first, so counts do not depend on the strategy.
+        recordVelocity(application, scope.velocityFields());
+        RiskScoring.Score score = riskScoring.newScore();
+        List<FraudRule> actionRules = new ArrayList<>();
+        // Large rule sets may be evaluated in parallel shards first; the loop below then only
+        // reads the results, so both modes stop at the same rule.
+        boolean[] shardMatches = parallelEvaluator != null && parallelEvaluator.shouldParallelize(rules.size())
+            ? parallelEvaluator.evaluate(rules, application, strategy::stopsAfter)
+            : null;
+        int evaluated = 0;
+        for (FraudRule rule : rules) {
+            boolean matched = shardMatches != null ? shardMatches[evaluated] : ruleEvaluator.evaluate(rule, application);
+            evaluated++;
+            if (matched) {
+                matchedRules.add(rule);
+                if (rule.getActionType() == RuleAction.ENRICH) {
+                    score.add(rule);
+                } else {
+                    actionRules.add(rule);
+                }
+                if (score.blocks() || strategy.stopsAfter(rule)) {
+                    break;
+                }
+            }
+        }
+        List<FraudRule> skippedRules = rules.subList(evaluated, rules.size());
+
+        // Final action: a blocking score wins, then the highest-priority matched rule, then a
+        // flagging score. ENRICH rules only contribute to the score.
+        RuleAction finalAction = null;
+        String actionDetails = null;
+        RuleAction scoreDecision = score.decision();
+        if (scoreDecision == RuleAction.BLOCK) {
+            finalAction = RuleAction.BLOCK;
+            actionDetails = scoreDetails(score);
+        } else if (!actionRules.isEmpty()) {
+            FraudRule primaryRule = actionRules.get(0); // Highest priority (lowest number)
+            finalAction = primaryRule.getActionType();
+            actionDetails = primaryRule.getActionConfig();
+        } else if (scoreDecision == RuleAction.FLAG) {
+            finalAction = RuleAction.FLAG;
+            actionDetails = scoreDetails(score);
+        }
+        return new Decision(matchedRules, actionRules, skippedRules, evaluated, score, finalAction, actionDetails);
+    }
+
+    /**
+     * Counts this application once for every field path that an applicable velocity rule
+     * watches, before the rules read the windows.
+     */
+    private void recordVelocity(Application application, Set<String> fieldPaths) {
+        if (fieldPaths.isEmpty()) {
+            return;
+        }
+        long now = application.receivedAt().toEpochMilli();
+        for (String fieldPath : fieldPaths) {
+            Object value = application.getFieldValue(fieldPath);
+            if (value != null) {
+                velocityStore.record(VelocityStore.key(fieldPath, value), now);
+            }
+        }
+    }
+
+    private String scoreDetails(RiskScoring.Score score) {
+        try {
+            return objectMapper.writeValueAsString(Map.of("reason", score.reason(), "riskScore", score.total()));
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.notifications.service;
+
+import com.example.notifications.entity.FraudRule;
+import com.example.notifications.entity.RuleAction;
+
+/**
+ * How far {@link FraudDetectionService} evaluates the priority-ordered rule set for one
+ * application. Configured with {@code fraud.evaluation.strategy}.
+ */
+public enum EvaluationStrategy {
+
+    /**
+     * Evaluate every enabled rule, so the audit log lists every rule that matched. Only a
+     * risk score reaching the block threshold ends evaluation early.
+     */
+    ALL,
+
+    /**
+     * Stop at the first match with its own action. Its action is the final action;
+     * lower-priority rules are neither evaluated nor executed. ENRICH matches only add to the
+     * risk score, so evaluation continues past them.
+     */
+    FIRST_MATCH,
+
+    /**
+     * Stop at the first matching BLOCK rule. Actions after a BLOCK are never executed, so the
+     * outcome is the same as {@link #ALL}; only the audit log lists fewer matches.
+     */
+    STOP_ON_BLOCK;
+
+    /**
+     * Whether evaluation can stop after {@code matched}, because no later rule can change
+     * the outcome.
+     */
+    public boolean stopsAfter(FraudRule matched) {
+        return switch (this) {
+            case ALL -> false;
+            case FIRST_MATCH -> matched.getActionType() != RuleAction.ENRICH;
+            case STOP_ON_BLOCK -> matched.getActionType() == RuleAction.BLOCK;
+        };
+    }
+}
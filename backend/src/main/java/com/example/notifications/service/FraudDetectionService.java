@@ -1,24 +1,34 @@
 package com.example.notifications.service;
 
 import com.example.notifications.Notification;
+import com.example.notifications.diagnostics.AuditFlushEvent;
+import com.example.notifications.diagnostics.Stage;
+import com.example.notifications.diagnostics.StageTrace;
 import com.example.notifications.entity.AuditLog;
 import com.example.notifications.entity.FraudRule;
 import com.example.notifications.entity.RuleAction;
+import com.example.notifications.metrics.PipelineMetrics;
 import com.example.notifications.model.Application;
 import com.example.notifications.repository.AuditLogRepository;
-import com.example.notifications.repository.FraudRuleRepository;
 import com.example.notifications.routing.ReactionExecutor;
+import com.example.notifications.ruleset.RuleSet;
+import com.example.notifications.ruleset.RuleSetCache;
+import com.example.notifications.shadow.ShadowEvaluator;
+import com.example.notifications.velocity.VelocityStore;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 @Service
@@ -26,131 +36,183 @@ public class FraudDetectionService {
 
     private static final Logger log = LoggerFactory.getLogger(FraudDetectionService.class);
 
-    private final FraudRuleRepository ruleRepository;
+    private final RuleSetCache ruleSetCache;
     private final AuditLogRepository auditLogRepository;
-    private final RuleEvaluator ruleEvaluator;
     private final KafkaTemplate<String, Object> kafkaTemplate;
     private final ReactionExecutor reactionExecutor;
+    private final PipelineMetrics metrics;
+    private final DecisionEngine decisionEngine;
+    private final ShadowEvaluator shadowEvaluator;
     private final ObjectMapper objectMapper;
 
     public FraudDetectionService(
-            FraudRuleRepository ruleRepository,
+            RuleSetCache ruleSetCache,
             AuditLogRepository auditLogRepository,
             RuleEvaluator ruleEvaluator,
             KafkaTemplate<String, Object> kafkaTemplate,
-            ReactionExecutor reactionExecutor) {
-        this.ruleRepository = ruleRepository;
+            ReactionExecutor reactionExecutor,
+            PipelineMetrics metrics,
+            VelocityStore velocityStore,
+            @Value("${fraud.evaluation.strategy:ALL}") EvaluationStrategy evaluationStrategy,
+            RiskScoring riskScoring,
+            ParallelRuleEvaluator parallelEvaluator,
+            ShadowEvaluator shadowEvaluator) {
+        this.ruleSetCache = ruleSetCache;
         this.auditLogRepository = auditLogRepository;
-        this.ruleEvaluator = ruleEvaluator;
         this.kafkaTemplate = kafkaTemplate;
         this.reactionExecutor = reactionExecutor;
+        this.metrics = metrics;
+        this.decisionEngine = new DecisionEngine(ruleEvaluator, velocityStore, parallelEvaluator, evaluationStrategy,
+            riskScoring);
+        this.shadowEvaluator = shadowEvaluator;
+        log.info("Rule evaluation strategy: {}", evaluationStrategy);
         this.objectMapper = new ObjectMapper();
     }
 
     public void processApplication(Application application) {
+        processApplication(application, StageTrace.NOOP);
+    }
+
+    public void processApplication(Application application, StageTrace trace) {
+        Timer.Sample sample = metrics.start();
         log.info("Processing application: {} (type: {}, source: {})",
             application.id(), application.type(), application.sourceSystem());
 
-        List<FraudRule> enabledRules = ruleRepository.findByEnabledTrueOrderByPriorityAsc();
-        List<FraudRule> matchedRules = new ArrayList<>();
+        long stage = trace.begin();
+        RuleSet.Scope scope = ruleSetCache.current().forApplication(application.type(), application.sourceSystem());
+        trace.end(Stage.RULE_FETCH, stage);
 
-        // Evaluate all rules
-        for (FraudRule rule : enabledRules) {
-            if (ruleEvaluator.evaluate(rule, application)) {
-                log.info("Rule '{}' matched for application {}", rule.getName(), application.id());
-                matchedRules.add(rule);
-            }
+        stage = trace.begin();
+        Decision decision = decisionEngine.decide(application, scope);
+        for (FraudRule rule : decision.matchedRules()) {
+            log.info("Rule '{}' matched for application {}", rule.getName(), application.id());
         }
+        RiskScoring.Score score = decision.score();
+        metrics.rulesSkipped(decision.skippedRules().size());
+        if (score.scored()) {
+            metrics.recordRiskScore(score.total());
+        }
+        trace.end(Stage.EVALUATION, stage);
 
-        // Determine final action (highest priority matched rule wins)
-        RuleAction finalAction = null;
-        String actionDetails = null;
-
-        if (!matchedRules.isEmpty()) {
-            FraudRule primaryRule = matchedRules.get(0); // Highest priority (lowest number)
-            finalAction = primaryRule.getActionType();
-            actionDetails = primaryRule.getActionConfig();
-
+        RuleAction scoreDecision = score.decision();
+        if (scoreDecision == RuleAction.BLOCK) {
+            block(application, score.reason(), "risk-score", score, trace);
+        } else if (decision.finalAction() != null) {
             // Execute actions for all matched rules
-            executeActions(application, matchedRules);
+            boolean flaggedOrBlocked = executeActions(application, decision.actionRules(), score, trace);
+            if (scoreDecision == RuleAction.FLAG && !flaggedOrBlocked) {
+                flag(application, score.reason(), "MEDIUM", "risk-score", score, trace);
+            }
         } else {
-            // No rules matched - application is clean
+            // No rules matched and the score stayed below the thresholds - application is clean
             log.info("Application {} passed all rules, routing to clean-apps", application.id());
-            routeToTopic("clean-apps", application);
+            routeToTopic("clean-apps", application, Map.of(), score, trace);
         }
 
         // Create audit log
-        createAuditLog(application, enabledRules.size(), matchedRules, finalAction, actionDetails);
+        stage = trace.begin();
+        createAuditLog(application, decision);
+        trace.end(Stage.AUDIT_INSERT, stage);
+        metrics.recordApplication(sample, decision.outcome());
+
+        // Shadow rules run on their own executor once the decision is made, and are shed if it falls behind
+        shadowEvaluator.submit(application, scope, decision);
     }
 
-    private void executeActions(Application application, List<FraudRule> matchedRules) {
-        boolean blocked = false;
+    /**
+     * Executes the actions of the matched non-ENRICH rules in priority order, stopping after
+     * a BLOCK.
+     *
+     * @return whether any of them flagged or blocked the application
+     */
+    private boolean executeActions(Application application, List<FraudRule> matchedRules,
+                                   RiskScoring.Score score, StageTrace trace) {
+        boolean flaggedOrBlocked = false;
 
         for (FraudRule rule : matchedRules) {
-            if (blocked) break;
-
             switch (rule.getActionType()) {
                 case FLAG -> {
                     String reason = extractConfigValue(rule.getActionConfig(), "reason", "Flagged by " + rule.getName());
                     String severity = extractConfigValue(rule.getActionConfig(), "severity", "MEDIUM");
-
-                    Notification notification = Notification.create(
-                        "fraud-gateway",
-                        severity.equalsIgnoreCase("HIGH") ? "error" : "warning",
-                        String.format("Flagged: %s - %s", application.id(), reason)
-                    );
-                    reactionExecutor.execute(new com.example.notifications.model.Reaction.PushToFrontend(notification));
-
-                    routeToTopic("flagged-apps", application, Map.of(
-                        "flagReason", reason,
-                        "severity", severity,
-                        "ruleName", rule.getName()
-                    ));
+                    flag(application, reason, severity, rule.getName(), score, trace);
+                    flaggedOrBlocked = true;
                 }
                 case BLOCK -> {
                     String reason = extractConfigValue(rule.getActionConfig(), "reason", "Blocked by " + rule.getName());
-
-                    Notification notification = Notification.create(
-                        "fraud-gateway",
-                        "error",
-                        String.format("Blocked: %s - %s", application.id(), reason)
-                    );
-                    reactionExecutor.execute(new com.example.notifications.model.Reaction.PushToFrontend(notification));
-
-                    routeToTopic("blocked-apps", application, Map.of(
-                        "blockReason", reason,
-                        "ruleName", rule.getName()
-                    ));
-                    blocked = true;
+                    block(application, reason, rule.getName(), score, trace);
+                    return true;
                 }
                 case ROUTE -> {
                     String topic = extractConfigValue(rule.getActionConfig(), "topic", "manual-review");
-                    routeToTopic(topic, application);
+                    routeToTopic(topic, application, Map.of(), score, trace);
                 }
                 case ENRICH -> {
-                    // For ENRICH, we add metadata but continue processing
-                    log.info("Enriching application {} with rule {}", application.id(), rule.getName());
+                    // Scored during evaluation; nothing to execute
                 }
             }
         }
+        return flaggedOrBlocked;
     }
 
-    private void routeToTopic(String topic, Application application) {
-        routeToTopic(topic, application, Map.of());
+    private void flag(Application application, String reason, String severity, String ruleName,
+                      RiskScoring.Score score, StageTrace trace) {
+        Notification notification = Notification.create(
+            "fraud-gateway",
+            severity.equalsIgnoreCase("HIGH") ? "error" : "warning",
+            String.format("Flagged: %s - %s", application.id(), reason)
+        );
+        reactionExecutor.execute(new com.example.notifications.model.Reaction.PushToFrontend(notification), trace);
+
+        routeToTopic("flagged-apps", application, Map.of(
+            "flagReason", reason,
+            "severity", severity,
+            "ruleName", ruleName
+        ), score, trace);
     }
 
-    private void routeToTopic(String topic, Application application, Map<String, Object> additionalData) {
+    private void block(Application application, String reason, String ruleName,
+                       RiskScoring.Score score, StageTrace trace) {
+        Notification notification = Notification.create(
+            "fraud-gateway",
+            "error",
+            String.format("Blocked: %s - %s", application.id(), reason)
+        );
+        reactionExecutor.execute(new com.example.notifications.model.Reaction.PushToFrontend(notification), trace);
+
+        routeToTopic("blocked-apps", application, Map.of(
+            "blockReason", reason,
+            "ruleName", ruleName
+        ), score, trace);
+    }
+
+    private void routeToTopic(String topic, Application application, Map<String, Object> additionalData,
+                              RiskScoring.Score score, StageTrace trace) {
         Map<String, Object> message = new HashMap<>(application.data());
         message.put("_applicationId", application.id());
         message.put("_processedAt", java.time.Instant.now().toString());
         message.putAll(additionalData);
+        score.attachTo(message);
 
-        kafkaTemplate.send(topic, application.id(), message);
+        long stage = trace.begin();
+        CompletableFuture<SendResult<String, Object>> future = kafkaTemplate.send(topic, application.id(), message);
+        trace.end(Stage.KAFKA_SEND, stage);
+        if (trace.sampled()) {
+            future.whenComplete((result, ex) -> trace.end(Stage.KAFKA_ACK, stage));
+        }
+        metrics.applicationRouted(topic);
         log.info("Routed application {} to topic {}", application.id(), topic);
     }
 
-    private void createAuditLog(Application application, int rulesEvaluated,
-                                 List<FraudRule> matchedRules, RuleAction finalAction, String actionDetails) {
+    /**
+     * Inserts the audit row of a decision that was already routed. A failed insert is counted
+     * and logged rather than thrown: failing the record would have it redelivered, decided and
+     * routed a second time.
+     */
+    private void createAuditLog(Application application, Decision decision) {
+        int rulesEvaluated = decision.rulesEvaluated();
+        List<FraudRule> matchedRules = decision.matchedRules();
+        List<FraudRule> skippedRules = decision.skippedRules();
+        RiskScoring.Score score = decision.score();
         AuditLog auditLog = new AuditLog();
         auditLog.setApplicationId(application.id());
         auditLog.setApplicationType(application.type());
@@ -163,10 +225,41 @@ public class FraudDetectionService {
         auditLog.setMatchedRuleNames(matchedRules.stream()
             .map(FraudRule::getName)
             .collect(Collectors.joining(",")));
-        auditLog.setFinalAction(finalAction);
-        auditLog.setActionDetails(actionDetails);
+        auditLog.setRulesSkipped(skippedRules.size());
+        if (!skippedRules.isEmpty()) {
+            auditLog.setSkippedRuleIds(skippedRules.stream()
+                .map(r -> r.getId().toString())
+                .collect(Collectors.joining(",")));
+        }
+        auditLog.setEvaluationStrategy(decisionEngine.strategy().name());
+        if (score.scored()) {
+            auditLog.setRiskScore(score.total());
+            auditLog.setRiskContributions(score.contributionsJson());
+        }
+        auditLog.setFinalAction(decision.finalAction());
+        auditLog.setActionDetails(decision.actionDetails());
 
-        auditLogRepository.save(auditLog);
+        AuditFlushEvent event = new AuditFlushEvent();
+        event.begin();
+        long start = System.nanoTime();
+        try {
+            auditLogRepository.save(auditLog);
+        } catch (RuntimeException e) {
+            metrics.auditWriteFailed();
+            log.error("Failed to write the audit log of application {} ({}): {}",
+                application.id(), decision.outcome(), e.getMessage(), e);
+            return;
+        }
+        metrics.recordAuditWrite(System.nanoTime() - start);
+        event.end();
+        if (event.shouldCommit()) {
+            event.applicationId = application.id();
+            event.rulesEvaluated = rulesEvaluated;
+            event.rulesSkipped = skippedRules.size();
+            event.rulesMatched = matchedRules.size();
+            event.finalAction = decision.outcome();
+            event.commit();
+        }
     }
 
     @SuppressWarnings("unchecked")
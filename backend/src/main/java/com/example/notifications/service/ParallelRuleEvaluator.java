@@ -0,0 +1,152 @@
+package com.example.notifications.service;
+
+import com.example.notifications.entity.FraudRule;
+import com.example.notifications.model.Application;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * Evaluates one application's rules in parallel shards for very large rule sets.
+ *
+ * The priority-ordered rules are cut into contiguous shards of {@code shard-size}. The calling
+ * consumer thread evaluates the first shard and a dedicated ForkJoin pool evaluates the rest.
+ * The result is a per-rule match flag, which {@link FraudDetectionService} walks in priority
+ * order exactly like a sequential pass, so outcomes do not depend on the mode. When a match
+ * would end a sequential pass, shards stop evaluating rules that come after it.
+ *
+ * Parallel mode applies only when the rule count is at least {@code min-rules}. It is skipped
+ * while the process is already busy, meaning CPU load is above {@code max-cpu-load} or the pool
+ * has a backlog. Splitting work then would only add hand-off cost.
+ */
+@Component
+public class ParallelRuleEvaluator {
+
+    private static final Logger log = LoggerFactory.getLogger(ParallelRuleEvaluator.class);
+
+    private final RuleEvaluator ruleEvaluator;
+    private final int minRules;
+    private final int shardSize;
+    private final double maxCpuLoad;
+    private final ForkJoinPool pool;
+    private final com.sun.management.OperatingSystemMXBean os;
+    private volatile double cpuLoad;
+    private final Counter parallelRuns;
+    private final Counter saturatedRuns;
+
+    public ParallelRuleEvaluator(
+            RuleEvaluator ruleEvaluator,
+            @Value("${fraud.evaluation.parallel.min-rules:5000}") int minRules,
+            @Value("${fraud.evaluation.parallel.shard-size:1024}") int shardSize,
+            @Value("${fraud.evaluation.parallel.parallelism:0}") int parallelism,
+            @Value("${fraud.evaluation.parallel.max-cpu-load:0.7}") double maxCpuLoad,
+            MeterRegistry registry) {
+        this.ruleEvaluator = ruleEvaluator;
+        this.minRules = minRules;
+        this.shardSize = Math.max(1, shardSize);
+        this.maxCpuLoad = maxCpuLoad;
+        int threads = parallelism > 0 ? parallelism : Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        this.pool = new ForkJoinPool(threads, pool -> {
+            var worker = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            worker.setName("rule-shard-" + worker.getPoolIndex());
+            worker.setDaemon(true);
+            return worker;
+        }, null, false);
+        this.os = ManagementFactory.getOperatingSystemMXBean() instanceof com.sun.management.OperatingSystemMXBean bean
+            ? bean : null;
+
+        this.parallelRuns = Counter.builder("fraud.evaluation.parallel")
+            .description("Applications whose rules were evaluated in parallel shards")
+            .tag("mode", "parallel")
+            .register(registry);
+        this.saturatedRuns = Counter.builder("fraud.evaluation.parallel")
+            .description("Applications above the parallel threshold evaluated sequentially because the CPU was busy")
+            .tag("mode", "saturated")
+            .register(registry);
+        Gauge.builder("fraud.evaluation.cpu.load", this, p -> p.cpuLoad)
+            .description("Process CPU load last used to decide on parallel evaluation")
+            .register(registry);
+        log.info("Parallel rule evaluation: {} (min-rules {}, shard-size {}, {} threads, max-cpu-load {})",
+            minRules > 0 ? "enabled" : "disabled", minRules, this.shardSize, threads, maxCpuLoad);
+    }
+
+    /**
+     * Whether {@code ruleCount} rules should be evaluated in parallel right now.
+     */
+    public boolean shouldParallelize(int ruleCount) {
+        if (minRules <= 0 || ruleCount < minRules || ruleCount <= shardSize) {
+            return false;
+        }
+        if (cpuLoad > maxCpuLoad || pool.hasQueuedSubmissions()) {
+            saturatedRuns.increment();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Evaluates {@code rules} in parallel shards.
+     *
+     * @param stopsAfter whether a sequential pass would end after this matching rule
+     * @return match flag per rule index; rules after the first stopping match may be unevaluated
+     */
+    public boolean[] evaluate(List<FraudRule> rules, Application application, Predicate<FraudRule> stopsAfter) {
+        parallelRuns.increment();
+        int size = rules.size();
+        boolean[] matched = new boolean[size];
+        AtomicInteger stopAt = new AtomicInteger(size);
+
+        List<ForkJoinTask<?>> shards = new ArrayList<>(size / shardSize + 1);
+        for (int from = shardSize; from < size; from += shardSize) {
+            int start = from;
+            int end = Math.min(size, from + shardSize);
+            shards.add(pool.submit(() -> evaluateShard(rules, start, end, application, stopsAfter, matched, stopAt)));
+        }
+        evaluateShard(rules, 0, Math.min(size, shardSize), application, stopsAfter, matched, stopAt);
+        for (ForkJoinTask<?> shard : shards) {
+            shard.join();
+        }
+        return matched;
+    }
+
+    private void evaluateShard(List<FraudRule> rules, int from, int to, Application application,
+                               Predicate<FraudRule> stopsAfter, boolean[] matched, AtomicInteger stopAt) {
+        for (int i = from; i < to && i < stopAt.get(); i++) {
+            FraudRule rule = rules.get(i);
+            if (ruleEvaluator.evaluate(rule, application)) {
+                matched[i] = true;
+                if (stopsAfter.test(rule)) {
+                    stopAt.accumulateAndGet(i, Math::min);
+                    return;
+                }
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${fraud.evaluation.parallel.load-sample-ms:1000}")
+    public void sampleCpuLoad() {
+        if (os != null) {
+            double load = os.getProcessCpuLoad();
+            cpuLoad = load < 0 ? 0 : load;
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        pool.shutdownNow();
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.notifications.service;
+
+import com.example.notifications.entity.FraudRule;
+import com.example.notifications.entity.RuleAction;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Risk score built from matched ENRICH rules.
+ *
+ * Each ENRICH rule adds the {@code weight} from its action config to the application's score.
+ * A score at or above {@code fraud.scoring.block-threshold} blocks the application and ends
+ * evaluation early. A score at or above {@code fraud.scoring.flag-threshold} flags it, unless a
+ * matched rule already flagged or blocked it.
+ */
+@Component
+public class RiskScoring {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final double flagThreshold;
+    private final double blockThreshold;
+    // Parsed weights by action config; bounded by the number of distinct ENRICH configs.
+    private final Map<String, Double> weights = new ConcurrentHashMap<>();
+
+    public RiskScoring(
+            @Value("${fraud.scoring.flag-threshold:50}") double flagThreshold,
+            @Value("${fraud.scoring.block-threshold:100}") double blockThreshold) {
+        if (flagThreshold <= 0 || blockThreshold < flagThreshold) {
+            throw new IllegalArgumentException("Need 0 < fraud.scoring.flag-threshold <= fraud.scoring.block-threshold");
+        }
+        this.flagThreshold = flagThreshold;
+        this.blockThreshold = blockThreshold;
+    }
+
+    /**
+     * Weight configured in an ENRICH rule's action config, 0 when absent.
+     *
+     * @throws IllegalArgumentException if the config is not JSON or the weight is not a number
+     */
+    public static double parseWeight(String actionConfig) {
+        if (actionConfig == null || actionConfig.isBlank()) {
+            return 0;
+        }
+        JsonNode weight;
+        try {
+            weight = MAPPER.readTree(actionConfig).get("weight");
+        } catch (Exception e) {
+            throw new IllegalArgumentException("actionConfig is not valid JSON");
+        }
+        if (weight == null || weight.isNull()) {
+            return 0;
+        }
+        if (weight.isNumber()) {
+            return weight.doubleValue();
+        }
+        try {
+            return Double.parseDouble(weight.asText().trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("ENRICH weight must be a number: " + weight.asText());
+        }
+    }
+
+    public double flagThreshold() {
+        return flagThreshold;
+    }
+
+    public double blockThreshold() {
+        return blockThreshold;
+    }
+
+    public Score newScore() {
+        return new Score();
+    }
+
+    private double weight(FraudRule rule) {
+        String config = rule.getActionConfig();
+        if (config == null) {
+            return 0;
+        }
+        return weights.computeIfAbsent(config, c -> {
+            try {
+                return parseWeight(c);
+            } catch (IllegalArgumentException e) {
+                return 0.0;
+            }
+        });
+    }
+
+    /**
+     * One weight added to a score.
+     */
+    public record Contribution(Long ruleId, String rule, double weight) {
+    }
+
+    /**
+     * Score of one application. Not thread-safe.
+     */
+    public final class Score {
+
+        private double total;
+        private List<Contribution> contributions;
+
+        private Score() {
+        }
+
+        public void add(FraudRule rule) {
+            double weight = weight(rule);
+            if (contributions == null) {
+                contributions = new ArrayList<>();
+            }
+            contributions.add(new Contribution(rule.getId(), rule.getName(), weight));
+            total += weight;
+        }
+
+        public double total() {
+            return total;
+        }
+
+        /**
+         * Whether any ENRICH rule contributed.
+         */
+        public boolean scored() {
+            return contributions != null;
+        }
+
+        public List<Contribution> contributions() {
+            return contributions == null ? List.of() : contributions;
+        }
+
+        public boolean blocks() {
+            return scored() && total >= blockThreshold;
+        }
+
+        /**
+         * BLOCK or FLAG when the score reached a threshold, otherwise null.
+         */
+        public RuleAction decision() {
+            if (!scored()) {
+                return null;
+            }
+            if (total >= blockThreshold) {
+                return RuleAction.BLOCK;
+            }
+            return total >= flagThreshold ? RuleAction.FLAG : null;
+        }
+
+        public String reason() {
+            RuleAction decision = decision();
+            double threshold = decision == RuleAction.BLOCK ? blockThreshold : flagThreshold;
+            return String.format("Risk score %s reached %s threshold %s",
+                format(total), decision == RuleAction.BLOCK ? "block" : "flag", format(threshold));
+        }
+
+        /**
+         * Fields added to routed messages: {@code _riskScore} and {@code _riskContributions}.
+         */
+        public void attachTo(Map<String, Object> message) {
+            if (!scored()) {
+                return;
+            }
+            message.put("_riskScore", total);
+            message.put("_riskContributions", contributionMaps());
+        }
+
+        public String contributionsJson() {
+            try {
+                return MAPPER.writeValueAsString(contributionMaps());
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private List<Map<String, Object>> contributionMaps() {
+            List<Map<String, Object>> maps = new ArrayList<>(contributions().size());
+            for (Contribution contribution : contributions()) {
+                Map<String, Object> map = new LinkedHashMap<>();
+                map.put("ruleId", contribution.ruleId());
+                map.put("rule", contribution.rule());
+                map.put("weight", contribution.weight());
+                maps.add(map);
+            }
+            return maps;
+        }
+
+        private static String format(double value) {
+            return value == Math.rint(value) ? Long.toString((long) value) : Double.toString(value);
+        }
+    }
+}
@@ -1,28 +1,155 @@
 package com.example.notifications.service;
 
+import com.example.notifications.condition.CompiledCondition;
+import com.example.notifications.condition.Condition.Predicate;
+import com.example.notifications.diagnostics.RuleEvaluationEvent;
 import com.example.notifications.entity.FraudRule;
 import com.example.notifications.entity.RuleOperator;
+import com.example.notifications.lists.NamedListRegistry;
+import com.example.notifications.metrics.PipelineMetrics;
 import com.example.notifications.model.Application;
+import com.example.notifications.regex.RegexBudgetExceeded;
+import com.example.notifications.regex.RegexBudgetExceededException;
+import com.example.notifications.regex.RegexEngine;
+import com.example.notifications.velocity.VelocityStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Component;
 
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
-import java.util.regex.Pattern;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Component
 public class RuleEvaluator {
 
     private static final Logger log = LoggerFactory.getLogger(RuleEvaluator.class);
 
+    private final PipelineMetrics metrics;
+    private final VelocityStore velocityStore;
+    private final NamedListRegistry namedLists;
+    private final RegexEngine regexEngine;
+    private final ApplicationEventPublisher events;
+    private final Map<Long, CompiledCondition> conditions = new ConcurrentHashMap<>();
+    private final CompiledCondition.PredicateTester predicateTester = this::testPredicate;
+
+    public RuleEvaluator(PipelineMetrics metrics, VelocityStore velocityStore, NamedListRegistry namedLists,
+                         RegexEngine regexEngine, ApplicationEventPublisher events) {
+        this.metrics = metrics;
+        this.velocityStore = velocityStore;
+        this.namedLists = namedLists;
+        this.regexEngine = regexEngine;
+        this.events = events;
+    }
+
     public boolean evaluate(FraudRule rule, Application application) {
-        Object fieldValue = application.getFieldValue(rule.getFieldPath());
-        String ruleValue = rule.getValue();
-        RuleOperator operator = rule.getOperator();
+        RuleEvaluationEvent event = new RuleEvaluationEvent();
+        event.begin();
+        long start = System.nanoTime();
+        boolean matched;
+        try {
+            matched = evaluateCondition(rule, application);
+        } catch (RegexBudgetExceededException e) {
+            log.warn("Rule '{}' skipped for application {}: {}", rule.getName(), application.id(), e.getMessage());
+            metrics.regexBudgetExceeded();
+            events.publishEvent(new RegexBudgetExceeded(rule.getId(), rule.getName()));
+            matched = false;
+        }
+        metrics.recordRuleEvaluation(rule, System.nanoTime() - start, matched);
+        event.end();
+        if (event.shouldCommit()) {
+            event.ruleId = rule.getId() != null ? rule.getId() : -1;
+            event.ruleName = rule.getName();
+            event.operator = rule.getConditionTree() != null ? "COMPOSITE" : String.valueOf(rule.getOperator());
+            event.fieldPath = rule.getFieldPath();
+            event.applicationId = application.id();
+            event.matched = matched;
+            event.commit();
+        }
+        return matched;
+    }
 
-        log.debug("Evaluating rule '{}': field '{}' = '{}', operator {}, expected '{}'",
-            rule.getName(), rule.getFieldPath(), fieldValue, operator, ruleValue);
+    /**
+     * Field paths watched by the rule's VELOCITY_EXCEEDS conditions.
+     */
+    public Collection<String> velocityFields(FraudRule rule) {
+        if (rule.getConditionTree() != null) {
+            try {
+                return compiled(rule).velocityFields();
+            } catch (IllegalArgumentException e) {
+                return List.of();
+            }
+        }
+        return rule.getOperator() == RuleOperator.VELOCITY_EXCEEDS ? List.of(rule.getFieldPath()) : List.of();
+    }
+
+    /**
+     * Evaluation order and statistics of a composite rule's condition tree, or null for
+     * single-condition rules.
+     */
+    public Map<String, Object> describeCondition(FraudRule rule) {
+        return rule.getConditionTree() != null ? compiled(rule).describe() : null;
+    }
+
+    private boolean evaluateCondition(FraudRule rule, Application application) {
+        if (rule.getConditionTree() == null) {
+            return evaluatePredicate(rule.getName(), rule.getFieldPath(), rule.getOperator(), rule.getValue(),
+                rule.getWindowSeconds(), application);
+        }
+        try {
+            return compiled(rule).evaluate(application, predicateTester);
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid condition tree in rule '{}': {}", rule.getName(), e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Compiled condition tree of a rule, cached by rule id so that the adaptive ordering
+     * survives across applications. Recompiled when the tree changes.
+     */
+    private CompiledCondition compiled(FraudRule rule) {
+        Long id = rule.getId();
+        if (id == null) {
+            return CompiledCondition.compile(rule.getConditionTree());
+        }
+        CompiledCondition compiled = conditions.get(id);
+        if (compiled == null || !compiled.source().equals(rule.getConditionTree())) {
+            compiled = CompiledCondition.compile(rule.getConditionTree());
+            conditions.put(id, compiled);
+        }
+        return compiled;
+    }
+
+    /**
+     * Drops the compiled trees, and with them the adaptive statistics, and the per-rule meters
+     * of rules that are no longer in the rule set. Called whenever a new rule set is swapped in.
+     */
+    public void retainRules(Collection<FraudRule> rules) {
+        Set<Long> ids = new HashSet<>();
+        for (FraudRule rule : rules) {
+            ids.add(rule.getId());
+        }
+        conditions.keySet().retainAll(ids);
+        metrics.retainRules(rules);
+    }
+
+    private boolean testPredicate(Predicate predicate, Application application) {
+        return evaluatePredicate(predicate.field(), predicate.field(), predicate.operator(), predicate.value(),
+            predicate.windowSeconds(), application);
+    }
+
+    private boolean evaluatePredicate(String name, String fieldPath, RuleOperator operator, String ruleValue,
+                                      Integer windowSeconds, Application application) {
+        Object fieldValue = application.getFieldValue(fieldPath);
+
+        log.debug("Evaluating '{}': field '{}' = '{}', operator {}, expected '{}'",
+            name, fieldPath, fieldValue, operator, ruleValue);
 
         try {
             return switch (operator) {
@@ -37,15 +164,37 @@ public class RuleEvaluator {
                 case REGEX -> matchesRegex(fieldValue, ruleValue);
                 case IN_LIST -> inList(fieldValue, ruleValue);
                 case NOT_IN_LIST -> !inList(fieldValue, ruleValue);
+                case IN_NAMED_LIST -> namedLists.contains(ruleValue, fieldValue);
+                case NOT_IN_NAMED_LIST -> fieldValue != null && !namedLists.contains(ruleValue, fieldValue);
                 case IS_NULL -> fieldValue == null;
                 case IS_NOT_NULL -> fieldValue != null;
+                case VELOCITY_EXCEEDS -> velocity(fieldPath, windowSeconds, application, fieldValue) > Long.parseLong(ruleValue.trim());
             };
+        } catch (RegexBudgetExceededException e) {
+            throw e;
         } catch (Exception e) {
-            log.warn("Error evaluating rule '{}': {}", rule.getName(), e.getMessage());
+            log.warn("Error evaluating '{}': {}", name, e.getMessage());
             return false;
         }
     }
 
+    /**
+     * Occurrences of the field value within the rule's window, including this application.
+     * Occurrences are recorded once per application by {@link FraudDetectionService}.
+     */
+    private long velocity(String fieldPath, Integer windowSeconds, Application application, Object fieldValue) {
+        if (fieldValue == null) {
+            return 0;
+        }
+        if (windowSeconds == null) {
+            throw new IllegalArgumentException("Velocity condition has no window");
+        }
+        return velocityStore.count(
+            VelocityStore.key(fieldPath, fieldValue),
+            windowSeconds * 1000L,
+            application.receivedAt().toEpochMilli());
+    }
+
     private boolean equals(Object fieldValue, String ruleValue) {
         if (fieldValue == null) {
             return ruleValue == null || ruleValue.equalsIgnoreCase("null");
@@ -80,7 +229,7 @@ public class RuleEvaluator {
         if (fieldValue == null) {
             return false;
         }
-        return Pattern.matches(pattern, fieldValue.toString());
+        return regexEngine.matches(pattern, fieldValue.toString());
     }
 
     private boolean inList(Object fieldValue, String ruleValue) {
@@ -0,0 +1,260 @@
+package com.example.notifications.shadow;
+
+import com.example.notifications.entity.FraudRule;
+import com.example.notifications.metrics.PipelineMetrics;
+import com.example.notifications.model.Application;
+import com.example.notifications.ruleset.RuleSet;
+import com.example.notifications.ruleset.RuleSetCache;
+import com.example.notifications.service.Decision;
+import com.example.notifications.service.RuleEvaluator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Evaluates shadow rules against live traffic after the real decision, on its own bounded
+ * executor, so they never act and never delay the decision.
+ *
+ * The consumer only hands the application, its scope and the decision to the executor. When
+ * the queue is full the evaluation is dropped and counted in {@code fraud.shadow.shed}; shadow
+ * counts are then a sample of the traffic rather than all of it. Every evaluation counts, per
+ * shadow rule, the applications it applied to and matched, and how many of those matches the
+ * live rules left clean. A {@code fraud.shadow.audit-sample-rate} fraction of the applications
+ * with at least one shadow match is published to {@code fraud.shadow.audit-topic}.
+ *
+ * Per-rule counts and series are dropped once a rule leaves the rule set, and rules beyond
+ * {@code fraud.metrics.max-rule-tags} share the {@code rule="other"} series.
+ *
+ * Shadow rules read the live velocity windows. The decision path counts the fields they watch
+ * (see {@link RuleSet.Scope#velocityFields()}), so those counts do not depend on shedding.
+ */
+@Component
+public class ShadowEvaluator {
+
+    private static final Logger log = LoggerFactory.getLogger(ShadowEvaluator.class);
+
+    private final RuleEvaluator ruleEvaluator;
+    private final RuleSetCache ruleSetCache;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final PipelineMetrics metrics;
+    private final String auditTopic;
+    private final double auditSampleRate;
+    private final ThreadPoolExecutor executor;
+    private final Counter shed;
+    private final Map<Long, RuleStats> stats = new ConcurrentHashMap<>();
+    private volatile RuleSet statsRuleSet;
+
+    public ShadowEvaluator(
+            RuleEvaluator ruleEvaluator,
+            RuleSetCache ruleSetCache,
+            KafkaTemplate<String, Object> kafkaTemplate,
+            PipelineMetrics metrics,
+            @Value("${fraud.shadow.threads:1}") int threads,
+            @Value("${fraud.shadow.queue-capacity:1000}") int queueCapacity,
+            @Value("${fraud.shadow.audit-topic:fraud-shadow-decisions}") String auditTopic,
+            @Value("${fraud.shadow.audit-sample-rate:0.1}") double auditSampleRate) {
+        this.ruleEvaluator = ruleEvaluator;
+        this.ruleSetCache = ruleSetCache;
+        this.kafkaTemplate = kafkaTemplate;
+        this.metrics = metrics;
+        MeterRegistry registry = metrics.registry();
+        this.auditTopic = auditTopic;
+        this.auditSampleRate = auditSampleRate;
+        AtomicInteger threadIds = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(Math.max(1, threads), Math.max(1, threads), 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), r -> {
+                Thread thread = new Thread(r, "shadow-" + threadIds.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.AbortPolicy());
+        this.shed = Counter.builder("fraud.shadow.shed")
+            .description("Shadow evaluations dropped because the shadow executor was saturated")
+            .register(registry);
+        Gauge.builder("fraud.shadow.queue", executor, e -> e.getQueue().size())
+            .description("Shadow evaluations waiting for the shadow executor")
+            .register(registry);
+    }
+
+    /**
+     * Queues the scope's shadow rules for evaluation, or drops them if the executor is
+     * saturated. Returns immediately.
+     */
+    public void submit(Application application, RuleSet.Scope scope, Decision decision) {
+        List<FraudRule> shadowRules = scope.shadowRules();
+        if (shadowRules.isEmpty()) {
+            return;
+        }
+        try {
+            executor.execute(() -> evaluate(application, shadowRules, decision));
+        } catch (RejectedExecutionException e) {
+            shed.increment();
+        }
+    }
+
+    private void evaluate(Application application, List<FraudRule> shadowRules, Decision decision) {
+        pruneStats();
+        List<FraudRule> matched = new ArrayList<>();
+        boolean liveClean = decision.finalAction() == null;
+        for (FraudRule rule : shadowRules) {
+            RuleStats ruleStats = stats(rule);
+            ruleStats.recordEvaluation();
+            boolean match;
+            try {
+                match = ruleEvaluator.evaluate(rule, application);
+            } catch (RuntimeException e) {
+                log.warn("Shadow rule '{}' failed for application {}: {}", rule.getName(), application.id(), e.getMessage());
+                continue;
+            }
+            if (match) {
+                matched.add(rule);
+                ruleStats.recordMatch(liveClean);
+            }
+        }
+        if (!matched.isEmpty() && ThreadLocalRandom.current().nextDouble() < auditSampleRate) {
+            publish(application, decision, shadowRules.size(), matched);
+        }
+    }
+
+    private void publish(Application application, Decision decision, int evaluated, List<FraudRule> matched) {
+        Map<String, Object> record = new LinkedHashMap<>();
+        record.put("applicationId", application.id());
+        record.put("applicationType", application.type());
+        record.put("sourceSystem", application.sourceSystem());
+        record.put("liveOutcome", decision.outcome());
+        record.put("liveMatchedRuleIds", decision.matchedRules().stream().map(FraudRule::getId).toList());
+        record.put("shadowRulesEvaluated", evaluated);
+        record.put("shadowMatches", matched.stream().map(rule -> {
+            Map<String, Object> match = new LinkedHashMap<>();
+            match.put("ruleId", rule.getId());
+            match.put("ruleName", rule.getName());
+            match.put("action", rule.getActionType());
+            match.put("actionConfig", rule.getActionConfig());
+            return match;
+        }).toList());
+        record.put("evaluatedAt", Instant.now().toString());
+        kafkaTemplate.send(auditTopic, application.id(), record);
+    }
+
+    /**
+     * Counts per shadow rule since startup or since the rule was added, including rules since
+     * promoted; rules no longer in the rule set are dropped.
+     */
+    public Map<Long, RuleStats> stats() {
+        return Map.copyOf(stats);
+    }
+
+    private RuleStats stats(FraudRule rule) {
+        return stats.computeIfAbsent(rule.getId(), id -> new RuleStats(metrics, rule));
+    }
+
+    /**
+     * Drops the counts and series of rules that left the rule set, once per new rule set.
+     */
+    private void pruneStats() {
+        RuleSet ruleSet = ruleSetCache.loaded();
+        if (ruleSet == null || ruleSet == statsRuleSet) {
+            return;
+        }
+        statsRuleSet = ruleSet;
+        Set<Long> ids = new HashSet<>();
+        for (FraudRule rule : ruleSet.rules()) {
+            ids.add(rule.getId());
+        }
+        stats.entrySet().removeIf(entry -> {
+            if (ids.contains(entry.getKey())) {
+                return false;
+            }
+            entry.getValue().remove(metrics.registry());
+            return true;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Applications a shadow rule applied to and matched, also exported as
+     * {@code fraud.shadow.evaluations} and {@code fraud.shadow.matches} tagged with the rule
+     * (or {@code other}, past the rule tag cap) and its would-be action.
+     */
+    public static final class RuleStats {
+
+        private final String name;
+        private final String action;
+        private final LongAdder evaluated = new LongAdder();
+        private final LongAdder matched = new LongAdder();
+        private final LongAdder matchedLiveClean = new LongAdder();
+        private final boolean ownSeries;
+        private final Counter evaluations;
+        private final Counter matches;
+
+        RuleStats(PipelineMetrics metrics, FraudRule rule) {
+            this.name = rule.getName();
+            this.action = String.valueOf(rule.getActionType());
+            String ruleTag = metrics.ruleTag(rule);
+            this.ownSeries = ruleTag.equals(String.valueOf(rule.getId()));
+            this.evaluations = Counter.builder("fraud.shadow.evaluations")
+                .description("Applications a shadow rule was evaluated against")
+                .tag("rule", ruleTag)
+                .register(metrics.registry());
+            this.matches = Counter.builder("fraud.shadow.matches")
+                .description("Applications a shadow rule matched, by the action it would have taken")
+                .tag("rule", ruleTag)
+                .tag("action", action)
+                .register(metrics.registry());
+        }
+
+        void recordEvaluation() {
+            evaluated.increment();
+            evaluations.increment();
+        }
+
+        void recordMatch(boolean liveClean) {
+            matched.increment();
+            matches.increment();
+            if (liveClean) {
+                matchedLiveClean.increment();
+            }
+        }
+
+        /**
+         * Removes the rule's own series; the shared {@code other} series stay.
+         */
+        void remove(MeterRegistry registry) {
+            if (ownSeries) {
+                registry.remove(evaluations);
+                registry.remove(matches);
+            }
+        }
+
+        public String name() { return name; }
+        public String action() { return action; }
+        public long evaluated() { return evaluated.sum(); }
+        public long matched() { return matched.sum(); }
+        public long matchedLiveClean() { return matchedLiveClean.sum(); }
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.notifications.support;
+
+/**
+ * 64-bit hashing for the fixed-layout stores that keep hashes instead of keys.
+ *
+ * FNV-1a over the UTF-16 code units followed by the MurmurHash3 finalizer, which is fast on
+ * short strings and spreads well enough that the high and low bits can be used independently
+ * (stripe selection and slot index).
+ */
+public final class Hashing {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private Hashing() {
+    }
+
+    public static long hash64(CharSequence value) {
+        return mix(update(FNV_OFFSET, value));
+    }
+
+    /**
+     * Hash of two strings as a pair, so ("ab", "c") and ("a", "bc") differ.
+     */
+    public static long hash64(CharSequence first, CharSequence second) {
+        long h = update(FNV_OFFSET, first);
+        h = (h ^ 0xffff) * FNV_PRIME;
+        return mix(update(h, second));
+    }
+
+    /**
+     * MurmurHash3 fmix64.
+     */
+    public static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static long update(long h, CharSequence value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            h = (h ^ (c & 0xff)) * FNV_PRIME;
+            h = (h ^ (c >>> 8)) * FNV_PRIME;
+        }
+        return h;
+    }
+}
@@ -0,0 +1,384 @@
+package com.example.notifications.velocity;
+
+import com.example.notifications.support.Hashing;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Sliding-window occurrence counters backing the VELOCITY_EXCEEDS operator.
+ *
+ * Keys are 64-bit hashes of (field path, value); the values themselves are never stored.
+ * Every key owns a ring of {@code buckets} saturating 16-bit counters, each covering
+ * {@code bucketSeconds}, so a table slot costs {@code 12 + 2 * buckets} bytes in flat
+ * primitive arrays (74 bytes with the defaults, about 310 MB of tables for 3M keys).
+ *
+ * The key space is split into lock-striped, open-addressed tables (linear probing). A key
+ * whose newest bucket has left the ring is expired: its slot is reused by the next insert
+ * probing past it and dropped by the periodic sweep. Once a table is at its largest size, a new
+ * key evicts the least recently counted of the few keys stored after its home slot.
+ */
+@Component
+public class VelocityStore {
+
+    private static final Logger log = LoggerFactory.getLogger(VelocityStore.class);
+
+    private static final int INITIAL_STRIPE_CAPACITY = 1024;
+    private static final double MAX_LOAD = 0.75;
+    private static final long EMPTY = 0L;
+    private static final int EVICTION_CANDIDATES = 8;
+
+    private final long bucketMillis;
+    private final int buckets;
+    private final Stripe[] stripes;
+    private final int stripeShift;
+    private final int maxStripeCapacity;
+    private final Counter evicted;
+
+    public VelocityStore(
+            @Value("${fraud.velocity.bucket-seconds:120}") int bucketSeconds,
+            @Value("${fraud.velocity.buckets:31}") int buckets,
+            @Value("${fraud.velocity.stripes:64}") int stripes,
+            @Value("${fraud.velocity.max-keys:3000000}") long maxKeys,
+            MeterRegistry registry) {
+        if (bucketSeconds <= 0 || buckets < 2 || buckets > 4096) {
+            throw new IllegalArgumentException("Need bucket-seconds > 0 and 2..4096 buckets");
+        }
+        this.bucketMillis = bucketSeconds * 1000L;
+        this.buckets = buckets;
+
+        int stripeCount = tableSizeFor(Math.max(1, stripes));
+        this.stripeShift = 64 - Integer.numberOfTrailingZeros(stripeCount);
+        int largestTable = Integer.highestOneBit(Integer.MAX_VALUE / buckets);
+        this.maxStripeCapacity = Math.max(INITIAL_STRIPE_CAPACITY, Math.min(largestTable,
+            tableSizeFor((int) Math.min(largestTable, (long) Math.ceil(maxKeys / (double) stripeCount / MAX_LOAD)))));
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            this.stripes[i] = new Stripe(INITIAL_STRIPE_CAPACITY);
+        }
+
+        Gauge.builder("fraud.velocity.keys", this, VelocityStore::size)
+            .description("Velocity keys held, including expired keys not yet swept")
+            .register(registry);
+        Gauge.builder("fraud.velocity.memory", this, VelocityStore::memoryBytes)
+            .description("Memory held by the velocity counter tables")
+            .baseUnit("bytes")
+            .register(registry);
+        this.evicted = Counter.builder("fraud.velocity.evicted")
+            .description("Live keys evicted, with their counts, to make room for new keys in a full velocity store")
+            .register(registry);
+    }
+
+    /**
+     * Key for a field value, shared by all velocity rules on the same field path.
+     */
+    public static long key(String fieldPath, Object value) {
+        return Hashing.hash64(fieldPath, String.valueOf(value));
+    }
+
+    /**
+     * Longest window a rule can use: the ring minus the bucket currently being filled.
+     */
+    public Duration maxWindow() {
+        return Duration.ofMillis(bucketMillis * (buckets - 1));
+    }
+
+    /**
+     * An empty store with the same buckets and stripes, for evaluations that must not read or
+     * change the live counts. Its gauges go to {@code registry}.
+     */
+    public VelocityStore emptyCopy(long maxKeys, MeterRegistry registry) {
+        return new VelocityStore((int) (bucketMillis / 1000), buckets, stripes.length, maxKeys, registry);
+    }
+
+    public void record(long key, long epochMillis) {
+        key = normalize(key);
+        stripe(key).increment(key, epochMillis / bucketMillis);
+    }
+
+    /**
+     * Occurrences within {@code windowMillis} before {@code epochMillis}. Whole buckets inside
+     * the window are summed; the oldest, partially covered bucket is weighted by its overlap.
+     * A window that starts inside the current bucket counts that bucket in full, since when its
+     * occurrences happened within the bucket is not known.
+     */
+    public long count(long key, long windowMillis, long epochMillis) {
+        key = normalize(key);
+        return stripe(key).count(key, Math.min(windowMillis, maxWindow().toMillis()), epochMillis);
+    }
+
+    public long size() {
+        long size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.used;
+        }
+        return size;
+    }
+
+    public long memoryBytes() {
+        long slots = 0;
+        for (Stripe stripe : stripes) {
+            slots += stripe.keys.length;
+        }
+        return slots * (Long.BYTES + Integer.BYTES + (long) Character.BYTES * buckets);
+    }
+
+    public void clear() {
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                stripe.rebuild(INITIAL_STRIPE_CAPACITY, Long.MAX_VALUE);
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${fraud.velocity.sweep-interval-ms:60000}",
+               initialDelayString = "${fraud.velocity.sweep-interval-ms:60000}")
+    public void evictExpired() {
+        long before = size();
+        evictExpired(System.currentTimeMillis());
+        log.debug("Velocity sweep: {} -> {} keys", before, size());
+    }
+
+    void evictExpired(long epochMillis) {
+        long bucket = epochMillis / bucketMillis;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                stripe.rebuild(stripe.keys.length, bucket);
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+    }
+
+    private Stripe stripe(long key) {
+        return stripes[stripeShift == 64 ? 0 : (int) (key >>> stripeShift)];
+    }
+
+    private static long normalize(long key) {
+        return key == EMPTY ? 1L : key;
+    }
+
+    private static int tableSizeFor(int n) {
+        return n <= 1 ? 1 : Integer.highestOneBit(n - 1) << 1;
+    }
+
+    private final class Stripe {
+
+        final ReentrantLock lock = new ReentrantLock();
+        long[] keys;
+        // Newest bucket index written per slot; int holds epoch-based indexes for any bucket >= 1s until 2038.
+        int[] newest;
+        char[] counts;
+        volatile int used;
+
+        Stripe(int capacity) {
+            allocate(capacity);
+        }
+
+        private void allocate(int capacity) {
+            keys = new long[capacity];
+            newest = new int[capacity];
+            counts = new char[capacity * buckets];
+            used = 0;
+        }
+
+        void increment(long key, long bucket) {
+            lock.lock();
+            try {
+                int slot = findOrInsert(key, bucket);
+                if (bucket > newest[slot]) {
+                    advance(slot, bucket);
+                } else if (newest[slot] - bucket >= buckets) {
+                    return; // older than the ring, nothing to count into
+                }
+                int index = slot * buckets + (int) (bucket % buckets);
+                if (counts[index] != Character.MAX_VALUE) {
+                    counts[index]++;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        long count(long key, long windowMillis, long epochMillis) {
+            long bucket = epochMillis / bucketMillis;
+            long windowStart = epochMillis - windowMillis;
+            long first = Math.floorDiv(windowStart, bucketMillis);
+            double firstWeight = ((first + 1) * bucketMillis - windowStart) / (double) bucketMillis;
+
+            lock.lock();
+            try {
+                int slot = find(key);
+                if (slot < 0) {
+                    return 0;
+                }
+                long last = newest[slot];
+                if (bucket - last >= buckets) {
+                    return 0;
+                }
+                long oldestHeld = last - buckets + 1;
+                int base = slot * buckets;
+                long total = 0;
+                double partial = 0;
+                for (long b = Math.max(first, oldestHeld); b <= Math.min(bucket, last); b++) {
+                    char c = counts[base + (int) (b % buckets)];
+                    if (b == first && first < bucket) {
+                        partial = c * firstWeight;
+                    } else {
+                        total += c;
+                    }
+                }
+                return total + Math.round(partial);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private int find(long key) {
+            int mask = keys.length - 1;
+            for (int i = (int) key & mask; ; i = (i + 1) & mask) {
+                long k = keys[i];
+                if (k == key) {
+                    return i;
+                }
+                if (k == EMPTY) {
+                    return -1;
+                }
+            }
+        }
+
+        private int findOrInsert(long key, long bucket) {
+            int mask = keys.length - 1;
+            int reusable = -1;
+            int i = (int) key & mask;
+            for (; ; i = (i + 1) & mask) {
+                long k = keys[i];
+                if (k == key) {
+                    return i;
+                }
+                if (k == EMPTY) {
+                    break;
+                }
+                if (reusable < 0 && bucket - newest[i] >= buckets) {
+                    reusable = i;
+                }
+            }
+
+            if (reusable >= 0) {
+                keys[reusable] = key;
+                Arrays.fill(counts, reusable * buckets, (reusable + 1) * buckets, (char) 0);
+                newest[reusable] = (int) bucket;
+                return reusable;
+            }
+            if (used + 1 > keys.length * MAX_LOAD) {
+                if (keys.length < maxStripeCapacity) {
+                    rebuild(keys.length << 1, bucket);
+                } else {
+                    // Expired keys are left to the sweep; rebuilding here would cost a full pass per new key.
+                    remove(leastRecent((int) key & mask));
+                    evicted.increment();
+                }
+                return findOrInsert(key, bucket);
+            }
+            keys[i] = key;
+            newest[i] = (int) bucket;
+            used++;
+            return i;
+        }
+
+        /**
+         * Of the first {@link #EVICTION_CANDIDATES} keys from {@code slot} on, the one counted
+         * least recently.
+         */
+        private int leastRecent(int slot) {
+            int mask = keys.length - 1;
+            int oldest = -1;
+            for (int seen = 0, i = slot; seen < EVICTION_CANDIDATES; i = (i + 1) & mask) {
+                if (keys[i] != EMPTY) {
+                    if (oldest < 0 || newest[i] < newest[oldest]) {
+                        oldest = i;
+                    }
+                    seen++;
+                }
+            }
+            return oldest;
+        }
+
+        /**
+         * Empties {@code slot}, shifting later keys of its probe run back so lookups still reach
+         * them.
+         */
+        private void remove(int slot) {
+            int mask = keys.length - 1;
+            int hole = slot;
+            for (int i = (hole + 1) & mask; keys[i] != EMPTY; i = (i + 1) & mask) {
+                int home = (int) keys[i] & mask;
+                if (((i - home) & mask) >= ((i - hole) & mask)) {
+                    keys[hole] = keys[i];
+                    newest[hole] = newest[i];
+                    System.arraycopy(counts, i * buckets, counts, hole * buckets, buckets);
+                    hole = i;
+                }
+            }
+            keys[hole] = EMPTY;
+            newest[hole] = 0;
+            Arrays.fill(counts, hole * buckets, (hole + 1) * buckets, (char) 0);
+            used--;
+        }
+
+        private void advance(int slot, long bucket) {
+            long last = newest[slot];
+            int base = slot * buckets;
+            if (bucket - last >= buckets) {
+                Arrays.fill(counts, base, base + buckets, (char) 0);
+            } else {
+                for (long b = last + 1; b <= bucket; b++) {
+                    counts[base + (int) (b % buckets)] = 0;
+                }
+            }
+            newest[slot] = (int) bucket;
+        }
+
+        /**
+         * Rehashes live keys into fresh tables of {@code capacity} slots, dropping keys that
+         * expired by {@code bucket}. Must hold the lock.
+         */
+        void rebuild(int capacity, long bucket) {
+            long[] oldKeys = keys;
+            int[] oldNewest = newest;
+            char[] oldCounts = counts;
+            allocate(capacity);
+
+            int mask = capacity - 1;
+            int live = 0;
+            for (int slot = 0; slot < oldKeys.length; slot++) {
+                long key = oldKeys[slot];
+                if (key == EMPTY || bucket - oldNewest[slot] >= buckets) {
+                    continue;
+                }
+                int i = (int) key & mask;
+                while (keys[i] != EMPTY) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = key;
+                newest[i] = oldNewest[slot];
+                System.arraycopy(oldCounts, slot * buckets, counts, i * buckets, buckets);
+                live++;
+            }
+            used = live;
+        }
+    }
+}
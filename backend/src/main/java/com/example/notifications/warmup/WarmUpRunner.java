@@ -0,0 +1,233 @@
+package com.example.notifications.warmup;
+
+import com.example.notifications.lists.NamedListRegistry;
+import com.example.notifications.loadgen.PayloadTemplate;
+import com.example.notifications.loadgen.TemplateSet;
+import com.example.notifications.metrics.PipelineMetrics;
+import com.example.notifications.model.Application;
+import com.example.notifications.regex.RegexEngine;
+import com.example.notifications.ruleset.RuleSet;
+import com.example.notifications.ruleset.RuleSetCache;
+import com.example.notifications.service.Decision;
+import com.example.notifications.service.DecisionEngine;
+import com.example.notifications.service.EvaluationStrategy;
+import com.example.notifications.service.RiskScoring;
+import com.example.notifications.service.RuleEvaluator;
+import com.example.notifications.velocity.VelocityStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Runs synthetic applications through deserialization and rule evaluation before the node
+ * takes traffic, so the hot paths are JIT-compiled when the first real application arrives.
+ *
+ * Warm-up is a lifecycle phase ahead of the web server and the Kafka listener containers. The
+ * node joins the {@code fraud-gateway} and {@code event-router} groups, and its readiness
+ * probe answers, only after warm-up ends. Each application takes the consumer's path up to the
+ * decision:
+ * <ul>
+ *   <li>JSON bytes through the listener's {@link JsonDeserializer}</li>
+ *   <li>the live rule set, evaluated by a {@link DecisionEngine} with its own
+ *       {@link RuleEvaluator}, metrics registry and velocity store</li>
+ *   <li>the routed message through the {@link JsonSerializer}</li>
+ * </ul>
+ * Nothing is sent or audited, and live metrics and velocity windows are untouched.
+ *
+ * Applications come from {@code fraud.warmup.corpus} if set: NDJSON with one application
+ * payload per line, for example records captured from {@code applications.events}. Otherwise
+ * they come from the load generator's application templates. Warm-up runs in batches. It ends
+ * once the throughput of the last {@value #STABLE_BATCHES} batches varies by at most
+ * {@code tolerance}, or at {@code max-duration}.
+ */
+@Component
+public class WarmUpRunner implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(WarmUpRunner.class);
+
+    /**
+     * Before the web server and the Kafka listener containers start.
+     */
+    static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+
+    private static final int STABLE_BATCHES = 3;
+    private static final String TOPIC = "applications.events";
+
+    private final RuleSetCache ruleSetCache;
+    private final NamedListRegistry namedLists;
+    private final RegexEngine regexEngine;
+    private final VelocityStore velocityStore;
+    private final RiskScoring riskScoring;
+    private final EvaluationStrategy strategy;
+    private final boolean enabled;
+    private final String corpus;
+    private final int batchSize;
+    private final int minBatches;
+    private final Duration maxDuration;
+    private final double tolerance;
+    private volatile boolean running;
+
+    public WarmUpRunner(
+            RuleSetCache ruleSetCache,
+            NamedListRegistry namedLists,
+            RegexEngine regexEngine,
+            VelocityStore velocityStore,
+            RiskScoring riskScoring,
+            @Value("${fraud.evaluation.strategy:ALL}") EvaluationStrategy strategy,
+            @Value("${fraud.warmup.enabled:false}") boolean enabled,
+            @Value("${fraud.warmup.corpus:}") String corpus,
+            @Value("${fraud.warmup.batch-size:500}") int batchSize,
+            @Value("${fraud.warmup.min-batches:10}") int minBatches,
+            @Value("${fraud.warmup.max-duration:30s}") Duration maxDuration,
+            @Value("${fraud.warmup.tolerance:0.1}") double tolerance) {
+        this.ruleSetCache = ruleSetCache;
+        this.namedLists = namedLists;
+        this.regexEngine = regexEngine;
+        this.velocityStore = velocityStore;
+        this.riskScoring = riskScoring;
+        this.strategy = strategy;
+        this.enabled = enabled;
+        this.corpus = corpus;
+        this.batchSize = Math.max(1, batchSize);
+        this.minBatches = Math.max(STABLE_BATCHES, minBatches);
+        this.maxDuration = maxDuration;
+        this.tolerance = tolerance;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        if (!enabled) {
+            return;
+        }
+        try {
+            warmUp();
+        } catch (Exception e) {
+            log.warn("Warm-up aborted, starting consumers cold: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    private void warmUp() throws IOException {
+        Supplier<Map<String, Object>> payloads = payloads();
+        RuleSet rules = ruleSetCache.current();
+        MeterRegistry scratch = new SimpleMeterRegistry();
+        VelocityStore warmUpVelocity = velocityStore.emptyCopy(100_000, scratch);
+        RuleEvaluator evaluator = new RuleEvaluator(new PipelineMetrics(scratch, 0), warmUpVelocity, namedLists,
+            regexEngine, event -> { });
+        DecisionEngine engine = new DecisionEngine(evaluator, warmUpVelocity, null, strategy, riskScoring);
+
+        try (JsonSerializer<Object> serializer = new JsonSerializer<>();
+             JsonDeserializer<Object> deserializer = new JsonDeserializer<>()) {
+            deserializer.configure(Map.of(
+                JsonDeserializer.TRUSTED_PACKAGES, "*",
+                JsonDeserializer.VALUE_DEFAULT_TYPE, "java.util.HashMap"), false);
+
+            long start = System.nanoTime();
+            long deadline = start + maxDuration.toNanos();
+            List<Double> rates = new ArrayList<>();
+            long applications = 0;
+            long routedBytes = 0;
+            while (System.nanoTime() < deadline && !stable(rates)) {
+                long batchStart = System.nanoTime();
+                for (int i = 0; i < batchSize; i++) {
+                    routedBytes += process(payloads.get(), rules, engine, serializer, deserializer);
+                }
+                applications += batchSize;
+                rates.add(batchSize * 1e9 / (System.nanoTime() - batchStart));
+            }
+            double last = rates.isEmpty() ? 0 : rates.get(rates.size() - 1);
+            log.info("Warm-up {} after {} applications in {} ms: {} apps/s (first batch {} apps/s), {} rules, {} routed bytes",
+                stable(rates) ? "stabilized" : "hit max-duration", applications, (System.nanoTime() - start) / 1_000_000,
+                Math.round(last), rates.isEmpty() ? 0 : Math.round(rates.get(0)), rules.size(), routedBytes);
+        }
+    }
+
+    /**
+     * Takes one application from JSON bytes to its serialized routed message and returns the
+     * message size, so the work cannot be optimized away.
+     */
+    @SuppressWarnings("unchecked")
+    private int process(Map<String, Object> payload, RuleSet rules, DecisionEngine engine,
+                        JsonSerializer<Object> serializer, JsonDeserializer<Object> deserializer) {
+        byte[] bytes = serializer.serialize(TOPIC, payload);
+        Map<String, Object> received = (Map<String, Object>) deserializer.deserialize(TOPIC, bytes);
+        Application application = Application.fromKafkaMessage(TOPIC, received);
+        Decision decision = engine.decide(application, rules.forApplication(application.type(), application.sourceSystem()));
+
+        Map<String, Object> message = new HashMap<>(application.data());
+        message.put("_applicationId", application.id());
+        message.put("_processedAt", Instant.now().toString());
+        decision.score().attachTo(message);
+        return serializer.serialize(decision.outcome(), message).length;
+    }
+
+    private boolean stable(List<Double> rates) {
+        if (rates.size() < minBatches) {
+            return false;
+        }
+        double min = Double.MAX_VALUE;
+        double max = 0;
+        for (double rate : rates.subList(rates.size() - STABLE_BATCHES, rates.size())) {
+            min = Math.min(min, rate);
+            max = Math.max(max, rate);
+        }
+        return max - min <= tolerance * max;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Supplier<Map<String, Object>> payloads() throws IOException {
+        if (!corpus.isBlank()) {
+            ObjectMapper mapper = new ObjectMapper();
+            List<Map<String, Object>> recorded = new ArrayList<>();
+            for (String line : Files.readAllLines(Path.of(corpus))) {
+                if (!line.isBlank()) {
+                    recorded.add(mapper.readValue(line, Map.class));
+                }
+            }
+            if (recorded.isEmpty()) {
+                throw new IOException("Warm-up corpus " + corpus + " is empty");
+            }
+            log.info("Warming up with {} recorded applications from {}", recorded.size(), corpus);
+            int[] next = {0};
+            return () -> recorded.get(next[0]++ % recorded.size());
+        }
+        List<PayloadTemplate> templates = TemplateSet.defaults().templates().stream()
+            .filter(t -> t.topic().equals(TOPIC))
+            .toList();
+        TemplateSet applications = new TemplateSet(templates);
+        return () -> applications.pick().nextPayload();
+    }
+}
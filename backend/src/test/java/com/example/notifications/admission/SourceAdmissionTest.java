@@ -0,0 +1,181 @@
+package com.example.notifications.admission;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.support.SendResult;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SourceAdmissionTest {
+
+    private final SpillTemplate spill = new SpillTemplate();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final List<String> processed = new ArrayList<>();
+
+    @Test
+    void failureMidPollFinishesEarlierRecordsAndNamesTheFailedOne() {
+        SourceAdmission admission = admission("web:0:0:3");
+        // Weighted fair order: web-3, web-4 (fails), busy-0, web-5, busy-1, busy-2.
+        List<ConsumerRecord<String, Map<String, Object>>> poll =
+            poll("busy", "busy", "busy", "web", "web", "web");
+
+        assertThatThrownBy(() -> admission.schedule(poll, processor("APP-4")))
+            .isInstanceOfSatisfying(BatchListenerFailedException.class,
+                e -> assertThat(e.getIndex()).isEqualTo(4));
+        assertThat(processed).containsExactly("APP-3", "APP-4", "APP-0", "APP-1", "APP-2");
+        assertThat(spill.sent).isEmpty();
+    }
+
+    @Test
+    void failedSpillSendBeforeTheFailedRecordIsTheOneRedelivered() {
+        SourceAdmission admission = admission("busy:1:1:1");
+        spill.failing.add("APP-1");
+        List<ConsumerRecord<String, Map<String, Object>>> poll = poll("busy", "busy", "web", "web");
+
+        assertThatThrownBy(() -> admission.schedule(poll, processor("APP-2")))
+            .isInstanceOfSatisfying(BatchListenerFailedException.class, e -> {
+                assertThat(e.getIndex()).isEqualTo(1);
+                assertThat(e.getCause()).hasRootCauseInstanceOf(KafkaException.class);
+            });
+        assertThat(processed).containsExactly("APP-0", "APP-2");
+        assertThat(spill.sent).extracting(r -> (Object) ((Map<?, ?>) r.value()).get("id")).containsExactly("APP-1");
+    }
+
+    @Test
+    void failedSpillSendAfterTheFailedRecordIsRedeliveredWithIt() {
+        SourceAdmission admission = admission("busy:1:1:1");
+        spill.failing.add("APP-2");
+        List<ConsumerRecord<String, Map<String, Object>>> poll = poll("web", "busy", "busy");
+
+        assertThatThrownBy(() -> admission.schedule(poll, processor("APP-0")))
+            .isInstanceOfSatisfying(BatchListenerFailedException.class, e -> {
+                assertThat(e.getIndex()).isEqualTo(0);
+                assertThat(e.getCause()).isInstanceOf(IllegalStateException.class);
+            });
+        assertThat(processed).containsExactly("APP-0");
+    }
+
+    @Test
+    void sourceOverItsBucketIsDeferredUntilTheBucketRefills() throws InterruptedException {
+        SourceAdmission admission = admission("busy:10:5:1");
+
+        admission.schedule(poll("busy", "busy", "busy", "busy", "busy", "busy", "busy", "busy"), processor(null));
+        assertThat(processed).hasSize(5);
+        assertThat(spill.sent).hasSize(3);
+
+        processed.clear();
+        admission.schedule(poll("busy", "busy"), processor(null));
+        assertThat(processed).isEmpty();
+
+        // 600 ms at 10 per second refill 6 tokens, capped at the burst of 5.
+        Thread.sleep(600);
+        admission.schedule(poll("busy", "busy", "busy", "busy", "busy", "busy", "busy", "busy"), processor(null));
+        assertThat(processed).hasSize(5);
+        assertThat(registry.get("fraud.admission.admitted").tag("source", "busy").counter().count()).isEqualTo(10);
+        assertThat(registry.get("fraud.admission.deferred").tag("source", "busy").counter().count()).isEqualTo(8);
+    }
+
+    @Test
+    void deferredRecordsKeepTheirTimestampAndOriginalPosition() {
+        SourceAdmission admission = admission("busy:1:1:1");
+        ConsumerRecord<String, Map<String, Object>> record = new ConsumerRecord<>("applications.events", 2, 41L,
+            1_700_000_000_000L, TimestampType.CREATE_TIME, 0, 0, "key", Map.of("id", "APP-1", "source", "busy"),
+            new RecordHeaders(), Optional.empty());
+
+        admission.schedule(List.of(poll("busy").get(0), record), processor(null));
+
+        ProducerRecord<String, Object> sent = spill.sent.get(0);
+        assertThat(sent.topic()).isEqualTo("applications.deferred");
+        assertThat(sent.timestamp()).isEqualTo(1_700_000_000_000L);
+        assertThat(header(sent, "fraud-origin-topic")).isEqualTo("applications.events");
+        assertThat(header(sent, "fraud-origin-partition")).isEqualTo("2");
+        assertThat(header(sent, "fraud-origin-offset")).isEqualTo("41");
+    }
+
+    @Test
+    void rejectsSpillRatesThatCannotFinishAPollWithinTheInterval() {
+        assertThatThrownBy(() -> new SourceAdmission(spill, registry, 0, 0, 1, List.of(), 100,
+            "applications.deferred", 3, 0.001, Duration.ofMinutes(5)))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("fraud.admission.spill-rate");
+
+        SourceAdmission slow = new SourceAdmission(spill, registry, 0, 0, 1, List.of(), 100,
+            "applications.deferred", 3, 1, Duration.ofMinutes(5));
+        assertThat(slow.spillMaxPollRecords()).isEqualTo(150);
+        assertThat(admission("web:0:0:1").spillMaxPollRecords()).isEqualTo(500);
+    }
+
+    private SourceAdmission admission(String sourceLimit) {
+        return new SourceAdmission(spill, registry, 0, 0, 1, List.of(sourceLimit), 100,
+            "applications.deferred", 3, 100, Duration.ofMinutes(5));
+    }
+
+    private static List<ConsumerRecord<String, Map<String, Object>>> poll(String... sources) {
+        List<ConsumerRecord<String, Map<String, Object>>> records = new ArrayList<>();
+        for (int i = 0; i < sources.length; i++) {
+            records.add(new ConsumerRecord<>("applications.events", 0, i, "key",
+                Map.of("id", "APP-" + i, "source", sources[i])));
+        }
+        return records;
+    }
+
+    /**
+     * Records the ids it is given and fails on {@code failingId}.
+     */
+    private Consumer<ConsumerRecord<String, Map<String, Object>>> processor(String failingId) {
+        return record -> {
+            String id = (String) record.value().get("id");
+            processed.add(id);
+            if (id.equals(failingId)) {
+                throw new IllegalStateException("Fraud detection failed for " + id);
+            }
+        };
+    }
+
+    private static String header(ProducerRecord<String, Object> record, String name) {
+        return new String(record.headers().lastHeader(name).value(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Records spill-over sends instead of producing them; sends of the ids in {@code failing}
+     * complete exceptionally.
+     */
+    private static final class SpillTemplate extends KafkaTemplate<String, Object> {
+
+        final List<ProducerRecord<String, Object>> sent = new ArrayList<>();
+        final Set<Object> failing = new HashSet<>();
+
+        SpillTemplate() {
+            super(new DefaultKafkaProducerFactory<>(Map.of()));
+        }
+
+        @Override
+        public CompletableFuture<SendResult<String, Object>> send(ProducerRecord<String, Object> record) {
+            sent.add(record);
+            if (failing.contains(((Map<?, ?>) record.value()).get("id"))) {
+                return CompletableFuture.failedFuture(new KafkaException("Spill-over topic unavailable"));
+            }
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.example.notifications.backtest;
+
+import com.example.notifications.backtest.BacktestReport.ChangedDecision;
+import com.example.notifications.backtest.BacktestReport.Overlap;
+import com.example.notifications.backtest.BacktestReport.RuleChange;
+import com.example.notifications.backtest.BacktestReport.RuleResult;
+import com.example.notifications.entity.FraudRule;
+import com.example.notifications.entity.RuleAction;
+import com.example.notifications.entity.RuleOperator;
+import com.example.notifications.lists.NamedListRegistry;
+import com.example.notifications.regex.RegexEngine;
+import com.example.notifications.service.EvaluationStrategy;
+import com.example.notifications.service.RiskScoring;
+import com.example.notifications.velocity.VelocityStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class BacktesterTest {
+
+    // One application per line: unchanged FLAG, BLOCK -> CLEAN, CLEAN -> BLOCK, ROUTE -> CLEAN,
+    // FLAG matched by the new rule as well, then an unreadable and a blank line.
+    private static final List<String> LINES = List.of(
+        "{\"id\": \"a1\", \"type\": \"LOAN\", \"country\": \"NG\"}",
+        "{\"id\": \"a2\", \"type\": \"LOAN\", \"email\": \"bad\"}",
+        "{\"id\": \"a3\", \"type\": \"LOAN\", \"email\": \"evil\"}",
+        "{\"id\": \"a4\", \"type\": \"LOAN\", \"channel\": \"web\"}",
+        "{\"id\": \"a5\", \"type\": \"LOAN\", \"amount\": \"big\", \"country\": \"NG\"}",
+        "not an application",
+        "");
+
+    @TempDir
+    Path dir;
+
+    private Backtester backtester;
+
+    // Current rules in priority order: FLAG on country, BLOCK on email, ROUTE on channel.
+    private final FraudRule country = rule(1L, 10, RuleAction.FLAG, "country", "NG");
+    private final FraudRule email = rule(2L, 20, RuleAction.BLOCK, "email", "bad");
+    private final FraudRule channel = rule(3L, 30, RuleAction.ROUTE, "channel", "web");
+    private final List<FraudRule> current = List.of(country, email, channel);
+
+    @BeforeEach
+    void setUp() throws IOException {
+        backtester = new Backtester(new NamedListRegistry(dir.resolve("lists")), new RegexEngine(100_000),
+            new VelocityStore(120, 31, 4, 10_000, new SimpleMeterRegistry()), new RiskScoring(50, 100), 2, 10_000);
+    }
+
+    @Test
+    void proposedRulesAreLaidOverTheCurrentOnes() {
+        FraudRule editedEmail = rule(2L, 20, RuleAction.BLOCK, "email", "evil");
+        FraudRule removedChannel = rule(3L, 30, RuleAction.ROUTE, "channel", "web");
+        removedChannel.setEnabled(false);
+        FraudRule added = rule(null, 5, RuleAction.FLAG, "amount", "big");
+        added.setShadow(true);
+        FraudRule alsoAdded = rule(null, 40, RuleAction.FLAG, "amount", "huge");
+
+        List<FraudRule> candidate = Backtester.candidateRules(current,
+            List.of(editedEmail, removedChannel, added, alsoAdded), false);
+
+        assertThat(candidate).containsExactly(added, country, editedEmail, alsoAdded);
+        assertThat(added.getId()).isEqualTo(-1L);
+        assertThat(alsoAdded.getId()).isEqualTo(-2L);
+        // A proposed shadow rule is backtested as a live rule.
+        assertThat(added.isShadow()).isFalse();
+    }
+
+    @Test
+    void replaceKeepsOnlyTheEnabledProposedRules() {
+        FraudRule editedEmail = rule(2L, 20, RuleAction.BLOCK, "email", "evil");
+        FraudRule disabled = rule(null, 5, RuleAction.FLAG, "amount", "big");
+        disabled.setEnabled(false);
+
+        assertThat(Backtester.candidateRules(current, List.of(disabled, editedEmail), true))
+            .containsExactly(editedEmail);
+        assertThat(Backtester.candidateRules(current, List.of(), true)).isEmpty();
+    }
+
+    @Test
+    void disabledCurrentRulesAreNotCandidates() {
+        FraudRule disabled = rule(4L, 1, RuleAction.BLOCK, "country", "NG");
+        disabled.setEnabled(false);
+
+        assertThat(Backtester.candidateRules(List.of(country, disabled), List.of(), false))
+            .containsExactly(country);
+    }
+
+    @Test
+    void countsOutcomesTransitionsAndPerRuleDiffs() throws IOException {
+        Path input = Files.write(dir.resolve("applications.ndjson"), LINES, StandardCharsets.UTF_8);
+        Backtester.Progress progress = new Backtester.Progress();
+
+        BacktestReport report = backtester.run(current, candidate(), input, EvaluationStrategy.ALL, null, progress);
+
+        assertThat(report.complete()).isTrue();
+        assertThat(report.records()).isEqualTo(5);
+        assertThat(report.unreadable()).isEqualTo(1);
+        assertThat(progress.records()).isEqualTo(6);
+        assertThat(progress.bytesRead()).isEqualTo(Files.size(input));
+        assertThat(report.currentRules()).isEqualTo(3);
+        assertThat(report.candidateRules()).isEqualTo(3);
+        assertThat(report.currentOutcomes())
+            .containsExactly(Map.entry("CLEAN", 1L), Map.entry("ROUTE", 1L), Map.entry("BLOCK", 1L), Map.entry("FLAG", 2L));
+        assertThat(report.candidateOutcomes())
+            .containsExactly(Map.entry("CLEAN", 2L), Map.entry("BLOCK", 1L), Map.entry("FLAG", 2L));
+        assertThat(report.changedDecisions()).isEqualTo(3);
+        assertThat(report.transitions()).containsExactly(
+            Map.entry("BLOCK->CLEAN", 1L), Map.entry("ROUTE->CLEAN", 1L), Map.entry("CLEAN->BLOCK", 1L));
+        assertThat(report.changedSamples()).containsExactly(
+            new ChangedDecision("a2", "BLOCK", "CLEAN", List.of()),
+            new ChangedDecision("a3", "CLEAN", "BLOCK", List.of(2L)),
+            new ChangedDecision("a4", "ROUTE", "CLEAN", List.of()));
+
+        assertThat(report.rules())
+            .extracting(RuleResult::ruleId, RuleResult::change, RuleResult::currentHits, RuleResult::candidateHits,
+                RuleResult::alreadyMatchedByCurrent, RuleResult::exclusiveHits)
+            .containsExactly(
+                tuple(-1L, RuleChange.NEW, 0L, 1L, 1L, 0L),
+                tuple(1L, RuleChange.UNCHANGED, 2L, 2L, 2L, 1L),
+                tuple(2L, RuleChange.CHANGED, 1L, 1L, 0L, 1L),
+                tuple(3L, RuleChange.REMOVED, 1L, 0L, 0L, 0L));
+        RuleResult added = report.rules().get(0);
+        assertThat(added.candidateHitRate()).isEqualTo(0.2);
+        assertThat(added.topOverlaps()).containsExactly(new Overlap(1L, "rule-1", 1));
+        // Overlaps are only reported for new and changed rules.
+        assertThat(report.rules().get(1).topOverlaps()).isEmpty();
+    }
+
+    @Test
+    void gzippedInputIsReadLikePlainInput() throws IOException {
+        Path input = dir.resolve("applications.ndjson.gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(input))) {
+            out.write(String.join("\n", LINES).getBytes(StandardCharsets.UTF_8));
+        }
+
+        BacktestReport report = backtester.run(current, candidate(), input, EvaluationStrategy.ALL, null,
+            new Backtester.Progress());
+
+        assertThat(report.records()).isEqualTo(5);
+        assertThat(report.changedDecisions()).isEqualTo(3);
+    }
+
+    @Test
+    void cancelledRunReturnsAPartialReport() throws IOException {
+        Path input = Files.write(dir.resolve("applications.ndjson"), LINES, StandardCharsets.UTF_8);
+        Backtester.Progress progress = new Backtester.Progress();
+        progress.cancel();
+
+        BacktestReport report = backtester.run(current, candidate(), input, EvaluationStrategy.ALL, null, progress);
+
+        assertThat(report.complete()).isFalse();
+        assertThat(report.records()).isZero();
+        assertThat(report.currentOutcomes()).containsExactly(Map.entry("CLEAN", 0L));
+    }
+
+    @Test
+    void timeFieldSetsTheReceiveTime() {
+        assertThat(Backtester.application(Map.of("id", "a1", "at", 1_000L), "at").receivedAt().toEpochMilli())
+            .isEqualTo(1_000L);
+        assertThat(Backtester.application(Map.of("id", "a1", "at", "1970-01-01T00:00:02Z"), "at").receivedAt()
+            .toEpochMilli()).isEqualTo(2_000L);
+    }
+
+    /**
+     * The current rules with the email rule edited, the channel rule removed and a new FLAG rule
+     * on amount ahead of them all.
+     */
+    private List<FraudRule> candidate() {
+        FraudRule removedChannel = rule(3L, 30, RuleAction.ROUTE, "channel", "web");
+        removedChannel.setEnabled(false);
+        return Backtester.candidateRules(current, List.of(
+            rule(2L, 20, RuleAction.BLOCK, "email", "evil"),
+            removedChannel,
+            rule(null, 5, RuleAction.FLAG, "amount", "big")), false);
+    }
+
+    /**
+     * An EQUALS rule on {@code field}.
+     */
+    private static FraudRule rule(Long id, int priority, RuleAction action, String field, String value) {
+        FraudRule rule = new FraudRule();
+        rule.setId(id);
+        rule.setName("rule-" + id);
+        rule.setPriority(priority);
+        rule.setFieldPath(field);
+        rule.setOperator(RuleOperator.EQUALS);
+        rule.setValue(value);
+        rule.setActionType(action);
+        return rule;
+    }
+}
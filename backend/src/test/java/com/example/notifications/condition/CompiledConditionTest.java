@@ -0,0 +1,216 @@
+package com.example.notifications.condition;
+
+import com.example.notifications.condition.Condition.All;
+import com.example.notifications.condition.Condition.Any;
+import com.example.notifications.condition.Condition.Not;
+import com.example.notifications.condition.Condition.Predicate;
+import com.example.notifications.entity.RuleOperator;
+import com.example.notifications.model.Application;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CompiledConditionTest {
+
+    private final List<String> tested = new ArrayList<>();
+
+    /**
+     * EQUALS compares the field's string value, IS_NULL checks for its absence, REGEX matches
+     * the whole value; every call is recorded in {@link #tested}.
+     */
+    private final CompiledCondition.PredicateTester tester = (predicate, application) -> {
+        tested.add(predicate.field());
+        Object value = application.data().get(predicate.field());
+        return switch (predicate.operator()) {
+            case IS_NULL -> value == null;
+            case REGEX -> value != null && value.toString().matches(predicate.value());
+            default -> predicate.value().equals(String.valueOf(value));
+        };
+    };
+
+    @Test
+    void parsesNestedGroupsAndPredicates() {
+        Condition condition = ConditionParser.parse("""
+            {"all": [ {"field": "amount", "op": "GREATER_THAN", "value": "5000"},
+                      {"any": [ {"field": "country", "operator": "IN_LIST", "value": "NG,BR"},
+                                {"not": {"field": "phone", "op": "IS_NOT_NULL"}} ]},
+                      {"field": "email", "op": "VELOCITY_EXCEEDS", "value": "3", "windowSeconds": 600} ]}
+            """);
+
+        assertThat(condition).isEqualTo(new All(List.of(
+            new Predicate("amount", RuleOperator.GREATER_THAN, "5000", null),
+            new Any(List.of(
+                new Predicate("country", RuleOperator.IN_LIST, "NG,BR", null),
+                new Not(new Predicate("phone", RuleOperator.IS_NOT_NULL, null, null)))),
+            new Predicate("email", RuleOperator.VELOCITY_EXCEEDS, "3", 600))));
+        List<String> fields = new ArrayList<>();
+        ConditionParser.forEachPredicate(condition, p -> fields.add(p.field()));
+        assertThat(fields).containsExactly("amount", "country", "phone", "email");
+    }
+
+    @Test
+    void rejectsInvalidTreesWithThePathOfTheOffendingNode() {
+        assertThatThrownBy(() -> ConditionParser.parse("{\"all\": ["))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageStartingWith("Condition tree is not valid JSON");
+        assertThatThrownBy(() -> ConditionParser.parse("{\"any\": []}"))
+            .hasMessage("$.any: expected a non-empty array");
+        assertThatThrownBy(() -> ConditionParser.parse("{\"all\": [{\"field\": \"a\", \"op\": \"LIKE\", \"value\": \"x\"}]}"))
+            .hasMessage("$.all[0]: unknown operator 'LIKE'");
+        assertThatThrownBy(() -> ConditionParser.parse("{\"not\": {\"field\": \"a\", \"op\": \"EQUALS\"}}"))
+            .hasMessage("$.not: operator EQUALS needs a value");
+        assertThatThrownBy(() -> ConditionParser.parse("{\"not\": {\"op\": \"IS_NULL\"}}"))
+            .hasMessage("$.not: predicate needs a field");
+    }
+
+    @Test
+    void rejectsTreesBeyondTheDepthAndNodeLimits() {
+        String deep = "{\"not\": ".repeat(ConditionParser.MAX_DEPTH) + "{\"field\": \"a\", \"op\": \"IS_NULL\"}"
+            + "}".repeat(ConditionParser.MAX_DEPTH);
+        assertThatThrownBy(() -> ConditionParser.parse(deep))
+            .hasMessageContaining("condition tree deeper than " + ConditionParser.MAX_DEPTH);
+
+        assertThatThrownBy(() -> ConditionParser.parse(group("any", ConditionParser.MAX_NODES)))
+            .hasMessage("Condition tree has more than " + ConditionParser.MAX_NODES + " nodes");
+        assertThat(ConditionParser.parse(group("any", ConditionParser.MAX_NODES - 1))).isInstanceOf(Any.class);
+    }
+
+    @Test
+    void evaluatesGroupsAndNegation() {
+        CompiledCondition condition = CompiledCondition.compile("""
+            {"all": [ {"field": "country", "op": "EQUALS", "value": "NG"},
+                      {"any": [ {"field": "channel", "op": "EQUALS", "value": "web"},
+                                {"not": {"field": "phone", "op": "IS_NULL"}} ]} ]}
+            """);
+
+        assertThat(condition.evaluate(application(Map.of("country", "NG", "channel", "web")), tester)).isTrue();
+        assertThat(condition.evaluate(application(Map.of("country", "NG", "phone", "+234")), tester)).isTrue();
+        assertThat(condition.evaluate(application(Map.of("country", "NG", "channel", "app")), tester)).isFalse();
+        assertThat(condition.evaluate(application(Map.of("country", "BR", "channel", "web")), tester)).isFalse();
+    }
+
+    @Test
+    void groupsStopAtTheFirstDecisiveChild() {
+        CompiledCondition all = CompiledCondition.compile(
+            "{\"all\": [{\"field\": \"a\", \"op\": \"EQUALS\", \"value\": \"1\"},"
+                + " {\"field\": \"b\", \"op\": \"EQUALS\", \"value\": \"1\"}]}");
+        CompiledCondition any = CompiledCondition.compile(
+            "{\"any\": [{\"field\": \"a\", \"op\": \"EQUALS\", \"value\": \"1\"},"
+                + " {\"field\": \"b\", \"op\": \"EQUALS\", \"value\": \"1\"}]}");
+
+        assertThat(all.evaluate(application(Map.of("a", "0", "b", "1")), tester)).isFalse();
+        assertThat(tested).containsExactly("a");
+        tested.clear();
+        assertThat(any.evaluate(application(Map.of("a", "1", "b", "0")), tester)).isTrue();
+        assertThat(tested).containsExactly("a");
+    }
+
+    @Test
+    void cheapPredicatesStartAheadOfExpensiveOnes() {
+        CompiledCondition condition = CompiledCondition.compile("""
+            {"all": [ {"field": "email", "op": "REGEX", "value": ".*@example[.]com"},
+                      {"field": "country", "op": "IN_LIST", "value": "NG,BR"},
+                      {"field": "channel", "op": "EQUALS", "value": "web"} ]}
+            """);
+
+        // Static per-operator estimates until measurements come in.
+        assertThat(order(condition)).containsExactly("channel", "country", "email");
+    }
+
+    @Test
+    void selectiveChildrenMoveFirstAfterTheReorderInterval() {
+        CompiledCondition condition = CompiledCondition.compile("""
+            {"all": [ {"field": "common", "op": "EQUALS", "value": "1"},
+                      {"field": "rare", "op": "EQUALS", "value": "1"} ]}
+            """);
+        Application application = application(Map.of("common", "1", "rare", "0"));
+
+        for (int i = 0; i < CompiledCondition.REORDER_INTERVAL; i++) {
+            condition.evaluate(application, tester);
+        }
+        assertThat(order(condition)).containsExactly("common", "rare");
+
+        // "common" always passes, so "rare", which fails every time, decides the group sooner.
+        condition.evaluate(application, tester);
+        assertThat(order(condition)).containsExactly("rare", "common");
+        tested.clear();
+        condition.evaluate(application, tester);
+        assertThat(tested).containsExactly("rare");
+    }
+
+    @Test
+    void largeGroupsReorderWhileOtherThreadsEvaluate() throws InterruptedException {
+        CompiledCondition condition = CompiledCondition.compile(group("any", 64));
+        CompiledCondition.PredicateTester random = (predicate, application) ->
+            ThreadLocalRandom.current().nextInt(64) == 0;
+        List<Throwable> failures = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    Application application = application(Map.of());
+                    for (int i = 0; i < 50 * CompiledCondition.REORDER_INTERVAL; i++) {
+                        condition.evaluate(application, random);
+                    }
+                } catch (Throwable e) {
+                    synchronized (failures) {
+                        failures.add(e);
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(failures).isEmpty();
+        assertThat(order(condition)).hasSize(64).doesNotHaveDuplicates();
+    }
+
+    @Test
+    void collectsVelocityFields() {
+        CompiledCondition condition = CompiledCondition.compile("""
+            {"any": [ {"field": "applicant.email", "op": "VELOCITY_EXCEEDS", "value": "3", "windowSeconds": 60},
+                      {"not": {"field": "applicant.deviceId", "op": "VELOCITY_EXCEEDS", "value": "5"}},
+                      {"field": "amount", "op": "GREATER_THAN", "value": "10"} ]}
+            """);
+
+        assertThat(condition.velocityFields()).containsExactlyInAnyOrder("applicant.email", "applicant.deviceId");
+    }
+
+    /**
+     * A group of {@code children} EQUALS predicates on distinct fields.
+     */
+    private static String group(String kind, int children) {
+        List<String> predicates = new ArrayList<>();
+        for (int i = 0; i < children; i++) {
+            predicates.add("{\"field\": \"f" + i + "\", \"op\": \"EQUALS\", \"value\": \"1\"}");
+        }
+        return "{\"" + kind + "\": [" + String.join(", ", predicates) + "]}";
+    }
+
+    /**
+     * Fields of the top-level group's children in their current evaluation order.
+     */
+    @SuppressWarnings("unchecked")
+    private static List<String> order(CompiledCondition condition) {
+        Map<String, Object> root = condition.describe();
+        List<Map<String, Object>> children = (List<Map<String, Object>>)
+            (root.containsKey("all") ? root.get("all") : root.get("any"));
+        return children.stream().map(c -> (String) c.get("field")).toList();
+    }
+
+    private static Application application(Map<String, Object> data) {
+        return new Application("APP-1", "LOAN", "web", new HashMap<>(data), Instant.now());
+    }
+}
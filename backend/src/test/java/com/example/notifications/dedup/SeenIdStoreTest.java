@@ -0,0 +1,93 @@
+package com.example.notifications.dedup;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SeenIdStoreTest {
+
+    private static final Duration WINDOW = Duration.ofHours(1);
+    private static final long WINDOW_MILLIS = WINDOW.toMillis();
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void remembersIdsForOneWindow() throws IOException {
+        SeenIdStore store = new SeenIdStore(dir.resolve("seen.dat"), WINDOW, 1_000);
+        long now = System.currentTimeMillis();
+        long key = SeenIdStore.key("orders.events", "evt-1");
+
+        assertThat(store.contains(key, now)).isFalse();
+        store.add(key, now);
+
+        assertThat(store.contains(key, now + 1)).isTrue();
+        assertThat(store.contains(SeenIdStore.key("payments.events", "evt-1"), now + 1)).isFalse();
+        assertThat(store.contains(key, now + WINDOW_MILLIS)).isFalse();
+    }
+
+    @Test
+    void idsWithinTheWindowSurviveBloomRotation() throws IOException {
+        SeenIdStore store = new SeenIdStore(dir.resolve("seen.dat"), WINDOW, 1_000);
+        long start = System.currentTimeMillis();
+        long first = SeenIdStore.key("orders.events", "first");
+        long second = SeenIdStore.key("orders.events", "second");
+
+        store.add(first, start + WINDOW_MILLIS * 9 / 10);
+        // Rotates to the second generation; the first still holds the id.
+        assertThat(store.contains(first, start + WINDOW_MILLIS * 3 / 2)).isTrue();
+        store.add(second, start + WINDOW_MILLIS * 3 / 2);
+
+        // Rotates back, clearing the generation that held only the first id.
+        assertThat(store.contains(second, start + WINDOW_MILLIS * 21 / 10)).isTrue();
+        assertThat(store.contains(first, start + WINDOW_MILLIS * 21 / 10)).isFalse();
+    }
+
+    @Test
+    void fullProbeRunEvictsTheOldestEntry() throws IOException {
+        // 64 ids: one 32-slot probe run per stripe.
+        SeenIdStore store = new SeenIdStore(dir.resolve("seen.dat"), WINDOW, 64);
+        long now = System.currentTimeMillis();
+        long[] keys = new long[33];
+        for (int i = 0; i < keys.length; i++) {
+            // Same stripe (top 6 bits) and same first slot, so all 33 compete for one run.
+            keys[i] = (5L << 58) | (i * 32L + 1);
+            store.add(keys[i], now + i);
+        }
+
+        assertThat(store.overwritten()).isEqualTo(1);
+        assertThat(store.contains(keys[0], now + 100)).isFalse();
+        for (int i = 1; i < keys.length; i++) {
+            assertThat(store.contains(keys[i], now + 100)).as("key %d", i).isTrue();
+        }
+    }
+
+    @Test
+    void reopensTheFileWithTheSameLayout() throws IOException {
+        Path file = dir.resolve("seen.dat");
+        long now = System.currentTimeMillis();
+        long key = SeenIdStore.key("applications.events", "APP-1");
+        SeenIdStore store = new SeenIdStore(file, WINDOW, 1_000);
+        store.add(key, now);
+        store.close();
+
+        assertThat(new SeenIdStore(file, WINDOW, 1_000).contains(key, now + 1)).isTrue();
+    }
+
+    @Test
+    void startsEmptyWhenTheLayoutChanged() throws IOException {
+        Path file = dir.resolve("seen.dat");
+        long now = System.currentTimeMillis();
+        long key = SeenIdStore.key("applications.events", "APP-1");
+        SeenIdStore store = new SeenIdStore(file, WINDOW, 1_000);
+        store.add(key, now);
+        store.close();
+
+        assertThat(new SeenIdStore(file, Duration.ofMinutes(30), 1_000).contains(key, now + 1)).isFalse();
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.notifications.ids;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TimeOrderedIdGeneratorTest {
+
+    @Test
+    void idsAreVersion7WithTheVariantNodeAndMintingTime() {
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(0xbeef);
+        long before = System.currentTimeMillis();
+        UUID id = generator.next();
+        long after = System.currentTimeMillis();
+
+        assertThat(id.version()).isEqualTo(7);
+        assertThat(id.variant()).isEqualTo(2);
+        assertThat((id.getLeastSignificantBits() >>> 46) & 0xffff).isEqualTo(0xbeef);
+        // The sequence can run the timestamp ahead of the clock, but never behind it.
+        assertThat(id.getMostSignificantBits() >>> 16).isGreaterThanOrEqualTo(before);
+        assertThat(id.getMostSignificantBits() >>> 16).isLessThanOrEqualTo(after + 1);
+    }
+
+    @Test
+    void idsStayStrictlyIncreasingPastTheSequenceOfOneMillisecond() {
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(1);
+        // Far more than the 4096 ids one millisecond holds, so the sequence carries into the
+        // timestamp whenever the loop outpaces the clock.
+        UUID previous = generator.next();
+        for (int i = 0; i < 200_000; i++) {
+            UUID id = generator.next();
+            assertThat(Long.compareUnsigned(id.getMostSignificantBits(), previous.getMostSignificantBits()))
+                .isPositive();
+            assertThat(id.toString()).isGreaterThan(previous.toString());
+            assertThat(id.version()).isEqualTo(7);
+            previous = id;
+        }
+    }
+
+    @Test
+    void concurrentCallersGetUniqueIncreasingIds() throws InterruptedException {
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(2);
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        List<Thread> threads = new ArrayList<>();
+        List<Throwable> failures = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                String previous = "";
+                for (int i = 0; i < 20_000; i++) {
+                    String id = generator.nextId();
+                    if (id.compareTo(previous) <= 0 || !ids.add(id)) {
+                        synchronized (failures) {
+                            failures.add(new AssertionError(id + " after " + previous));
+                        }
+                        return;
+                    }
+                    previous = id;
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(failures).isEmpty();
+        assertThat(ids).hasSize(80_000);
+    }
+
+    @Test
+    void rejectsNodeIdsOutsideSixteenBits() {
+        assertThatThrownBy(() -> new TimeOrderedIdGenerator(-1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new TimeOrderedIdGenerator(65536)).isInstanceOf(IllegalArgumentException.class);
+        assertThat(new TimeOrderedIdGenerator(65535).next().getLeastSignificantBits() >>> 46 & 0xffff)
+            .isEqualTo(65535);
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.notifications.journal;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JournalReaderTest {
+
+    private static final int RECORDS = 300;
+
+    // Recent enough that retention keeps the sealed segments.
+    private final long base = System.currentTimeMillis() - Duration.ofHours(1).toMillis();
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void readsRecordsInTimeRangeAcrossSealedAndActiveSegments() throws IOException {
+        EventJournal journal = journal();
+        appendAll(journal, 0, RECORDS);
+        journal.flush();
+        JournalReader reader = journal.reader();
+
+        List<JournalReader.Segment> segments = reader.segments();
+        assertThat(segments).hasSizeGreaterThan(1);
+        assertThat(segments.subList(0, segments.size() - 1)).allMatch(JournalReader.Segment::sealed);
+        assertThat(segments.get(segments.size() - 1).sealed()).isFalse();
+        assertThat(segments.stream().mapToLong(JournalReader.Segment::records).sum()).isEqualTo(RECORDS);
+
+        List<JournalEntry> entries = read(reader, base + 100_000, base + 150_000, Set.of(), Long.MAX_VALUE);
+        assertThat(entries).extracting(JournalEntry::offset)
+            .containsExactlyElementsOf(range(100, 150));
+        JournalEntry first = entries.get(0);
+        assertThat(first.topic()).isEqualTo("payments.events");
+        assertThat(first.partition()).isEqualTo(1);
+        assertThat(first.timestamp()).isEqualTo(base + 100_000);
+        assertThat(first.key()).isEqualTo("key-100");
+        assertThat(new String(first.value(), StandardCharsets.UTF_8)).contains("\"eventId\":\"evt-100\"");
+    }
+
+    @Test
+    void filtersByTopicAndStopsAtTheLimit() throws IOException {
+        EventJournal journal = journal();
+        appendAll(journal, 0, RECORDS);
+        journal.flush();
+
+        List<JournalEntry> payments = read(journal.reader(), base, base + RECORDS * 1_000L,
+            Set.of("payments.events"), Long.MAX_VALUE);
+        assertThat(payments).hasSize(RECORDS / 3).allMatch(e -> e.topic().equals("payments.events"));
+
+        assertThat(read(journal.reader(), base, Long.MAX_VALUE, Set.of(), 7))
+            .extracting(JournalEntry::offset)
+            .containsExactlyElementsOf(range(0, 7));
+    }
+
+    @Test
+    void recordsBecomeReadableOnceTheirBlockIsSealed() throws IOException {
+        EventJournal journal = journal();
+        appendAll(journal, 0, 3);
+
+        assertThat(read(journal.reader(), 0, Long.MAX_VALUE, Set.of(), Long.MAX_VALUE)).isEmpty();
+        journal.flush();
+        assertThat(read(journal.reader(), 0, Long.MAX_VALUE, Set.of(), Long.MAX_VALUE)).hasSize(3);
+    }
+
+    @Test
+    void reopenedJournalContinuesItsLastSegment() throws IOException {
+        EventJournal journal = journal();
+        appendAll(journal, 0, RECORDS);
+        journal.close();
+        List<JournalReader.Segment> before = journal.reader().segments();
+
+        EventJournal reopened = journal();
+        appendAll(reopened, RECORDS, 10);
+        reopened.flush();
+
+        List<JournalReader.Segment> after = reopened.reader().segments();
+        assertThat(after.get(before.size() - 1).name()).isEqualTo(before.get(before.size() - 1).name());
+        assertThat(read(reopened.reader(), 0, Long.MAX_VALUE, Set.of(), Long.MAX_VALUE))
+            .extracting(JournalEntry::offset)
+            .containsExactlyElementsOf(range(0, RECORDS + 10));
+    }
+
+    @Test
+    void parsesInstantsAndEpochMillis() {
+        assertThat(JournalReader.parseTime("1700000000000")).isEqualTo(1_700_000_000_000L);
+        assertThat(JournalReader.parseTime("2023-11-14T22:13:20Z")).isEqualTo(1_700_000_000_000L);
+        assertThatThrownBy(() -> JournalReader.parseTime("yesterday"))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * Small blocks and segments, so a few hundred records span several of each.
+     */
+    private EventJournal journal() throws IOException {
+        return new EventJournal(new SimpleMeterRegistry(), true, dir, DataSize.ofKilobytes(4),
+            DataSize.ofKilobytes(2), Duration.ofDays(7), DataSize.ofGigabytes(1));
+    }
+
+    /**
+     * Appends records {@code from} to {@code from + count}, one second apart, cycling through
+     * three topics.
+     */
+    private void appendAll(EventJournal journal, int from, int count) {
+        String[] topics = {"orders.events", "payments.events", "accounts.events"};
+        for (int i = from; i < from + count; i++) {
+            journal.append(new ConsumerRecord<>(topics[i % 3], 1, i, base + i * 1_000L, TimestampType.CREATE_TIME,
+                0, 0, "key-" + i, Map.of("eventId", "evt-" + i, "type", "ORDER_PLACED", "amount", i * 10),
+                new RecordHeaders(), Optional.empty()));
+        }
+    }
+
+    private static List<JournalEntry> read(JournalReader reader, long from, long to, Set<String> topics, long limit)
+            throws IOException {
+        List<JournalEntry> entries = new ArrayList<>();
+        reader.read(from, to, topics, limit, entries::add);
+        return entries;
+    }
+
+    private static List<Long> range(long from, long to) {
+        List<Long> offsets = new ArrayList<>();
+        for (long i = from; i < to; i++) {
+            offsets.add(i);
+        }
+        return offsets;
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.notifications.journal;
+
+import com.example.notifications.journal.JournalSegment.Block;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.Deflater;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JournalSegmentTest {
+
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void committedBlocksAreFoundByHoppingBlockHeaders() throws IOException {
+        Path file = dir.resolve(JournalSegment.name(0));
+        JournalSegment segment = JournalSegment.create(file, 64 * 1024);
+        assertThat(segment.isEmpty()).isTrue();
+        assertThat(segment.committedBytes()).isEqualTo(JournalSegment.HEADER_BYTES);
+
+        assertThat(append(segment, text(2_000), 3, 100, 300)).isTrue();
+        int second = segment.committedBytes();
+        assertThat(append(segment, text(500), 1, 400, 400)).isTrue();
+
+        ByteBuffer buffer = map(file);
+        assertThat(JournalSegment.isSegment(buffer)).isTrue();
+        assertThat(JournalSegment.sealed(buffer)).isFalse();
+        assertThat(JournalSegment.committed(buffer)).isEqualTo(segment.committedBytes());
+        assertThat(JournalSegment.scan(buffer, JournalSegment.committed(buffer))).containsExactly(
+            new Block(JournalSegment.HEADER_BYTES, 3, 100, 300),
+            new Block(second, 1, 400, 400));
+    }
+
+    @Test
+    void blockThatDoesNotFitIsNotCommitted() throws IOException {
+        JournalSegment segment = JournalSegment.create(dir.resolve(JournalSegment.name(0)), 1024);
+        byte[] incompressible = new byte[4096];
+        new Random(7).nextBytes(incompressible);
+
+        assertThat(append(segment, incompressible, 10, 100, 200)).isFalse();
+
+        assertThat(segment.isEmpty()).isTrue();
+        assertThat(segment.committedBytes()).isEqualTo(JournalSegment.HEADER_BYTES);
+        assertThat(append(segment, text(100), 1, 100, 100)).isTrue();
+    }
+
+    @Test
+    void sealWritesAnIndexOfTheBlocksAndTrimsTheFile() throws IOException {
+        Path file = dir.resolve(JournalSegment.name(3));
+        JournalSegment segment = JournalSegment.create(file, 64 * 1024);
+        append(segment, text(1_000), 2, 100, 200);
+        append(segment, text(1_000), 5, 150, 900);
+        int committed = segment.committedBytes();
+
+        segment.seal();
+
+        ByteBuffer buffer = map(file);
+        assertThat(JournalSegment.sealed(buffer)).isTrue();
+        assertThat(Files.size(file)).isEqualTo(committed);
+        List<Block> indexed = JournalSegment.readIndex(JournalSegment.indexFile(file));
+        assertThat(indexed).isEqualTo(JournalSegment.scan(buffer, committed)).hasSize(2);
+        assertThat(JournalSegment.reopen(file)).isNull();
+    }
+
+    @Test
+    void invalidIndexIsIgnored() throws IOException {
+        Path index = JournalSegment.indexFile(dir.resolve(JournalSegment.name(0)));
+        Files.write(index, new byte[JournalSegment.INDEX_HEADER_BYTES + 5]);
+
+        assertThat(JournalSegment.readIndex(index)).isNull();
+        assertThat(JournalSegment.readIndex(dir.resolve("missing.idx"))).isNull();
+    }
+
+    @Test
+    void reopenedSegmentContinuesAfterItsLastCommittedBlock() throws IOException {
+        Path file = dir.resolve(JournalSegment.name(1));
+        JournalSegment segment = JournalSegment.create(file, 64 * 1024);
+        append(segment, text(1_000), 4, 100, 400);
+        segment.force();
+
+        JournalSegment reopened = JournalSegment.reopen(file);
+
+        assertThat(reopened).isNotNull();
+        assertThat(reopened.isEmpty()).isFalse();
+        assertThat(reopened.committedBytes()).isEqualTo(segment.committedBytes());
+        assertThat(append(reopened, text(1_000), 2, 500, 600)).isTrue();
+        ByteBuffer buffer = map(file);
+        assertThat(JournalSegment.scan(buffer, JournalSegment.committed(buffer)))
+            .extracting(Block::records)
+            .containsExactly(4, 2);
+    }
+
+    @Test
+    void sequenceRoundTripsThroughTheFileName() {
+        assertThat(JournalSegment.name(42)).isEqualTo("00000000000000000042.seg");
+        assertThat(JournalSegment.sequence(dir.resolve(JournalSegment.name(42)))).isEqualTo(42);
+        assertThat(JournalSegment.indexFile(dir.resolve(JournalSegment.name(42))).getFileName())
+            .hasToString("00000000000000000042.idx");
+    }
+
+    private boolean append(JournalSegment segment, byte[] data, int count, long minTimestamp, long maxTimestamp) {
+        return segment.append(deflater, data, data.length, count, minTimestamp, maxTimestamp);
+    }
+
+    private static byte[] text(int length) {
+        return "{\"type\":\"ORDER_PLACED\"}".repeat(length / 23 + 1).substring(0, length)
+            .getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static ByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+}
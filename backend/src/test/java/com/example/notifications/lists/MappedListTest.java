@@ -0,0 +1,106 @@
+package com.example.notifications.lists;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MappedListTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void containsEveryWrittenValueNormalized() throws IOException {
+        Path file = dir.resolve("emails.list");
+        long[] hashes = {
+            MappedList.hash("a@example.com"), MappedList.hash("B@Example.com "), MappedList.hash("c@example.com")
+        };
+
+        assertThat(MappedList.write(file, hashes, hashes.length)).isEqualTo(3);
+        MappedList list = MappedList.open("emails", file);
+
+        assertThat(list.contains("a@example.com")).isTrue();
+        assertThat(list.contains("  A@EXAMPLE.COM")).isTrue();
+        assertThat(list.contains("b@example.com")).isTrue();
+        assertThat(list.contains("d@example.com")).isFalse();
+        assertThat(list.contains(null)).isFalse();
+        assertThat(list.entries()).isEqualTo(3);
+        assertThat(list.bytes()).isEqualTo(Files.size(file));
+    }
+
+    @Test
+    void duplicatesAreWrittenOnce() throws IOException {
+        Path file = dir.resolve("dupes.list");
+        long[] hashes = {MappedList.hash("x"), MappedList.hash("X"), MappedList.hash(" x "), MappedList.hash("y")};
+
+        assertThat(MappedList.write(file, hashes, hashes.length)).isEqualTo(2);
+        assertThat(MappedList.open("dupes", file).entries()).isEqualTo(2);
+    }
+
+    @Test
+    void largeListFindsEveryMemberAndNoOutsiders() throws IOException {
+        Path file = dir.resolve("large.list");
+        int count = 100_000;
+        long[] hashes = new long[count];
+        for (int i = 0; i < count; i++) {
+            hashes[i] = MappedList.hash("member-" + i);
+        }
+        MappedList.write(file, hashes, count);
+        MappedList list = MappedList.open("large", file);
+
+        for (int i = 0; i < count; i++) {
+            assertThat(list.contains("member-" + i)).isTrue();
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < count; i++) {
+            if (list.contains("outsider-" + i)) {
+                falsePositives++;
+            }
+        }
+        // The table settles every Bloom false positive, so only 64-bit hash collisions remain.
+        assertThat(falsePositives).isZero();
+    }
+
+    @Test
+    void emptyListContainsNothing() throws IOException {
+        Path file = dir.resolve("empty.list");
+
+        assertThat(MappedList.write(file, new long[0], 0)).isZero();
+        assertThat(MappedList.open("empty", file).contains("anything")).isFalse();
+    }
+
+    @Test
+    void rejectsCorruptAndForeignFiles() throws IOException {
+        Path file = dir.resolve("corrupt.list");
+        long[] hashes = {MappedList.hash("a"), MappedList.hash("b")};
+        MappedList.write(file, hashes, hashes.length);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {(byte) 0xff}), channel.size() - 1);
+        }
+        assertThatThrownBy(() -> MappedList.open("corrupt", file))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("Checksum mismatch");
+
+        Path truncated = dir.resolve("truncated.list");
+        Files.write(truncated, Files.readAllBytes(file), StandardOpenOption.CREATE_NEW);
+        try (FileChannel channel = FileChannel.open(truncated, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 8);
+        }
+        assertThatThrownBy(() -> MappedList.open("truncated", truncated))
+            .hasMessageContaining("Truncated list file");
+
+        Path foreign = dir.resolve("foreign.list");
+        Files.write(foreign, new byte[128]);
+        assertThatThrownBy(() -> MappedList.open("foreign", foreign))
+            .hasMessageContaining("Not a list file");
+    }
+}
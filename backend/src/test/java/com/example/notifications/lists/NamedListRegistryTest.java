@@ -0,0 +1,89 @@
+package com.example.notifications.lists;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class NamedListRegistryTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void uploadSkipsBlankAndCommentLines() throws IOException {
+        NamedListRegistry registry = new NamedListRegistry(dir);
+
+        MappedList list = registry.upload("blocked-emails", values("""
+            # known fraud rings
+            a@example.com
+
+            b@example.com
+            A@example.com
+            """));
+
+        assertThat(list.entries()).isEqualTo(2);
+        assertThat(registry.contains("blocked-emails", "a@example.com")).isTrue();
+        assertThat(registry.contains("blocked-emails", "# known fraud rings")).isFalse();
+        assertThat(registry.contains("blocked-emails", "c@example.com")).isFalse();
+    }
+
+    @Test
+    void uploadReplacesTheListAndKeepsThePreviousMappingReadable() throws IOException {
+        NamedListRegistry registry = new NamedListRegistry(dir);
+        MappedList before = registry.upload("devices", values("d-1\nd-2\n"));
+
+        registry.upload("devices", values("d-3\n"));
+
+        assertThat(registry.contains("devices", "d-1")).isFalse();
+        assertThat(registry.contains("devices", "d-3")).isTrue();
+        assertThat(before.contains("d-1")).isTrue();
+    }
+
+    @Test
+    void listsAreReloadedFromTheDirectoryAndUnreadableFilesSkipped() throws IOException {
+        new NamedListRegistry(dir).upload("countries", values("NG\nBR\n"));
+        Files.write(dir.resolve("broken.list"), new byte[16]);
+
+        NamedListRegistry reloaded = new NamedListRegistry(dir);
+
+        assertThat(reloaded.all()).extracting(MappedList::name).containsExactly("countries");
+        assertThat(reloaded.contains("countries", "ng")).isTrue();
+        assertThat(reloaded.get("broken")).isEmpty();
+    }
+
+    @Test
+    void deleteRemovesTheListAndItsFile() throws IOException {
+        NamedListRegistry registry = new NamedListRegistry(dir);
+        registry.upload("temp", values("x\n"));
+
+        assertThat(registry.delete("temp")).isTrue();
+        assertThat(registry.delete("temp")).isFalse();
+        assertThat(dir.resolve("temp.list")).doesNotExist();
+        assertThatThrownBy(() -> registry.contains("temp", "x"))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Unknown list: temp");
+    }
+
+    @Test
+    void rejectsInvalidNames() throws IOException {
+        NamedListRegistry registry = new NamedListRegistry(dir);
+
+        assertThatThrownBy(() -> registry.upload("../etc", values("x\n")))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThat(NamedListRegistry.isValidName("blocked_emails-2")).isTrue();
+        assertThat(NamedListRegistry.isValidName("a".repeat(65))).isFalse();
+        assertThat(NamedListRegistry.isValidName(null)).isFalse();
+    }
+
+    private static ByteArrayInputStream values(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
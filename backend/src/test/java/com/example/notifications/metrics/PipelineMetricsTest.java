@@ -0,0 +1,73 @@
+package com.example.notifications.metrics;
+
+import com.example.notifications.entity.FraudRule;
+import com.example.notifications.entity.RuleOperator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PipelineMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final PipelineMetrics metrics = new PipelineMetrics(registry, 2);
+
+    @Test
+    void rulesPastTheCapShareTheOtherSeries() {
+        metrics.recordRuleEvaluation(rule(1, RuleOperator.EQUALS), 1_000, true);
+        metrics.recordRuleEvaluation(rule(2, RuleOperator.EQUALS), 1_000, false);
+        metrics.recordRuleEvaluation(rule(3, RuleOperator.EQUALS), 1_000, true);
+
+        assertThat(metrics.ruleTag(rule(2, RuleOperator.EQUALS))).isEqualTo("2");
+        assertThat(metrics.ruleTag(rule(3, RuleOperator.EQUALS))).isEqualTo("other");
+        assertThat(registry.get("fraud.rule.matches").tag("rule", "1").counter().count()).isEqualTo(1);
+        assertThat(registry.get("fraud.rule.matches").tag("rule", "other").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void removedRulesFreeTheirSeriesAndTheirPlaceUnderTheCap() {
+        metrics.recordRuleEvaluation(rule(1, RuleOperator.EQUALS), 1_000, true);
+        metrics.recordRuleEvaluation(rule(2, RuleOperator.EQUALS), 1_000, true);
+
+        metrics.retainRules(List.of(rule(2, RuleOperator.EQUALS)));
+
+        assertThat(registry.find("fraud.rule.evaluation").tag("rule", "1").timer()).isNull();
+        assertThat(registry.find("fraud.rule.matches").tag("rule", "1").counter()).isNull();
+        assertThat(registry.get("fraud.rule.matches").tag("rule", "2").counter().count()).isEqualTo(1);
+        assertThat(metrics.ruleTag(rule(3, RuleOperator.EQUALS))).isEqualTo("3");
+    }
+
+    @Test
+    void editedOperatorGetsANewlyTaggedSeries() {
+        metrics.recordRuleEvaluation(rule(1, RuleOperator.EQUALS), 1_000, true);
+
+        FraudRule edited = rule(1, RuleOperator.REGEX);
+        metrics.retainRules(List.of(edited));
+        metrics.recordRuleEvaluation(edited, 1_000, false);
+
+        assertThat(registry.find("fraud.rule.evaluation").tag("operator", "EQUALS").timer()).isNull();
+        assertThat(registry.get("fraud.rule.evaluation").tag("rule", "1").tag("operator", "REGEX").timer().count())
+            .isEqualTo(1);
+    }
+
+    @Test
+    void sharedOtherSeriesIsNeverRemoved() {
+        metrics.recordRuleEvaluation(rule(1, RuleOperator.EQUALS), 1_000, true);
+        metrics.recordRuleEvaluation(rule(2, RuleOperator.EQUALS), 1_000, true);
+        metrics.recordRuleEvaluation(rule(3, RuleOperator.EQUALS), 1_000, true);
+
+        metrics.retainRules(List.of());
+
+        assertThat(registry.get("fraud.rule.matches").tag("rule", "other").counter().count()).isEqualTo(1);
+        assertThat(registry.find("fraud.rule.matches").counters()).hasSize(1);
+    }
+
+    private static FraudRule rule(long id, RuleOperator operator) {
+        FraudRule rule = new FraudRule();
+        rule.setId(id);
+        rule.setOperator(operator);
+        return rule;
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.notifications.perf;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Stored performance baseline: a flat JSON object of metric name to value. Metrics whose
+ * name ends in {@code PerSecond} are throughputs (higher is better); everything else is a
+ * latency in milliseconds (lower is better).
+ */
+final class PerfBaseline {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private PerfBaseline() {
+    }
+
+    static Map<String, Double> load(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return Map.of();
+        }
+        return MAPPER.readValue(file.toFile(), new TypeReference<TreeMap<String, Double>>() {});
+    }
+
+    static void write(Path file, Map<String, Double> results) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Map<String, Double> rounded = new TreeMap<>();
+        results.forEach((name, value) -> rounded.put(name, Math.round(value * 100) / 100.0));
+        MAPPER.writeValue(file.toFile(), rounded);
+    }
+
+    /**
+     * Returns a description of every metric that is worse than its baseline by more than
+     * {@code margin} (a fraction, e.g. 0.25 for 25%). Metrics without a baseline are skipped.
+     */
+    static List<String> regressions(Map<String, Double> baseline, Map<String, Double> results, double margin) {
+        List<String> regressions = new ArrayList<>();
+        baseline.forEach((name, expected) -> {
+            Double actual = results.get(name);
+            if (actual == null || expected == null || expected <= 0) {
+                return;
+            }
+            boolean higherIsBetter = name.endsWith("PerSecond");
+            boolean regressed = higherIsBetter
+                ? actual < expected * (1 - margin)
+                : actual > expected * (1 + margin);
+            if (regressed) {
+                regressions.add(String.format("%s: %.2f vs baseline %.2f (margin %.0f%%)",
+                    name, actual, expected, margin * 100));
+            }
+        });
+        return regressions;
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.notifications.perf;
+
+import com.example.notifications.entity.FraudRule;
+import com.example.notifications.entity.RuleAction;
+import com.example.notifications.entity.RuleOperator;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Fixed, seeded input for the pipeline performance suite: application payloads for
+ * {@code applications.events}, order/payment/inventory events for the {@code *.events}
+ * topics, and a rule set in which every rule routes its matches somewhere.
+ */
+final class PerfCorpus {
+
+    static final String APPLICATIONS_TOPIC = "applications.events";
+    static final String ORDERS_TOPIC = "orders.events";
+    static final String PAYMENTS_TOPIC = "payments.events";
+    static final String INVENTORY_TOPIC = "inventory.events";
+
+    private static final String[] COUNTRIES = {"US", "US", "US", "GB", "DE", "NG", "BR"};
+    private static final String[] SOURCES = {"partner-a", "partner-b", "web"};
+    private static final String[] TYPES = {"credit_card", "credit_card", "loan"};
+
+    private PerfCorpus() {
+    }
+
+    /**
+     * Application payloads keyed by a unique {@code id}, which the router copies into
+     * {@code _applicationId} on every routed message.
+     */
+    static List<Map<String, Object>> applications(String runId, int count, long seed) {
+        Random random = new Random(seed);
+        List<Map<String, Object>> payloads = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Map<String, Object> applicant = new HashMap<>();
+            applicant.put("email", "user" + random.nextInt(5_000) + (random.nextInt(20) == 0 ? "@mailinator.com" : "@example.com"));
+            applicant.put("income", 20_000 + random.nextInt(120_000));
+            applicant.put("country", COUNTRIES[random.nextInt(COUNTRIES.length)]);
+
+            Map<String, Object> payload = new HashMap<>();
+            payload.put("id", runId + "-APP-" + i);
+            payload.put("type", TYPES[random.nextInt(TYPES.length)]);
+            payload.put("source", SOURCES[random.nextInt(SOURCES.length)]);
+            payload.put("amount", 100 + random.nextInt(60_000));
+            payload.put("applicant", applicant);
+            payloads.add(payload);
+        }
+        return payloads;
+    }
+
+    /**
+     * Payment failures and low-inventory events, each of which produces exactly one message
+     * on the {@code alerts} topic, identified by its {@code paymentId} or {@code productId}.
+     * Orders are mixed in as background traffic; they only push to the frontend.
+     */
+    static List<Event> events(String runId, int count, long seed) {
+        Random random = new Random(seed);
+        List<Event> events = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Map<String, Object> payload = new HashMap<>();
+            payload.put("source", "perf-suite");
+            int kind = random.nextInt(10);
+            if (kind < 4) {
+                String id = runId + "-PAY-" + i;
+                payload.put("type", "payment.failed");
+                payload.put("paymentId", id);
+                payload.put("reason", "Insufficient funds");
+                events.add(new Event(PAYMENTS_TOPIC, id, true, payload));
+            } else if (kind < 7) {
+                String id = runId + "-PROD-" + i;
+                payload.put("type", "inventory.low");
+                payload.put("productId", id);
+                payload.put("productName", "Widget");
+                payload.put("currentStock", random.nextInt(10));
+                events.add(new Event(INVENTORY_TOPIC, id, true, payload));
+            } else {
+                String id = runId + "-ORD-" + i;
+                payload.put("type", "order.created");
+                payload.put("orderId", id);
+                payload.put("amount", 50 + random.nextInt(3_000));
+                events.add(new Event(ORDERS_TOPIC, id, false, payload));
+            }
+        }
+        return events;
+    }
+
+    /**
+     * Rule set with a realistic operator mix. Only FLAG, BLOCK and ROUTE are used so every
+     * application reaches at least one routed topic.
+     */
+    static List<FraudRule> rules() {
+        List<FraudRule> rules = new ArrayList<>();
+        rules.add(rule("Very large amount", 10, "amount", RuleOperator.GREATER_THAN, "55000", RuleAction.BLOCK,
+            "{\"reason\":\"Amount over limit\"}"));
+        rules.add(rule("Disposable email", 20, "applicant.email", RuleOperator.CONTAINS, "mailinator", RuleAction.BLOCK,
+            "{\"reason\":\"Disposable email\"}"));
+        rules.add(rule("High-risk country", 30, "applicant.country", RuleOperator.IN_LIST, "NG,BR", RuleAction.FLAG,
+            "{\"reason\":\"High-risk country\",\"severity\":\"HIGH\"}"));
+        rules.add(rule("Low income", 40, "applicant.income", RuleOperator.LESS_THAN, "25000", RuleAction.FLAG,
+            "{\"reason\":\"Low income\"}"));
+        rules.add(rule("Large loan", 50, "amount", RuleOperator.GREATER_THAN_OR_EQUALS, "45000", RuleAction.ROUTE,
+            "{\"topic\":\"manual-review\"}"));
+        rules.add(rule("Email pattern", 60, "applicant.email", RuleOperator.REGEX, "^user9\\d{3}@.*$", RuleAction.FLAG,
+            null));
+        for (int i = 0; i < 34; i++) {
+            // Filler rules that never match, to give the evaluation loop realistic width.
+            rules.add(rule("Filler " + i, 100 + i, "applicant.country", RuleOperator.EQUALS, "ZZ" + i, RuleAction.FLAG,
+                null));
+        }
+        return rules;
+    }
+
+    private static FraudRule rule(String name, int priority, String fieldPath, RuleOperator operator,
+                                  String value, RuleAction action, String actionConfig) {
+        FraudRule rule = new FraudRule();
+        rule.setName(name);
+        rule.setPriority(priority);
+        rule.setFieldPath(fieldPath);
+        rule.setOperator(operator);
+        rule.setValue(value);
+        rule.setActionType(action);
+        rule.setActionConfig(actionConfig);
+        return rule;
+    }
+
+    record Event(String topic, String id, boolean producesAlert, Map<String, Object> payload) {
+    }
+}
@@ -0,0 +1,375 @@
+package com.example.notifications.perf;
+
+import com.example.notifications.diagnostics.StageLatencyTracker;
+import com.example.notifications.entity.AuditLog;
+import com.example.notifications.loadgen.LoadGenerator;
+import com.example.notifications.repository.AuditLogRepository;
+import com.example.notifications.repository.FraudRuleRepository;
+import com.example.notifications.ruleset.RuleSetCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.support.TopicPartitionOffset;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.ContainerTestUtils;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * End-to-end throughput and latency regression suite for the event pipeline.
+ *
+ * Starts the full application against embedded Kafka and H2 (PostgreSQL mode), pushes a
+ * fixed corpus through {@code applications.events} and the {@code *.events} topics, and
+ * measures records/sec and end-to-end latency through to the routed topics and the audit
+ * table. Results are compared against {@code src/test/resources/perf/baseline.json}; the run
+ * fails when any metric regresses by more than {@code perf.regression-margin}.
+ *
+ * Run with {@code ./mvnw -Pperf verify}. Re-record the baseline on the reference machine
+ * with {@code -Dperf.update-baseline=true}.
+ */
+@SpringBootTest
+@ActiveProfiles("perf")
+@EmbeddedKafka(
+    partitions = PipelinePerformanceIT.PARTITIONS,
+    topics = {
+        PerfCorpus.APPLICATIONS_TOPIC, PerfCorpus.ORDERS_TOPIC, PerfCorpus.PAYMENTS_TOPIC,
+        PerfCorpus.INVENTORY_TOPIC, "notifications", "clean-apps", "flagged-apps", "blocked-apps",
+        "manual-review", "alerts"
+    })
+class PipelinePerformanceIT {
+
+    private static final Logger log = LoggerFactory.getLogger(PipelinePerformanceIT.class);
+
+    static final int PARTITIONS = 3;
+
+    private static final List<String> OUTPUT_TOPICS =
+        List.of("clean-apps", "flagged-apps", "blocked-apps", "manual-review", "alerts");
+
+    private final int warmupRecords = Integer.getInteger("perf.warmup-records", 2_000);
+    private final int applicationCount = Integer.getInteger("perf.applications", 5_000);
+    private final int eventCount = Integer.getInteger("perf.events", 5_000);
+    private final int latencyRecords = Integer.getInteger("perf.latency-records", 1_000);
+    private final double latencyRate = Double.parseDouble(System.getProperty("perf.latency-rate", "200"));
+    private final double margin = Double.parseDouble(System.getProperty("perf.regression-margin", "0.25"));
+    private final Duration phaseTimeout = Duration.ofSeconds(Long.getLong("perf.phase-timeout-seconds", 180));
+    private final Path baselineFile = Path.of(System.getProperty("perf.baseline", "src/test/resources/perf/baseline.json"));
+    private final Path resultsFile = Path.of(System.getProperty("perf.results", "target/perf/results.json"));
+    private final boolean updateBaseline = Boolean.getBoolean("perf.update-baseline");
+
+    @Autowired
+    private EmbeddedKafkaBroker broker;
+
+    @Autowired
+    private KafkaListenerEndpointRegistry listenerRegistry;
+
+    @Autowired
+    private FraudRuleRepository ruleRepository;
+
+    @Autowired
+    private RuleSetCache ruleSetCache;
+
+    @Autowired
+    private AuditLogRepository auditLogRepository;
+
+    @Autowired
+    private StageLatencyTracker stageLatencyTracker;
+
+    @Test
+    void pipelineThroughputAndLatencyStayWithinBaseline() throws Exception {
+        ruleRepository.saveAll(PerfCorpus.rules());
+        ruleSetCache.refresh();
+        waitForListenerAssignments();
+
+        Map<String, Double> results = new LinkedHashMap<>();
+        try (KafkaProducer<String, Object> producer = new KafkaProducer<>(producerProps());
+             OutputCollector outputs = new OutputCollector(broker)) {
+
+            // Warm-up: same code paths, not measured.
+            List<Input> warmup = new ArrayList<>(applicationInputs("warmup", warmupRecords / 2, 1));
+            warmup.addAll(eventInputs("warmup", warmupRecords / 2, 2));
+            awaitOutputs("warm-up", outputs, send(producer, warmup, 0));
+            awaitAuditRows(warmupRecords / 2);
+
+            // Throughput: applications, blasted as fast as the producer accepts.
+            long auditBefore = auditLogRepository.count();
+            List<Input> applications = applicationInputs("tput", applicationCount, 3);
+            long start = System.currentTimeMillis();
+            Map<String, Long> sent = send(producer, applications, 0);
+            long routedAt = awaitOutputs("application throughput", outputs, sent);
+            long auditedAt = awaitAuditRows(auditBefore + applicationCount);
+            results.put("applicationsPerSecond", perSecond(applicationCount, routedAt - start));
+            results.put("auditRowsPerSecond", perSecond(applicationCount, auditedAt - start));
+
+            // Throughput: events on the *.events topics, measured to the last alert.
+            List<Input> events = eventInputs("tput", eventCount, 4);
+            start = System.currentTimeMillis();
+            long alertedAt = awaitOutputs("event throughput", outputs, send(producer, events, 0));
+            results.put("eventsPerSecond", perSecond(eventCount, alertedAt - start));
+
+            // Latency: a paced mix, so the numbers reflect per-record cost rather than backlog.
+            List<Input> appsForLatency = applicationInputs("lat", latencyRecords / 2, 5);
+            List<Input> eventsForLatency = eventInputs("lat", latencyRecords / 2, 6);
+            List<Input> paced = interleave(appsForLatency, eventsForLatency);
+            Map<String, Long> pacedSent = send(producer, paced, latencyRate);
+            awaitOutputs("latency", outputs, pacedSent);
+            awaitAuditRows(auditBefore + applicationCount + appsForLatency.size());
+
+            Histogram applicationLatency = latencies(appsForLatency, pacedSent, outputs.firstSeen);
+            Histogram eventLatency = latencies(eventsForLatency, pacedSent, outputs.firstSeen);
+            Histogram auditLatency = auditLatencies(appsForLatency, pacedSent);
+
+            results.put("applicationLatencyP50Ms", (double) applicationLatency.getValueAtPercentile(50));
+            results.put("applicationLatencyP99Ms", (double) applicationLatency.getValueAtPercentile(99));
+            results.put("eventLatencyP50Ms", (double) eventLatency.getValueAtPercentile(50));
+            results.put("eventLatencyP99Ms", (double) eventLatency.getValueAtPercentile(99));
+            results.put("auditLatencyP99Ms", (double) auditLatency.getValueAtPercentile(99));
+        }
+
+        PerfBaseline.write(resultsFile, results);
+        log.info("Pipeline performance results, written to {}: {}", resultsFile.toAbsolutePath(), results);
+        log.info("Stage latency breakdown: {}", stageLatencyTracker.snapshot());
+
+        if (updateBaseline) {
+            PerfBaseline.write(baselineFile, results);
+            log.info("Baseline updated: {}", baselineFile.toAbsolutePath());
+            return;
+        }
+
+        Map<String, Double> baseline = PerfBaseline.load(baselineFile);
+        assertThat(PerfBaseline.regressions(baseline, results, margin))
+            .as("Metrics regressed against %s", baselineFile)
+            .isEmpty();
+    }
+
+    private void waitForListenerAssignments() {
+        for (MessageListenerContainer container : listenerRegistry.getListenerContainers()) {
+            TopicPartitionOffset[] assigned = container.getContainerProperties().getTopicPartitions();
+            if (assigned != null) {
+                // Manually assigned, like the rule changelog.
+                ContainerTestUtils.waitForAssignment(container, assigned.length);
+                continue;
+            }
+            String[] topics = container.getContainerProperties().getTopics();
+            // The pattern listener covers orders, payments and inventory events.
+            int topicCount = topics != null ? topics.length : 3;
+            ContainerTestUtils.waitForAssignment(container, topicCount * PARTITIONS);
+        }
+    }
+
+    private List<Input> applicationInputs(String runId, int count, long seed) {
+        return PerfCorpus.applications(runId, count, seed).stream()
+            .map(p -> new Input(PerfCorpus.APPLICATIONS_TOPIC, (String) p.get("id"), true, p))
+            .toList();
+    }
+
+    private List<Input> eventInputs(String runId, int count, long seed) {
+        return PerfCorpus.events(runId, count, seed).stream()
+            .map(e -> new Input(e.topic(), e.id(), e.producesAlert(), e.payload()))
+            .toList();
+    }
+
+    private static List<Input> interleave(List<Input> a, List<Input> b) {
+        List<Input> merged = new ArrayList<>(a.size() + b.size());
+        for (int i = 0; i < Math.max(a.size(), b.size()); i++) {
+            if (i < a.size()) merged.add(a.get(i));
+            if (i < b.size()) merged.add(b.get(i));
+        }
+        return merged;
+    }
+
+    /**
+     * Sends the inputs, paced at {@code ratePerSecond} (0 = unthrottled), and returns the send
+     * time of every input that is expected to produce an output.
+     */
+    private Map<String, Long> send(KafkaProducer<String, Object> producer, List<Input> inputs, double ratePerSecond) {
+        Map<String, Long> sentAt = new LinkedHashMap<>();
+        long intervalNanos = ratePerSecond > 0 ? (long) (1_000_000_000L / ratePerSecond) : 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < inputs.size(); i++) {
+            if (intervalNanos > 0) {
+                long target = start + i * intervalNanos;
+                long remaining;
+                while ((remaining = target - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(remaining);
+                }
+            }
+            Input input = inputs.get(i);
+            long now = System.currentTimeMillis();
+            ProducerRecord<String, Object> record = new ProducerRecord<>(input.topic(), input.id(), input.payload());
+            record.headers().add(LoadGenerator.SENT_AT_HEADER, Long.toString(now).getBytes(StandardCharsets.UTF_8));
+            producer.send(record);
+            if (input.expectsOutput()) {
+                sentAt.put(input.id(), now);
+            }
+        }
+        producer.flush();
+        return sentAt;
+    }
+
+    /**
+     * Waits until every expected id has been seen on an output topic and returns the time
+     * the last one arrived.
+     */
+    private long awaitOutputs(String phase, OutputCollector outputs, Map<String, Long> expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + phaseTimeout.toMillis();
+        Set<String> pending = new HashSet<>(expected.keySet());
+        long lastSeen = 0;
+        while (!pending.isEmpty()) {
+            pending.removeIf(id -> outputs.firstSeen.containsKey(id));
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError(String.format("Phase '%s' timed out with %d of %d outputs missing",
+                    phase, pending.size(), expected.size()));
+            }
+            Thread.sleep(5);
+        }
+        for (String id : expected.keySet()) {
+            lastSeen = Math.max(lastSeen, outputs.firstSeen.get(id));
+        }
+        return lastSeen;
+    }
+
+    private long awaitAuditRows(long expectedCount) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + phaseTimeout.toMillis();
+        while (auditLogRepository.count() < expectedCount) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("Timed out waiting for " + expectedCount + " audit rows");
+            }
+            Thread.sleep(10);
+        }
+        return System.currentTimeMillis();
+    }
+
+    private static Histogram latencies(List<Input> inputs, Map<String, Long> sentAt, Map<String, Long> seenAt) {
+        Histogram histogram = new Histogram(TimeUnit.MINUTES.toMillis(10), 3);
+        for (Input input : inputs) {
+            Long sent = sentAt.get(input.id());
+            Long seen = seenAt.get(input.id());
+            if (sent != null && seen != null) {
+                histogram.recordValue(Math.max(0, seen - sent));
+            }
+        }
+        return histogram;
+    }
+
+    private Histogram auditLatencies(List<Input> applications, Map<String, Long> sentAt) {
+        Map<String, Long> auditedAt = new ConcurrentHashMap<>();
+        for (AuditLog entry : auditLogRepository.findAll()) {
+            auditedAt.putIfAbsent(entry.getApplicationId(), entry.getProcessedAt().toEpochMilli());
+        }
+        return latencies(applications, sentAt, auditedAt);
+    }
+
+    private static double perSecond(long count, long millis) {
+        return count * 1000.0 / Math.max(1, millis);
+    }
+
+    private Map<String, Object> producerProps() {
+        Map<String, Object> props = KafkaTestUtils.producerProps(broker);
+        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+        props.put(ProducerConfig.LINGER_MS_CONFIG, 1);
+        props.put(JsonSerializer.ADD_TYPE_INFO_HEADERS, false);
+        return props;
+    }
+
+    private record Input(String topic, String id, boolean expectsOutput, Map<String, Object> payload) {
+    }
+
+    /**
+     * Consumes the routed topics in the background and records when each application or
+     * alert id was first seen.
+     */
+    private static final class OutputCollector implements AutoCloseable {
+
+        private static final ObjectMapper MAPPER = new ObjectMapper();
+
+        final Map<String, Long> firstSeen = new ConcurrentHashMap<>();
+        private final KafkaConsumer<String, String> consumer;
+        private final Thread thread;
+        private volatile boolean running = true;
+
+        OutputCollector(EmbeddedKafkaBroker broker) {
+            Map<String, Object> props = KafkaTestUtils.consumerProps("perf-output-collector", "false", broker);
+            props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+            props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+            props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+            consumer = new KafkaConsumer<>(props);
+            consumer.subscribe(OUTPUT_TOPICS);
+            while (consumer.assignment().isEmpty()) {
+                consumer.poll(Duration.ofMillis(100));
+            }
+            thread = new Thread(this::pollLoop, "perf-output-collector");
+            thread.start();
+        }
+
+        private void pollLoop() {
+            while (running) {
+                for (ConsumerRecord<String, String> record : consumer.poll(Duration.ofMillis(50))) {
+                    long now = System.currentTimeMillis();
+                    String id = outputId(record.value());
+                    if (id != null) {
+                        firstSeen.putIfAbsent(id, now);
+                    }
+                }
+            }
+            consumer.close();
+        }
+
+        @SuppressWarnings("unchecked")
+        private static String outputId(String json) {
+            try {
+                Map<String, Object> value = MAPPER.readValue(json, Map.class);
+                for (String key : List.of("_applicationId", "paymentId", "productId")) {
+                    Object id = value.get(key);
+                    if (id != null) {
+                        return id.toString();
+                    }
+                }
+            } catch (Exception e) {
+                // Not one of ours; ignore.
+            }
+            return null;
+        }
+
+        @Override
+        public void close() {
+            running = false;
+            try {
+                thread.join(5_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
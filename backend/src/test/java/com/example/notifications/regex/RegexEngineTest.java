@@ -0,0 +1,61 @@
+package com.example.notifications.regex;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.assertThatNoException;
+
+class RegexEngineTest {
+
+    private final RegexEngine engine = new RegexEngine(100_000);
+
+    @Test
+    void matchesWithinBudget() {
+        assertThat(engine.matches("[A-Z]{2}\\d+", "GB1234")).isTrue();
+        assertThat(engine.matches("[A-Z]{2}\\d+", "gb1234")).isFalse();
+    }
+
+    @Test
+    void abortsCatastrophicBacktrackingAtTheBudget() {
+        String input = "a".repeat(40) + "b";
+
+        assertThatThrownBy(() -> engine.matches("(.*a){12}", input))
+            .isInstanceOf(RegexBudgetExceededException.class)
+            .hasMessageContaining("100000");
+    }
+
+    @Test
+    void largerBudgetLetsTheSameMatchFinishOnShortInput() {
+        RegexEngine generous = new RegexEngine(Long.MAX_VALUE);
+
+        assertThat(generous.matches("(.*a){3}", "aaab")).isFalse();
+    }
+
+    @Test
+    void validateRejectsPatternsThatBlowUpOnAdversarialInput() {
+        assertThatThrownBy(() -> engine.validate("(.*a){12}"))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("backtracks catastrophically");
+    }
+
+    @Test
+    void validateRejectsPatternsThatDoNotCompile() {
+        assertThatThrownBy(() -> engine.validate("([a-z]"))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageStartingWith("Invalid regex");
+    }
+
+    @Test
+    void validateAcceptsLinearPatterns() {
+        assertThatNoException().isThrownBy(() -> engine.validate("^[A-Z]{2}\\d{6,10}$"));
+        assertThatNoException().isThrownBy(() -> engine.validate(".*@example\\.com"));
+    }
+
+    @Test
+    void findsTheNestedQuantifier() {
+        assertThat(RegexEngine.findNestedQuantifier("^(a+)+$")).isEqualTo("(a+)+");
+        assertThat(RegexEngine.findNestedQuantifier("[(a+)+]x")).isNull();
+        assertThat(RegexEngine.findNestedQuantifier("(ab)+")).isNull();
+    }
+}
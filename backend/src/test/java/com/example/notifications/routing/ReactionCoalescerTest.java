@@ -0,0 +1,186 @@
+package com.example.notifications.routing;
+
+import com.example.notifications.Notification;
+import com.example.notifications.metrics.PipelineMetrics;
+import com.example.notifications.model.IncomingEvent;
+import com.example.notifications.model.Reaction;
+import com.example.notifications.model.Reaction.LogEvent;
+import com.example.notifications.model.Reaction.PublishToKafka;
+import com.example.notifications.model.Reaction.PushToFrontend;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ReactionCoalescerTest {
+
+    private static final long WINDOW = 2_000;
+    private static final long START = 1_000_000;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final PipelineMetrics metrics = new PipelineMetrics(registry, 500);
+    private final ReactionCoalescer coalescer = coalescer(true, "rule,type,userId");
+
+    private final RoutingRule rule = new RoutingRule() {
+        @Override
+        public boolean matches(IncomingEvent event) {
+            return true;
+        }
+
+        @Override
+        public List<Reaction> getReactions(IncomingEvent event) {
+            return List.of();
+        }
+
+        @Override
+        public String getName() {
+            return "burst";
+        }
+    };
+
+    @Test
+    void firstReactionsOfAWindowPassAndTheRestAreHeld() {
+        assertThat(hold(push("u1", "m1"), START)).isFalse();
+        assertThat(hold(push("u1", "m2"), START + 10)).isFalse();
+        assertThat(hold(push("u1", "m3"), START + 20)).isFalse();
+        assertThat(hold(push("u1", "m4"), START + 30)).isTrue();
+        assertThat(hold(push("u1", "m5"), START + 40)).isTrue();
+
+        assertThat(registry.get("reactions.coalesced").tag("type", "PushToFrontend").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void groupsAreCoalescedIndependently() {
+        for (int i = 0; i < 3; i++) {
+            hold(push("u1", "m" + i), START);
+        }
+
+        assertThat(hold(push("u1", "held"), START)).isTrue();
+        assertThat(hold(push("u2", "other user"), START)).isFalse();
+        assertThat(hold(new PushToFrontend(Notification.create("u1", "ALERT", "other type")), START)).isFalse();
+    }
+
+    @Test
+    void endedWindowDrainsIntoADigest() {
+        for (int i = 1; i <= 7; i++) {
+            hold(push("u1", "m" + i), START + i - 1);
+        }
+
+        assertThat(coalescer.drain(START + WINDOW - 1)).isEmpty();
+        List<Reaction> drained = coalescer.drain(START + WINDOW);
+
+        assertThat(drained).hasSize(1);
+        Notification digest = ((PushToFrontend) drained.get(0)).notification();
+        assertThat(digest.userId()).isEqualTo("u1");
+        assertThat(digest.type()).isEqualTo("INFO");
+        assertThat(digest.message()).isEqualTo("4 burst notifications");
+        // The sample keeps the first two of the four held messages.
+        assertThat(digest.digest()).isEqualTo(new Notification.Digest(4,
+            Instant.ofEpochMilli(START), Instant.ofEpochMilli(START + WINDOW), List.of("m4", "m5")));
+        assertThat(registry.get("reactions.digests").tag("type", "PushToFrontend").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void singleHeldReactionIsDrainedAsItIs() {
+        for (int i = 0; i < 3; i++) {
+            hold(push("u1", "m" + i), START);
+        }
+        PushToFrontend held = push("u1", "held");
+        hold(held, START);
+
+        assertThat(coalescer.drain(START + WINDOW)).containsExactly(held);
+    }
+
+    @Test
+    void windowAfterADigestHoldsEverythingUntilAQuietWindowEndsTheBurst() {
+        for (int i = 0; i < 5; i++) {
+            hold(push("u1", "m" + i), START);
+        }
+        assertThat(coalescer.drain(START + WINDOW)).hasSize(1);
+
+        // Hot: nothing passes in the window after a digest.
+        assertThat(hold(push("u1", "n1"), START + WINDOW + 1)).isTrue();
+        assertThat(coalescer.drain(START + 2 * WINDOW)).hasSize(1);
+
+        // Still hot, but nothing arrives, so the next drain ends the burst.
+        assertThat(coalescer.drain(START + 3 * WINDOW)).isEmpty();
+        assertThat(hold(push("u1", "after"), START + 3 * WINDOW + 1)).isFalse();
+    }
+
+    @Test
+    void quietWindowThatWasNotDrainedStartsOver() {
+        for (int i = 0; i < 3; i++) {
+            hold(push("u1", "m" + i), START);
+        }
+
+        assertThat(hold(push("u1", "later"), START + WINDOW)).isFalse();
+    }
+
+    @Test
+    void drainAllEmptiesWindowsThatHaveNotEnded() {
+        for (int i = 0; i < 4; i++) {
+            hold(push("u1", "m" + i), START);
+        }
+
+        assertThat(coalescer.drainAll()).hasSize(1);
+        assertThat(coalescer.drainAll()).isEmpty();
+    }
+
+    @Test
+    void kafkaDigestKeepsTheTopicAndSamplesTheMessages() {
+        for (int i = 1; i <= 5; i++) {
+            hold(new PublishToKafka("alerts", Map.of("type", "ALERT", "userId", "u1", "n", i)), START);
+        }
+
+        List<Reaction> drained = coalescer.drain(START + WINDOW);
+
+        assertThat(drained).hasSize(1);
+        PublishToKafka digest = (PublishToKafka) drained.get(0);
+        assertThat(digest.topic()).isEqualTo("alerts");
+        @SuppressWarnings("unchecked")
+        Map<String, Object> message = (Map<String, Object>) digest.message();
+        assertThat(message).containsEntry("type", "ALERT").containsEntry("digest", true)
+            .containsEntry("summary", "2 burst notifications").containsEntry("rule", "burst")
+            .containsEntry("count", 2);
+        assertThat(message.get("sample")).isEqualTo(List.of(
+            Map.of("type", "ALERT", "userId", "u1", "n", 4), Map.of("type", "ALERT", "userId", "u1", "n", 5)));
+    }
+
+    @Test
+    void onlyRoutingRuleFrontendAndKafkaReactionsAreHeld() {
+        ReactionCoalescer disabled = coalescer(false, "rule,type,userId");
+        for (int i = 0; i < 10; i++) {
+            assertThat(disabled.hold(push("u1", "m" + i), rule, START)).isFalse();
+            assertThat(coalescer.hold(push("u1", "m" + i), null, START)).isFalse();
+            assertThat(hold(new LogEvent("INFO", "m" + i, null), START)).isFalse();
+        }
+    }
+
+    @Test
+    void keyMustNameKnownFields() {
+        assertThatThrownBy(() -> coalescer(true, "rule,tenant"))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("not tenant");
+    }
+
+    private boolean hold(Reaction reaction, long nowMillis) {
+        return coalescer.hold(reaction, rule, nowMillis);
+    }
+
+    /**
+     * Three immediate reactions per window and samples of two.
+     */
+    private ReactionCoalescer coalescer(boolean enabled, String key) {
+        return new ReactionCoalescer(metrics, enabled, Duration.ofMillis(WINDOW), 3, 2, key);
+    }
+
+    private static PushToFrontend push(String userId, String message) {
+        return new PushToFrontend(Notification.create(userId, "INFO", message));
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.notifications.ruleset;
+
+import com.example.notifications.entity.FraudRule;
+import com.example.notifications.entity.RuleAction;
+import com.example.notifications.entity.RuleOperator;
+import com.example.notifications.lists.NamedListRegistry;
+import com.example.notifications.metrics.PipelineMetrics;
+import com.example.notifications.regex.RegexEngine;
+import com.example.notifications.repository.FraudRuleRepository;
+import com.example.notifications.service.RuleEvaluator;
+import com.example.notifications.velocity.VelocityStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RuleSetCacheTest {
+
+    private static final Instant T0 = Instant.parse("2026-01-01T00:00:00Z");
+
+    private final FraudRuleRepository repository = Mockito.mock(FraudRuleRepository.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private RuleEvaluator ruleEvaluator;
+    private RuleSnapshotFile snapshotFile;
+
+    @TempDir
+    Path dir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        ruleEvaluator = new RuleEvaluator(new PipelineMetrics(new SimpleMeterRegistry(), 500),
+            new VelocityStore(120, 31, 4, 10_000, new SimpleMeterRegistry()), new NamedListRegistry(dir.resolve("lists")),
+            new RegexEngine(100_000), event -> { });
+        snapshotFile = new RuleSnapshotFile(dir.resolve("snapshot.dat"), true);
+    }
+
+    @Test
+    void appliedChangesAreOrderedByPriorityThenId() {
+        when(repository.findByEnabledTrueOrderByPriorityAsc()).thenReturn(List.of());
+        RuleSetCache cache = cache();
+        Map<Long, FraudRule> changes = new LinkedHashMap<>();
+        changes.put(5L, rule(5, 20, T0));
+        changes.put(3L, rule(3, 10, T0));
+        changes.put(9L, rule(9, 10, T0));
+        changes.put(1L, rule(1, 30, T0));
+
+        RuleSet rules = cache.apply(changes);
+
+        assertThat(rules.rules()).extracting(FraudRule::getId).containsExactly(3L, 9L, 5L, 1L);
+    }
+
+    @Test
+    void olderChangesAreIgnoredAndDisabledOrDeletedRulesRemoved() {
+        when(repository.findByEnabledTrueOrderByPriorityAsc())
+            .thenReturn(List.of(rule(1, 10, T0.plusSeconds(60)), rule(2, 20, T0), rule(3, 30, T0)));
+        RuleSetCache cache = cache();
+        FraudRule disabled = rule(2, 20, T0.plusSeconds(1));
+        disabled.setEnabled(false);
+        Map<Long, FraudRule> changes = new HashMap<>();
+        changes.put(1L, rule(1, 99, T0));
+        changes.put(2L, disabled);
+        changes.put(3L, null);
+
+        RuleSet rules = cache.apply(changes);
+
+        assertThat(rules.rules()).extracting(FraudRule::getId).containsExactly(1L);
+        assertThat(rules.rules().get(0).getPriority()).isEqualTo(10);
+        assertThat(rules.version()).isEqualTo(2);
+    }
+
+    @Test
+    void unchangedRulesKeepTheVersionAndChangedOnesAreSnapshotted() {
+        when(repository.findByEnabledTrueOrderByPriorityAsc()).thenReturn(List.of(rule(1, 10, T0)));
+        RuleSetCache cache = cache();
+        RuleSet first = cache.current();
+
+        assertThat(cache.refresh()).isSameAs(first);
+        assertThat(cache.apply(Map.of(1L, rule(1, 10, T0)))).isSameAs(first);
+
+        RuleSet second = cache.apply(Map.of(2L, rule(2, 5, T0)));
+        assertThat(second.version()).isEqualTo(first.version() + 1);
+        assertThat(second.checksum()).isNotEqualTo(first.checksum());
+        RuleSnapshotFile.Snapshot snapshot = snapshotFile.load();
+        assertThat(snapshot.checksum()).isEqualTo(second.checksum());
+        assertThat(snapshot.rules()).extracting(FraudRule::getId).containsExactly(2L, 1L);
+        assertThat(registry.get("fraud.rules.checksum").gauge().value()).isEqualTo(second.checksum());
+    }
+
+    @Test
+    void startsFromTheSnapshotWithoutQueryingTheDatabase() {
+        when(repository.findByEnabledTrueOrderByPriorityAsc()).thenReturn(List.of(rule(4, 10, T0), rule(2, 20, T0)));
+        RuleSet written = cache().current();
+
+        FraudRuleRepository down = Mockito.mock(FraudRuleRepository.class);
+        when(down.findByEnabledTrueOrderByPriorityAsc()).thenThrow(new DataAccessResourceFailureException("down"));
+        RuleSetCache restarted = new RuleSetCache(down, ruleEvaluator, snapshotFile, new SimpleMeterRegistry());
+
+        assertThat(restarted.current().checksum()).isEqualTo(written.checksum());
+        assertThat(restarted.current().rules()).extracting(FraudRule::getId).containsExactly(4L, 2L);
+        verify(down, never()).findByEnabledTrueOrderByPriorityAsc();
+    }
+
+    @Test
+    void failedReloadKeepsTheCurrentRulesAndIsReportedUntilOneSucceeds() {
+        when(repository.findByEnabledTrueOrderByPriorityAsc()).thenReturn(List.of(rule(1, 10, T0)));
+        RuleSetCache cache = cache();
+        RuleSet loaded = cache.current();
+
+        when(repository.findByEnabledTrueOrderByPriorityAsc()).thenThrow(new DataAccessResourceFailureException("down"));
+        cache.scheduledRefresh();
+        assertThatThrownBy(cache::refresh).isInstanceOf(DataAccessResourceFailureException.class);
+
+        assertThat(cache.current()).isSameAs(loaded);
+        assertThat(cache.reloadFailingSince()).isNotNull();
+        assertThat(cache.reloadError()).isEqualTo("down");
+
+        Mockito.reset(repository);
+        when(repository.findByEnabledTrueOrderByPriorityAsc()).thenReturn(List.of(rule(1, 10, T0)));
+        cache.scheduledRefresh();
+        assertThat(cache.reloadFailingSince()).isNull();
+        assertThat(cache.reloadedAt()).isNotNull();
+    }
+
+    @Test
+    void changesAreAppliedWhenTheFirstLoadFails() {
+        when(repository.findByEnabledTrueOrderByPriorityAsc()).thenThrow(new DataAccessResourceFailureException("down"));
+        RuleSetCache cache = cache();
+
+        RuleSet rules = cache.apply(Map.of(7L, rule(7, 10, T0)));
+
+        assertThat(rules.rules()).extracting(FraudRule::getId).containsExactly(7L);
+        assertThat(cache.reloadFailingSince()).isNotNull();
+    }
+
+    private RuleSetCache cache() {
+        return new RuleSetCache(repository, ruleEvaluator, snapshotFile, registry);
+    }
+
+    private static FraudRule rule(long id, int priority, Instant updatedAt) {
+        FraudRule rule = new FraudRule();
+        rule.setId(id);
+        rule.setName("rule-" + id);
+        rule.setPriority(priority);
+        rule.setFieldPath("amount");
+        rule.setOperator(RuleOperator.GREATER_THAN);
+        rule.setValue("1000");
+        rule.setActionType(RuleAction.FLAG);
+        // Set by JPA on persist and update.
+        ReflectionTestUtils.setField(rule, "updatedAt", updatedAt);
+        return rule;
+    }
+}
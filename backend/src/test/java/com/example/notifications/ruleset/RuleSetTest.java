@@ -0,0 +1,90 @@
+package com.example.notifications.ruleset;
+
+import com.example.notifications.entity.FraudRule;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RuleSetTest {
+
+    private static final Instant T0 = Instant.parse("2026-01-01T00:00:00Z");
+
+    @Test
+    void checksumDependsOnIdsPrioritiesUpdateTimesAndOrder() {
+        List<FraudRule> rules = List.of(rule(1, 10, T0), rule(2, 20, T0));
+        long checksum = RuleSet.checksum(rules);
+
+        assertThat(RuleSet.checksum(List.of(rule(1, 10, T0), rule(2, 20, T0)))).isEqualTo(checksum);
+        assertThat(RuleSet.checksum(List.of(rule(1, 10, T0), rule(2, 21, T0)))).isNotEqualTo(checksum);
+        assertThat(RuleSet.checksum(List.of(rule(1, 10, T0), rule(2, 20, T0.plusMillis(1))))).isNotEqualTo(checksum);
+        assertThat(RuleSet.checksum(List.of(rule(2, 20, T0), rule(1, 10, T0)))).isNotEqualTo(checksum);
+        assertThat(RuleSet.checksum(List.of(rule(1, 10, T0)))).isNotEqualTo(checksum);
+        // Sub-millisecond precision is lost by some stores, so it does not count.
+        assertThat(RuleSet.checksum(List.of(rule(1, 10, T0.plusNanos(999)), rule(2, 20, T0)))).isEqualTo(checksum);
+    }
+
+    @Test
+    void checksumIsANonNegative48BitValue() {
+        for (int i = 0; i < 1_000; i++) {
+            long checksum = RuleSet.checksum(List.of(rule(i, i, T0.plusSeconds(i))));
+            assertThat(checksum).isBetween(0L, (1L << 48) - 1);
+        }
+        assertThat(new RuleSet(1, List.of(), r -> List.of()).checksum()).isEqualTo(RuleSet.checksum(List.of()));
+    }
+
+    @Test
+    void orderIsPriorityThenId() {
+        List<FraudRule> sorted = List.of(rule(9, 20, T0), rule(4, 10, T0), rule(2, 20, T0)).stream()
+            .sorted(RuleSet.ORDER).toList();
+
+        assertThat(sorted).extracting(FraudRule::getId).containsExactly(4L, 2L, 9L);
+    }
+
+    @Test
+    void scopesSelectRulesByTypeAndSourceAndSeparateShadowRules() {
+        FraudRule global = rule(1, 10, T0);
+        FraudRule loans = rule(2, 20, T0);
+        loans.setApplicationTypes(" LOAN , card");
+        FraudRule webLoans = rule(3, 30, T0);
+        webLoans.setApplicationTypes("loan");
+        webLoans.setSourceSystems("web");
+        FraudRule shadow = rule(4, 40, T0);
+        shadow.setShadow(true);
+        RuleSet ruleSet = new RuleSet(1, List.of(global, loans, webLoans, shadow),
+            r -> r.getId() == 3 ? List.of("applicant.email") : List.of());
+
+        RuleSet.Scope webLoan = ruleSet.forApplication("Loan", "WEB");
+        assertThat(webLoan.rules()).containsExactly(global, loans, webLoans);
+        assertThat(webLoan.shadowRules()).containsExactly(shadow);
+        assertThat(webLoan.velocityFields()).isEqualTo(Set.of("applicant.email"));
+
+        assertThat(ruleSet.forApplication("card", "branch").rules()).containsExactly(global, loans);
+        assertThat(ruleSet.forApplication("mortgage", "web").rules()).containsExactly(global);
+        // Unknown types and sources share one resolved scope.
+        assertThat(ruleSet.forApplication("lease", "kiosk")).isSameAs(ruleSet.forApplication("mortgage", "app"));
+        assertThat(ruleSet.globalCount()).isEqualTo(2);
+        assertThat(ruleSet.shadowCount()).isEqualTo(1);
+    }
+
+    @Test
+    void formatsScopesCanonically() {
+        assertThat(RuleSet.formatScope(" Loan, CARD ,,loan")).isEqualTo("loan,card");
+        assertThat(RuleSet.formatScope(" , ")).isNull();
+        assertThat(RuleSet.parseScope(null)).isNull();
+    }
+
+    private static FraudRule rule(long id, int priority, Instant updatedAt) {
+        FraudRule rule = new FraudRule();
+        rule.setId(id);
+        rule.setName("rule-" + id);
+        rule.setPriority(priority);
+        // Set by JPA on persist and update.
+        ReflectionTestUtils.setField(rule, "updatedAt", updatedAt);
+        return rule;
+    }
+}
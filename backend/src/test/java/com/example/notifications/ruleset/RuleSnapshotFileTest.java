@@ -0,0 +1,150 @@
+package com.example.notifications.ruleset;
+
+import com.example.notifications.entity.FraudRule;
+import com.example.notifications.entity.RuleAction;
+import com.example.notifications.entity.RuleOperator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RuleSnapshotFileTest {
+
+    private static final Instant T0 = Instant.parse("2026-01-01T00:00:00.123Z");
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void rulesRoundTripWithTheirChecksumAndWriteTime() throws IOException {
+        RuleSnapshotFile snapshotFile = new RuleSnapshotFile(dir.resolve("rules/snapshot.dat"), true);
+        RuleSet rules = ruleSet(simpleRule(), compositeRule());
+
+        Instant before = Instant.now().minusMillis(1);
+        snapshotFile.save(rules);
+        RuleSnapshotFile.Snapshot snapshot = snapshotFile.load();
+
+        assertThat(snapshot.checksum()).isEqualTo(rules.checksum());
+        assertThat(snapshot.writtenAt()).isAfter(before);
+        assertThat(snapshot.rules()).usingRecursiveFieldByFieldElementComparator().isEqualTo(rules.rules());
+        assertThat(RuleSet.checksum(snapshot.rules())).isEqualTo(rules.checksum());
+        try (Stream<Path> files = Files.list(dir.resolve("rules"))) {
+            assertThat(files).containsExactly(snapshotFile.file());
+        }
+    }
+
+    @Test
+    void laterSaveReplacesTheSnapshot() {
+        RuleSnapshotFile snapshotFile = new RuleSnapshotFile(dir.resolve("snapshot.dat"), true);
+        snapshotFile.save(ruleSet(simpleRule(), compositeRule()));
+
+        snapshotFile.save(ruleSet(compositeRule()));
+
+        assertThat(snapshotFile.load().rules()).extracting(FraudRule::getId).containsExactly(2L);
+    }
+
+    @Test
+    void corruptHeadersAreRejected() throws IOException {
+        // Magic, version, rule set checksum, payload length and payload CRC.
+        for (int offset : new int[] {0, 8, 12, 32, 36}) {
+            RuleSnapshotFile snapshotFile = saved("header-" + offset + ".dat");
+            flipByte(snapshotFile.file(), offset + 3);
+
+            assertThat(snapshotFile.load()).as("byte %d", offset + 3).isNull();
+        }
+    }
+
+    @Test
+    void corruptOrTruncatedPayloadsAreRejected() throws IOException {
+        RuleSnapshotFile flipped = saved("flipped.dat");
+        flipByte(flipped.file(), Files.size(flipped.file()) - 5);
+        assertThat(flipped.load()).isNull();
+
+        RuleSnapshotFile truncated = saved("truncated.dat");
+        try (FileChannel channel = FileChannel.open(truncated.file(), StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 1);
+        }
+        assertThat(truncated.load()).isNull();
+
+        RuleSnapshotFile headerOnly = saved("header-only.dat");
+        try (FileChannel channel = FileChannel.open(headerOnly.file(), StandardOpenOption.WRITE)) {
+            channel.truncate(20);
+        }
+        assertThat(headerOnly.load()).isNull();
+    }
+
+    @Test
+    void disabledSnapshotIsNeitherWrittenNorRead() {
+        Path file = dir.resolve("disabled.dat");
+        new RuleSnapshotFile(file, true).save(ruleSet(simpleRule()));
+        RuleSnapshotFile disabled = new RuleSnapshotFile(file, false);
+
+        disabled.save(ruleSet(compositeRule()));
+
+        assertThat(disabled.load()).isNull();
+        assertThat(new RuleSnapshotFile(file, true).load().rules()).extracting(FraudRule::getId).containsExactly(1L);
+        assertThat(new RuleSnapshotFile(dir.resolve("missing.dat"), true).load()).isNull();
+    }
+
+    private RuleSnapshotFile saved(String name) {
+        RuleSnapshotFile snapshotFile = new RuleSnapshotFile(dir.resolve(name), true);
+        snapshotFile.save(ruleSet(simpleRule(), compositeRule()));
+        assertThat(snapshotFile.load()).isNotNull();
+        return snapshotFile;
+    }
+
+    private static void flipByte(Path file, long position) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer b = ByteBuffer.allocate(1);
+            channel.read(b, position);
+            b.put(0, (byte) (b.get(0) ^ 0x5a)).rewind();
+            channel.write(b, position);
+        }
+    }
+
+    private static RuleSet ruleSet(FraudRule... rules) {
+        return new RuleSet(1, List.of(rules), r -> List.of());
+    }
+
+    private static FraudRule simpleRule() {
+        FraudRule rule = new FraudRule();
+        rule.setId(1L);
+        rule.setName("High amount");
+        rule.setPriority(10);
+        rule.setFieldPath("amount");
+        rule.setOperator(RuleOperator.GREATER_THAN);
+        rule.setValue("5000");
+        rule.setApplicationTypes("loan,card");
+        rule.setActionType(RuleAction.FLAG);
+        rule.setActionConfig("{\"reason\": \"amount\"}");
+        ReflectionTestUtils.setField(rule, "createdAt", T0);
+        ReflectionTestUtils.setField(rule, "updatedAt", T0.plusSeconds(5));
+        return rule;
+    }
+
+    private static FraudRule compositeRule() {
+        FraudRule rule = new FraudRule();
+        rule.setId(2L);
+        rule.setName("Velocity from new devices");
+        rule.setPriority(20);
+        rule.setShadow(true);
+        rule.setConditionTree("{\"all\":[{\"field\":\"device.new\",\"op\":\"EQUALS\",\"value\":\"true\"},"
+            + "{\"field\":\"applicant.email\",\"op\":\"VELOCITY_EXCEEDS\",\"value\":\"3\",\"windowSeconds\":600}]}");
+        rule.setSourceSystems("web");
+        rule.setActionType(RuleAction.ENRICH);
+        rule.setActionConfig("{\"weight\": 40}");
+        ReflectionTestUtils.setField(rule, "updatedAt", T0);
+        return rule;
+    }
+}
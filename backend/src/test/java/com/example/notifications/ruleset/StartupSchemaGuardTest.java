@@ -0,0 +1,61 @@
+package com.example.notifications.ruleset;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StartupSchemaGuardTest {
+
+    // Nothing listens on port 1, so opening a connection is refused right away.
+    private final DataSource down = new DriverManagerDataSource("jdbc:postgresql://localhost:1/fraudgateway");
+    private final DataSource up = new DriverManagerDataSource("jdbc:h2:mem:schema-guard");
+
+    @Test
+    void unreachableDatabaseSkipsTheSchemaUpdate() {
+        Map<String, Object> properties = properties("update");
+
+        new StartupSchemaGuard(down, true).customize(properties);
+
+        assertThat(properties).containsEntry(AvailableSettings.HBM2DDL_AUTO, "none");
+    }
+
+    @Test
+    void reachableDatabaseKeepsTheSchemaUpdate() {
+        Map<String, Object> properties = properties("update");
+
+        new StartupSchemaGuard(up, true).customize(properties);
+
+        assertThat(properties).containsEntry(AvailableSettings.HBM2DDL_AUTO, "update");
+    }
+
+    @Test
+    void withoutASnapshotStartupStillNeedsTheDatabase() {
+        Map<String, Object> properties = properties("update");
+
+        new StartupSchemaGuard(down, false).customize(properties);
+
+        assertThat(properties).containsEntry(AvailableSettings.HBM2DDL_AUTO, "update");
+    }
+
+    @Test
+    void noSchemaActionDoesNotConnect() {
+        Map<String, Object> properties = new HashMap<>();
+        DataSource failing = new DriverManagerDataSource("jdbc:unknown:driver");
+
+        new StartupSchemaGuard(failing, true).customize(properties);
+
+        assertThat(properties).doesNotContainKey(AvailableSettings.HBM2DDL_AUTO);
+    }
+
+    private static Map<String, Object> properties(String action) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(AvailableSettings.HBM2DDL_AUTO, action);
+        return properties;
+    }
+}
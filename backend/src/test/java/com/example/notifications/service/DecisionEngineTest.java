@@ -0,0 +1,188 @@
+package com.example.notifications.service;
+
+import com.example.notifications.entity.FraudRule;
+import com.example.notifications.entity.RuleAction;
+import com.example.notifications.entity.RuleOperator;
+import com.example.notifications.lists.NamedListRegistry;
+import com.example.notifications.metrics.PipelineMetrics;
+import com.example.notifications.model.Application;
+import com.example.notifications.regex.RegexEngine;
+import com.example.notifications.ruleset.RuleSet;
+import com.example.notifications.velocity.VelocityStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DecisionEngineTest {
+
+    private final VelocityStore velocityStore = new VelocityStore(120, 31, 4, 10_000, new SimpleMeterRegistry());
+    private final RiskScoring riskScoring = new RiskScoring(50, 100);
+    private RuleEvaluator ruleEvaluator;
+
+    // Priority order: ENRICH 30, FLAG, ENRICH 40, BLOCK, ROUTE.
+    private final FraudRule newDevice = rule(1, 10, RuleAction.ENRICH, "{\"weight\": 30}", "device.new", "true");
+    private final FraudRule bigAmount = rule(2, 20, RuleAction.FLAG, "{\"reason\": \"amount\"}", "amount", "big");
+    private final FraudRule riskyCountry = rule(3, 30, RuleAction.ENRICH, "{\"weight\": 40}", "country", "NG");
+    private final FraudRule blockedEmail = rule(4, 40, RuleAction.BLOCK, "{\"reason\": \"email\"}", "email", "bad");
+    private final FraudRule review = rule(5, 50, RuleAction.ROUTE, "{\"topic\": \"manual-review\"}", "channel", "web");
+    private final List<FraudRule> rules = List.of(newDevice, bigAmount, riskyCountry, blockedEmail, review);
+
+    @TempDir
+    Path dir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        ruleEvaluator = new RuleEvaluator(new PipelineMetrics(new SimpleMeterRegistry(), 500), velocityStore,
+            new NamedListRegistry(dir), new RegexEngine(100_000), event -> { });
+    }
+
+    @Test
+    void allEvaluatesEveryRuleAndTheHighestPriorityActionDecides() {
+        Decision decision = decide(EvaluationStrategy.ALL, Map.of(
+            "amount", "big", "email", "bad", "channel", "web", "device", Map.of("new", "true")));
+
+        assertThat(decision.matchedRules()).containsExactly(newDevice, bigAmount, blockedEmail, review);
+        assertThat(decision.actionRules()).containsExactly(bigAmount, blockedEmail, review);
+        assertThat(decision.skippedRules()).isEmpty();
+        assertThat(decision.rulesEvaluated()).isEqualTo(5);
+        assertThat(decision.finalAction()).isEqualTo(RuleAction.FLAG);
+        assertThat(decision.actionDetails()).isEqualTo("{\"reason\": \"amount\"}");
+        assertThat(decision.score().total()).isEqualTo(30);
+    }
+
+    @Test
+    void firstMatchStopsAtTheFirstRuleWithItsOwnAction() {
+        Decision decision = decide(EvaluationStrategy.FIRST_MATCH, Map.of(
+            "amount", "big", "email", "bad", "device", Map.of("new", "true")));
+
+        // The ENRICH match before it only adds to the score.
+        assertThat(decision.matchedRules()).containsExactly(newDevice, bigAmount);
+        assertThat(decision.skippedRules()).containsExactly(riskyCountry, blockedEmail, review);
+        assertThat(decision.rulesEvaluated()).isEqualTo(2);
+        assertThat(decision.finalAction()).isEqualTo(RuleAction.FLAG);
+    }
+
+    @Test
+    void stopOnBlockContinuesPastOtherActionsUntilABlock() {
+        Decision decision = decide(EvaluationStrategy.STOP_ON_BLOCK, Map.of(
+            "amount", "big", "email", "bad", "channel", "web"));
+
+        assertThat(decision.matchedRules()).containsExactly(bigAmount, blockedEmail);
+        assertThat(decision.skippedRules()).containsExactly(review);
+        assertThat(decision.finalAction()).isEqualTo(RuleAction.FLAG);
+        assertThat(decide(EvaluationStrategy.ALL, Map.of("amount", "big", "email", "bad", "channel", "web")).outcome())
+            .isEqualTo(decision.outcome());
+    }
+
+    @Test
+    void noMatchIsCleanAndEvaluatesEverything() {
+        for (EvaluationStrategy strategy : EvaluationStrategy.values()) {
+            Decision decision = decide(strategy, Map.of("amount", "small"));
+
+            assertThat(decision.outcome()).isEqualTo("CLEAN");
+            assertThat(decision.matchedRules()).isEmpty();
+            assertThat(decision.skippedRules()).isEmpty();
+            assertThat(decision.rulesEvaluated()).isEqualTo(rules.size());
+        }
+    }
+
+    @Test
+    void blockingScoreEndsEvaluationUnderEveryStrategy() {
+        FraudRule heavy = rule(6, 35, RuleAction.ENRICH, "{\"weight\": 40}", "country", "NG");
+        List<FraudRule> scored = List.of(newDevice, riskyCountry, heavy, blockedEmail, review);
+        Map<String, Object> data = Map.of("country", "NG", "email", "bad", "device", Map.of("new", "true"));
+
+        for (EvaluationStrategy strategy : EvaluationStrategy.values()) {
+            Decision decision = engine(strategy).decide(application(data), scope(scored, Set.of()));
+
+            assertThat(decision.score().total()).isEqualTo(110);
+            assertThat(decision.finalAction()).isEqualTo(RuleAction.BLOCK);
+            assertThat(decision.actionRules()).isEmpty();
+            assertThat(decision.skippedRules()).containsExactly(blockedEmail, review);
+            assertThat(decision.actionDetails()).contains("Risk score 110 reached block threshold 100");
+        }
+    }
+
+    @Test
+    void flaggingScoreDecidesOnlyWithoutAMatchedActionRule() {
+        Decision flagged = decide(EvaluationStrategy.ALL, Map.of("country", "NG", "device", Map.of("new", "true")));
+
+        assertThat(flagged.finalAction()).isEqualTo(RuleAction.FLAG);
+        assertThat(flagged.actionDetails()).contains("reached flag threshold 50");
+
+        Decision routed = decide(EvaluationStrategy.ALL, Map.of(
+            "country", "NG", "channel", "web", "device", Map.of("new", "true")));
+        assertThat(routed.finalAction()).isEqualTo(RuleAction.ROUTE);
+        assertThat(routed.actionDetails()).isEqualTo("{\"topic\": \"manual-review\"}");
+    }
+
+    @Test
+    void velocityIsCountedEvenWhenTheVelocityRuleIsSkipped() {
+        FraudRule velocity = rule(7, 60, RuleAction.FLAG, null, "email", "1");
+        velocity.setOperator(RuleOperator.VELOCITY_EXCEEDS);
+        velocity.setWindowSeconds(600);
+        List<FraudRule> withVelocity = List.of(blockedEmail, velocity);
+        RuleSet.Scope scope = scope(withVelocity, Set.of("email"));
+
+        Decision first = engine(EvaluationStrategy.STOP_ON_BLOCK).decide(application(Map.of("email", "bad")), scope);
+        Decision second = engine(EvaluationStrategy.STOP_ON_BLOCK).decide(application(Map.of("email", "bad")), scope);
+        assertThat(first.skippedRules()).containsExactly(velocity);
+        assertThat(second.skippedRules()).containsExactly(velocity);
+
+        Decision third = engine(EvaluationStrategy.ALL).decide(application(Map.of("email", "bad")), scope);
+        assertThat(third.matchedRules()).containsExactly(blockedEmail, velocity);
+    }
+
+    @Test
+    void strategiesStopAfterTheirDecisiveActions() {
+        assertThat(EvaluationStrategy.ALL.stopsAfter(blockedEmail)).isFalse();
+        assertThat(EvaluationStrategy.FIRST_MATCH.stopsAfter(bigAmount)).isTrue();
+        assertThat(EvaluationStrategy.FIRST_MATCH.stopsAfter(review)).isTrue();
+        assertThat(EvaluationStrategy.FIRST_MATCH.stopsAfter(newDevice)).isFalse();
+        assertThat(EvaluationStrategy.STOP_ON_BLOCK.stopsAfter(bigAmount)).isFalse();
+        assertThat(EvaluationStrategy.STOP_ON_BLOCK.stopsAfter(blockedEmail)).isTrue();
+    }
+
+    private Decision decide(EvaluationStrategy strategy, Map<String, Object> data) {
+        return engine(strategy).decide(application(data), scope(rules, Set.of()));
+    }
+
+    private DecisionEngine engine(EvaluationStrategy strategy) {
+        return new DecisionEngine(ruleEvaluator, velocityStore, null, strategy, riskScoring);
+    }
+
+    private static RuleSet.Scope scope(List<FraudRule> rules, Set<String> velocityFields) {
+        return new RuleSet.Scope(rules, velocityFields, List.of());
+    }
+
+    private static Application application(Map<String, Object> data) {
+        return new Application("APP-1", "LOAN", "web", new HashMap<>(data), Instant.now());
+    }
+
+    /**
+     * An EQUALS rule on {@code field}.
+     */
+    private static FraudRule rule(long id, int priority, RuleAction action, String actionConfig, String field, String value) {
+        FraudRule rule = new FraudRule();
+        rule.setId(id);
+        rule.setName("rule-" + id);
+        rule.setPriority(priority);
+        rule.setFieldPath(field);
+        rule.setOperator(RuleOperator.EQUALS);
+        rule.setValue(value);
+        rule.setActionType(action);
+        rule.setActionConfig(actionConfig);
+        return rule;
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.notifications.service;
+
+import com.example.notifications.entity.FraudRule;
+import com.example.notifications.entity.RuleAction;
+import com.example.notifications.entity.RuleOperator;
+import com.example.notifications.lists.NamedListRegistry;
+import com.example.notifications.metrics.PipelineMetrics;
+import com.example.notifications.model.Application;
+import com.example.notifications.regex.RegexEngine;
+import com.example.notifications.ruleset.RuleSet;
+import com.example.notifications.velocity.VelocityStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ParallelRuleEvaluatorTest {
+
+    private static final int RULES = 3_000;
+    private static final int FIELDS = 20;
+    private static final int VALUES = 200;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final VelocityStore velocityStore = new VelocityStore(120, 31, 4, 10_000, new SimpleMeterRegistry());
+    private final RiskScoring riskScoring = new RiskScoring(50, 100);
+    private final Random random = new Random(42);
+    private RuleEvaluator ruleEvaluator;
+    private ParallelRuleEvaluator parallel;
+
+    @TempDir
+    Path dir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        ruleEvaluator = new RuleEvaluator(new PipelineMetrics(new SimpleMeterRegistry(), 500), velocityStore,
+            new NamedListRegistry(dir), new RegexEngine(100_000), event -> { });
+        // max-cpu-load 1.0: the load is never sampled here, so parallel mode always applies.
+        parallel = new ParallelRuleEvaluator(ruleEvaluator, 1_000, 256, 3, 1.0, registry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        parallel.close();
+    }
+
+    @Test
+    void parallelDecisionsMatchSequentialOnesUnderEveryStrategy() {
+        RuleSet.Scope scope = new RuleSet.Scope(rules(), Set.of(), List.of());
+
+        for (EvaluationStrategy strategy : EvaluationStrategy.values()) {
+            DecisionEngine sequentialEngine = new DecisionEngine(ruleEvaluator, velocityStore, null, strategy, riskScoring);
+            DecisionEngine parallelEngine = new DecisionEngine(ruleEvaluator, velocityStore, parallel, strategy, riskScoring);
+            for (int i = 0; i < 200; i++) {
+                Application application = application();
+                Decision sequential = sequentialEngine.decide(application, scope);
+                Decision sharded = parallelEngine.decide(application, scope);
+
+                assertThat(sharded.matchedRules()).as("%s #%d", strategy, i).isEqualTo(sequential.matchedRules());
+                assertThat(sharded.skippedRules()).isEqualTo(sequential.skippedRules());
+                assertThat(sharded.rulesEvaluated()).isEqualTo(sequential.rulesEvaluated());
+                assertThat(sharded.finalAction()).isEqualTo(sequential.finalAction());
+                assertThat(sharded.actionDetails()).isEqualTo(sequential.actionDetails());
+                assertThat(sharded.score().total()).isEqualTo(sequential.score().total());
+            }
+        }
+        assertThat(registry.get("fraud.evaluation.parallel").tag("mode", "parallel").counter().count())
+            .isEqualTo(200 * EvaluationStrategy.values().length);
+    }
+
+    @Test
+    void flagsMatchSequentialEvaluationUpToTheFirstStoppingMatch() {
+        List<FraudRule> rules = rules();
+
+        for (int i = 0; i < 100; i++) {
+            Application application = application();
+            boolean[] flags = parallel.evaluate(rules, application, EvaluationStrategy.FIRST_MATCH::stopsAfter);
+            for (int r = 0; r < rules.size(); r++) {
+                boolean matched = ruleEvaluator.evaluate(rules.get(r), application);
+                assertThat(flags[r]).as("rule %d", r).isEqualTo(matched);
+                if (matched && EvaluationStrategy.FIRST_MATCH.stopsAfter(rules.get(r))) {
+                    break;
+                }
+            }
+        }
+    }
+
+    @Test
+    void parallelizesOnlyLargeRuleSetsAboveOneShard() {
+        assertThat(parallel.shouldParallelize(999)).isFalse();
+        assertThat(parallel.shouldParallelize(1_000)).isTrue();
+
+        ParallelRuleEvaluator disabled = new ParallelRuleEvaluator(ruleEvaluator, 0, 256, 1, 1.0, new SimpleMeterRegistry());
+        ParallelRuleEvaluator oneShard = new ParallelRuleEvaluator(ruleEvaluator, 10, 5_000, 1, 1.0, new SimpleMeterRegistry());
+        try {
+            assertThat(disabled.shouldParallelize(RULES)).isFalse();
+            assertThat(oneShard.shouldParallelize(RULES)).isFalse();
+        } finally {
+            disabled.close();
+            oneShard.close();
+        }
+    }
+
+    /**
+     * Rules in priority order, each an EQUALS test that matches about one application in
+     * {@value #VALUES}, with a mix of actions and ENRICH weights.
+     */
+    private List<FraudRule> rules() {
+        RuleAction[] actions = RuleAction.values();
+        List<FraudRule> rules = new ArrayList<>(RULES);
+        for (int i = 0; i < RULES; i++) {
+            FraudRule rule = new FraudRule();
+            rule.setId((long) i + 1);
+            rule.setName("rule-" + i);
+            rule.setPriority(i);
+            rule.setFieldPath("f" + random.nextInt(FIELDS));
+            rule.setOperator(RuleOperator.EQUALS);
+            rule.setValue("v" + random.nextInt(VALUES));
+            // Mostly light ENRICH rules: a stopping match or blocking score usually comes only
+            // after several shards, and sometimes not at all.
+            RuleAction action = random.nextInt(10) < 9 ? RuleAction.ENRICH : actions[random.nextInt(actions.length)];
+            rule.setActionType(action);
+            rule.setActionConfig(action == RuleAction.ENRICH
+                ? "{\"weight\": " + random.nextInt(10) + "}"
+                : "{\"rule\": " + i + "}");
+            rules.add(rule);
+        }
+        return rules;
+    }
+
+    private Application application() {
+        Map<String, Object> data = new HashMap<>();
+        for (int f = 0; f < FIELDS; f++) {
+            data.put("f" + f, "v" + random.nextInt(VALUES));
+        }
+        return new Application("APP-" + random.nextInt(), "LOAN", "web", data, Instant.now());
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.notifications.service;
+
+import com.example.notifications.entity.FraudRule;
+import com.example.notifications.entity.RuleAction;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RiskScoringTest {
+
+    private final RiskScoring scoring = new RiskScoring(50, 100);
+
+    @Test
+    void scoreBelowTheFlagThresholdDecidesNothing() {
+        RiskScoring.Score score = scoring.newScore();
+        assertThat(score.scored()).isFalse();
+        assertThat(score.decision()).isNull();
+
+        score.add(rule(1, "{\"weight\": 49.5}"));
+
+        assertThat(score.scored()).isTrue();
+        assertThat(score.decision()).isNull();
+        assertThat(score.blocks()).isFalse();
+    }
+
+    @Test
+    void thresholdsAreInclusive() {
+        RiskScoring.Score score = scoring.newScore();
+        score.add(rule(1, "{\"weight\": 50}"));
+        assertThat(score.decision()).isEqualTo(RuleAction.FLAG);
+        assertThat(score.reason()).isEqualTo("Risk score 50 reached flag threshold 50");
+
+        score.add(rule(2, "{\"weight\": \"50\"}"));
+        assertThat(score.decision()).isEqualTo(RuleAction.BLOCK);
+        assertThat(score.blocks()).isTrue();
+        assertThat(score.reason()).isEqualTo("Risk score 100 reached block threshold 100");
+    }
+
+    @Test
+    void rulesWithoutAUsableWeightStillCountAsScored() {
+        RiskScoring.Score score = scoring.newScore();
+        score.add(rule(1, null));
+        score.add(rule(2, "{\"weight\": \"heavy\"}"));
+        score.add(rule(3, "not json"));
+
+        assertThat(score.scored()).isTrue();
+        assertThat(score.total()).isZero();
+        assertThat(score.contributions()).extracting(RiskScoring.Contribution::ruleId).containsExactly(1L, 2L, 3L);
+    }
+
+    @Test
+    void negativeWeightsLowerTheScore() {
+        RiskScoring.Score score = scoring.newScore();
+        score.add(rule(1, "{\"weight\": 80}"));
+        score.add(rule(2, "{\"weight\": -40}"));
+
+        assertThat(score.total()).isEqualTo(40);
+        assertThat(score.decision()).isNull();
+    }
+
+    @Test
+    void contributionsAreAttachedToRoutedMessages() {
+        RiskScoring.Score score = scoring.newScore();
+        Map<String, Object> unscored = new HashMap<>();
+        score.attachTo(unscored);
+        assertThat(unscored).isEmpty();
+
+        score.add(rule(7, "{\"weight\": 12.5}"));
+        Map<String, Object> message = new HashMap<>();
+        score.attachTo(message);
+
+        assertThat(message).containsEntry("_riskScore", 12.5);
+        assertThat(message.get("_riskContributions"))
+            .isEqualTo(List.of(Map.of("ruleId", 7L, "rule", "rule-7", "weight", 12.5)));
+        assertThat(score.contributionsJson()).isEqualTo("[{\"ruleId\":7,\"rule\":\"rule-7\",\"weight\":12.5}]");
+    }
+
+    @Test
+    void parsesWeightsAndRejectsInvalidOnes() {
+        assertThat(RiskScoring.parseWeight(null)).isZero();
+        assertThat(RiskScoring.parseWeight("{}")).isZero();
+        assertThat(RiskScoring.parseWeight("{\"weight\": 25}")).isEqualTo(25);
+        assertThat(RiskScoring.parseWeight("{\"weight\": \" 7.5 \"}")).isEqualTo(7.5);
+        assertThatThrownBy(() -> RiskScoring.parseWeight("{\"weight\": \"heavy\"}"))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("ENRICH weight must be a number: heavy");
+        assertThatThrownBy(() -> RiskScoring.parseWeight("weight=5"))
+            .hasMessage("actionConfig is not valid JSON");
+    }
+
+    @Test
+    void rejectsThresholdsOutOfOrder() {
+        assertThatThrownBy(() -> new RiskScoring(0, 100)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new RiskScoring(60, 50)).isInstanceOf(IllegalArgumentException.class);
+        assertThat(new RiskScoring(50, 50).newScore()).isNotNull();
+    }
+
+    private static FraudRule rule(long id, String actionConfig) {
+        FraudRule rule = new FraudRule();
+        rule.setId(id);
+        rule.setName("rule-" + id);
+        rule.setActionType(RuleAction.ENRICH);
+        rule.setActionConfig(actionConfig);
+        return rule;
+    }
+}
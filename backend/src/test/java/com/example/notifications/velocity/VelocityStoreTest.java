@@ -0,0 +1,109 @@
+package com.example.notifications.velocity;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VelocityStoreTest {
+
+    private static final long BUCKET = 120_000;
+    private static final int BUCKETS = 31;
+    // Start of an arbitrary bucket, so tests can place records at known offsets within it.
+    private static final long START = 14_000_000L * BUCKET;
+
+    private final VelocityStore store = new VelocityStore(120, BUCKETS, 4, 10_000, new SimpleMeterRegistry());
+    private final long key = VelocityStore.key("applicant.email", "a@example.com");
+
+    @Test
+    void windowShorterThanTheCurrentBucketCountsAllOfIt() {
+        long now = START + 100_000;
+        store.record(key, now);
+        assertThat(store.count(key, 10_000, now)).isEqualTo(1);
+        assertThat(store.count(key, 60_000, now)).isEqualTo(1);
+
+        store.record(key, now);
+        store.record(key, now);
+        store.record(key, now);
+        assertThat(store.count(key, 10_000, now)).isEqualTo(4);
+        assertThat(store.count(key, 1_000, now + 15_000)).isEqualTo(4);
+    }
+
+    @Test
+    void oldestBucketOfAWindowIsProRated() {
+        for (int i = 0; i < 10; i++) {
+            store.record(key, START + 60_000);
+        }
+        for (int i = 0; i < 5; i++) {
+            store.record(key, START + BUCKET + 30_000);
+        }
+        long now = START + BUCKET + 60_000;
+
+        // Half of the previous bucket is inside a two-minute window.
+        assertThat(store.count(key, 120_000, now)).isEqualTo(10);
+        assertThat(store.count(key, 240_000, now)).isEqualTo(15);
+        assertThat(store.count(key, 30_000, now)).isEqualTo(5);
+        // Nothing happened in the bucket after the records.
+        assertThat(store.count(key, 120_000, START + 3 * BUCKET + 60_000)).isEqualTo(0);
+        assertThat(store.count(key, 600_000, START + 3 * BUCKET + 60_000)).isEqualTo(15);
+    }
+
+    @Test
+    void keysCountIndependently() {
+        long other = VelocityStore.key("applicant.email", "b@example.com");
+        store.record(key, START);
+        store.record(key, START);
+        store.record(other, START);
+
+        assertThat(store.count(key, 60_000, START)).isEqualTo(2);
+        assertThat(store.count(other, 60_000, START)).isEqualTo(1);
+        assertThat(store.count(VelocityStore.key("applicant.phone", "a@example.com"), 60_000, START)).isZero();
+    }
+
+    @Test
+    void keysIdleForTheWholeRingExpireAndAreSwept() {
+        store.record(key, START);
+        long afterRing = START + BUCKETS * BUCKET;
+
+        assertThat(store.count(key, store.maxWindow().toMillis(), afterRing - BUCKET)).isEqualTo(1);
+        assertThat(store.count(key, store.maxWindow().toMillis(), afterRing)).isZero();
+        assertThat(store.size()).isEqualTo(1);
+
+        store.evictExpired(afterRing);
+        assertThat(store.size()).isZero();
+
+        store.record(key, afterRing);
+        assertThat(store.count(key, 60_000, afterRing)).isEqualTo(1);
+    }
+
+    @Test
+    void fullStoreEvictsLeastRecentlyCountedKeys() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        // One stripe of the smallest table: 1024 slots, 768 keys at the load limit.
+        VelocityStore full = new VelocityStore(120, BUCKETS, 1, 100, registry);
+        int keys = 1_000;
+        for (int i = 0; i < keys; i++) {
+            full.record(VelocityStore.key("applicant.deviceId", i), i < 768 ? START : START + BUCKET);
+        }
+
+        assertThat(full.size()).isEqualTo(768);
+        assertThat(registry.get("fraud.velocity.evicted").counter().count()).isEqualTo(keys - 768);
+        long counted = 0;
+        for (int i = 0; i < keys; i++) {
+            long count = full.count(VelocityStore.key("applicant.deviceId", i), 600_000, START + BUCKET);
+            assertThat(count).isBetween(0L, 1L);
+            counted += count;
+        }
+        // Every key still held is found through its probe run after the evictions.
+        assertThat(counted).isEqualTo(768);
+        assertThat(full.count(VelocityStore.key("applicant.deviceId", keys - 1), 600_000, START + BUCKET)).isEqualTo(1);
+    }
+
+    @Test
+    void recordsOlderThanTheRingAreIgnored() {
+        store.record(key, START + BUCKETS * BUCKET);
+        store.record(key, START);
+
+        assertThat(store.count(key, store.maxWindow().toMillis(), START + BUCKETS * BUCKET)).isEqualTo(1);
+    }
+}
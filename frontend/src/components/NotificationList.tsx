@@ -30,6 +30,16 @@ export function NotificationList({ notifications }: Props) {
               <div className="notification-body">
                 <strong>User: {notification.userId}</strong>
                 <p>{notification.message}</p>
+                {notification.digest && (
+                  <ul className="notification-digest">
+                    {notification.digest.sample.map((item, i) => (
+                      <li key={i}>{item}</li>
+                    ))}
+                    {notification.digest.count > notification.digest.sample.length && (
+                      <li>and {notification.digest.count - notification.digest.sample.length} more</li>
+                    )}
+                  </ul>
+                )}
               </div>
             </li>
           ))}
@@ -23,21 +23,26 @@ const defaultRule: FraudRule = {
 
 export function RuleForm({ rule, operators, actions, onSubmit, onCancel }: Props) {
   const [formData, setFormData] = useState<FraudRule>(defaultRule);
-  const [actionConfig, setActionConfig] = useState({ reason: '', topic: '', severity: 'MEDIUM' });
+  const [actionConfig, setActionConfig] = useState({ reason: '', topic: '', severity: 'MEDIUM', weight: '' });
+  const [conditionTree, setConditionTree] = useState('');
+  const [treeError, setTreeError] = useState('');
 
   useEffect(() => {
+    setTreeError('');
     if (rule) {
       setFormData(rule);
+      setConditionTree(rule.conditionTree ? JSON.stringify(rule.conditionTree, null, 2) : '');
       if (rule.actionConfig) {
         try {
           setActionConfig(JSON.parse(rule.actionConfig));
         } catch {
-          setActionConfig({ reason: '', topic: '', severity: 'MEDIUM' });
+          setActionConfig({ reason: '', topic: '', severity: 'MEDIUM', weight: '' });
         }
       }
     } else {
       setFormData(defaultRule);
-      setActionConfig({ reason: '', topic: '', severity: 'MEDIUM' });
+      setConditionTree('');
+      setActionConfig({ reason: '', topic: '', severity: 'MEDIUM', weight: '' });
     }
   }, [rule]);
 
@@ -51,9 +56,24 @@ export function RuleForm({ rule, operators, actions, onSubmit, onCancel }: Props
       configJson = JSON.stringify({ reason: actionConfig.reason });
     } else if (formData.actionType === 'ROUTE') {
       configJson = JSON.stringify({ topic: actionConfig.topic });
+    } else if (formData.actionType === 'ENRICH') {
+      configJson = JSON.stringify({ weight: Number(actionConfig.weight) || 0 });
     }
 
-    onSubmit({ ...formData, actionConfig: configJson });
+    let tree: unknown = null;
+    if (conditionTree.trim()) {
+      try {
+        tree = JSON.parse(conditionTree);
+      } catch {
+        setTreeError('Condition tree is not valid JSON');
+        return;
+      }
+    }
+    setTreeError('');
+
+    onSubmit(tree
+      ? { ...formData, fieldPath: '', value: '', conditionTree: tree, actionConfig: configJson }
+      : { ...formData, conditionTree: null, actionConfig: configJson });
   };
 
   const handleChange = (field: keyof FraudRule, value: string | number | boolean) => {
@@ -101,15 +121,54 @@ export function RuleForm({ rule, operators, actions, onSubmit, onCancel }: Props
         />
       </div>
 
+      <div className="form-row">
+        <div className="form-group">
+          <label htmlFor="applicationTypes">Application Types</label>
+          <input
+            id="applicationTypes"
+            type="text"
+            value={formData.applicationTypes || ''}
+            onChange={(e) => handleChange('applicationTypes', e.target.value)}
+            placeholder="e.g., credit_card, loan"
+          />
+          <small>Comma-separated; empty applies to all types</small>
+        </div>
+
+        <div className="form-group">
+          <label htmlFor="sourceSystems">Source Systems</label>
+          <input
+            id="sourceSystems"
+            type="text"
+            value={formData.sourceSystems || ''}
+            onChange={(e) => handleChange('sourceSystems', e.target.value)}
+            placeholder="e.g., partner-a"
+          />
+          <small>Comma-separated; empty applies to all sources</small>
+        </div>
+      </div>
+
       <fieldset>
         <legend>Condition</legend>
+        <div className="form-group">
+          <label htmlFor="conditionTree">Condition Tree (JSON, optional)</label>
+          <textarea
+            id="conditionTree"
+            rows={conditionTree ? 8 : 2}
+            value={conditionTree}
+            onChange={(e) => setConditionTree(e.target.value)}
+            placeholder='e.g., {"all": [{"field": "amount", "op": "GREATER_THAN", "value": "10000"}, {"not": {"field": "country", "op": "EQUALS", "value": "US"}}]}'
+          />
+          {treeError ? <small className="error">{treeError}</small> : <small>Leave empty to use a single condition</small>}
+        </div>
+
+        {!conditionTree.trim() && (
         <div className="form-row condition-row">
           <div className="form-group">
             <label htmlFor="fieldPath">Field Path *</label>
             <input
               id="fieldPath"
               type="text"
-              value={formData.fieldPath}
+              value={formData.fieldPath ?? ''}
               onChange={(e) => handleChange('fieldPath', e.target.value)}
               placeholder="e.g., amount, applicant.name"
               required
@@ -136,14 +195,30 @@ export function RuleForm({ rule, operators, actions, onSubmit, onCancel }: Props
             <input
               id="value"
               type="text"
-              value={formData.value}
+              value={formData.value ?? ''}
               onChange={(e) => handleChange('value', e.target.value)}
               placeholder="e.g., 10000"
               required={!['IS_NULL', 'IS_NOT_NULL'].includes(formData.operator)}
               disabled={['IS_NULL', 'IS_NOT_NULL'].includes(formData.operator)}
             />
           </div>
+
+          {formData.operator === 'VELOCITY_EXCEEDS' && (
+            <div className="form-group">
+              <label htmlFor="windowSeconds">Window (seconds) *</label>
+              <input
+                id="windowSeconds"
+                type="number"
+                value={formData.windowSeconds ?? ''}
+                onChange={(e) => handleChange('windowSeconds', parseInt(e.target.value))}
+                placeholder="e.g., 600"
+                min="1"
+                required
+              />
+            </div>
+          )}
         </div>
+        )}
       </fieldset>
 
       <fieldset>
@@ -204,6 +279,21 @@ export function RuleForm({ rule, operators, actions, onSubmit, onCancel }: Props
             />
           </div>
         )}
+
+        {formData.actionType === 'ENRICH' && (
+          <div className="form-group">
+            <label htmlFor="weight">Risk Weight</label>
+            <input
+              id="weight"
+              type="number"
+              step="any"
+              value={actionConfig.weight ?? ''}
+              onChange={(e) => setActionConfig((prev) => ({ ...prev, weight: e.target.value }))}
+              placeholder="e.g., 25"
+            />
+            <small>Added to the application's risk score when the condition matches</small>
+          </div>
+        )}
       </fieldset>
 
       <div className="form-actions">
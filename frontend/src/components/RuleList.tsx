@@ -31,8 +31,11 @@ export function RuleList({ rules, onToggle, onEdit, onDelete }: Props) {
       'REGEX': 'regex',
       'IN_LIST': 'in',
       'NOT_IN_LIST': 'not in',
+      'IN_NAMED_LIST': 'in list',
+      'NOT_IN_NAMED_LIST': 'not in list',
       'IS_NULL': 'is null',
       'IS_NOT_NULL': 'is not null',
+      'VELOCITY_EXCEEDS': 'seen more than',
     };
     return labels[op] || op;
   };
@@ -66,11 +69,24 @@ export function RuleList({ rules, onToggle, onEdit, onDelete }: Props) {
               </div>
 
               <div className="rule-condition">
-                <code>
-                  {rule.fieldPath} {formatOperator(rule.operator)} {rule.value}
-                </code>
+                {rule.conditionTree ? (
+                  <code title={JSON.stringify(rule.conditionTree, null, 2)}>composite condition</code>
+                ) : (
+                  <code>
+                    {rule.fieldPath} {formatOperator(rule.operator)} {rule.value}
+                    {rule.operator === 'VELOCITY_EXCEEDS' && ` times in ${rule.windowSeconds}s`}
+                  </code>
+                )}
               </div>
 
+              {(rule.applicationTypes || rule.sourceSystems) && (
+                <p className="rule-scope">
+                  {rule.applicationTypes && `Types: ${rule.applicationTypes}`}
+                  {rule.applicationTypes && rule.sourceSystems && ' · '}
+                  {rule.sourceSystems && `Sources: ${rule.sourceSystems}`}
+                </p>
+              )}
+
               {rule.description && (
                 <p className="rule-description">{rule.description}</p>
               )}
@@ -4,6 +4,14 @@ export interface Notification {
   type: string;
   message: string;
   timestamp: string;
+  digest?: NotificationDigest | null;
+}
+
+export interface NotificationDigest {
+  count: number;
+  from: string;
+  to: string;
+  sample: string[];
 }
 
 export interface NotificationRequest {
@@ -24,8 +32,11 @@ export type RuleOperator =
   | 'REGEX'
   | 'IN_LIST'
   | 'NOT_IN_LIST'
+  | 'IN_NAMED_LIST'
+  | 'NOT_IN_NAMED_LIST'
   | 'IS_NULL'
-  | 'IS_NOT_NULL';
+  | 'IS_NOT_NULL'
+  | 'VELOCITY_EXCEEDS';
 
 export type RuleAction = 'FLAG' | 'BLOCK' | 'ROUTE' | 'ENRICH';
 
@@ -38,6 +49,10 @@ export interface FraudRule {
   fieldPath: string;
   operator: RuleOperator;
   value: string;
+  windowSeconds?: number;
+  conditionTree?: unknown;
+  applicationTypes?: string | null;
+  sourceSystems?: string | null;
   actionType: RuleAction;
   actionConfig?: string;
   createdAt?: string;
@@ -50,9 +65,14 @@ export interface AuditLog {
   applicationType: string;
   sourceSystem: string;
   rulesEvaluated: number;
+  rulesSkipped: number;
+  skippedRuleIds: string | null;
+  evaluationStrategy: string | null;
   rulesMatched: number;
   matchedRuleIds: string;
   matchedRuleNames: string;
+  riskScore: number | null;
+  riskContributions: string | null;
   finalAction: RuleAction | null;
   actionDetails: string;
   processedAt: string;